@@ -0,0 +1,89 @@
+package com.joaomps.devicemanager.brand;
+
+import com.joaomps.devicemanager.dto.BulkChunkProgress;
+import com.joaomps.devicemanager.event.DeviceChangedEvent;
+import com.joaomps.devicemanager.model.Device;
+import com.joaomps.devicemanager.repository.DeviceRepository;
+import com.joaomps.devicemanager.tenant.TenantContext;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Online migration of devices written before the brand dictionary existed.
+ *
+ * <p>Devices without a brand id are walked in id order, one chunk per transaction, and pointed at
+ * their brand entry with one UPDATE per brand. Rows are only updated while they still have no
+ * brand id, so a concurrent write, which always sets it, is never overwritten. Devices whose brand
+ * spelling changes to the entry's are reloaded and published, so caches pick the new spelling up.
+ */
+@Component
+public class BrandBackfill {
+
+  private final DeviceRepository deviceRepository;
+  private final BrandDictionary brandDictionary;
+  private final TransactionTemplate transactionTemplate;
+  private final ApplicationEventPublisher eventPublisher;
+
+  public BrandBackfill(DeviceRepository deviceRepository, BrandDictionary brandDictionary,
+      PlatformTransactionManager transactionManager, ApplicationEventPublisher eventPublisher) {
+    this.deviceRepository = deviceRepository;
+    this.brandDictionary = brandDictionary;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.eventPublisher = eventPublisher;
+  }
+
+  /**
+   * Backfills the next {@code chunkSize} devices without a brand id after {@code afterId} and
+   * hands the chunk's progress to {@code onProgress} before its transaction commits. Returns
+   * empty once no such device is left.
+   */
+  public Optional<BulkChunkProgress> backfillChunk(long afterId, int chunkSize, int chunkNumber,
+      Consumer<BulkChunkProgress> onProgress) {
+    return Optional.ofNullable(transactionTemplate.execute(status -> {
+      List<Device> devices = deviceRepository.findWithoutBrandId(afterId, Limit.of(chunkSize));
+      if (devices.isEmpty()) {
+        return null;
+      }
+
+      Map<BrandDictionary.Entry, List<Long>> byBrand = new LinkedHashMap<>();
+      List<Long> renamed = new ArrayList<>();
+      for (Device device : devices) {
+        BrandDictionary.Entry entry = brandDictionary.resolve(
+            TenantContext.of(device.getTenantId()), device.getBrand());
+        if (entry == null) {
+          continue;
+        }
+        byBrand.computeIfAbsent(entry, key -> new ArrayList<>()).add(device.getId());
+        if (!entry.name().equals(device.getBrand())) {
+          renamed.add(device.getId());
+        }
+      }
+
+      int updated = 0;
+      LocalDateTime now = LocalDateTime.now();
+      for (Map.Entry<BrandDictionary.Entry, List<Long>> brand : byBrand.entrySet()) {
+        updated += deviceRepository.assignBrand(brand.getValue(), brand.getKey().id(),
+            brand.getKey().name(), now);
+      }
+      if (!renamed.isEmpty()) {
+        deviceRepository.findAllById(renamed)
+            .forEach(device -> eventPublisher.publishEvent(DeviceChangedEvent.saved(device)));
+      }
+
+      BulkChunkProgress progress = new BulkChunkProgress(chunkNumber, devices.getFirst().getId(),
+          devices.getLast().getId(), devices.size(), updated, 0, devices.size() < chunkSize);
+      onProgress.accept(progress);
+      return progress;
+    }));
+  }
+}
@@ -0,0 +1,72 @@
+package com.joaomps.devicemanager.brand;
+
+import com.joaomps.devicemanager.model.JobStatus;
+import com.joaomps.devicemanager.model.JobType;
+import com.joaomps.devicemanager.repository.DeviceRepository;
+import com.joaomps.devicemanager.repository.JobRepository;
+import com.joaomps.devicemanager.service.JobService;
+import java.util.EnumSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Starts the {@link BrandBackfill} job at startup when devices still lack a brand id, and tells
+ * the {@link BrandDictionary} once none does, so brand filters stop matching by name.
+ */
+@Component
+public class BrandBackfillScheduler {
+
+  private static final Logger log = LoggerFactory.getLogger(BrandBackfillScheduler.class);
+
+  private final DeviceRepository deviceRepository;
+  private final JobRepository jobRepository;
+  private final JobService jobService;
+  private final BrandDictionary brandDictionary;
+
+  public BrandBackfillScheduler(DeviceRepository deviceRepository, JobRepository jobRepository,
+      JobService jobService, BrandDictionary brandDictionary) {
+    this.deviceRepository = deviceRepository;
+    this.jobRepository = jobRepository;
+    this.jobService = jobService;
+    this.brandDictionary = brandDictionary;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    try {
+      if (!checkBackfilled() && !jobRepository.existsByTypeAndStatusIn(JobType.BRAND_BACKFILL,
+          EnumSet.of(JobStatus.PENDING, JobStatus.RUNNING))) {
+        log.info("Devices without a brand id found, starting the brand backfill");
+        jobService.submit(JobType.BRAND_BACKFILL, null);
+      }
+    } catch (DataAccessException e) {
+      log.warn("Could not start the brand backfill: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Returns whether every device has a brand id. Once it has, this never queries again: every
+   * write sets the brand id.
+   */
+  @Scheduled(fixedDelayString = "${device-manager.brands.backfill-check-interval:PT1M}")
+  public boolean checkBackfilled() {
+    if (brandDictionary.isBackfilled()) {
+      return true;
+    }
+    try {
+      if (!deviceRepository.existsByBrandIdIsNull()) {
+        brandDictionary.markBackfilled();
+        log.info("Every device references its brand, brand filters now use the brand id only");
+        return true;
+      }
+    } catch (DataAccessException e) {
+      log.warn("Could not check the brand backfill: {}", e.getMessage());
+    }
+    return false;
+  }
+}
@@ -0,0 +1,159 @@
+package com.joaomps.devicemanager.brand;
+
+import com.joaomps.devicemanager.model.Brand;
+import com.joaomps.devicemanager.repository.BrandRepository;
+import com.joaomps.devicemanager.tenant.TenantContext;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Maps brand names to their entry in the {@link Brand} table, per tenant.
+ *
+ * <p>Names are matched ignoring case and surrounding or repeated whitespace. Resolved entries are
+ * kept in memory for the life of the process: there are few brands, entries never change once
+ * created, and every device of a brand then shares one name instance. New brands are inserted in
+ * their own transaction, so an entry is only cached once it is committed, even if the device
+ * write that created it rolls back.
+ */
+@Component
+public class BrandDictionary {
+
+  private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+  private final BrandRepository brandRepository;
+  private final TransactionTemplate newTransaction;
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+  private volatile boolean backfilled;
+
+  public BrandDictionary(BrandRepository brandRepository,
+      PlatformTransactionManager transactionManager) {
+    this.brandRepository = brandRepository;
+    this.newTransaction = new TransactionTemplate(transactionManager);
+    this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+  }
+
+  /**
+   * Returns the entry of {@code tenant} for {@code brand}, creating it if this is the tenant's
+   * first device of the brand. Returns {@code null} for a blank name.
+   */
+  public Entry resolve(String tenant, String brand) {
+    String name = clean(brand);
+    if (name == null) {
+      return null;
+    }
+    String key = name.toLowerCase(Locale.ROOT);
+    String cacheKey = tenant + '\n' + key;
+    Entry entry = entries.get(cacheKey);
+    if (entry != null) {
+      return entry;
+    }
+
+    Brand stored = brandRepository.findByTenantIdAndNormalizedName(tenant, key)
+        .orElseGet(() -> insert(tenant, key, name));
+    return entries.computeIfAbsent(cacheKey, k -> Entry.of(stored));
+  }
+
+  /**
+   * Returns the current tenant's entry for {@code brand} without creating it.
+   */
+  public Optional<Entry> find(String brand) {
+    String name = clean(brand);
+    if (name == null) {
+      return Optional.empty();
+    }
+    String tenant = TenantContext.current();
+    String key = name.toLowerCase(Locale.ROOT);
+    String cacheKey = tenant + '\n' + key;
+    Entry entry = entries.get(cacheKey);
+    if (entry != null) {
+      return Optional.of(entry);
+    }
+    return brandRepository.findByTenantIdAndNormalizedName(tenant, key)
+        .map(stored -> entries.computeIfAbsent(cacheKey, k -> Entry.of(stored)));
+  }
+
+  /**
+   * How to match the devices of {@code brand} visible to the current tenant: by the ids of its
+   * entries (one per tenant when running as root) and, until every device has a brand id, also
+   * by exact name on the devices that have none, as {@code findByBrandDuringBackfill} does.
+   * Returns {@code null} if no device can match.
+   */
+  public Filter filter(String brand) {
+    List<Entry> found;
+    if (TenantContext.isRoot()) {
+      String key = normalize(brand);
+      found = key == null ? List.of()
+          : brandRepository.findByNormalizedName(key).stream().map(Entry::of).toList();
+    } else {
+      found = find(brand).stream().toList();
+    }
+    List<Long> ids = found.stream().map(Entry::id).toList();
+    if (backfilled) {
+      return ids.isEmpty() ? null : new Filter(ids, null);
+    }
+    return new Filter(ids, found.isEmpty() ? brand : found.getFirst().name());
+  }
+
+  /**
+   * Whether every device references its brand by id. Until then brand filters also match devices
+   * by name, see {@link BrandBackfill}.
+   */
+  public boolean isBackfilled() {
+    return backfilled;
+  }
+
+  void markBackfilled() {
+    backfilled = true;
+  }
+
+  /**
+   * Returns the key brands are matched on, or {@code null} for a blank name.
+   */
+  public static String normalize(String brand) {
+    String name = clean(brand);
+    return name == null ? null : name.toLowerCase(Locale.ROOT);
+  }
+
+  private static String clean(String brand) {
+    if (brand == null || brand.isBlank()) {
+      return null;
+    }
+    return WHITESPACE.matcher(brand.strip()).replaceAll(" ");
+  }
+
+  private Brand insert(String tenant, String key, String name) {
+    try {
+      return newTransaction.execute(
+          status -> brandRepository.saveAndFlush(new Brand(null, tenant, key, name)));
+    } catch (DataIntegrityViolationException e) {
+      // Created concurrently, possibly by another node.
+      return newTransaction.execute(
+              status -> brandRepository.findByTenantIdAndNormalizedName(tenant, key))
+          .orElseThrow(() -> e);
+    }
+  }
+
+  public record Entry(long id, String name) {
+
+    static Entry of(Brand brand) {
+      return new Entry(brand.getId(), brand.getName());
+    }
+  }
+
+  /**
+   * Brand predicate of a device query: {@code brandId in ids}, or {@code brandId is null and
+   * brand = name} when {@code name} is not {@code null}.
+   */
+  public record Filter(List<Long> ids, String name) {
+
+  }
+}
@@ -0,0 +1,166 @@
+package com.joaomps.devicemanager.cache;
+
+import com.joaomps.devicemanager.cluster.ClusterMembership;
+import com.joaomps.devicemanager.cluster.ShardRebalancedEvent;
+import com.joaomps.devicemanager.event.DeviceChangedEvent;
+import com.joaomps.devicemanager.model.Device;
+import com.joaomps.devicemanager.tenant.TenantContext;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongPredicate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Read-through cache of devices by id, partitioned by tenant.
+ *
+ * <p>Every tenant gets its own LRU partition bounded by
+ * {@code device-manager.cache.per-tenant-capacity}, so a tenant with a large working set only
+ * evicts its own entries. At most
+ * {@code device-manager.cache.max-tenants} partitions are kept; devices of further tenants are
+ * simply not cached.
+ *
+ * <p>Only devices owned by this node are cached, and they are dropped when a rebalance moves them
+ * to another node. Entries are replaced or dropped after every committed device change, local or
+ * seen through the change feed, and expire after {@code device-manager.cache.ttl} in any case, so
+ * a missed change is served for a bounded time at most. A load that raced with such a change is
+ * not cached: callers take a {@link #stamp(String) stamp} before loading and
+ * {@link #put(String, long, Device) put} is ignored if the partition changed in between.
+ *
+ * <p>The cache keeps its own copy of every device and hands out copies, so callers may change
+ * what they get without affecting other requests.
+ */
+@Component
+public class DeviceCache {
+
+  private final int perTenantCapacity;
+  private final int maxTenants;
+  private final long ttlNanos;
+  private final ClusterMembership membership;
+  private final Map<String, Partition> partitions = new ConcurrentHashMap<>();
+
+  public DeviceCache(
+      @Value("${device-manager.cache.per-tenant-capacity:10000}") int perTenantCapacity,
+      @Value("${device-manager.cache.max-tenants:1000}") int maxTenants,
+      @Value("${device-manager.cache.ttl:PT5M}") Duration ttl,
+      ClusterMembership membership) {
+    this.perTenantCapacity = perTenantCapacity;
+    this.maxTenants = maxTenants;
+    this.ttlNanos = ttl.toNanos();
+    this.membership = membership;
+  }
+
+  public Device get(String tenant, Long id) {
+    Partition partition = partitions.get(tenant);
+    Device device = partition == null ? null : partition.get(id, System.nanoTime());
+    return device == null ? null : device.copy();
+  }
+
+  /**
+   * Version of the tenant's partition to pass to {@link #put(String, long, Device)}, or a negative
+   * value if the tenant's devices are not cached.
+   */
+  public long stamp(String tenant) {
+    Partition partition = partitions.get(tenant);
+    if (partition == null) {
+      if (perTenantCapacity <= 0 || ttlNanos <= 0 || TenantContext.ROOT.equals(tenant)
+          || partitions.size() >= maxTenants) {
+        return -1;
+      }
+      partition = partitions.computeIfAbsent(tenant, key -> new Partition(perTenantCapacity));
+    }
+    return partition.version.get();
+  }
+
+  public void put(String tenant, long stamp, Device device) {
+    Partition partition = partitions.get(tenant);
+    if (stamp >= 0 && partition != null && device != null && device.getId() != null
+        && membership.isLocal(device.getId())) {
+      partition.putIfUnchanged(stamp, device.copy(), System.nanoTime() + ttlNanos);
+    }
+  }
+
+  public int size(String tenant) {
+    Partition partition = partitions.get(tenant);
+    return partition == null ? 0 : partition.size();
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onDeviceChanged(DeviceChangedEvent event) {
+    Device device = event.device();
+    if (device == null || device.getId() == null) {
+      return;
+    }
+    Partition partition = partitions.get(TenantContext.of(device.getTenantId()));
+    if (partition != null) {
+      partition.replace(device.getId(),
+          event.type() == DeviceChangedEvent.Type.SAVED ? device.copy() : null,
+          System.nanoTime() + ttlNanos);
+    }
+  }
+
+  @EventListener
+  public void onShardRebalanced(ShardRebalancedEvent event) {
+    partitions.values().forEach(partition -> partition.removeIf(event::isLost));
+  }
+
+  private record Entry(Device device, long expiresAt) {
+
+  }
+
+  private static final class Partition {
+
+    private final AtomicLong version = new AtomicLong();
+    private final Map<Long, Entry> entries;
+
+    private Partition(int capacity) {
+      this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+          return size() > capacity;
+        }
+      };
+    }
+
+    synchronized Device get(Long id, long now) {
+      Entry entry = entries.get(id);
+      if (entry == null) {
+        return null;
+      }
+      if (entry.expiresAt() - now <= 0) {
+        entries.remove(id);
+        return null;
+      }
+      return entry.device();
+    }
+
+    synchronized void putIfUnchanged(long stamp, Device device, long expiresAt) {
+      if (version.get() == stamp) {
+        entries.put(device.getId(), new Entry(device, expiresAt));
+      }
+    }
+
+    synchronized void replace(Long id, Device device, long expiresAt) {
+      version.incrementAndGet();
+      if (device == null) {
+        entries.remove(id);
+      } else if (entries.containsKey(id)) {
+        entries.put(id, new Entry(device, expiresAt));
+      }
+    }
+
+    synchronized void removeIf(LongPredicate lost) {
+      version.incrementAndGet();
+      entries.keySet().removeIf(lost::test);
+    }
+
+    synchronized int size() {
+      return entries.size();
+    }
+  }
+}
@@ -0,0 +1,110 @@
+package com.joaomps.devicemanager.cluster;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Node-to-node HTTP calls: forwarding device requests to their owner and propagating membership
+ * changes to the other members.
+ */
+@Component
+public class ClusterClient {
+
+  /**
+   * Marks a request that was already routed by a peer so it is always served locally, which
+   * prevents forwarding loops while two nodes briefly disagree on the ring.
+   */
+  public static final String FORWARDED_HEADER = "X-Shard-Forwarded-By";
+
+  private static final Logger log = LoggerFactory.getLogger(ClusterClient.class);
+
+  private static final Set<String> RESTRICTED_HEADERS = Set.of("connection", "content-length",
+      "expect", "host", "upgrade", "transfer-encoding", "keep-alive", "te", "trailer",
+      "http2-settings");
+
+  private final HttpClient httpClient;
+  private final Duration requestTimeout;
+  private final ClusterCredentials credentials;
+
+  public ClusterClient(
+      @Value("${device-manager.cluster.request-timeout:PT5S}") Duration requestTimeout,
+      ClusterCredentials credentials) {
+    this.requestTimeout = requestTimeout;
+    this.credentials = credentials;
+    this.httpClient = HttpClient.newBuilder()
+        .connectTimeout(requestTimeout)
+        .version(HttpClient.Version.HTTP_1_1)
+        .build();
+  }
+
+  public HttpResponse<byte[]> forward(String owner, String self, String method,
+      String pathAndQuery, Iterable<String[]> headers, byte[] body)
+      throws IOException, InterruptedException {
+    HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(owner + pathAndQuery))
+        .timeout(requestTimeout)
+        .method(method, body.length == 0
+            ? HttpRequest.BodyPublishers.noBody()
+            : HttpRequest.BodyPublishers.ofByteArray(body))
+        .header(FORWARDED_HEADER, self);
+    authenticate(request);
+    for (String[] header : headers) {
+      // The client's own cluster headers are dropped, only this node's identify the request.
+      if (!isRestricted(header[0]) && !FORWARDED_HEADER.equalsIgnoreCase(header[0])
+          && !ClusterCredentials.HEADER.equalsIgnoreCase(header[0])) {
+        request.header(header[0], header[1]);
+      }
+    }
+    return httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+  }
+
+  /**
+   * Best-effort notification of a membership change to a peer. Failures are logged, a peer that
+   * missed the change can be brought up to date by repeating the call against it.
+   */
+  public void notifyMembership(String peer, String self, String method, String node) {
+    HttpRequest.Builder request = HttpRequest.newBuilder(
+            URI.create(peer + "/api/v1/cluster/members?node=" + encode(node)))
+        .timeout(requestTimeout)
+        .method(method, HttpRequest.BodyPublishers.noBody())
+        .header(FORWARDED_HEADER, self);
+    authenticate(request);
+    try {
+      HttpResponse<Void> response = httpClient.send(request.build(),
+          HttpResponse.BodyHandlers.discarding());
+      if (response.statusCode() >= 300) {
+        log.warn("Peer {} answered {} to membership change of {}", peer, response.statusCode(),
+            node);
+      }
+    } catch (IOException e) {
+      log.warn("Could not notify peer {} about membership change of {}: {}", peer, node,
+          e.getMessage());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  public static boolean isRestricted(String headerName) {
+    return RESTRICTED_HEADERS.contains(headerName.toLowerCase());
+  }
+
+  private void authenticate(HttpRequest.Builder request) {
+    if (credentials.secret() != null) {
+      request.header(ClusterCredentials.HEADER, credentials.secret());
+    }
+  }
+
+  private static String encode(String value) {
+    return URLEncoder.encode(value, StandardCharsets.UTF_8);
+  }
+}
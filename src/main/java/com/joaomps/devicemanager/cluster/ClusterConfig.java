@@ -0,0 +1,21 @@
+package com.joaomps.devicemanager.cluster;
+
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+public class ClusterConfig {
+
+  @Bean
+  public FilterRegistrationBean<ShardRoutingFilter> shardRoutingFilter(
+      ClusterMembership membership, ClusterClient clusterClient,
+      ClusterCredentials credentials) {
+    FilterRegistrationBean<ShardRoutingFilter> registration = new FilterRegistrationBean<>(
+        new ShardRoutingFilter(membership, clusterClient, credentials));
+    registration.addUrlPatterns("/api/v1/devices/*");
+    registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+    return registration;
+  }
+}
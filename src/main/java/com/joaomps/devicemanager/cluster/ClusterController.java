@@ -0,0 +1,122 @@
+package com.joaomps.devicemanager.cluster;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.annotation.Nullable;
+import jakarta.servlet.http.HttpServletRequest;
+import java.util.List;
+import java.util.Map;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/cluster")
+public class ClusterController {
+
+  private final ClusterMembership membership;
+  private final ClusterClient clusterClient;
+  private final ClusterCredentials credentials;
+
+  public ClusterController(ClusterMembership membership, ClusterClient clusterClient,
+      ClusterCredentials credentials) {
+    this.membership = membership;
+    this.clusterClient = clusterClient;
+    this.credentials = credentials;
+  }
+
+  @Operation(summary = "Get cluster members", description = "Lists the nodes of the local hash ring view")
+  @GetMapping("/members")
+  public ResponseEntity<Map<String, Object>> getMembers() {
+    return ResponseEntity.ok(Map.of(
+        "self", membership.self(),
+        "members", membership.ring().sortedNodes()));
+  }
+
+  @Operation(summary = "Get the owner of a device", description = "Returns the node that owns the given device id")
+  @GetMapping("/owners/{id}")
+  public ResponseEntity<Map<String, Object>> getOwner(@PathVariable Long id) {
+    String owner = membership.ownerOf(id);
+    return ResponseEntity.ok(Map.of("id", id, "owner", owner, "local", membership.self().equals(owner)));
+  }
+
+  @Operation(summary = "Add a cluster member", description = "Adds a node to the hash ring and propagates the change to the other members. Ownership is rebalanced immediately. Only accepted from members, see the cluster secret")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Membership updated"),
+      @ApiResponse(responseCode = "400", description = "The node is not a valid member address"),
+      @ApiResponse(responseCode = "403", description = "The request does not come from a member")})
+  @PostMapping("/members")
+  public ResponseEntity<Map<String, Object>> join(@RequestParam String node,
+      @Nullable @RequestHeader(value = ClusterClient.FORWARDED_HEADER, required = false) String forwardedBy,
+      HttpServletRequest request) {
+    ResponseEntity<Map<String, Object>> refused = refuse(node, request);
+    if (refused != null) {
+      return refused;
+    }
+    List<String> peers = peersExcluding(node);
+    boolean changed = membership.join(node);
+    if (changed && forwardedBy == null) {
+      peers.forEach(peer -> clusterClient.notifyMembership(peer, membership.self(), "POST", node));
+      // The new node also has to learn about every existing member.
+      membership.ring().sortedNodes().stream()
+          .filter(member -> !member.equals(node))
+          .forEach(member -> clusterClient.notifyMembership(node, membership.self(), "POST", member));
+    }
+    return ResponseEntity.ok(Map.of("changed", changed, "members", membership.ring().sortedNodes()));
+  }
+
+  @Operation(summary = "Remove a cluster member", description = "Removes a node from the hash ring and propagates the change to the remaining members. Only accepted from members, see the cluster secret")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Membership updated"),
+      @ApiResponse(responseCode = "400", description = "The local node cannot be removed, or the node is not a valid member address"),
+      @ApiResponse(responseCode = "403", description = "The request does not come from a member")})
+  @DeleteMapping("/members")
+  public ResponseEntity<Map<String, Object>> leave(@RequestParam String node,
+      @Nullable @RequestHeader(value = ClusterClient.FORWARDED_HEADER, required = false) String forwardedBy,
+      HttpServletRequest request) {
+    ResponseEntity<Map<String, Object>> refused = refuse(node, request);
+    if (refused != null) {
+      return refused;
+    }
+    if (membership.self().equals(node)) {
+      return ResponseEntity.badRequest()
+          .body(Map.of("error", "The local node cannot be removed from its own ring"));
+    }
+    boolean changed = membership.leave(node);
+    if (changed && forwardedBy == null) {
+      peersExcluding(node).forEach(
+          peer -> clusterClient.notifyMembership(peer, membership.self(), "DELETE", node));
+    }
+    return ResponseEntity.ok(Map.of("changed", changed, "members", membership.ring().sortedNodes()));
+  }
+
+  /**
+   * The answer to a membership change that is not allowed, or {@code null} if it is.
+   */
+  @Nullable
+  private ResponseEntity<Map<String, Object>> refuse(String node, HttpServletRequest request) {
+    if (!credentials.isFromMember(request)) {
+      return ResponseEntity.status(HttpStatus.FORBIDDEN)
+          .body(Map.of("error", "Membership changes are only accepted from cluster members"));
+    }
+    if (!ClusterCredentials.isValidNode(node)) {
+      return ResponseEntity.badRequest()
+          .body(Map.of("error", "The node must be an http(s) URL such as http://node-1:8080"));
+    }
+    return null;
+  }
+
+  private List<String> peersExcluding(String node) {
+    return membership.ring().sortedNodes().stream()
+        .filter(member -> !member.equals(membership.self()) && !member.equals(node))
+        .toList();
+  }
+}
@@ -0,0 +1,98 @@
+package com.joaomps.devicemanager.cluster;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tells requests of the cluster's own nodes from those of clients, for the calls only members
+ * may make: membership changes, and requests marked as already routed.
+ *
+ * <p>A request comes from a member if it carries {@code device-manager.cluster.secret} in
+ * {@link #HEADER}, which every node sends to its peers. Without a secret, a request comes from a
+ * member if it is sent from the address of one. Requests this node sends to itself carry its
+ * {@link #localToken}, which never leaves the process.
+ */
+@Component
+public class ClusterCredentials {
+
+  public static final String HEADER = "X-Cluster-Secret";
+
+  private final ClusterMembership membership;
+  private final String secret;
+  private final String localToken = UUID.randomUUID().toString();
+
+  public ClusterCredentials(ClusterMembership membership,
+      @Value("${device-manager.cluster.secret:}") String secret) {
+    this.membership = membership;
+    this.secret = secret.isBlank() ? null : secret;
+  }
+
+  /**
+   * The secret to send to peers, {@code null} if none is configured.
+   */
+  public String secret() {
+    return secret;
+  }
+
+  /**
+   * Token for requests this node sends to itself, such as the warm-up requests.
+   */
+  public String localToken() {
+    return localToken;
+  }
+
+  public boolean isFromMember(HttpServletRequest request) {
+    String presented = request.getHeader(HEADER);
+    if (presented != null) {
+      return matches(presented, localToken) || secret != null && matches(presented, secret);
+    }
+    return secret == null && isMemberAddress(request.getRemoteAddr());
+  }
+
+  /**
+   * Whether {@code node} is a valid member address: an http(s) URL with a host, and no path,
+   * query, fragment or credentials, such as {@code http://node-1:8080}.
+   */
+  public static boolean isValidNode(String node) {
+    URI uri;
+    try {
+      uri = new URI(node);
+    } catch (Exception e) {
+      return false;
+    }
+    return ("http".equals(uri.getScheme()) || "https".equals(uri.getScheme()))
+        && uri.getHost() != null && uri.getRawUserInfo() == null
+        && (uri.getRawPath() == null || uri.getRawPath().isEmpty())
+        && uri.getRawQuery() == null && uri.getRawFragment() == null;
+  }
+
+  private boolean isMemberAddress(String remoteAddress) {
+    for (String member : membership.members()) {
+      if (member.equals(membership.self()) || !isValidNode(member)) {
+        continue;
+      }
+      try {
+        for (InetAddress address : InetAddress.getAllByName(URI.create(member).getHost())) {
+          if (address.getHostAddress().equals(remoteAddress)) {
+            return true;
+          }
+        }
+      } catch (UnknownHostException e) {
+        // A member that does not resolve sends no requests either.
+      }
+    }
+    return false;
+  }
+
+  private static boolean matches(String presented, String expected) {
+    return MessageDigest.isEqual(presented.getBytes(StandardCharsets.UTF_8),
+        expected.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,111 @@
+package com.joaomps.devicemanager.cluster;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Local view of the cluster membership and of the hash ring derived from it.
+ *
+ * <p>There is no external coordinator: every node starts from the statically configured member
+ * list and membership changes are pushed to each node through {@link ClusterController}. Whenever
+ * the ring changes a {@link ShardRebalancedEvent} is published so that components holding
+ * per-shard state can drop the keys they no longer own.
+ */
+@Component
+public class ClusterMembership {
+
+  private static final Logger log = LoggerFactory.getLogger(ClusterMembership.class);
+
+  private final String self;
+  private final ApplicationEventPublisher eventPublisher;
+  private final AtomicReference<ConsistentHashRing> ring;
+
+  public ClusterMembership(
+      @Value("${device-manager.cluster.self:local}") String self,
+      @Value("${device-manager.cluster.members:}") List<String> members,
+      @Value("${device-manager.cluster.virtual-nodes:" + ConsistentHashRing.DEFAULT_VIRTUAL_NODES
+          + "}") int virtualNodes,
+      ApplicationEventPublisher eventPublisher) {
+    this.self = self;
+    this.eventPublisher = eventPublisher;
+
+    Set<String> initial = new LinkedHashSet<>();
+    members.stream().map(String::trim).filter(member -> !member.isEmpty()).forEach(initial::add);
+    initial.add(self);
+    this.ring = new AtomicReference<>(new ConsistentHashRing(initial, virtualNodes));
+  }
+
+  public String self() {
+    return self;
+  }
+
+  public ConsistentHashRing ring() {
+    return ring.get();
+  }
+
+  public Set<String> members() {
+    return ring.get().nodes();
+  }
+
+  public boolean isClustered() {
+    return ring.get().nodes().size() > 1;
+  }
+
+  public String ownerOf(long deviceId) {
+    return ring.get().ownerOf(deviceId);
+  }
+
+  public boolean isLocal(long deviceId) {
+    return self.equals(ownerOf(deviceId));
+  }
+
+  /**
+   * Adds a node to the ring. Returns {@code false} if it was already a member.
+   */
+  public boolean join(String node) {
+    ConsistentHashRing previous;
+    ConsistentHashRing updated;
+    do {
+      previous = ring.get();
+      if (previous.nodes().contains(node)) {
+        return false;
+      }
+      updated = previous.withNode(node);
+    } while (!ring.compareAndSet(previous, updated));
+
+    log.info("Node {} joined the cluster, members are now {}", node, updated.sortedNodes());
+    eventPublisher.publishEvent(new ShardRebalancedEvent(this, previous, updated));
+    return true;
+  }
+
+  /**
+   * Removes a node from the ring. The local node can never leave its own view of the ring.
+   * Returns {@code false} if the node was not a member.
+   */
+  public boolean leave(String node) {
+    if (self.equals(node)) {
+      throw new IllegalArgumentException("The local node cannot be removed from its own ring");
+    }
+
+    ConsistentHashRing previous;
+    ConsistentHashRing updated;
+    do {
+      previous = ring.get();
+      if (!previous.nodes().contains(node)) {
+        return false;
+      }
+      updated = previous.withoutNode(node);
+    } while (!ring.compareAndSet(previous, updated));
+
+    log.info("Node {} left the cluster, members are now {}", node, updated.sortedNodes());
+    eventPublisher.publishEvent(new ShardRebalancedEvent(this, previous, updated));
+    return true;
+  }
+}
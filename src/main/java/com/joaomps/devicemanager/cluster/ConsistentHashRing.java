@@ -0,0 +1,113 @@
+package com.joaomps.devicemanager.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Immutable consistent-hash ring mapping device ids to the node that owns them.
+ *
+ * <p>Every node is placed on the ring as a number of virtual tokens so that ownership is spread
+ * evenly and only ~1/N of the keys move when a node joins or leaves. Token positions depend only
+ * on the node ids, so every replica that knows the same membership computes the same owners.
+ */
+public final class ConsistentHashRing {
+
+  public static final int DEFAULT_VIRTUAL_NODES = 128;
+
+  private final Set<String> nodes;
+  private final int virtualNodes;
+  private final long[] tokens;
+  private final String[] owners;
+
+  public ConsistentHashRing(Collection<String> nodes) {
+    this(nodes, DEFAULT_VIRTUAL_NODES);
+  }
+
+  public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+    if (nodes.isEmpty()) {
+      throw new IllegalArgumentException("A hash ring needs at least one node");
+    }
+    if (virtualNodes < 1) {
+      throw new IllegalArgumentException("Virtual nodes per member must be positive");
+    }
+
+    this.nodes = Set.copyOf(nodes);
+    this.virtualNodes = virtualNodes;
+    TreeMap<Long, String> ring = new TreeMap<>();
+    for (String node : new TreeSet<>(nodes)) {
+      for (int i = 0; i < virtualNodes; i++) {
+        // On the (astronomically unlikely) token collision the lexicographically first node wins,
+        // which keeps the outcome independent of insertion order.
+        ring.putIfAbsent(tokenOf(node + "#" + i), node);
+      }
+    }
+
+    this.tokens = new long[ring.size()];
+    this.owners = new String[ring.size()];
+    int i = 0;
+    for (var entry : ring.entrySet()) {
+      tokens[i] = entry.getKey();
+      owners[i] = entry.getValue();
+      i++;
+    }
+  }
+
+  public String ownerOf(long deviceId) {
+    int index = Arrays.binarySearch(tokens, mix(deviceId));
+    if (index < 0) {
+      index = -index - 1;
+    }
+    return owners[index == tokens.length ? 0 : index];
+  }
+
+  public Set<String> nodes() {
+    return nodes;
+  }
+
+  public List<String> sortedNodes() {
+    return List.copyOf(new TreeSet<>(nodes));
+  }
+
+  public ConsistentHashRing withNode(String node) {
+    Set<String> updated = new TreeSet<>(nodes);
+    updated.add(node);
+    return new ConsistentHashRing(updated, virtualNodes);
+  }
+
+  public ConsistentHashRing withoutNode(String node) {
+    Set<String> updated = new TreeSet<>(nodes);
+    updated.remove(node);
+    return new ConsistentHashRing(updated, virtualNodes);
+  }
+
+  /**
+   * SplitMix64 finalizer: spreads sequential database ids uniformly over the ring without
+   * allocating on the lookup path.
+   */
+  static long mix(long value) {
+    long z = value + 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+
+  private static long tokenOf(String key) {
+    try {
+      byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+      long token = 0;
+      for (int i = 0; i < Long.BYTES; i++) {
+        token = (token << 8) | (digest[i] & 0xFF);
+      }
+      return token;
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("MD5 is not available", e);
+    }
+  }
+}
@@ -0,0 +1,38 @@
+package com.joaomps.devicemanager.cluster;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Published after the hash ring changed. Listeners holding per-device state should drop every
+ * key for which {@link #isLost(long)} returns {@code true}.
+ */
+public class ShardRebalancedEvent extends ApplicationEvent {
+
+  private final transient ClusterMembership membership;
+  private final transient ConsistentHashRing previous;
+  private final transient ConsistentHashRing current;
+
+  public ShardRebalancedEvent(ClusterMembership membership, ConsistentHashRing previous,
+      ConsistentHashRing current) {
+    super(membership);
+    this.membership = membership;
+    this.previous = previous;
+    this.current = current;
+  }
+
+  public ConsistentHashRing getPrevious() {
+    return previous;
+  }
+
+  public ConsistentHashRing getCurrent() {
+    return current;
+  }
+
+  /**
+   * Whether the local node owned the device before the change but no longer does.
+   */
+  public boolean isLost(long deviceId) {
+    String self = membership.self();
+    return self.equals(previous.ownerOf(deviceId)) && !self.equals(current.ownerOf(deviceId));
+  }
+}
@@ -0,0 +1,115 @@
+package com.joaomps.devicemanager.cluster;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Routes single-device requests ({@code /api/v1/devices/{id}/...}) to the node owning the id.
+ *
+ * <p>Requests already forwarded by a peer, and every request when the ring only contains the
+ * local node, are served locally. The forwarded header is only honoured on requests of members,
+ * as told by {@link ClusterCredentials}: a client sending it is routed like any other. If the
+ * owner cannot be reached the request is also served locally: the database stays the source of
+ * truth, only the owner-side caches are bypassed.
+ */
+public class ShardRoutingFilter extends OncePerRequestFilter {
+
+  private static final Logger log = LoggerFactory.getLogger(ShardRoutingFilter.class);
+
+  private static final Pattern DEVICE_PATH = Pattern.compile("^/api/v1/devices/(\\d+)(/.*)?$");
+
+  private final ClusterMembership membership;
+  private final ClusterClient clusterClient;
+  private final ClusterCredentials credentials;
+
+  public ShardRoutingFilter(ClusterMembership membership, ClusterClient clusterClient,
+      ClusterCredentials credentials) {
+    this.membership = membership;
+    this.clusterClient = clusterClient;
+    this.credentials = credentials;
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !membership.isClustered()
+        || request.getHeader(ClusterClient.FORWARDED_HEADER) != null
+        && credentials.isFromMember(request);
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+      FilterChain filterChain) throws ServletException, IOException {
+    Matcher matcher = DEVICE_PATH.matcher(request.getRequestURI());
+    if (!matcher.matches()) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+
+    long deviceId;
+    try {
+      deviceId = Long.parseLong(matcher.group(1));
+    } catch (NumberFormatException e) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+
+    String owner = membership.ownerOf(deviceId);
+    if (membership.self().equals(owner)) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+
+    byte[] body = request.getInputStream().readAllBytes();
+    try {
+      HttpResponse<byte[]> forwarded = clusterClient.forward(owner, membership.self(),
+          request.getMethod(), pathAndQuery(request), headersOf(request), body);
+      copyResponse(forwarded, response);
+    } catch (IOException e) {
+      log.warn("Owner {} of device {} is unreachable, serving locally: {}", owner, deviceId,
+          e.getMessage());
+      filterChain.doFilter(new CachedBodyRequest(request, body), response);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ServletException("Interrupted while forwarding to " + owner, e);
+    }
+  }
+
+  private static String pathAndQuery(HttpServletRequest request) {
+    String query = request.getQueryString();
+    return query == null ? request.getRequestURI() : request.getRequestURI() + "?" + query;
+  }
+
+  private static List<String[]> headersOf(HttpServletRequest request) {
+    List<String[]> headers = new ArrayList<>();
+    for (String name : Collections.list(request.getHeaderNames())) {
+      for (String value : Collections.list(request.getHeaders(name))) {
+        headers.add(new String[]{name, value});
+      }
+    }
+    return headers;
+  }
+
+  private static void copyResponse(HttpResponse<byte[]> source, HttpServletResponse target)
+      throws IOException {
+    target.setStatus(source.statusCode());
+    source.headers().map().forEach((name, values) -> {
+      if (!ClusterClient.isRestricted(name) && !name.startsWith(":")) {
+        values.forEach(value -> target.addHeader(name, value));
+      }
+    });
+    target.setContentLength(source.body().length);
+    target.getOutputStream().write(source.body());
+  }
+}
@@ -0,0 +1,37 @@
+package com.joaomps.devicemanager.controller;
+
+import com.joaomps.devicemanager.dto.BulkStateTransitionRequest;
+import com.joaomps.devicemanager.dto.BulkStateTransitionResult;
+import com.joaomps.devicemanager.service.DeviceBulkService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/devices/bulk")
+public class DeviceBulkController {
+
+  private final DeviceBulkService deviceBulkService;
+
+  public DeviceBulkController(DeviceBulkService deviceBulkService) {
+    this.deviceBulkService = deviceBulkService;
+  }
+
+  @Operation(summary = "Bulk state transition", description = "Moves every device matching the given ids, brand and/or state to the target state using chunked set-based updates. Devices in use are skipped unless includeInUse is set. A partial run can be resumed by passing the reported lastProcessedId as afterId")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Transition applied", content = @Content(mediaType = "application/json", schema = @Schema(implementation = BulkStateTransitionResult.class))),
+      @ApiResponse(responseCode = "400", description = "Invalid request data", content = @Content(mediaType = "application/json"))})
+  @PostMapping("/state-transitions")
+  public ResponseEntity<BulkStateTransitionResult> transitionState(
+      @Valid @RequestBody BulkStateTransitionRequest request) {
+    return ResponseEntity.ok(deviceBulkService.transitionState(request));
+  }
+}
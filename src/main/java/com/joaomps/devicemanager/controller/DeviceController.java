@@ -1,9 +1,13 @@
 package com.joaomps.devicemanager.controller;
 
 import com.joaomps.devicemanager.dto.DeviceCreationRequest;
+import com.joaomps.devicemanager.dto.DeviceLookupRequest;
+import com.joaomps.devicemanager.dto.DeviceLookupResult;
+import com.joaomps.devicemanager.dto.DevicePage;
 import com.joaomps.devicemanager.exception.DeviceNotFoundException;
 import com.joaomps.devicemanager.model.Device;
 import com.joaomps.devicemanager.model.DeviceState;
+import com.joaomps.devicemanager.registry.DeviceView;
 import com.joaomps.devicemanager.service.DeviceService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,8 +16,11 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import jakarta.annotation.Nullable;
 import jakarta.validation.Valid;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -31,6 +38,8 @@ import org.springframework.web.bind.annotation.RestController;
 @RequestMapping("/api/v1/devices")
 public class DeviceController {
 
+  private static final ThreadLocal<DeviceView> VIEWS = ThreadLocal.withInitial(DeviceView::new);
+
   private final DeviceService deviceService;
 
   public DeviceController(DeviceService deviceService) {
@@ -51,11 +60,26 @@ public class DeviceController {
       @ApiResponse(responseCode = "200", description = "Device found", content = @Content(mediaType = "application/json", schema = @Schema(implementation = Device.class))),
       @ApiResponse(responseCode = "404", description = "Device not found", content = @Content(mediaType = "application/json"))})
   @GetMapping("/{id}")
-  public ResponseEntity<Device> getDeviceById(@PathVariable Long id) {
+  public ResponseEntity<?> getDeviceById(@PathVariable Long id) {
+    DeviceView view = VIEWS.get();
+    if (deviceService.readRegistered(id, view)) {
+      // Written to the response straight from the view, without building a Device.
+      return ResponseEntity.ok(view);
+    }
     return deviceService.findById(id).map(ResponseEntity::ok)
         .orElseThrow(() -> new DeviceNotFoundException("Device with id " + id + " was not found"));
   }
 
+  @Operation(summary = "Get many devices by ID", description = "Retrieves up to 1000 devices in one call. Returns the devices found, in request order, and the ids that were not found")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Lookup completed", content = @Content(mediaType = "application/json", schema = @Schema(implementation = DeviceLookupResult.class))),
+      @ApiResponse(responseCode = "400", description = "No ids or more than 1000 ids", content = @Content(mediaType = "application/json"))})
+  @PostMapping("/lookup")
+  public ResponseEntity<DeviceLookupResult> lookupDevices(
+      @Valid @RequestBody DeviceLookupRequest request) {
+    return ResponseEntity.ok(deviceService.findAllById(request.ids()));
+  }
+
   @Operation(summary = "Get all devices", description = "Retrieves a list of all devices in the system. Optionally we can filter the results by brand and/or state")
   @ApiResponse(responseCode = "200", description = "List of devices retrieved successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = Device.class, type = "array")))
   @GetMapping
@@ -64,19 +88,47 @@ public class DeviceController {
     return ResponseEntity.ok(devices);
   }
 
-  @GetMapping(params = "brand")
+  @Operation(summary = "Get devices by creation time", description = "Lists the devices created at or after createdAfter and before createdBefore (either may be omitted), optionally of a brand and/or state, oldest first. Pass nextCursor back as cursor, with the same filters, for the next page")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Page of devices", content = @Content(mediaType = "application/json", schema = @Schema(implementation = DevicePage.class))),
+      @ApiResponse(responseCode = "400", description = "Invalid window, size or cursor", content = @Content(mediaType = "application/json"))})
+  @GetMapping(params = "createdAfter")
+  public ResponseEntity<DevicePage> getDevicesCreatedAfter(
+      @RequestParam @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime createdAfter,
+      @Nullable @RequestParam(required = false) @DateTimeFormat(iso = ISO.DATE_TIME)
+      LocalDateTime createdBefore,
+      @Nullable @RequestParam(required = false) String brand,
+      @Nullable @RequestParam(required = false) DeviceState state,
+      @Nullable @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "100") int size) {
+    return ResponseEntity.ok(deviceService.findCreatedBetween(createdAfter, createdBefore, brand,
+        state, cursor, size));
+  }
+
+  @GetMapping(params = {"createdBefore", "!createdAfter"})
+  public ResponseEntity<DevicePage> getDevicesCreatedBefore(
+      @RequestParam @DateTimeFormat(iso = ISO.DATE_TIME) LocalDateTime createdBefore,
+      @Nullable @RequestParam(required = false) String brand,
+      @Nullable @RequestParam(required = false) DeviceState state,
+      @Nullable @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "100") int size) {
+    return ResponseEntity.ok(deviceService.findCreatedBetween(null, createdBefore, brand, state,
+        cursor, size));
+  }
+
+  @GetMapping(params = {"brand", "!createdAfter", "!createdBefore"})
   public ResponseEntity<List<Device>> getDevicesByBrand(@Nullable @RequestParam String brand) {
     List<Device> devices = deviceService.findByBrand(brand);
     return ResponseEntity.ok(devices);
   }
 
-  @GetMapping(params = "state")
+  @GetMapping(params = {"state", "!createdAfter", "!createdBefore"})
   public ResponseEntity<List<Device>> getDevicesByState(@Nullable @RequestParam DeviceState state) {
     List<Device> devices = deviceService.findByState(state);
     return ResponseEntity.ok(devices);
   }
 
-  @Operation(summary = "Delete a device", description = "Deletes a device by its ID. Device cannot be deleted if it's in use")
+  @Operation(summary = "Delete a device", description = "Deletes a device by its ID. Device cannot be deleted if it's in use. A deleted device can be restored within the retention window")
   @ApiResponses(value = {
       @ApiResponse(responseCode = "200", description = "Device deleted successfully"),
       @ApiResponse(responseCode = "404", description = "Device not found", content = @Content(mediaType = "application/json")),
@@ -87,6 +139,15 @@ public class DeviceController {
     return ResponseEntity.ok().build();
   }
 
+  @Operation(summary = "Restore a device", description = "Undoes the deletion of a device deleted within the retention window")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Device restored successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = Device.class))),
+      @ApiResponse(responseCode = "404", description = "No device deleted within the retention window", content = @Content(mediaType = "application/json"))})
+  @PostMapping("/{id}/restore")
+  public ResponseEntity<Device> restoreDevice(@PathVariable Long id) {
+    return ResponseEntity.ok(deviceService.restoreDevice(id));
+  }
+
   @Operation(summary = "Update a device", description = "Fully updates a device with new details. Some properties cannot be modified if device is in use")
   @ApiResponses(value = {
       @ApiResponse(responseCode = "200", description = "Device updated successfully", content = @Content(mediaType = "application/json", schema = @Schema(implementation = Device.class))),
@@ -0,0 +1,70 @@
+package com.joaomps.devicemanager.controller;
+
+import com.joaomps.devicemanager.dto.DeviceLease;
+import com.joaomps.devicemanager.service.DeviceLeaseService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import java.time.Duration;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/devices/{id}/lease")
+public class DeviceLeaseController {
+
+  public static final String LEASE_TOKEN_HEADER = "X-Lease-Token";
+
+  private final DeviceLeaseService deviceLeaseService;
+
+  public DeviceLeaseController(DeviceLeaseService deviceLeaseService) {
+    this.deviceLeaseService = deviceLeaseService;
+  }
+
+  @Operation(summary = "Check out a device", description = "Marks an available device (or one whose lease expired) IN_USE until the lease expires. The returned token is needed to renew or release the lease")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "201", description = "Lease acquired", content = @Content(mediaType = "application/json", schema = @Schema(implementation = DeviceLease.class))),
+      @ApiResponse(responseCode = "400", description = "Invalid ttl", content = @Content(mediaType = "application/json")),
+      @ApiResponse(responseCode = "404", description = "Device not found", content = @Content(mediaType = "application/json")),
+      @ApiResponse(responseCode = "409", description = "Device not available", content = @Content(mediaType = "application/json"))})
+  @PostMapping
+  public ResponseEntity<DeviceLease> acquireLease(@PathVariable Long id,
+      @RequestParam(defaultValue = "PT5M") Duration ttl) {
+    return ResponseEntity.status(HttpStatus.CREATED).body(deviceLeaseService.acquire(id, ttl));
+  }
+
+  @Operation(summary = "Renew a lease", description = "Heartbeat: extends the lease to ttl from now")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Lease renewed", content = @Content(mediaType = "application/json", schema = @Schema(implementation = DeviceLease.class))),
+      @ApiResponse(responseCode = "400", description = "Invalid ttl", content = @Content(mediaType = "application/json")),
+      @ApiResponse(responseCode = "404", description = "Device not found", content = @Content(mediaType = "application/json")),
+      @ApiResponse(responseCode = "409", description = "Lease not held or already expired", content = @Content(mediaType = "application/json"))})
+  @PutMapping
+  public ResponseEntity<DeviceLease> renewLease(@PathVariable Long id,
+      @RequestHeader(name = LEASE_TOKEN_HEADER, required = false) String token,
+      @RequestParam(defaultValue = "PT5M") Duration ttl) {
+    return ResponseEntity.ok(deviceLeaseService.renew(id, token, ttl));
+  }
+
+  @Operation(summary = "Release a lease", description = "Returns the device to AVAILABLE")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "204", description = "Lease released"),
+      @ApiResponse(responseCode = "404", description = "Device not found", content = @Content(mediaType = "application/json")),
+      @ApiResponse(responseCode = "409", description = "Lease not held", content = @Content(mediaType = "application/json"))})
+  @DeleteMapping
+  public ResponseEntity<Void> releaseLease(@PathVariable Long id,
+      @RequestHeader(name = LEASE_TOKEN_HEADER, required = false) String token) {
+    deviceLeaseService.release(id, token);
+    return ResponseEntity.noContent().build();
+  }
+}
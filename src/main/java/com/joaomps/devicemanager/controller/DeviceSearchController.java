@@ -0,0 +1,37 @@
+package com.joaomps.devicemanager.controller;
+
+import com.joaomps.devicemanager.dto.DeviceSearchResult;
+import com.joaomps.devicemanager.search.SearchMode;
+import com.joaomps.devicemanager.service.DeviceSearchService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/devices/search")
+public class DeviceSearchController {
+
+  private final DeviceSearchService deviceSearchService;
+
+  public DeviceSearchController(DeviceSearchService deviceSearchService) {
+    this.deviceSearchService = deviceSearchService;
+  }
+
+  @Operation(summary = "Search devices", description = "Searches device names and brands by prefix, substring or fuzzy match. Results are ranked (exact, prefix, word prefix, substring, fuzzy; name before brand) and paginated")
+  @ApiResponse(responseCode = "200", description = "Ranked page of matching devices", content = @Content(mediaType = "application/json", schema = @Schema(implementation = DeviceSearchResult.class)))
+  @GetMapping
+  public ResponseEntity<DeviceSearchResult> search(@RequestParam String q,
+      @RequestParam(defaultValue = "SUBSTRING") SearchMode mode,
+      @RequestParam(defaultValue = "0") @Min(0) int page,
+      @RequestParam(defaultValue = "20") @Min(1) @Max(500) int size) {
+    return ResponseEntity.ok(deviceSearchService.search(q, mode, page, size));
+  }
+}
@@ -0,0 +1,128 @@
+package com.joaomps.devicemanager.controller;
+
+import com.joaomps.devicemanager.dto.DeviceSnapshotDelta;
+import com.joaomps.devicemanager.service.DeviceSnapshotService;
+import com.joaomps.devicemanager.snapshot.DeviceSnapshot;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.Locale;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/devices/snapshot")
+public class DeviceSnapshotController {
+
+  public static final String SNAPSHOT_VERSION_HEADER = "X-Snapshot-Version";
+
+  private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+  private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+  private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+  private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+  private final DeviceSnapshotService deviceSnapshotService;
+
+  public DeviceSnapshotController(DeviceSnapshotService deviceSnapshotService) {
+    this.deviceSnapshotService = deviceSnapshotService;
+  }
+
+  @Operation(summary = "Get a snapshot of all devices", description = "Returns all devices as of the latest snapshot, refreshed periodically. Supports If-None-Match and gzip; the version in the X-Snapshot-Version header can be passed to the changes endpoint")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Snapshot of all devices", content = @Content(mediaType = "application/json")),
+      @ApiResponse(responseCode = "304", description = "Snapshot unchanged since the given ETag")})
+  @GetMapping
+  public void getSnapshot(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    DeviceSnapshot snapshot = deviceSnapshotService.current();
+    response.setHeader(HttpHeaders.ETAG, snapshot.etag());
+    response.setHeader(SNAPSHOT_VERSION_HEADER, Long.toString(snapshot.version()));
+    response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+    response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+    String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+    if (ifNoneMatch != null && (ifNoneMatch.contains(snapshot.etag()) || ifNoneMatch.equals("*"))) {
+      response.setStatus(HttpStatus.NOT_MODIFIED.value());
+      return;
+    }
+
+    boolean gzip = acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    if (gzip) {
+      response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+    }
+    long length = snapshot.length(gzip);
+    response.setContentLengthLong(length);
+
+    if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+      // Tomcat sends the file with sendfile(2) once the handler returns.
+      request.setAttribute(SENDFILE_FILENAME, snapshot.file(gzip).toAbsolutePath().toString());
+      request.setAttribute(SENDFILE_START, 0L);
+      request.setAttribute(SENDFILE_END, length);
+      return;
+    }
+    WritableByteChannel channel = Channels.newChannel(response.getOutputStream());
+    ByteBuffer content = snapshot.content(gzip);
+    while (content.hasRemaining()) {
+      channel.write(content);
+    }
+  }
+
+  /**
+   * Whether an {@code Accept-Encoding} header allows gzip: listed as {@code gzip} or
+   * {@code x-gzip}, or covered by {@code *}, with a quality above zero. An explicit
+   * {@code gzip;q=0} refuses it even when {@code *} is accepted.
+   */
+  static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    Double gzip = null;
+    Double wildcard = null;
+    for (String element : acceptEncoding.split(",")) {
+      String[] parts = element.split(";");
+      String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+      double quality = 1;
+      for (int i = 1; i < parts.length; i++) {
+        String parameter = parts[i].trim();
+        if (parameter.length() > 2 && parameter.substring(0, 2).equalsIgnoreCase("q=")) {
+          try {
+            quality = Double.parseDouble(parameter.substring(2).trim());
+          } catch (NumberFormatException e) {
+            quality = 0;
+          }
+        }
+      }
+      if (coding.equals("gzip") || coding.equals("x-gzip")) {
+        gzip = gzip == null ? quality : Math.max(gzip, quality);
+      } else if (coding.equals("*")) {
+        wildcard = quality;
+      }
+    }
+    Double quality = gzip != null ? gzip : wildcard;
+    return quality != null && quality > 0;
+  }
+
+  @Operation(summary = "Get changes since a snapshot", description = "Returns the devices created, changed or removed since the given snapshot version. Only recent versions are kept; for older ones fetch the full snapshot again")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Changes since the given version", content = @Content(mediaType = "application/json", schema = @Schema(implementation = DeviceSnapshotDelta.class))),
+      @ApiResponse(responseCode = "410", description = "Version unknown or too old", content = @Content(mediaType = "application/json"))})
+  @GetMapping("/changes")
+  public ResponseEntity<DeviceSnapshotDelta> getChanges(@RequestParam long since) {
+    return ResponseEntity.ok(deviceSnapshotService.changesSince(since));
+  }
+}
@@ -0,0 +1,59 @@
+package com.joaomps.devicemanager.controller;
+
+import com.joaomps.devicemanager.dto.JobSubmissionRequest;
+import com.joaomps.devicemanager.model.Job;
+import com.joaomps.devicemanager.service.JobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.validation.Valid;
+import java.net.URI;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/jobs")
+public class JobController {
+
+  private final JobService jobService;
+
+  public JobController(JobService jobService) {
+    this.jobService = jobService;
+  }
+
+  @Operation(summary = "Submit a job", description = "Queues a long-running operation, e.g. a BULK_STATE_TRANSITION with the same parameters as the bulk endpoint. Returns immediately with the job id")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "202", description = "Job accepted", content = @Content(mediaType = "application/json", schema = @Schema(implementation = Job.class))),
+      @ApiResponse(responseCode = "400", description = "Invalid job type or parameters", content = @Content(mediaType = "application/json"))})
+  @PostMapping
+  public ResponseEntity<Job> submitJob(@Valid @RequestBody JobSubmissionRequest request) {
+    Job job = jobService.submit(request.type(), request.parameters());
+    return ResponseEntity.accepted().location(URI.create("/api/v1/jobs/" + job.getId())).body(job);
+  }
+
+  @Operation(summary = "Get job status", description = "Returns the status and progress of a job")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Job found", content = @Content(mediaType = "application/json", schema = @Schema(implementation = Job.class))),
+      @ApiResponse(responseCode = "404", description = "Job not found", content = @Content(mediaType = "application/json"))})
+  @GetMapping("/{id}")
+  public ResponseEntity<Job> getJob(@PathVariable Long id) {
+    return ResponseEntity.ok(jobService.findById(id));
+  }
+
+  @Operation(summary = "Cancel a job", description = "Cancels a pending job immediately, or asks a running job to stop after its current chunk")
+  @ApiResponses(value = {
+      @ApiResponse(responseCode = "200", description = "Cancellation accepted", content = @Content(mediaType = "application/json", schema = @Schema(implementation = Job.class))),
+      @ApiResponse(responseCode = "404", description = "Job not found", content = @Content(mediaType = "application/json")),
+      @ApiResponse(responseCode = "409", description = "Job already finished", content = @Content(mediaType = "application/json"))})
+  @PostMapping("/{id}/cancel")
+  public ResponseEntity<Job> cancelJob(@PathVariable Long id) {
+    return ResponseEntity.ok(jobService.cancel(id));
+  }
+}
@@ -0,0 +1,10 @@
+package com.joaomps.devicemanager.dto;
+
+/**
+ * Outcome of one chunk of a bulk operation. {@code lastId} is the resume point for the next
+ * chunk and {@code last} tells whether more matching devices may follow.
+ */
+public record BulkChunkProgress(int chunk, long firstId, long lastId, int matched, int updated,
+                                int skippedInUse, boolean last) {
+
+}
@@ -0,0 +1,48 @@
+package com.joaomps.devicemanager.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.joaomps.devicemanager.model.DeviceState;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Moves every device matching the filters to {@code targetState}. Filters are combined with AND
+ * and at least one of them is required. {@code afterId} resumes a previous run from the last id
+ * it reported. Ids are kept sorted and de-duplicated so chunks can be cut by position.
+ */
+public record BulkStateTransitionRequest(
+    List<Long> ids,
+    String brand,
+    DeviceState state,
+    @NotNull(message = "Target state cannot be null") DeviceState targetState,
+    Long afterId,
+    @Min(value = 1, message = "Chunk size must be at least 1")
+    @Max(value = 10_000, message = "Chunk size cannot exceed 10000") Integer chunkSize,
+    boolean includeInUse) {
+
+  public static final int DEFAULT_CHUNK_SIZE = 1_000;
+
+  public BulkStateTransitionRequest {
+    if (ids != null) {
+      ids = ids.stream().filter(Objects::nonNull).distinct().sorted().toList();
+    }
+  }
+
+  @JsonIgnore
+  @AssertTrue(message = "At least one of ids, brand or state must be provided")
+  public boolean isFiltered() {
+    return (ids != null && !ids.isEmpty()) || brand != null || state != null;
+  }
+
+  public int effectiveChunkSize() {
+    return chunkSize == null ? DEFAULT_CHUNK_SIZE : chunkSize;
+  }
+
+  public long effectiveAfterId() {
+    return afterId == null ? 0L : afterId;
+  }
+}
@@ -0,0 +1,8 @@
+package com.joaomps.devicemanager.dto;
+
+import java.util.List;
+
+public record BulkStateTransitionResult(long matched, long updated, long skippedInUse,
+                                        Long lastProcessedId, List<BulkChunkProgress> chunks) {
+
+}
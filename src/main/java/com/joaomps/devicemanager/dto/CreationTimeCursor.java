@@ -0,0 +1,35 @@
+package com.joaomps.devicemanager.dto;
+
+import com.joaomps.devicemanager.exception.InvalidRequestException;
+import com.joaomps.devicemanager.model.Device;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a listing ordered by creation time, then id: the last device of the previous page.
+ * Encoded as an opaque URL-safe string.
+ */
+public record CreationTimeCursor(LocalDateTime creationTime, long id) {
+
+  public static CreationTimeCursor of(Device device) {
+    return new CreationTimeCursor(device.getCreationTime(), device.getId());
+  }
+
+  public static CreationTimeCursor decode(String cursor) {
+    try {
+      String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+      int separator = decoded.lastIndexOf('/');
+      return new CreationTimeCursor(LocalDateTime.parse(decoded.substring(0, separator)),
+          Long.parseLong(decoded.substring(separator + 1)));
+    } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+      throw new InvalidRequestException("Invalid cursor: " + cursor, e);
+    }
+  }
+
+  public String encode() {
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString((creationTime + "/" + id).getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,10 @@
+package com.joaomps.devicemanager.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * A device check-out. The token must be presented to renew or release the lease.
+ */
+public record DeviceLease(Long deviceId, String token, LocalDateTime expiresAt) {
+
+}
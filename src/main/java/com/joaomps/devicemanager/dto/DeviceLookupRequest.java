@@ -0,0 +1,23 @@
+package com.joaomps.devicemanager.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Ids of the devices to fetch in one call. Duplicates are ignored and the order is kept.
+ */
+public record DeviceLookupRequest(
+    @NotEmpty(message = "Ids cannot be empty")
+    @Size(max = DeviceLookupRequest.MAX_IDS, message = "Cannot look up more than 1000 ids")
+    List<Long> ids) {
+
+  public static final int MAX_IDS = 1_000;
+
+  public DeviceLookupRequest {
+    if (ids != null) {
+      ids = ids.stream().filter(Objects::nonNull).distinct().toList();
+    }
+  }
+}
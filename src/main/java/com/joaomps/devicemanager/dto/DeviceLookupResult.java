@@ -0,0 +1,12 @@
+package com.joaomps.devicemanager.dto;
+
+import com.joaomps.devicemanager.model.Device;
+import java.util.List;
+
+/**
+ * Devices found by a multi-get, in the order they were requested, and the requested ids that
+ * matched no device of the tenant.
+ */
+public record DeviceLookupResult(List<Device> devices, List<Long> missing) {
+
+}
@@ -0,0 +1,12 @@
+package com.joaomps.devicemanager.dto;
+
+import com.joaomps.devicemanager.model.Device;
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing. {@code nextCursor} is passed back as {@code cursor}
+ * with the same filters to fetch the next page, and is {@code null} on the last page.
+ */
+public record DevicePage(List<Device> devices, String nextCursor) {
+
+}
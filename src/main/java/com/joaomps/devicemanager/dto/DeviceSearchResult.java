@@ -0,0 +1,11 @@
+package com.joaomps.devicemanager.dto;
+
+import com.joaomps.devicemanager.model.Device;
+import java.util.List;
+
+/**
+ * One page of search results, best match first.
+ */
+public record DeviceSearchResult(List<Device> devices, long total, int page, int size) {
+
+}
@@ -0,0 +1,12 @@
+package com.joaomps.devicemanager.dto;
+
+import com.joaomps.devicemanager.model.Device;
+import java.util.List;
+
+/**
+ * Changes between two snapshot versions: devices created or changed, and ids of devices removed.
+ */
+public record DeviceSnapshotDelta(long fromVersion, long toVersion, List<Device> upserted,
+                                  List<Long> removed) {
+
+}
@@ -0,0 +1,11 @@
+package com.joaomps.devicemanager.dto;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.joaomps.devicemanager.model.JobType;
+import jakarta.validation.constraints.NotNull;
+
+public record JobSubmissionRequest(
+    @NotNull(message = "Job type cannot be null") JobType type,
+    JsonNode parameters) {
+
+}
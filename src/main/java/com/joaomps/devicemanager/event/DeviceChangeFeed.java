@@ -0,0 +1,91 @@
+package com.joaomps.devicemanager.event;
+
+import com.joaomps.devicemanager.model.Device;
+import com.joaomps.devicemanager.repository.DeviceRepository;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes a {@link DeviceChangedEvent} for every device written by any node, read back from the
+ * devices table.
+ *
+ * <p>Events published by a node only reach its own listeners, so without this the search index,
+ * caches and snapshots of the other replicas would never see the change. Every poll reads the
+ * rows whose {@code updatedAt} is at most {@code device-manager.changes.overlap} older than the
+ * newest write seen so far, since a write is stamped before its transaction commits and nodes'
+ * clocks drift. Rows already delivered at the same timestamp are skipped, so each write is
+ * published once per node, besides the event of the node that made it. Listeners treat both the
+ * same way: they apply the state the event carries.
+ */
+@Component
+public class DeviceChangeFeed {
+
+  private static final Logger log = LoggerFactory.getLogger(DeviceChangeFeed.class);
+
+  static final int PAGE_SIZE = 500;
+
+  private final DeviceRepository deviceRepository;
+  private final ApplicationEventPublisher eventPublisher;
+  private final Duration overlap;
+  private final Map<Long, LocalDateTime> delivered = new HashMap<>();
+  private LocalDateTime cursor;
+
+  public DeviceChangeFeed(DeviceRepository deviceRepository,
+      ApplicationEventPublisher eventPublisher,
+      @Value("${device-manager.changes.overlap:PT10S}") Duration overlap) {
+    this.deviceRepository = deviceRepository;
+    this.eventPublisher = eventPublisher;
+    this.overlap = overlap;
+    // Created before the startup loads of the listeners, so nothing falls between the two.
+    this.cursor = LocalDateTime.now();
+  }
+
+  /**
+   * Publishes the changes since the last poll and returns how many there were.
+   */
+  @Scheduled(fixedDelayString = "${device-manager.changes.poll-interval:PT2S}")
+  public synchronized int poll() {
+    LocalDateTime since = cursor.minus(overlap);
+    LocalDateTime afterTime = since;
+    long afterId = 0;
+    int published = 0;
+    try {
+      List<Device> page;
+      do {
+        page = deviceRepository.findChangedSince(since, afterTime, afterId, PAGE_SIZE);
+        for (Device device : page) {
+          LocalDateTime updatedAt = device.getUpdatedAt();
+          if (!updatedAt.equals(delivered.put(device.getId(), updatedAt))) {
+            eventPublisher.publishEvent(device.getDeletedAt() == null
+                ? DeviceChangedEvent.saved(device) : DeviceChangedEvent.deleted(device));
+            published++;
+          }
+          if (updatedAt.isAfter(cursor)) {
+            cursor = updatedAt;
+          }
+          afterTime = updatedAt;
+          afterId = device.getId();
+        }
+      } while (page.size() == PAGE_SIZE);
+    } catch (DataAccessException e) {
+      log.warn("Could not read device changes: {}", e.getMessage());
+    }
+
+    LocalDateTime horizon = cursor.minus(overlap);
+    delivered.values().removeIf(updatedAt -> updatedAt.isBefore(horizon));
+    if (published > 0) {
+      log.debug("Published {} device changes up to {}", published, cursor);
+    }
+    return published;
+  }
+}
@@ -0,0 +1,22 @@
+package com.joaomps.devicemanager.event;
+
+import com.joaomps.devicemanager.model.Device;
+
+/**
+ * Published whenever a device is written, so in-process structures derived from the devices
+ * table (search index, caches, ...) can stay in sync without polling the database.
+ */
+public record DeviceChangedEvent(Type type, Device device) {
+
+  public enum Type {
+    SAVED, DELETED
+  }
+
+  public static DeviceChangedEvent saved(Device device) {
+    return new DeviceChangedEvent(Type.SAVED, device);
+  }
+
+  public static DeviceChangedEvent deleted(Device device) {
+    return new DeviceChangedEvent(Type.DELETED, device);
+  }
+}
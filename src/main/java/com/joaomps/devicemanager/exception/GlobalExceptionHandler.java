@@ -1,7 +1,12 @@
 package com.joaomps.devicemanager.exception;
 
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -15,28 +20,69 @@ public class GlobalExceptionHandler {
   @ExceptionHandler(MethodArgumentNotValidException.class)
   @ResponseStatus(HttpStatus.BAD_REQUEST)
   public Map<String, String> handleValidationErrors(MethodArgumentNotValidException ex) {
+    List<FieldError> fieldErrors = ex.getBindingResult().getFieldErrors();
+    if (fieldErrors.size() == 1) {
+      FieldError error = fieldErrors.getFirst();
+      return Collections.singletonMap(error.getField(), error.getDefaultMessage());
+    }
+    Map<String, String> errors = new HashMap<>(fieldErrors.size() * 2);
+    for (FieldError error : fieldErrors) {
+      errors.put(error.getField(), error.getDefaultMessage());
+    }
+    return errors;
+  }
+
+  @ExceptionHandler(ConstraintViolationException.class)
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public Map<String, String> handleConstraintViolations(ConstraintViolationException ex) {
     Map<String, String> errors = new HashMap<>();
-    ex.getBindingResult().getAllErrors().forEach(error -> {
-      String fieldName = ((FieldError) error).getField();
-      String errorMessage = error.getDefaultMessage();
-      errors.put(fieldName, errorMessage);
-    });
+    for (ConstraintViolation<?> violation : ex.getConstraintViolations()) {
+      errors.put(violation.getPropertyPath().toString(), violation.getMessage());
+    }
     return errors;
   }
 
+  @ExceptionHandler(InvalidRequestException.class)
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public Map<String, String> handleInvalidRequestException(InvalidRequestException ex) {
+    return error(ex.getMessage());
+  }
+
   @ExceptionHandler(DeviceNotFoundException.class)
   @ResponseStatus(HttpStatus.NOT_FOUND)
   public Map<String, String> handleDeviceNotFoundException(DeviceNotFoundException ex) {
-    Map<String, String> error = new HashMap<>();
-    error.put("error", ex.getMessage());
-    return error;
+    return error(ex.getMessage());
+  }
+
+  @ExceptionHandler(JobNotFoundException.class)
+  @ResponseStatus(HttpStatus.NOT_FOUND)
+  public Map<String, String> handleJobNotFoundException(JobNotFoundException ex) {
+    return error(ex.getMessage());
   }
 
   @ExceptionHandler(InvalidOperationException.class)
   @ResponseStatus(HttpStatus.CONFLICT)
   public Map<String, String> handleInvalidOperationException(InvalidOperationException ex) {
-    Map<String, String> error = new HashMap<>();
-    error.put("error", ex.getMessage());
-    return error;
+    return error(ex.getMessage());
+  }
+
+  @ExceptionHandler(OptimisticLockingFailureException.class)
+  @ResponseStatus(HttpStatus.CONFLICT)
+  public Map<String, String> handleOptimisticLockingFailure(OptimisticLockingFailureException ex) {
+    return error("The device was changed by another request, retry with its current state");
+  }
+
+  @ExceptionHandler(SnapshotExpiredException.class)
+  @ResponseStatus(HttpStatus.GONE)
+  public Map<String, String> handleSnapshotExpiredException(SnapshotExpiredException ex) {
+    return error(ex.getMessage());
+  }
+
+  /**
+   * Body of the single-message errors. Immutable and sized for its one entry, unlike a
+   * {@link HashMap}; still accepts a {@code null} message.
+   */
+  private static Map<String, String> error(String message) {
+    return Collections.singletonMap("error", message);
   }
 }
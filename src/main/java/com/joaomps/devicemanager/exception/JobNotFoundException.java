@@ -0,0 +1,8 @@
+package com.joaomps.devicemanager.exception;
+
+public class JobNotFoundException extends RuntimeException {
+
+  public JobNotFoundException(String message) {
+    super(message);
+  }
+}
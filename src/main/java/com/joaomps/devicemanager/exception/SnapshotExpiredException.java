@@ -0,0 +1,8 @@
+package com.joaomps.devicemanager.exception;
+
+public class SnapshotExpiredException extends RuntimeException {
+
+  public SnapshotExpiredException(String message) {
+    super(message);
+  }
+}
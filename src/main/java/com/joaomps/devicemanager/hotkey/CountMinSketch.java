@@ -0,0 +1,50 @@
+package com.joaomps.devicemanager.hotkey;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count-Min sketch over {@code long} keys: {@code depth} rows of {@code width} counters, each key
+ * counted in one counter per row. The estimate is the smallest of its counters, which is never
+ * below the true count. Updates are lock-free.
+ */
+final class CountMinSketch {
+
+  private final int depth;
+  private final int width;
+  private final AtomicLongArray counters;
+
+  CountMinSketch(int depth, int width) {
+    this.depth = depth;
+    this.width = width;
+    this.counters = new AtomicLongArray(depth * width);
+  }
+
+  void add(long key) {
+    for (int row = 0; row < depth; row++) {
+      counters.incrementAndGet(index(row, key));
+    }
+  }
+
+  long estimate(long key) {
+    long estimate = Long.MAX_VALUE;
+    for (int row = 0; row < depth; row++) {
+      estimate = Math.min(estimate, counters.get(index(row, key)));
+    }
+    return estimate;
+  }
+
+  void decay() {
+    for (int i = 0; i < counters.length(); i++) {
+      counters.getAndUpdate(i, count -> count >> 1);
+    }
+  }
+
+  private int index(int row, long key) {
+    // SplitMix64 finalizer, seeded per row, to get independent hashes from one function.
+    long hash = key + (row + 1) * 0x9E3779B97F4A7C15L;
+    hash = (hash ^ (hash >>> 30)) * 0xBF58476D1CE4E5B9L;
+    hash = (hash ^ (hash >>> 27)) * 0x94D049BB133111EBL;
+    hash ^= hash >>> 31;
+    return row * width + (int) Math.floorMod(hash, (long) width);
+  }
+}
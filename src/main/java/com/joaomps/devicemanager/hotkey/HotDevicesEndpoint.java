@@ -0,0 +1,34 @@
+package com.joaomps.devicemanager.hotkey;
+
+import java.util.List;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code /actuator/hotdevices}: the hottest devices with their write and conflict counts.
+ */
+@Component
+@Endpoint(id = "hotdevices")
+public class HotDevicesEndpoint {
+
+  private static final int DEFAULT_LIMIT = 20;
+
+  private final HotKeyTracker tracker;
+
+  public HotDevicesEndpoint(HotKeyTracker tracker) {
+    this.tracker = tracker;
+  }
+
+  @ReadOperation
+  public HotDevices hotDevices(@Nullable Integer limit) {
+    return new HotDevices(tracker.isEnabled(), tracker.getSampleRate(),
+        tracker.top(limit == null ? DEFAULT_LIMIT : limit));
+  }
+
+  public record HotDevices(boolean enabled, double sampleRate,
+                           List<HotKeyTracker.HotKey> devices) {
+
+  }
+}
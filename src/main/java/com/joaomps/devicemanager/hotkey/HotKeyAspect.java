@@ -0,0 +1,81 @@
+package com.joaomps.devicemanager.hotkey;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Feeds the {@link HotKeyTracker} with every single-device operation of {@code DeviceService}
+ * and {@code DeviceLeaseService}. The tracked methods are listed by kind: a GET is one read,
+ * whether it is served by {@code readRegistered} or, on a miss, by {@code findById}. Operations
+ * failing because of a concurrent write, lock and optimistic-locking failures, count as
+ * conflicts; those refused because of the device's state, such as deleting a device in use, do
+ * not. Runs outside the service's transaction, so failures raised on commit are seen.
+ */
+@Aspect
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE - 1)
+public class HotKeyAspect {
+
+  private final HotKeyTracker tracker;
+
+  public HotKeyAspect(HotKeyTracker tracker) {
+    this.tracker = tracker;
+  }
+
+  @Pointcut("execution(* com.joaomps.devicemanager.service.DeviceService.findById(Long))")
+  void reads() {
+  }
+
+  @Pointcut("execution(* com.joaomps.devicemanager.service.DeviceService.deleteById(Long))"
+      + " || execution(* com.joaomps.devicemanager.service.DeviceService.restoreDevice(Long))"
+      + " || execution(* com.joaomps.devicemanager.service.DeviceService.updateDevice(Long, ..))"
+      + " || execution(* com.joaomps.devicemanager.service.DeviceService"
+      + ".partialUpdateDevice(Long, ..))"
+      + " || execution(* com.joaomps.devicemanager.service.DeviceLeaseService.acquire(Long, ..))"
+      + " || execution(* com.joaomps.devicemanager.service.DeviceLeaseService.renew(Long, ..))"
+      + " || execution(* com.joaomps.devicemanager.service.DeviceLeaseService.release(Long, ..))")
+  void writes() {
+  }
+
+  /**
+   * Counts registry hits only: on a miss the caller falls back to {@code findById}, which counts
+   * the read itself.
+   */
+  @AfterReturning(pointcut = "execution(boolean com.joaomps.devicemanager.service.DeviceService"
+      + ".readRegistered(Long, ..)) && args(id, ..)", returning = "hit", argNames = "id,hit")
+  public void trackRegistered(Long id, boolean hit) {
+    if (hit && id != null && tracker.isEnabled()) {
+      tracker.recordAccess(id, false);
+    }
+  }
+
+  @Around("reads() && args(id)")
+  public Object trackRead(ProceedingJoinPoint joinPoint, Long id) throws Throwable {
+    return track(joinPoint, id, false);
+  }
+
+  @Around("writes() && args(id, ..)")
+  public Object trackWrite(ProceedingJoinPoint joinPoint, Long id) throws Throwable {
+    return track(joinPoint, id, true);
+  }
+
+  private Object track(ProceedingJoinPoint joinPoint, Long id, boolean write) throws Throwable {
+    if (!tracker.isEnabled() || id == null) {
+      return joinPoint.proceed();
+    }
+    tracker.recordAccess(id, write);
+    try {
+      return joinPoint.proceed();
+    } catch (ConcurrencyFailureException e) {
+      tracker.recordConflict(id);
+      throw e;
+    }
+  }
+}
@@ -0,0 +1,102 @@
+package com.joaomps.devicemanager.hotkey;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Finds the devices receiving most of the traffic, and how often operations on them conflict.
+ *
+ * <p>A {@code device-manager.hotkeys.sample-rate} fraction of the device reads and writes feed a
+ * {@link SpaceSaving} summary of the hottest device ids and a {@link CountMinSketch} of writes.
+ * Conflicts, which are rare, are all counted in a second sketch. Both use a fixed amount of memory
+ * whatever the number of devices. The summary is split into stripes of at least
+ * {@value #MIN_STRIPE_CAPACITY} devices, up to one per processor, so request threads rarely
+ * wait on each other. Every {@code device-manager.hotkeys.decay-interval} all counts
+ * are halved, so the figures follow the recent traffic. Sampled counts are scaled back up when
+ * reported.
+ */
+@Component
+public class HotKeyTracker {
+
+  static final int MIN_STRIPE_CAPACITY = 16;
+
+  private final boolean enabled;
+  private final double sampleRate;
+  private final SpaceSaving accesses;
+  private final CountMinSketch writes;
+  private final CountMinSketch conflicts;
+
+  public HotKeyTracker(@Value("${device-manager.hotkeys.enabled:true}") boolean enabled,
+      @Value("${device-manager.hotkeys.sample-rate:0.1}") double sampleRate,
+      @Value("${device-manager.hotkeys.capacity:128}") int capacity) {
+    this.enabled = enabled;
+    this.sampleRate = sampleRate;
+    this.accesses = new SpaceSaving(capacity, Math.min(
+        Runtime.getRuntime().availableProcessors(), capacity / MIN_STRIPE_CAPACITY));
+    this.writes = new CountMinSketch(4, 2048);
+    this.conflicts = new CountMinSketch(4, 2048);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void recordAccess(long deviceId, boolean write) {
+    if (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+      return;
+    }
+    accesses.offer(deviceId);
+    if (write) {
+      writes.add(deviceId);
+    }
+  }
+
+  public void recordConflict(long deviceId) {
+    conflicts.add(deviceId);
+  }
+
+  /**
+   * Returns up to {@code limit} of the hottest devices, hottest first.
+   */
+  public List<HotKey> top(int limit) {
+    List<HotKey> top = new ArrayList<>();
+    for (SpaceSaving.Counter counter : accesses.top(limit)) {
+      long accessed = scale(counter.count());
+      long conflicted = conflicts.estimate(counter.key());
+      top.add(new HotKey(counter.key(), accessed, scale(counter.error()),
+          scale(writes.estimate(counter.key())), conflicted,
+          (double) conflicted / Math.max(accessed, conflicted)));
+    }
+    return top;
+  }
+
+  public double getSampleRate() {
+    return sampleRate;
+  }
+
+  @Scheduled(fixedDelayString = "${device-manager.hotkeys.decay-interval:PT5M}")
+  public void decay() {
+    accesses.decay();
+    writes.decay();
+    conflicts.decay();
+  }
+
+  private long scale(long sampled) {
+    return sampleRate < 1 ? Math.round(sampled / sampleRate) : sampled;
+  }
+
+  /**
+   * Estimated traffic of one device since the counts were last halved. {@code accesses} may
+   * overestimate by up to {@code error}; {@code conflicts} are operations that failed because of a
+   * concurrent write to the device.
+   */
+  public record HotKey(long deviceId, long accesses, long error, long writes, long conflicts,
+                       double conflictRate) {
+
+  }
+}
@@ -0,0 +1,239 @@
+package com.joaomps.devicemanager.hotkey;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Space-Saving heavy-hitter summary: tracks at most {@code capacity} keys, and when a new key
+ * arrives while full, it takes over the counter of the least counted key. Any key counted more
+ * than {@code total / capacity} times is guaranteed to be tracked, and a tracked key's count
+ * overestimates its true count by at most its {@code error}.
+ *
+ * <p>Keys are spread by hash over {@code stripes} independent summaries sharing the capacity, each
+ * behind its own lock, so concurrent offers rarely contend. The guarantee then holds per stripe,
+ * against the keys hashed to it. Each stripe is a stream-summary: counters are grouped in buckets
+ * of equal count, kept in count order, so an offer costs constant time, evictions included.
+ */
+final class SpaceSaving {
+
+  private final Stripe[] stripes;
+
+  SpaceSaving(int capacity, int stripes) {
+    int count = Math.max(1, Math.min(stripes, capacity));
+    this.stripes = new Stripe[count];
+    for (int i = 0; i < count; i++) {
+      this.stripes[i] = new Stripe((capacity + count - 1) / count);
+    }
+  }
+
+  void offer(long key) {
+    stripe(key).offer(key);
+  }
+
+  /**
+   * Returns up to {@code limit} tracked keys, most counted first.
+   */
+  List<Counter> top(int limit) {
+    List<Counter> top = new ArrayList<>();
+    for (Stripe stripe : stripes) {
+      top.addAll(stripe.top(limit));
+    }
+    top.sort(Comparator.comparingLong(Counter::count).reversed());
+    return top.size() > limit ? top.subList(0, limit) : top;
+  }
+
+  /**
+   * Halves every count, so keys that cooled down are replaced by the current hot keys.
+   */
+  void decay() {
+    for (Stripe stripe : stripes) {
+      stripe.decay();
+    }
+  }
+
+  private Stripe stripe(long key) {
+    long hash = key * 0x9E3779B97F4A7C15L;
+    return stripes[(int) Math.floorMod(hash ^ (hash >>> 32), (long) stripes.length)];
+  }
+
+  /**
+   * Snapshot of a tracked key.
+   */
+  record Counter(long key, long count, long error) {
+
+  }
+
+  /**
+   * Stream-summary of one stripe. Buckets form a list in increasing count order, each holding the
+   * nodes of that count, so the least counted key is the first node of the first bucket.
+   */
+  private static final class Stripe {
+
+    private final int capacity;
+    private final Map<Long, Node> nodes;
+    private Bucket first;
+    private Bucket last;
+
+    Stripe(int capacity) {
+      this.capacity = capacity;
+      this.nodes = new HashMap<>(capacity * 2);
+    }
+
+    synchronized void offer(long key) {
+      Node node = nodes.get(key);
+      if (node != null) {
+        increment(node);
+        return;
+      }
+      if (nodes.size() < capacity) {
+        node = new Node(key, 0);
+        nodes.put(key, node);
+        if (first == null || first.count != 1) {
+          link(new Bucket(1), null);
+        }
+        first.add(node);
+        return;
+      }
+
+      Node victim = first.head;
+      nodes.remove(victim.key);
+      victim.key = key;
+      victim.error = first.count;
+      nodes.put(key, victim);
+      increment(victim);
+    }
+
+    synchronized List<Counter> top(int limit) {
+      List<Counter> top = new ArrayList<>(Math.min(limit, nodes.size()));
+      for (Bucket bucket = last; bucket != null && top.size() < limit; bucket = bucket.prev) {
+        for (Node node = bucket.head; node != null && top.size() < limit; node = node.next) {
+          top.add(new Counter(node.key, bucket.count, node.error));
+        }
+      }
+      return top;
+    }
+
+    synchronized void decay() {
+      List<Node> kept = new ArrayList<>(nodes.size());
+      List<Long> counts = new ArrayList<>(nodes.size());
+      for (Bucket bucket = first; bucket != null; bucket = bucket.next) {
+        long count = bucket.count >> 1;
+        for (Node node = bucket.head; node != null; node = node.next) {
+          if (count == 0) {
+            nodes.remove(node.key);
+          } else {
+            node.error >>= 1;
+            kept.add(node);
+            counts.add(count);
+          }
+        }
+      }
+
+      // Halving keeps the order, so the buckets are rebuilt in one pass.
+      first = null;
+      last = null;
+      for (int i = 0; i < kept.size(); i++) {
+        long count = counts.get(i);
+        if (last == null || last.count != count) {
+          link(new Bucket(count), last);
+        }
+        last.add(kept.get(i));
+      }
+    }
+
+    private void increment(Node node) {
+      Bucket bucket = node.bucket;
+      Bucket next = bucket.next;
+      if (next == null || next.count != bucket.count + 1) {
+        next = link(new Bucket(bucket.count + 1), bucket);
+      }
+      bucket.remove(node);
+      next.add(node);
+      if (bucket.head == null) {
+        unlink(bucket);
+      }
+    }
+
+    /**
+     * Inserts {@code bucket} after {@code previous}, or first if {@code previous} is null.
+     */
+    private Bucket link(Bucket bucket, Bucket previous) {
+      bucket.prev = previous;
+      bucket.next = previous == null ? first : previous.next;
+      if (bucket.next != null) {
+        bucket.next.prev = bucket;
+      } else {
+        last = bucket;
+      }
+      if (previous != null) {
+        previous.next = bucket;
+      } else {
+        first = bucket;
+      }
+      return bucket;
+    }
+
+    private void unlink(Bucket bucket) {
+      if (bucket.prev != null) {
+        bucket.prev.next = bucket.next;
+      } else {
+        first = bucket.next;
+      }
+      if (bucket.next != null) {
+        bucket.next.prev = bucket.prev;
+      } else {
+        last = bucket.prev;
+      }
+    }
+  }
+
+  private static final class Bucket {
+
+    final long count;
+    Bucket prev;
+    Bucket next;
+    Node head;
+
+    Bucket(long count) {
+      this.count = count;
+    }
+
+    void add(Node node) {
+      node.bucket = this;
+      node.prev = null;
+      node.next = head;
+      if (head != null) {
+        head.prev = node;
+      }
+      head = node;
+    }
+
+    void remove(Node node) {
+      if (node.prev != null) {
+        node.prev.next = node.next;
+      } else {
+        head = node.next;
+      }
+      if (node.next != null) {
+        node.next.prev = node.prev;
+      }
+    }
+  }
+
+  private static final class Node {
+
+    long key;
+    long error;
+    Bucket bucket;
+    Node prev;
+    Node next;
+
+    Node(long key, long error) {
+      this.key = key;
+      this.error = error;
+    }
+  }
+}
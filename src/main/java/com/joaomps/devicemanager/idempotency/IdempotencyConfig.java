@@ -0,0 +1,26 @@
+package com.joaomps.devicemanager.idempotency;
+
+import java.time.Duration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+public class IdempotencyConfig {
+
+  /**
+   * Runs after tenant resolution, since keys are scoped by tenant, and after shard routing, so a
+   * forwarded request is deduplicated on the node owning the device.
+   */
+  @Bean
+  public FilterRegistrationBean<IdempotencyFilter> idempotencyFilter(IdempotencyStore store,
+      @Value("${device-manager.idempotency.wait-timeout:PT10S}") Duration waitTimeout) {
+    FilterRegistrationBean<IdempotencyFilter> registration = new FilterRegistrationBean<>(
+        new IdempotencyFilter(store, waitTimeout));
+    registration.addUrlPatterns("/api/v1/devices", "/api/v1/devices/*");
+    registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 15);
+    return registration;
+  }
+}
@@ -0,0 +1,167 @@
+package com.joaomps.devicemanager.idempotency;
+
+import com.joaomps.devicemanager.cluster.CachedBodyRequest;
+import com.joaomps.devicemanager.idempotency.IdempotencyStore.StoredResponse;
+import com.joaomps.devicemanager.tenant.TenantContext;
+import com.joaomps.devicemanager.tracing.TracingFilter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+/**
+ * Makes device writes sent with an {@code Idempotency-Key} header safe to retry.
+ *
+ * <p>The first request with a key runs normally and its response, headers such as
+ * {@code Location} included, is kept in the {@link IdempotencyStore}. Retries with the same key
+ * and body get that response back, marked with {@code Idempotent-Replayed: true}, without
+ * reaching the controller. A retry arriving while the original is still running waits for it.
+ * Reusing a key for a different body is rejected with 422, and a retry still waiting after
+ * {@code device-manager.idempotency.wait-timeout} with 409. Server errors are not kept, so the
+ * request can be retried for real.
+ */
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+  public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+  public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+  private static final Set<String> METHODS = Set.of("POST", "PUT", "PATCH", "DELETE");
+  private static final int MAX_KEY_LENGTH = 255;
+
+  /**
+   * Headers not replayed: set again for the replayed response, or specific to the original one.
+   */
+  private static final Set<String> NOT_REPLAYED = Set.of("content-type", "content-length",
+      "transfer-encoding", "connection", "keep-alive", "date", "set-cookie",
+      TracingFilter.TRACE_ID_HEADER.toLowerCase(Locale.ROOT));
+
+  private final IdempotencyStore store;
+  private final Duration waitTimeout;
+
+  public IdempotencyFilter(IdempotencyStore store, Duration waitTimeout) {
+    this.store = store;
+    this.waitTimeout = waitTimeout;
+  }
+
+  @Override
+  protected boolean shouldNotFilter(HttpServletRequest request) {
+    return !METHODS.contains(request.getMethod())
+        || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+      FilterChain filterChain) throws ServletException, IOException {
+    String idempotencyKey = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+    if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+      reject(response, HttpStatus.BAD_REQUEST, "Must be 1 to " + MAX_KEY_LENGTH + " characters");
+      return;
+    }
+
+    byte[] body = request.getInputStream().readAllBytes();
+    String fingerprint = IdempotencyStore.fingerprint(body);
+    String key = IdempotencyStore.key(TenantContext.current(), request.getMethod(),
+        request.getRequestURI(), idempotencyKey);
+
+    while (true) {
+      CompletableFuture<StoredResponse> original = store.claim(key, fingerprint);
+      if (original == null) {
+        execute(key, fingerprint, new CachedBodyRequest(request, body), response, filterChain);
+        return;
+      }
+
+      StoredResponse stored;
+      try {
+        stored = await(original);
+      } catch (TimeoutException e) {
+        reject(response, HttpStatus.CONFLICT,
+            "The original request with this key is still in progress");
+        return;
+      }
+      if (stored == null) {
+        // The original request failed, try to run this one instead.
+        continue;
+      }
+      if (!stored.fingerprint().equals(fingerprint)) {
+        reject(response, HttpStatus.UNPROCESSABLE_ENTITY,
+            "Was already used for a request with a different body");
+        return;
+      }
+      replay(stored, response);
+      return;
+    }
+  }
+
+  private void execute(String key, String fingerprint, HttpServletRequest request,
+      HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+    ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+    StoredResponse stored = null;
+    try {
+      filterChain.doFilter(request, wrapper);
+      if (wrapper.getStatus() < HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+        stored = new StoredResponse(fingerprint, wrapper.getStatus(), wrapper.getContentType(),
+            replayedHeaders(wrapper), wrapper.getContentAsByteArray());
+      }
+    } finally {
+      store.complete(key, stored);
+    }
+    wrapper.copyBodyToResponse();
+  }
+
+  private static Map<String, List<String>> replayedHeaders(HttpServletResponse response) {
+    Map<String, List<String>> headers = new LinkedHashMap<>();
+    for (String name : response.getHeaderNames()) {
+      if (!NOT_REPLAYED.contains(name.toLowerCase(Locale.ROOT))) {
+        headers.putIfAbsent(name, List.copyOf(response.getHeaders(name)));
+      }
+    }
+    return headers;
+  }
+
+  private StoredResponse await(CompletableFuture<StoredResponse> original)
+      throws ServletException, TimeoutException {
+    try {
+      return original.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (ExecutionException e) {
+      return null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new ServletException("Interrupted while waiting for the original request", e);
+    }
+  }
+
+  private static void replay(StoredResponse stored, HttpServletResponse response)
+      throws IOException {
+    response.setStatus(stored.status());
+    if (stored.contentType() != null) {
+      response.setContentType(stored.contentType());
+    }
+    stored.headers().forEach((name, values) -> values.forEach(
+        value -> response.addHeader(name, value)));
+    response.setHeader(REPLAYED_HEADER, "true");
+    response.setContentLength(stored.body().length);
+    response.getOutputStream().write(stored.body());
+  }
+
+  private static void reject(HttpServletResponse response, HttpStatus status, String message)
+      throws IOException {
+    response.setStatus(status.value());
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    response.getWriter().write("{\"" + IDEMPOTENCY_KEY_HEADER + "\":\"" + message + "\"}");
+  }
+}
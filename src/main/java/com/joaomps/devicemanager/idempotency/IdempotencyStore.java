@@ -0,0 +1,325 @@
+package com.joaomps.devicemanager.idempotency;
+
+import com.joaomps.devicemanager.model.IdempotencyRecord;
+import com.joaomps.devicemanager.repository.IdempotencyRecordRepository;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Responses of requests sent with an {@code Idempotency-Key}.
+ *
+ * <p>Completed responses are kept for {@code device-manager.idempotency.ttl} in a concurrent map
+ * holding at most {@code device-manager.idempotency.capacity} entries, evicting the oldest first.
+ * With {@code device-manager.idempotency.persistent} they are also written to the database, so a
+ * retry that lands on another node or after a restart is still answered from the original
+ * response.
+ *
+ * <p>A key is {@link #claim(String, String) claimed} by the first request carrying it. Duplicates
+ * arriving on the same node while that request runs wait on the same future instead of executing
+ * the write again. When persistent, the claim is also a row inserted before the request runs:
+ * the insert fails on the unique id if another node holds the key, and the duplicate then polls
+ * the row until the original response is stored. A claim left by a node that died expires after
+ * {@code device-manager.idempotency.claim-ttl}.
+ */
+@Component
+public class IdempotencyStore {
+
+  private static final Logger log = LoggerFactory.getLogger(IdempotencyStore.class);
+
+  private static final Executor POLL_DELAY =
+      CompletableFuture.delayedExecutor(200, TimeUnit.MILLISECONDS);
+
+  private final IdempotencyRecordRepository repository;
+  private final Duration ttl;
+  private final int capacity;
+  private final boolean persistent;
+  private final Duration claimTtl;
+  private final Map<String, StoredResponse> completed = new ConcurrentHashMap<>();
+  private final Queue<String> insertionOrder = new ConcurrentLinkedQueue<>();
+  private final Map<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+  public IdempotencyStore(IdempotencyRecordRepository repository,
+      @Value("${device-manager.idempotency.ttl:PT24H}") Duration ttl,
+      @Value("${device-manager.idempotency.capacity:100000}") int capacity,
+      @Value("${device-manager.idempotency.persistent:false}") boolean persistent,
+      @Value("${device-manager.idempotency.claim-ttl:PT1M}") Duration claimTtl) {
+    this.repository = repository;
+    this.ttl = ttl;
+    this.capacity = capacity;
+    this.persistent = persistent;
+    this.claimTtl = claimTtl;
+  }
+
+  /**
+   * Identifies a request by tenant, method, path and client-supplied key.
+   */
+  public static String key(String tenant, String method, String path, String idempotencyKey) {
+    return sha256((tenant + '\n' + method + '\n' + path + '\n' + idempotencyKey)
+        .getBytes(StandardCharsets.UTF_8));
+  }
+
+  public static String fingerprint(byte[] body) {
+    return sha256(body);
+  }
+
+  /**
+   * Claims {@code key} for the calling request. Returns {@code null} if the caller owns the key
+   * and must {@link #complete(String, StoredResponse) complete} it, otherwise a future of the
+   * original response. The future yields {@code null} if the original request did not produce a
+   * response worth replaying, in which case the key can be claimed again.
+   */
+  public CompletableFuture<StoredResponse> claim(String key, String fingerprint) {
+    StoredResponse stored = find(key);
+    if (stored != null) {
+      return CompletableFuture.completedFuture(stored);
+    }
+
+    CompletableFuture<StoredResponse> claim = new CompletableFuture<>();
+    CompletableFuture<StoredResponse> running = inFlight.putIfAbsent(key, claim);
+    if (running != null) {
+      return running;
+    }
+    // The previous owner may have completed between the lookup and the claim.
+    stored = find(key);
+    if (stored != null) {
+      inFlight.remove(key, claim);
+      claim.complete(stored);
+      return claim;
+    }
+    if (persistent && !claimInDatabase(key, fingerprint)) {
+      // Held by a request on another node: local duplicates keep waiting on this claim.
+      POLL_DELAY.execute(() -> pollRemote(key, claim));
+      return claim;
+    }
+    return null;
+  }
+
+  /**
+   * Releases a claimed key, storing {@code response} unless it is {@code null}, and hands it to
+   * the duplicates waiting for it.
+   */
+  public void complete(String key, StoredResponse response) {
+    try {
+      if (response != null) {
+        StoredResponse stored = response.expiringAt(LocalDateTime.now().plus(ttl));
+        remember(key, stored);
+        persist(key, stored);
+        response = stored;
+      } else {
+        release(key);
+      }
+    } finally {
+      CompletableFuture<StoredResponse> claim = inFlight.remove(key);
+      if (claim != null) {
+        claim.complete(response);
+      }
+    }
+  }
+
+  public int size() {
+    return completed.size();
+  }
+
+  @Scheduled(fixedDelayString = "${device-manager.idempotency.purge-interval:PT10M}")
+  public void purgeExpired() {
+    LocalDateTime now = LocalDateTime.now();
+    completed.values().removeIf(response -> !response.expiresAt().isAfter(now));
+    insertionOrder.removeIf(key -> !completed.containsKey(key));
+    if (!persistent) {
+      return;
+    }
+    try {
+      int purged = repository.deleteExpired(now);
+      if (purged > 0) {
+        log.debug("Purged {} expired idempotency records", purged);
+      }
+    } catch (DataAccessException e) {
+      log.warn("Could not purge expired idempotency records: {}", e.getMessage());
+    }
+  }
+
+  private StoredResponse find(String key) {
+    LocalDateTime now = LocalDateTime.now();
+    StoredResponse stored = completed.get(key);
+    if (stored != null) {
+      if (stored.expiresAt().isAfter(now)) {
+        return stored;
+      }
+      completed.remove(key, stored);
+    }
+    if (!persistent) {
+      return null;
+    }
+
+    try {
+      return repository.findByIdAndExpiresAtAfter(key, now)
+          .filter(record -> record.getStatus() != IdempotencyRecord.PENDING)
+          .map(record -> remember(key, toResponse(record)))
+          .orElse(null);
+    } catch (DataAccessException e) {
+      log.warn("Could not look up idempotency record: {}", e.getMessage());
+      return null;
+    }
+  }
+
+  private StoredResponse remember(String key, StoredResponse stored) {
+    if (completed.put(key, stored) == null) {
+      insertionOrder.add(key);
+      while (completed.size() > capacity) {
+        String eldest = insertionOrder.poll();
+        if (eldest == null) {
+          break;
+        }
+        completed.remove(eldest);
+      }
+    }
+    return stored;
+  }
+
+  /**
+   * Inserts the pending row of a key. Returns {@code false} if another request holds it.
+   */
+  private boolean claimInDatabase(String key, String fingerprint) {
+    LocalDateTime now = LocalDateTime.now();
+    try {
+      for (int attempt = 0; attempt < 2; attempt++) {
+        try {
+          repository.insertClaim(key, fingerprint, now.plus(claimTtl));
+          return true;
+        } catch (DataIntegrityViolationException e) {
+          // Taken, unless the row is a claim or response that expired and was not purged yet.
+          if (repository.deleteIfExpired(key, now) == 0) {
+            return false;
+          }
+        }
+      }
+      return false;
+    } catch (DataAccessException e) {
+      log.warn("Could not claim idempotency key, running without it: {}", e.getMessage());
+      return true;
+    }
+  }
+
+  /**
+   * Waits for the row of a key claimed on another node to hold a response, then completes the
+   * local claim with it. Completes with {@code null} once the row is gone or expired, so that the
+   * waiting requests claim the key again.
+   */
+  private void pollRemote(String key, CompletableFuture<StoredResponse> claim) {
+    IdempotencyRecord record;
+    try {
+      record = repository.findByIdAndExpiresAtAfter(key, LocalDateTime.now()).orElse(null);
+    } catch (DataAccessException e) {
+      log.warn("Could not look up idempotency record: {}", e.getMessage());
+      record = null;
+    }
+    if (record != null && record.getStatus() == IdempotencyRecord.PENDING) {
+      POLL_DELAY.execute(() -> pollRemote(key, claim));
+      return;
+    }
+    inFlight.remove(key, claim);
+    claim.complete(record == null ? null : remember(key, toResponse(record)));
+  }
+
+  private void persist(String key, StoredResponse response) {
+    if (!persistent) {
+      return;
+    }
+    try {
+      repository.save(new IdempotencyRecord(key, response.fingerprint(), response.status(),
+          response.contentType(), encodeHeaders(response.headers()),
+          new String(response.body(), StandardCharsets.UTF_8), response.expiresAt()));
+    } catch (DataAccessException e) {
+      log.warn("Could not persist idempotency record: {}", e.getMessage());
+    }
+  }
+
+  private void release(String key) {
+    if (!persistent) {
+      return;
+    }
+    try {
+      repository.releaseClaim(key);
+    } catch (DataAccessException e) {
+      log.warn("Could not release idempotency key, it expires on its own: {}", e.getMessage());
+    }
+  }
+
+  private static StoredResponse toResponse(IdempotencyRecord record) {
+    return new StoredResponse(record.getFingerprint(), record.getStatus(),
+        record.getContentType(), decodeHeaders(record.getHeaders()),
+        record.getBody() == null ? new byte[0] : record.getBody().getBytes(StandardCharsets.UTF_8),
+        record.getExpiresAt());
+  }
+
+  private static String encodeHeaders(Map<String, List<String>> headers) {
+    StringBuilder encoded = new StringBuilder();
+    headers.forEach((name, values) -> values.forEach(
+        value -> encoded.append(name).append(": ").append(value).append('\n')));
+    return encoded.toString();
+  }
+
+  private static Map<String, List<String>> decodeHeaders(String encoded) {
+    Map<String, List<String>> headers = new LinkedHashMap<>();
+    if (encoded != null) {
+      for (String line : encoded.split("\n")) {
+        int separator = line.indexOf(": ");
+        if (separator > 0) {
+          headers.computeIfAbsent(line.substring(0, separator), name -> new ArrayList<>())
+              .add(line.substring(separator + 2));
+        }
+      }
+    }
+    return headers;
+  }
+
+  private static String sha256(byte[] bytes) {
+    try {
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  /**
+   * A response to replay, with the fingerprint of the request that produced it.
+   */
+  public record StoredResponse(String fingerprint, int status, String contentType,
+                               Map<String, List<String>> headers, byte[] body,
+                               LocalDateTime expiresAt) {
+
+    public StoredResponse(String fingerprint, int status, String contentType,
+        Map<String, List<String>> headers, byte[] body) {
+      this(fingerprint, status, contentType, headers, body, null);
+    }
+
+    public StoredResponse(String fingerprint, int status, String contentType, byte[] body) {
+      this(fingerprint, status, contentType, Map.of(), body);
+    }
+
+    StoredResponse expiringAt(LocalDateTime expiresAt) {
+      return new StoredResponse(fingerprint, status, contentType, headers, body, expiresAt);
+    }
+  }
+}
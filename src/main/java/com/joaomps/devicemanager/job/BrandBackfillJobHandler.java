@@ -0,0 +1,59 @@
+package com.joaomps.devicemanager.job;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.joaomps.devicemanager.brand.BrandBackfill;
+import com.joaomps.devicemanager.dto.BulkChunkProgress;
+import com.joaomps.devicemanager.model.Job;
+import com.joaomps.devicemanager.model.JobType;
+import java.util.Optional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs the {@link BrandBackfill} over every device, checkpointing after every chunk. Takes no
+ * parameters.
+ */
+@Component
+public class BrandBackfillJobHandler implements JobHandler {
+
+  private final BrandBackfill brandBackfill;
+  private final int chunkSize;
+
+  public BrandBackfillJobHandler(BrandBackfill brandBackfill,
+      @Value("${device-manager.brands.backfill-chunk-size:500}") int chunkSize) {
+    this.brandBackfill = brandBackfill;
+    this.chunkSize = chunkSize;
+  }
+
+  @Override
+  public JobType type() {
+    return JobType.BRAND_BACKFILL;
+  }
+
+  @Override
+  public String prepare(JsonNode parameters) {
+    return "{}";
+  }
+
+  @Override
+  public String run(Job job, JobContext context) {
+    long afterId = job.getResumeAfter() != null ? job.getResumeAfter() : 0;
+    long updated = 0;
+    int chunk = 0;
+    while (true) {
+      Optional<BulkChunkProgress> next = brandBackfill.backfillChunk(afterId, chunkSize, ++chunk,
+          progress -> context.checkpoint(progress.lastId(), progress.matched()));
+      if (next.isEmpty()) {
+        break;
+      }
+
+      BulkChunkProgress progress = next.get();
+      afterId = progress.lastId();
+      updated += progress.updated();
+      if (progress.last() || !context.proceed()) {
+        break;
+      }
+    }
+    return "Linked " + updated + " devices to their brand";
+  }
+}
@@ -0,0 +1,97 @@
+package com.joaomps.devicemanager.job;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.joaomps.devicemanager.dto.BulkChunkProgress;
+import com.joaomps.devicemanager.dto.BulkStateTransitionRequest;
+import com.joaomps.devicemanager.exception.InvalidRequestException;
+import com.joaomps.devicemanager.model.Job;
+import com.joaomps.devicemanager.model.JobType;
+import com.joaomps.devicemanager.service.DeviceBulkService;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+import jakarta.validation.Validator;
+import java.util.Optional;
+import java.util.Set;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs a {@link BulkStateTransitionRequest} in the background, checkpointing after every chunk.
+ */
+@Component
+public class BulkStateTransitionJobHandler implements JobHandler {
+
+  private final DeviceBulkService deviceBulkService;
+  private final ObjectMapper objectMapper;
+  private final Validator validator;
+
+  public BulkStateTransitionJobHandler(DeviceBulkService deviceBulkService,
+      ObjectMapper objectMapper, Validator validator) {
+    this.deviceBulkService = deviceBulkService;
+    this.objectMapper = objectMapper;
+    this.validator = validator;
+  }
+
+  @Override
+  public JobType type() {
+    return JobType.BULK_STATE_TRANSITION;
+  }
+
+  @Override
+  public String prepare(JsonNode parameters) {
+    BulkStateTransitionRequest request = parse(parameters);
+    Set<ConstraintViolation<BulkStateTransitionRequest>> violations = validator.validate(request);
+    if (!violations.isEmpty()) {
+      throw new ConstraintViolationException(violations);
+    }
+    try {
+      return objectMapper.writeValueAsString(request);
+    } catch (JsonProcessingException e) {
+      throw new InvalidRequestException("Invalid job parameters", e);
+    }
+  }
+
+  @Override
+  public String run(Job job, JobContext context) throws Exception {
+    BulkStateTransitionRequest request = objectMapper.readValue(job.getParameters(),
+        BulkStateTransitionRequest.class);
+    long afterId = job.getResumeAfter() != null
+        ? job.getResumeAfter()
+        : request.effectiveAfterId();
+
+    long updated = 0;
+    long skippedInUse = 0;
+    int chunk = 0;
+    while (true) {
+      Optional<BulkChunkProgress> next = deviceBulkService.transitionChunk(request, afterId,
+          ++chunk, progress -> context.checkpoint(progress.lastId(), progress.matched()));
+      if (next.isEmpty()) {
+        break;
+      }
+
+      BulkChunkProgress progress = next.get();
+      afterId = progress.lastId();
+      updated += progress.updated();
+      skippedInUse += progress.skippedInUse();
+      if (progress.last() || !context.proceed()) {
+        break;
+      }
+    }
+    return "Moved " + updated + " devices to " + request.targetState() + ", skipped "
+        + skippedInUse + " in use";
+  }
+
+  private BulkStateTransitionRequest parse(JsonNode parameters) {
+    if (parameters == null || parameters.isNull()) {
+      throw new InvalidRequestException("Job parameters are required");
+    }
+    try {
+      return objectMapper.treeToValue(parameters, BulkStateTransitionRequest.class);
+    } catch (JsonProcessingException e) {
+      throw new InvalidRequestException("Invalid job parameters: " + e.getOriginalMessage(), e);
+    } catch (IllegalArgumentException e) {
+      throw new InvalidRequestException("Invalid job parameters: " + e.getMessage(), e);
+    }
+  }
+}
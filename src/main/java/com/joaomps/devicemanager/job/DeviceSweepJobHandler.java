@@ -0,0 +1,61 @@
+package com.joaomps.devicemanager.job;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.joaomps.devicemanager.exception.InvalidRequestException;
+import com.joaomps.devicemanager.model.Job;
+import com.joaomps.devicemanager.model.JobType;
+import com.joaomps.devicemanager.sweep.DeviceSweepProcessor;
+import com.joaomps.devicemanager.sweep.DeviceSweeper;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs a {@link DeviceSweepProcessor}, named by the {@code processor} parameter, over every
+ * device with the {@link DeviceSweeper}.
+ */
+@Component
+public class DeviceSweepJobHandler implements JobHandler {
+
+  private final DeviceSweeper deviceSweeper;
+  private final ObjectMapper objectMapper;
+  private final Map<String, DeviceSweepProcessor> processors;
+
+  public DeviceSweepJobHandler(DeviceSweeper deviceSweeper, ObjectMapper objectMapper,
+      List<DeviceSweepProcessor> processors) {
+    this.deviceSweeper = deviceSweeper;
+    this.objectMapper = objectMapper;
+    this.processors = processors.stream()
+        .collect(Collectors.toMap(DeviceSweepProcessor::name, Function.identity()));
+  }
+
+  @Override
+  public JobType type() {
+    return JobType.DEVICE_SWEEP;
+  }
+
+  @Override
+  public String prepare(JsonNode parameters) {
+    String name = parameters == null ? null : parameters.path("processor").asText(null);
+    if (name == null || !processors.containsKey(name)) {
+      throw new InvalidRequestException(
+          "Parameter processor must be one of " + processors.keySet());
+    }
+    return objectMapper.createObjectNode().put("processor", name).toString();
+  }
+
+  @Override
+  public String run(Job job, JobContext context) throws Exception {
+    String name = objectMapper.readTree(job.getParameters()).path("processor").asText();
+    DeviceSweepProcessor processor = processors.get(name);
+    if (processor == null) {
+      throw new IllegalStateException("Sweep processor " + name + " is not available");
+    }
+
+    DeviceSweeper.Outcome outcome = deviceSweeper.sweep(job.getId(), processor, context);
+    return "Swept " + outcome.processed() + " devices with " + name + ": " + outcome.summary();
+  }
+}
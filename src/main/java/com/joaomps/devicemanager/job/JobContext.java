@@ -0,0 +1,24 @@
+package com.joaomps.devicemanager.job;
+
+/**
+ * Handle given to a running {@link JobHandler} to report progress.
+ */
+public interface JobContext {
+
+  /**
+   * Records the resume point and the number of items processed by a chunk. Must be called inside
+   * the chunk's transaction, so the progress commits or rolls back with the chunk's writes and a
+   * resumed job neither repeats nor double-counts it. Throws
+   * {@link JobOwnershipLostException} when the job's lease expired and it was handed to another
+   * node, which rolls the chunk back. Handlers working in parallel may call it from several
+   * threads.
+   */
+  void checkpoint(Long resumeAfter, long processed);
+
+  /**
+   * Called between chunks, after the previous one committed. Returns {@code false} when the
+   * handler must stop, because the job was cancelled or the node is shutting down; the job
+   * resumes from its last checkpoint. Otherwise pauses before the next chunk.
+   */
+  boolean proceed();
+}
@@ -0,0 +1,26 @@
+package com.joaomps.devicemanager.job;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.joaomps.devicemanager.model.Job;
+import com.joaomps.devicemanager.model.JobType;
+
+/**
+ * Executes one {@link JobType}. Handlers work in chunks, each in its own transaction, call
+ * {@link JobContext#checkpoint} inside every chunk's transaction and {@link JobContext#proceed}
+ * after it committed.
+ */
+public interface JobHandler {
+
+  JobType type();
+
+  /**
+   * Validates the submitted parameters and returns them as the JSON stored with the job.
+   */
+  String prepare(JsonNode parameters);
+
+  /**
+   * Runs the job from {@link Job#getResumeAfter()} (or from the start when it is {@code null})
+   * and returns a short summary of the outcome.
+   */
+  String run(Job job, JobContext context) throws Exception;
+}
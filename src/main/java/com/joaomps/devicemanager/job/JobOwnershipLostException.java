@@ -0,0 +1,12 @@
+package com.joaomps.devicemanager.job;
+
+/**
+ * Thrown when a node writes progress for a job it no longer owns, because its lease expired and
+ * the job was handed to another node.
+ */
+public class JobOwnershipLostException extends RuntimeException {
+
+  public JobOwnershipLostException(Long jobId) {
+    super("Job " + jobId + " is no longer owned by this node");
+  }
+}
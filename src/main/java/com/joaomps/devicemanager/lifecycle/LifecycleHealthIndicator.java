@@ -0,0 +1,48 @@
+package com.joaomps.devicemanager.lifecycle;
+
+import java.util.Map;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reports whether this instance should receive traffic: not while it warms up after startup, and
+ * not once it started draining for shutdown. Part of the {@code readiness} health group.
+ */
+@Component
+public class LifecycleHealthIndicator implements HealthIndicator {
+
+  public enum Phase {
+    STARTING, WARMING_UP, READY, DRAINING
+  }
+
+  private volatile Phase phase = Phase.STARTING;
+  private volatile Map<String, Object> warmup = Map.of();
+
+  @Override
+  public Health health() {
+    Health.Builder health = phase == Phase.READY ? Health.up() : Health.outOfService();
+    return health.withDetail("phase", phase).withDetail("warmup", warmup).build();
+  }
+
+  public Phase phase() {
+    return phase;
+  }
+
+  void warmingUp() {
+    if (phase == Phase.STARTING) {
+      phase = Phase.WARMING_UP;
+    }
+  }
+
+  void ready(Map<String, Object> warmupDetails) {
+    warmup = Map.copyOf(warmupDetails);
+    if (phase != Phase.DRAINING) {
+      phase = Phase.READY;
+    }
+  }
+
+  void draining() {
+    phase = Phase.DRAINING;
+  }
+}
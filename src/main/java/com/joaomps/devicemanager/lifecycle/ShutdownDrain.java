@@ -0,0 +1,79 @@
+package com.joaomps.devicemanager.lifecycle;
+
+import java.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * First step of shutdown: reports the instance out of service and keeps serving for
+ * {@code device-manager.shutdown.drain-delay}, so load balancers stop routing to it before the
+ * web server stops accepting connections. Tomcat's graceful shutdown then waits for the requests
+ * still in flight, whose transactions commit as usual, and background jobs checkpoint when their
+ * workers are stopped.
+ */
+@Component
+public class ShutdownDrain implements SmartLifecycle {
+
+  private static final Logger log = LoggerFactory.getLogger(ShutdownDrain.class);
+
+  private final LifecycleHealthIndicator lifecycle;
+  private final ApplicationEventPublisher eventPublisher;
+  private final Duration drainDelay;
+  private volatile boolean running;
+  private volatile boolean serving;
+
+  public ShutdownDrain(LifecycleHealthIndicator lifecycle,
+      ApplicationEventPublisher eventPublisher,
+      @Value("${device-manager.shutdown.drain-delay:PT5S}") Duration drainDelay) {
+    this.lifecycle = lifecycle;
+    this.eventPublisher = eventPublisher;
+    this.drainDelay = drainDelay;
+  }
+
+  @EventListener
+  public void onWebServerInitialized(WebServerInitializedEvent event) {
+    serving = true;
+  }
+
+  @Override
+  public void start() {
+    running = true;
+  }
+
+  @Override
+  public void stop() {
+    lifecycle.draining();
+    AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+    if (serving && !drainDelay.isZero()) {
+      log.info("Draining for {} before shutting down", drainDelay);
+      try {
+        Thread.sleep(drainDelay.toMillis());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    running = false;
+  }
+
+  @Override
+  public boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * Stopped before every other lifecycle bean, in particular before the web server's graceful
+   * shutdown.
+   */
+  @Override
+  public int getPhase() {
+    return Integer.MAX_VALUE;
+  }
+}
@@ -0,0 +1,210 @@
+package com.joaomps.devicemanager.lifecycle;
+
+import com.joaomps.devicemanager.cluster.ClusterClient;
+import com.joaomps.devicemanager.cluster.ClusterCredentials;
+import com.joaomps.devicemanager.model.Device;
+import com.joaomps.devicemanager.repository.DeviceRepository;
+import com.joaomps.devicemanager.service.DeviceService;
+import com.joaomps.devicemanager.tenant.TenantContext;
+import com.joaomps.devicemanager.tenant.TenantFilter;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+
+/**
+ * Warms the instance up before it reports ready.
+ *
+ * <p>Once the application has started, and after the startup loaders, a background thread:
+ * opens {@code device-manager.warmup.connections} pooled connections so the first requests do
+ * not pay for connecting; loads the most recent {@code device-manager.warmup.devices} devices
+ * through {@link DeviceService} to fill the device cache; then replays read-only requests to the
+ * hot endpoints over the loopback interface, so the request, service and serialization paths are
+ * JIT-compiled. The {@link LifecycleHealthIndicator} keeps the readiness group out of service
+ * until this has finished or {@code device-manager.warmup.max-duration} has elapsed.
+ */
+@Component
+public class WarmupRunner {
+
+  private static final Logger log = LoggerFactory.getLogger(WarmupRunner.class);
+
+  private static final String INVALID_DEVICE = "{\"name\":\"\",\"brand\":\"\"}";
+
+  private final LifecycleHealthIndicator lifecycle;
+  private final DataSource dataSource;
+  private final DeviceRepository deviceRepository;
+  private final DeviceService deviceService;
+  private final ClusterCredentials clusterCredentials;
+  private final boolean enabled;
+  private final int connections;
+  private final int devices;
+  private final int requests;
+  private final Duration maxDuration;
+  private final HttpClient httpClient = HttpClient.newBuilder()
+      .version(HttpClient.Version.HTTP_1_1)
+      .connectTimeout(Duration.ofSeconds(2))
+      .build();
+  private volatile int port = -1;
+
+  public WarmupRunner(LifecycleHealthIndicator lifecycle, DataSource dataSource,
+      DeviceRepository deviceRepository, DeviceService deviceService,
+      ClusterCredentials clusterCredentials,
+      @Value("${device-manager.warmup.enabled:true}") boolean enabled,
+      @Value("${device-manager.warmup.connections:10}") int connections,
+      @Value("${device-manager.warmup.devices:200}") int devices,
+      @Value("${device-manager.warmup.requests:2000}") int requests,
+      @Value("${device-manager.warmup.max-duration:PT30S}") Duration maxDuration) {
+    this.lifecycle = lifecycle;
+    this.dataSource = dataSource;
+    this.deviceRepository = deviceRepository;
+    this.deviceService = deviceService;
+    this.clusterCredentials = clusterCredentials;
+    this.enabled = enabled;
+    this.connections = connections;
+    this.devices = devices;
+    this.requests = requests;
+    this.maxDuration = maxDuration;
+  }
+
+  @EventListener
+  public void onWebServerInitialized(WebServerInitializedEvent event) {
+    if (event.getApplicationContext().getServerNamespace() == null) {
+      port = event.getWebServer().getPort();
+    }
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  @Order(Ordered.LOWEST_PRECEDENCE)
+  public void start() {
+    if (!enabled) {
+      lifecycle.ready(Map.of("skipped", true));
+      return;
+    }
+    lifecycle.warmingUp();
+    Thread thread = new Thread(this::run, "warmup");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  void run() {
+    long start = System.nanoTime();
+    long deadline = start + maxDuration.toNanos();
+    Map<String, Object> details = new LinkedHashMap<>();
+    try {
+      details.put("connections", prefillConnections());
+      List<Device> sample = loadRecentDevices();
+      details.put("devices", sample.size());
+      details.put("requests", replayRequests(sample, deadline));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException e) {
+      log.warn("Warm-up stopped early: {}", e.getMessage());
+      details.put("error", String.valueOf(e.getMessage()));
+    } finally {
+      long millis = (System.nanoTime() - start) / 1_000_000;
+      details.put("durationMs", millis);
+      lifecycle.ready(details);
+      log.info("Warm-up finished in {} ms: {}", millis, details);
+    }
+  }
+
+  /**
+   * Holds {@code connections} connections at once so the pool has to open them, then returns
+   * them.
+   */
+  private int prefillConnections() {
+    List<Connection> held = new ArrayList<>();
+    try {
+      for (int i = 0; i < connections; i++) {
+        held.add(dataSource.getConnection());
+      }
+    } catch (SQLException e) {
+      log.warn("Could not prefill the connection pool: {}", e.getMessage());
+    } finally {
+      for (Connection connection : held) {
+        try {
+          connection.close();
+        } catch (SQLException e) {
+          // Already returned or broken, the pool replaces it.
+        }
+      }
+    }
+    return held.size();
+  }
+
+  private List<Device> loadRecentDevices() {
+    try {
+      List<Device> recent = deviceRepository.findAllByOrderByIdDesc(Limit.of(devices));
+      for (Device device : recent) {
+        TenantContext.callAs(TenantContext.of(device.getTenantId()),
+            () -> deviceService.findById(device.getId()));
+      }
+      return recent;
+    } catch (DataAccessException e) {
+      log.warn("Could not load devices to warm up with: {}", e.getMessage());
+      return List.of();
+    }
+  }
+
+  /**
+   * Sends read-only requests to the hot endpoints, and creation requests that fail validation,
+   * round-robin over the sampled devices.
+   */
+  private int replayRequests(List<Device> sample, long deadline) throws InterruptedException {
+    if (port < 0 || sample.isEmpty()) {
+      return 0;
+    }
+    String base = "http://localhost:" + port + "/api/v1/devices";
+    int sent = 0;
+    while (sent < requests && System.nanoTime() < deadline) {
+      Device device = sample.get(sent % sample.size());
+      HttpRequest.Builder request = switch (sent % 3) {
+        case 0 -> HttpRequest.newBuilder(URI.create(base + "/" + device.getId())).GET();
+        case 1 -> HttpRequest.newBuilder(URI.create(base + "/search?size=20&q="
+            + URLEncoder.encode(prefix(device.getName()), StandardCharsets.UTF_8))).GET();
+        default -> HttpRequest.newBuilder(URI.create(base))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(INVALID_DEVICE));
+      };
+      request.timeout(Duration.ofSeconds(5))
+          .header(TenantFilter.TENANT_HEADER, TenantContext.of(device.getTenantId()))
+          // Served here even in a cluster, this node is the one warming up.
+          .header(ClusterClient.FORWARDED_HEADER, "warmup")
+          .header(ClusterCredentials.HEADER, clusterCredentials.localToken());
+      try {
+        httpClient.send(request.build(), HttpResponse.BodyHandlers.discarding());
+      } catch (IOException e) {
+        log.warn("Warm-up request failed, skipping the rest: {}", e.getMessage());
+        break;
+      }
+      sent++;
+    }
+    return sent;
+  }
+
+  private static String prefix(String name) {
+    return name == null || name.length() < 3 ? "dev" : name.substring(0, 3);
+  }
+}
@@ -0,0 +1,727 @@
+package com.joaomps.devicemanager.local;
+
+import com.joaomps.devicemanager.model.Device;
+import com.joaomps.devicemanager.model.DeviceState;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Device store of the {@code local} profile: an append-only log of writes, with every device and
+ * its brand, state, creation time and write time indexes held in memory.
+ *
+ * <p>Each {@link #write} appends one record, holding the full image of every device it changed,
+ * to the current segment {@code devices-<n>.log}. A record is a length, a CRC32 and the changes,
+ * so a record torn by a crash is detected and dropped as a whole. Segments are forced to disk
+ * every {@code writeDelayMs}, or on every write when it is 0.
+ *
+ * <p>{@link #compact} starts a new segment and writes the devices as of that point to
+ * {@code devices-<n>.snap}, then deletes the segments it covers. Opening the store loads the
+ * newest snapshot and replays the segments written after it, truncating the last one at its
+ * first incomplete record, so recovery reads at most one snapshot and the writes since.
+ *
+ * <p>Reads and writes run under a read-write lock, through {@link #read} and {@link #write}.
+ * Stored devices are never modified: a write replaces them, so callers copy what they hand out.
+ */
+public class DeviceLogStore implements Closeable {
+
+  private static final Logger log = LoggerFactory.getLogger(DeviceLogStore.class);
+
+  static final String PREFIX = "devices-";
+  static final String SEGMENT_SUFFIX = ".log";
+  static final String SNAPSHOT_SUFFIX = ".snap";
+  private static final String TMP_SUFFIX = ".tmp";
+
+  private static final byte PUT = 1;
+  private static final byte REMOVE = 2;
+  private static final byte SNAPSHOT_START = 3;
+  private static final byte SNAPSHOT_END = 4;
+  private static final int HEADER_BYTES = 8;
+
+  private final Path directory;
+  private final long writeDelayMs;
+  private final long compactAfterBytes;
+  private final int snapshotsKept;
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  private final ScheduledExecutorService background;
+
+  private final NavigableMap<Long, Device> devices = new TreeMap<>();
+  private final Map<Long, NavigableSet<Long>> byBrandId = new HashMap<>();
+  private final NavigableSet<Long> withoutBrandId = new TreeSet<>();
+  private final Map<String, NavigableSet<Long>> withoutBrandIdByBrand = new HashMap<>();
+  private final Map<DeviceState, NavigableSet<Long>> byState = new EnumMap<>(DeviceState.class);
+  private final NavigableSet<TimeKey> byCreationTime = new TreeSet<>();
+  private final NavigableSet<TimeKey> byUpdatedAt = new TreeSet<>();
+  private final NavigableSet<Long> deleted = new TreeSet<>();
+  private long nextId = 1;
+
+  private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+  private final DataOutputStream pendingOut = new DataOutputStream(pending);
+  private long segment;
+  private volatile FileChannel channel;
+  private long segmentBytes;
+  private volatile boolean dirty;
+  private boolean compacting;
+  private boolean compactionQueued;
+  private IOException failure;
+
+  public DeviceLogStore(Path directory, long writeDelayMs, long compactAfterBytes,
+      int snapshotsKept) throws IOException {
+    this.directory = directory;
+    this.writeDelayMs = writeDelayMs;
+    this.compactAfterBytes = compactAfterBytes;
+    this.snapshotsKept = Math.max(1, snapshotsKept);
+    Files.createDirectories(directory);
+    recover();
+
+    this.background = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "device-log");
+      thread.setDaemon(true);
+      return thread;
+    });
+    if (writeDelayMs > 0) {
+      background.scheduleWithFixedDelay(this::flushQuietly, writeDelayMs, writeDelayMs,
+          TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Runs {@code query} under the shared lock, so it sees no write half done.
+   */
+  public <T> T read(Supplier<T> query) {
+    lock.readLock().lock();
+    try {
+      return query.get();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Runs {@code change} under the exclusive lock and appends the {@link #put}s and
+   * {@link #remove}s it made to the log as a single record, which is recovered entirely or not
+   * at all. The record is appended even if {@code change} throws, so the log always matches
+   * memory.
+   */
+  public <T> T write(Supplier<T> change) {
+    lock.writeLock().lock();
+    try {
+      if (channel == null) {
+        throw new IllegalStateException("Device log is closed");
+      }
+      if (failure != null) {
+        throw new IllegalStateException(
+            "Device log is not writable since a failed write, restart to recover from it",
+            failure);
+      }
+      try {
+        return change.get();
+      } finally {
+        append();
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Next unused id. Ids are never reused, even after the device holding one is removed.
+   */
+  public long nextId() {
+    checkWriting();
+    return nextId++;
+  }
+
+  /**
+   * Stores {@code device}, replacing the one with its id. It is kept as given, so the caller must
+   * not change it afterwards.
+   */
+  public void put(Device device) {
+    checkWriting();
+    try {
+      pendingOut.writeByte(PUT);
+      writeDevice(pendingOut, device);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    apply(device);
+  }
+
+  public void remove(long id) {
+    checkWriting();
+    if (!devices.containsKey(id)) {
+      return;
+    }
+    try {
+      pendingOut.writeByte(REMOVE);
+      pendingOut.writeLong(id);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    unindex(devices.remove(id));
+  }
+
+  public Device get(long id) {
+    return devices.get(id);
+  }
+
+  /**
+   * Every device by id, deleted ones included.
+   */
+  public NavigableMap<Long, Device> devices() {
+    return Collections.unmodifiableNavigableMap(devices);
+  }
+
+  public Set<Long> idsWithBrandId(Long brandId) {
+    return Collections.unmodifiableSet(
+        byBrandId.getOrDefault(brandId, Collections.emptyNavigableSet()));
+  }
+
+  /**
+   * Ids of the devices that have no brand id yet.
+   */
+  public NavigableSet<Long> idsWithoutBrandId() {
+    return Collections.unmodifiableNavigableSet(withoutBrandId);
+  }
+
+  /**
+   * Ids of the devices named {@code brand} that have no brand id yet.
+   */
+  public Set<Long> idsWithoutBrandId(String brand) {
+    return Collections.unmodifiableSet(
+        withoutBrandIdByBrand.getOrDefault(brand, Collections.emptyNavigableSet()));
+  }
+
+  public NavigableSet<Long> idsInState(DeviceState state) {
+    NavigableSet<Long> ids = byState.get(state);
+    return ids == null ? Collections.emptyNavigableSet()
+        : Collections.unmodifiableNavigableSet(ids);
+  }
+
+  public NavigableSet<Long> deletedIds() {
+    return Collections.unmodifiableNavigableSet(deleted);
+  }
+
+  /**
+   * Every device in {@code (creationTime, id)} order, devices without a creation time first.
+   */
+  public NavigableSet<TimeKey> byCreationTime() {
+    return Collections.unmodifiableNavigableSet(byCreationTime);
+  }
+
+  /**
+   * Every device in {@code (updatedAt, id)} order, devices never written since the field exists
+   * first.
+   */
+  public NavigableSet<TimeKey> byUpdatedAt() {
+    return Collections.unmodifiableNavigableSet(byUpdatedAt);
+  }
+
+  /**
+   * Forces the writes appended so far to disk.
+   */
+  public void flush() throws IOException {
+    FileChannel current = channel;
+    if (!dirty || current == null) {
+      return;
+    }
+    dirty = false;
+    try {
+      current.force(false);
+    } catch (ClosedChannelException e) {
+      // Rotated by a compaction, which forced it before closing it.
+    }
+  }
+
+  /**
+   * Writes a snapshot of the devices and deletes the segments it replaces. Writes carry on in a
+   * new segment meanwhile. Does nothing if a compaction is running or nothing was written since
+   * the last one.
+   */
+  public void compact() throws IOException {
+    List<Device> image;
+    long imageNextId;
+    long snapshot;
+    lock.writeLock().lock();
+    try {
+      compactionQueued = false;
+      if (compacting || failure != null
+          || segmentBytes == 0 && Files.exists(file(segment, SNAPSHOT_SUFFIX))) {
+        return;
+      }
+      compacting = true;
+      channel.force(false);
+      channel.close();
+      segment++;
+      openSegment();
+      image = new ArrayList<>(devices.values());
+      imageNextId = nextId;
+      snapshot = segment;
+    } catch (IOException e) {
+      failure = e;
+      throw e;
+    } finally {
+      lock.writeLock().unlock();
+    }
+
+    try {
+      long start = System.nanoTime();
+      writeSnapshot(snapshot, image, imageNextId);
+      for (long covered : list(SEGMENT_SUFFIX)) {
+        if (covered < snapshot) {
+          Files.deleteIfExists(file(covered, SEGMENT_SUFFIX));
+        }
+      }
+      List<Long> snapshots = list(SNAPSHOT_SUFFIX);
+      for (long old : snapshots.subList(0, Math.max(0, snapshots.size() - snapshotsKept))) {
+        Files.deleteIfExists(file(old, SNAPSHOT_SUFFIX));
+      }
+      log.info("Compacted device log to snapshot {} ({} devices) in {} ms", snapshot,
+          image.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    } finally {
+      lock.writeLock().lock();
+      compacting = false;
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    background.shutdown();
+    try {
+      background.awaitTermination(1, TimeUnit.MINUTES);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    lock.writeLock().lock();
+    try {
+      if (channel != null) {
+        channel.force(false);
+        channel.close();
+        channel = null;
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  private void checkWriting() {
+    if (!lock.isWriteLockedByCurrentThread()) {
+      throw new IllegalStateException("Devices can only be changed inside write()");
+    }
+  }
+
+  private void append() {
+    if (pending.size() == 0) {
+      return;
+    }
+    byte[] changes = pending.toByteArray();
+    pending.reset();
+    ByteBuffer record = frame(changes);
+    try {
+      while (record.hasRemaining()) {
+        channel.write(record);
+      }
+      segmentBytes += record.limit();
+      if (writeDelayMs > 0) {
+        dirty = true;
+      } else {
+        channel.force(false);
+      }
+    } catch (IOException e) {
+      // Memory is ahead of the log now: refuse further writes rather than lose them silently.
+      failure = e;
+      throw new UncheckedIOException(e);
+    }
+    if (segmentBytes >= compactAfterBytes && !compacting && !compactionQueued) {
+      compactionQueued = true;
+      background.execute(this::compactQuietly);
+    }
+  }
+
+  private void flushQuietly() {
+    try {
+      flush();
+    } catch (IOException e) {
+      log.warn("Could not flush the device log: {}", e.getMessage());
+    }
+  }
+
+  private void compactQuietly() {
+    try {
+      compact();
+    } catch (IOException e) {
+      log.warn("Could not compact the device log: {}", e.getMessage());
+    }
+  }
+
+  private void apply(Device device) {
+    Device previous = devices.put(device.getId(), device);
+    if (previous != null) {
+      unindex(previous);
+    }
+    index(device);
+    nextId = Math.max(nextId, device.getId() + 1);
+  }
+
+  private void index(Device device) {
+    Long id = device.getId();
+    if (device.getBrandId() != null) {
+      byBrandId.computeIfAbsent(device.getBrandId(), key -> new TreeSet<>()).add(id);
+    } else {
+      withoutBrandId.add(id);
+      if (device.getBrand() != null) {
+        withoutBrandIdByBrand.computeIfAbsent(device.getBrand(), key -> new TreeSet<>()).add(id);
+      }
+    }
+    if (device.getState() != null) {
+      byState.computeIfAbsent(device.getState(), key -> new TreeSet<>()).add(id);
+    }
+    if (device.getDeletedAt() != null) {
+      deleted.add(id);
+    }
+    byCreationTime.add(new TimeKey(device.getCreationTime(), id));
+    byUpdatedAt.add(new TimeKey(device.getUpdatedAt(), id));
+  }
+
+  private void unindex(Device device) {
+    Long id = device.getId();
+    if (device.getBrandId() != null) {
+      removeFrom(byBrandId, device.getBrandId(), id);
+    } else {
+      withoutBrandId.remove(id);
+      if (device.getBrand() != null) {
+        removeFrom(withoutBrandIdByBrand, device.getBrand(), id);
+      }
+    }
+    if (device.getState() != null) {
+      removeFrom(byState, device.getState(), id);
+    }
+    deleted.remove(id);
+    byCreationTime.remove(new TimeKey(device.getCreationTime(), id));
+    byUpdatedAt.remove(new TimeKey(device.getUpdatedAt(), id));
+  }
+
+  private static <K> void removeFrom(Map<K, NavigableSet<Long>> index, K key, Long id) {
+    NavigableSet<Long> ids = index.get(key);
+    if (ids != null && ids.remove(id) && ids.isEmpty()) {
+      index.remove(key);
+    }
+  }
+
+  private void recover() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      for (Path file : files.filter(f -> f.toString().endsWith(TMP_SUFFIX)).toList()) {
+        Files.delete(file);
+      }
+    }
+
+    List<Long> snapshots = list(SNAPSHOT_SUFFIX);
+    long start = snapshots.isEmpty() ? 0 : snapshots.getLast();
+    if (!snapshots.isEmpty()) {
+      readSnapshot(start);
+    }
+    List<Long> segments = list(SEGMENT_SUFFIX).stream().filter(seq -> seq >= start).toList();
+    for (int i = 0; i < segments.size(); i++) {
+      replay(segments.get(i), i == segments.size() - 1);
+    }
+    segment = segments.isEmpty() ? Math.max(start, 1) : segments.getLast();
+    openSegment();
+    log.info("Recovered {} devices from the device log in {}", devices.size(), directory);
+  }
+
+  private void readSnapshot(long snapshot) throws IOException {
+    Path file = file(snapshot, SNAPSHOT_SUFFIX);
+    try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+      ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES);
+      long count = -1;
+      byte[] record;
+      while ((record = readRecord(in, buffer)) != null) {
+        DataInputStream data = new DataInputStream(new ByteArrayInputStream(record));
+        byte op = data.readByte();
+        if (op == SNAPSHOT_START) {
+          nextId = data.readLong();
+        } else if (op == PUT) {
+          apply(readDevice(data));
+        } else if (op == SNAPSHOT_END) {
+          count = data.readLong();
+          break;
+        }
+      }
+      if (count != devices.size()) {
+        throw new IllegalStateException("Snapshot " + file + " is incomplete. Removing it and"
+            + " the segments after it restarts from the previous snapshot, without later writes");
+      }
+    }
+  }
+
+  private void replay(long seq, boolean last) throws IOException {
+    Path file = file(seq, SEGMENT_SUFFIX);
+    try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES);
+      byte[] record;
+      while ((record = readRecord(in, buffer)) != null) {
+        DataInputStream data = new DataInputStream(new ByteArrayInputStream(record));
+        while (data.available() > 0) {
+          byte op = data.readByte();
+          if (op == PUT) {
+            apply(readDevice(data));
+          } else if (op == REMOVE) {
+            Device removed = devices.remove(data.readLong());
+            if (removed != null) {
+              unindex(removed);
+            }
+          } else {
+            throw new IllegalStateException("Unknown operation " + op + " in " + file);
+          }
+        }
+      }
+      if (in.position() < in.size()) {
+        if (!last) {
+          throw new IllegalStateException("Segment " + file + " is corrupt at byte "
+              + in.position() + ", but later segments exist");
+        }
+        log.warn("Dropping the incomplete last write of {} at byte {}", file, in.position());
+        in.truncate(in.position());
+        in.force(false);
+      }
+    }
+  }
+
+  /**
+   * Reads the record at the channel's position, leaving the position after it, or returns
+   * {@code null} and leaves the position at its start if it is missing, incomplete or corrupt.
+   */
+  private static byte[] readRecord(FileChannel in, ByteBuffer header) throws IOException {
+    long start = in.position();
+    header.clear();
+    if (readFully(in, header) < HEADER_BYTES) {
+      in.position(start);
+      return null;
+    }
+    header.flip();
+    int length = header.getInt();
+    int crc = header.getInt();
+    if (length < 1 || length > in.size() - in.position()) {
+      in.position(start);
+      return null;
+    }
+    ByteBuffer body = ByteBuffer.allocate(length);
+    readFully(in, body);
+    CRC32 checksum = new CRC32();
+    checksum.update(body.array());
+    if ((int) checksum.getValue() != crc) {
+      in.position(start);
+      return null;
+    }
+    return body.array();
+  }
+
+  private static int readFully(FileChannel in, ByteBuffer buffer) throws IOException {
+    int total = 0;
+    while (buffer.hasRemaining()) {
+      int read = in.read(buffer);
+      if (read < 0) {
+        break;
+      }
+      total += read;
+    }
+    return total;
+  }
+
+  private static ByteBuffer frame(byte[] changes) {
+    CRC32 checksum = new CRC32();
+    checksum.update(changes);
+    ByteBuffer record = ByteBuffer.allocate(HEADER_BYTES + changes.length);
+    record.putInt(changes.length).putInt((int) checksum.getValue()).put(changes).flip();
+    return record;
+  }
+
+  private void writeSnapshot(long snapshot, List<Device> image, long imageNextId)
+      throws IOException {
+    Path target = file(snapshot, SNAPSHOT_SUFFIX);
+    Path tmp = target.resolveSibling(target.getFileName() + TMP_SUFFIX);
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(buffer);
+    // Records are batched into large writes, the snapshot holding one per device.
+    ByteBuffer batch = ByteBuffer.allocate(1 << 16);
+    try (FileChannel file = FileChannel.open(tmp, StandardOpenOption.CREATE_NEW,
+        StandardOpenOption.WRITE)) {
+      out.writeByte(SNAPSHOT_START);
+      out.writeLong(imageNextId);
+      writeRecord(file, buffer, batch);
+      for (Device device : image) {
+        out.writeByte(PUT);
+        writeDevice(out, device);
+        writeRecord(file, buffer, batch);
+      }
+      out.writeByte(SNAPSHOT_END);
+      out.writeLong(image.size());
+      writeRecord(file, buffer, batch);
+      drain(file, batch);
+      file.force(true);
+    }
+    Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  private static void writeRecord(FileChannel file, ByteArrayOutputStream buffer,
+      ByteBuffer batch) throws IOException {
+    ByteBuffer record = frame(buffer.toByteArray());
+    buffer.reset();
+    if (record.remaining() > batch.remaining()) {
+      drain(file, batch);
+    }
+    if (record.remaining() > batch.remaining()) {
+      while (record.hasRemaining()) {
+        file.write(record);
+      }
+    } else {
+      batch.put(record);
+    }
+  }
+
+  /**
+   * Writes the records batched so far and empties the batch.
+   */
+  private static void drain(FileChannel file, ByteBuffer batch) throws IOException {
+    batch.flip();
+    while (batch.hasRemaining()) {
+      file.write(batch);
+    }
+    batch.clear();
+  }
+
+  private void openSegment() throws IOException {
+    channel = FileChannel.open(file(segment, SEGMENT_SUFFIX), StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    segmentBytes = channel.size();
+  }
+
+  private Path file(long seq, String suffix) {
+    return directory.resolve(PREFIX + String.format("%020d", seq) + suffix);
+  }
+
+  /**
+   * Sequence numbers of the files with {@code suffix}, in increasing order.
+   */
+  private List<Long> list(String suffix) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files
+          .map(file -> file.getFileName().toString())
+          .filter(name -> name.startsWith(PREFIX) && name.endsWith(suffix))
+          .map(name -> Long.parseLong(
+              name.substring(PREFIX.length(), name.length() - suffix.length())))
+          .sorted()
+          .toList();
+    }
+  }
+
+  private static void writeDevice(DataOutputStream out, Device device) throws IOException {
+    out.writeLong(device.getId());
+    writeString(out, device.getTenantId());
+    writeString(out, device.getName());
+    writeString(out, device.getBrand());
+    out.writeBoolean(device.getBrandId() != null);
+    if (device.getBrandId() != null) {
+      out.writeLong(device.getBrandId());
+    }
+    writeString(out, device.getState() == null ? null : device.getState().name());
+    writeTime(out, device.getCreationTime());
+    writeTime(out, device.getLeaseExpiresAt());
+    writeString(out, device.getLeaseToken());
+    writeTime(out, device.getDeletedAt());
+    writeTime(out, device.getUpdatedAt());
+    out.writeLong(device.getVersion());
+  }
+
+  private static Device readDevice(DataInputStream in) throws IOException {
+    long id = in.readLong();
+    String tenantId = readString(in);
+    String name = readString(in);
+    String brand = readString(in);
+    Long brandId = in.readBoolean() ? in.readLong() : null;
+    String state = readString(in);
+    return new Device(id, tenantId, name, brand, brandId,
+        state == null ? null : DeviceState.valueOf(state), readTime(in), readTime(in),
+        readString(in), readTime(in), readTime(in), in.readLong());
+  }
+
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    if (value == null) {
+      out.writeInt(-1);
+      return;
+    }
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    return length < 0 ? null : new String(in.readNBytes(length), StandardCharsets.UTF_8);
+  }
+
+  private static void writeTime(DataOutputStream out, LocalDateTime time) throws IOException {
+    out.writeBoolean(time != null);
+    if (time != null) {
+      out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+      out.writeInt(time.getNano());
+    }
+  }
+
+  private static LocalDateTime readTime(DataInputStream in) throws IOException {
+    return in.readBoolean()
+        ? LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC) : null;
+  }
+
+  /**
+   * Position of a device in a time index. Devices without the time sort first.
+   */
+  public record TimeKey(LocalDateTime time, long id) implements Comparable<TimeKey> {
+
+    private static final Comparator<TimeKey> ORDER = Comparator
+        .comparing(TimeKey::time, Comparator.nullsFirst(Comparator.naturalOrder()))
+        .thenComparingLong(TimeKey::id);
+
+    @Override
+    public int compareTo(TimeKey other) {
+      return ORDER.compare(this, other);
+    }
+  }
+}
@@ -0,0 +1,41 @@
+package com.joaomps.devicemanager.local;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Keeps devices in the {@link DeviceLogStore} in the {@code local} profile, unless
+ * {@code device-manager.local.device-store=jpa} leaves them in the embedded database with
+ * everything else.
+ */
+@Configuration
+@Profile("local")
+@ConditionalOnProperty(name = "device-manager.local.device-store", havingValue = "log",
+    matchIfMissing = true)
+public class LocalDeviceStoreConfig {
+
+  @Bean(destroyMethod = "close")
+  public DeviceLogStore deviceLogStore(
+      @Value("${device-manager.local.data-dir:./data}") String dataDir,
+      @Value("${device-manager.local.write-delay-ms:500}") long writeDelayMs,
+      @Value("${device-manager.local.compact-after-bytes:67108864}") long compactAfterBytes,
+      @Value("${device-manager.local.snapshots-kept:3}") int snapshotsKept) throws IOException {
+    return new DeviceLogStore(Path.of(dataDir, "devices"), writeDelayMs, compactAfterBytes,
+        snapshotsKept);
+  }
+
+  /**
+   * Primary, so it is injected wherever a {@code DeviceRepository} is instead of the JPA one.
+   */
+  @Bean
+  @Primary
+  public LogDeviceRepository logDeviceRepository(DeviceLogStore deviceLogStore) {
+    return new LogDeviceRepository(deviceLogStore);
+  }
+}
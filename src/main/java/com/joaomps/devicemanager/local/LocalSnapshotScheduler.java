@@ -0,0 +1,112 @@
+package com.joaomps.devicemanager.local;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.stream.Stream;
+import javax.sql.DataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Takes periodic snapshots of the stores of the {@code local} profile.
+ *
+ * <p>The embedded database is an append-only log that recovers on its own after a crash, by
+ * reopening at its last complete chunk. Its snapshots cover losing or corrupting the file: each
+ * one is an online, transactionally consistent zip of the database, and only the newest
+ * {@code device-manager.local.snapshots-kept} are kept. The {@link DeviceLogStore}, when devices
+ * are kept in it, is compacted at the same time, which bounds what it replays on startup.
+ */
+@Component
+@Profile("local")
+public class LocalSnapshotScheduler {
+
+  private static final Logger log = LoggerFactory.getLogger(LocalSnapshotScheduler.class);
+
+  static final String PREFIX = "devicedb-";
+  static final String SUFFIX = ".zip";
+  private static final DateTimeFormatter TIMESTAMP =
+      DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+  private final DataSource dataSource;
+  private final ObjectProvider<DeviceLogStore> deviceLogStore;
+  private final Path directory;
+  private final int kept;
+
+  public LocalSnapshotScheduler(DataSource dataSource,
+      ObjectProvider<DeviceLogStore> deviceLogStore,
+      @Value("${device-manager.local.data-dir:./data}") String dataDir,
+      @Value("${device-manager.local.snapshots-kept:3}") int kept) {
+    this.dataSource = dataSource;
+    this.deviceLogStore = deviceLogStore;
+    this.directory = Path.of(dataDir, "snapshots");
+    this.kept = Math.max(1, kept);
+  }
+
+  /**
+   * Returns the snapshot written, or {@code null} when it failed.
+   */
+  @Scheduled(fixedDelayString = "${device-manager.local.snapshot-interval:PT15M}",
+      initialDelayString = "${device-manager.local.snapshot-interval:PT15M}")
+  public Path snapshot() {
+    compactDeviceLog();
+    Path target = directory.resolve(PREFIX + TIMESTAMP.format(LocalDateTime.now()) + SUFFIX);
+    try {
+      Files.createDirectories(directory);
+      try (Connection connection = dataSource.getConnection();
+          Statement statement = connection.createStatement()) {
+        statement.execute("BACKUP TO '"
+            + target.toAbsolutePath().toString().replace("'", "''") + "'");
+      }
+      log.info("Wrote snapshot {} ({} bytes)", target, Files.size(target));
+      prune();
+      return target;
+    } catch (IOException | SQLException e) {
+      log.warn("Could not write snapshot {}: {}", target, e.getMessage());
+      return null;
+    }
+  }
+
+  void compactDeviceLog() {
+    DeviceLogStore store = deviceLogStore.getIfAvailable();
+    if (store == null) {
+      return;
+    }
+    try {
+      store.compact();
+    } catch (IOException e) {
+      log.warn("Could not compact the device log: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * Deletes all but the newest snapshots. Names embed the time they were taken, so they sort
+   * oldest first.
+   */
+  void prune() throws IOException {
+    List<Path> snapshots;
+    try (Stream<Path> files = Files.list(directory)) {
+      snapshots = files
+          .filter(file -> {
+            String name = file.getFileName().toString();
+            return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+          })
+          .sorted()
+          .toList();
+    }
+    for (Path snapshot : snapshots.subList(0, Math.max(0, snapshots.size() - kept))) {
+      Files.deleteIfExists(snapshot);
+    }
+  }
+}
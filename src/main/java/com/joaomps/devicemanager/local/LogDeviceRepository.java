@@ -0,0 +1,886 @@
+package com.joaomps.devicemanager.local;
+
+import com.joaomps.devicemanager.local.DeviceLogStore.TimeKey;
+import com.joaomps.devicemanager.model.Device;
+import com.joaomps.devicemanager.model.DeviceState;
+import com.joaomps.devicemanager.repository.DeviceRepository;
+import com.joaomps.devicemanager.repository.LeaseEntry;
+import com.joaomps.devicemanager.tenant.TenantContext;
+import jakarta.persistence.EntityNotFoundException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+import org.springframework.core.Ordered;
+import org.springframework.data.domain.Example;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.query.FluentQuery.FetchableFluentQuery;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * {@link DeviceRepository} on the {@link DeviceLogStore}, used by the {@code local} profile in
+ * place of the JPA repository.
+ *
+ * <p>Queries follow the JPA repository: devices of other tenants are invisible unless running as
+ * root, deleted devices are invisible to everything but the native queries it marks, and results
+ * come in the same order. Every conditional update checks its condition and writes in one
+ * {@link DeviceLogStore#write}, so the IN_USE guards hold just as with the database. Saves are
+ * checked against the device's version like entity saves. Devices are returned as copies, so
+ * changing one has no effect until it is saved.
+ *
+ * <p>Inside a transaction, writes are kept aside and applied to the store, as a single log
+ * record, once it commits, so they are dropped if it rolls back. Its queries see them, except for
+ * the time-ordered {@link #findChangedSince} and {@link #findCreatedBetween}, which only see
+ * committed devices. Conflicts are detected as for entity saves: the commit fails with an
+ * {@link ObjectOptimisticLockingFailureException}, rolling the transaction back, if another one
+ * changed a device it wrote, or one {@link #lockForBulk} returned to it, since it first read it.
+ * So {@link #lockForBulk} takes no lock but holds the chunk to the devices it returned, and the
+ * bulk update of a device changed since fails at once instead of applying to a device that may
+ * no longer match the chunk's filters. Writes outside a transaction are applied when called.
+ * Sorting, paging and query by example are not supported.
+ */
+public class LogDeviceRepository implements DeviceRepository {
+
+  /**
+   * Version recorded for a device that was not stored yet.
+   */
+  private static final long ABSENT = -1;
+
+  private final DeviceLogStore store;
+  /**
+   * Devices of transactions between their commit check and the end of their commit, which no
+   * other write may change. Guarded by the store's exclusive lock.
+   */
+  private final Map<Long, Changes> committing = new HashMap<>();
+
+  public LogDeviceRepository(DeviceLogStore store) {
+    this.store = store;
+  }
+
+  @Override
+  public <S extends Device> S save(S entity) {
+    Device saved = write(changes -> {
+      Device device = entity.copy();
+      if (device.getId() == null) {
+        device.setId(store.nextId());
+        device.setTenantId(TenantContext.isRoot()
+            ? TenantContext.of(device.getTenantId()) : TenantContext.current());
+        device.setVersion(0);
+      } else {
+        Device stored = get(changes, device.getId());
+        if (!isVisible(stored) || stored.getVersion() != device.getVersion()) {
+          throw new ObjectOptimisticLockingFailureException(Device.class, device.getId());
+        }
+        device.setTenantId(stored.getTenantId());
+        device.setCreationTime(stored.getCreationTime());
+        device.setVersion(stored.getVersion() + 1);
+      }
+      device.setUpdatedAt(LocalDateTime.now());
+      put(changes, device);
+      return device;
+    });
+
+    entity.setId(saved.getId());
+    entity.setTenantId(saved.getTenantId());
+    entity.setCreationTime(saved.getCreationTime());
+    entity.setUpdatedAt(saved.getUpdatedAt());
+    entity.setVersion(saved.getVersion());
+    return entity;
+  }
+
+  @Override
+  public <S extends Device> List<S> saveAll(Iterable<S> entities) {
+    List<S> saved = new ArrayList<>();
+    entities.forEach(entity -> saved.add(save(entity)));
+    return saved;
+  }
+
+  @Override
+  public <S extends Device> S saveAndFlush(S entity) {
+    return save(entity);
+  }
+
+  @Override
+  public <S extends Device> List<S> saveAllAndFlush(Iterable<S> entities) {
+    return saveAll(entities);
+  }
+
+  /**
+   * Nothing to do: writes reach the log when they are applied.
+   */
+  @Override
+  public void flush() {
+  }
+
+  @Override
+  public Optional<Device> findById(Long id) {
+    Changes changes = changes();
+    return Optional.ofNullable(store.read(() -> visibleCopy(get(changes, id))));
+  }
+
+  @Override
+  public boolean existsById(Long id) {
+    Changes changes = changes();
+    return store.read(() -> isVisible(get(changes, id)));
+  }
+
+  @Override
+  public List<Device> findAll() {
+    Changes changes = changes();
+    return store.read(() -> collect(changes, allIds(changes), device -> true,
+        Integer.MAX_VALUE));
+  }
+
+  @Override
+  public List<Device> findAllById(Iterable<Long> ids) {
+    TreeSet<Long> sorted = new TreeSet<>();
+    ids.forEach(sorted::add);
+    Changes changes = changes();
+    return store.read(() -> collect(changes, sorted, device -> true, Integer.MAX_VALUE));
+  }
+
+  @Override
+  public long count() {
+    Changes changes = changes();
+    return store.read(() -> allIds(changes).stream()
+        .filter(id -> isVisible(get(changes, id)))
+        .count());
+  }
+
+  @Override
+  public Device getReferenceById(Long id) {
+    return findById(id).orElseThrow(
+        () -> new EntityNotFoundException("Unable to find Device with id " + id));
+  }
+
+  @Override
+  @Deprecated
+  public Device getById(Long id) {
+    return getReferenceById(id);
+  }
+
+  @Override
+  @Deprecated
+  public Device getOne(Long id) {
+    return getReferenceById(id);
+  }
+
+  @Override
+  public void deleteById(Long id) {
+    deleteAllById(List.of(id));
+  }
+
+  @Override
+  public void delete(Device entity) {
+    deleteById(entity.getId());
+  }
+
+  @Override
+  public void deleteAllById(Iterable<? extends Long> ids) {
+    write(changes -> {
+      for (Long id : ids) {
+        if (isVisible(get(changes, id))) {
+          remove(changes, id);
+        }
+      }
+      return null;
+    });
+  }
+
+  @Override
+  public void deleteAll(Iterable<? extends Device> entities) {
+    List<Long> ids = new ArrayList<>();
+    entities.forEach(entity -> ids.add(entity.getId()));
+    deleteAllById(ids);
+  }
+
+  @Override
+  public void deleteAll() {
+    Changes changes = changes();
+    deleteAllById(store.read(() -> List.copyOf(allIds(changes))));
+  }
+
+  @Override
+  public void deleteAllInBatch(Iterable<Device> entities) {
+    deleteAll(entities);
+  }
+
+  @Override
+  public void deleteAllByIdInBatch(Iterable<Long> ids) {
+    deleteAllById(ids);
+  }
+
+  @Override
+  public void deleteAllInBatch() {
+    deleteAll();
+  }
+
+  @Override
+  public List<Device> findByBrandId(Long brandId) {
+    Changes changes = changes();
+    return store.read(() -> collect(changes,
+        withChanged(changes, store.idsWithBrandId(brandId)),
+        device -> device.getBrandId() != null && device.getBrandId().equals(brandId),
+        Integer.MAX_VALUE));
+  }
+
+  @Override
+  public List<Device> findByBrandDuringBackfill(Long brandId, String brand) {
+    Changes changes = changes();
+    return store.read(() -> {
+      TreeSet<Long> ids = new TreeSet<>(store.idsWithoutBrandId(brand));
+      if (brandId != null) {
+        ids.addAll(store.idsWithBrandId(brandId));
+      }
+      return collect(changes, withChanged(changes, ids),
+          device -> matchesBrand(device, brandId == null ? null : List.of(brandId), brand),
+          Integer.MAX_VALUE);
+    });
+  }
+
+  @Override
+  public List<Device> findByState(DeviceState state) {
+    Changes changes = changes();
+    return store.read(() -> collect(changes, withChanged(changes, store.idsInState(state)),
+        device -> device.getState() == state, Integer.MAX_VALUE));
+  }
+
+  @Override
+  public List<Device> findByIdGreaterThanOrderByIdAsc(long afterId, Limit limit) {
+    Changes changes = changes();
+    return store.read(() -> collect(changes, allIds(changes).tailSet(afterId, false),
+        device -> true, max(limit)));
+  }
+
+  @Override
+  public List<Device> findAllByOrderByIdDesc(Limit limit) {
+    Changes changes = changes();
+    return store.read(() -> collect(changes, allIds(changes).descendingSet(), device -> true,
+        max(limit)));
+  }
+
+  @Override
+  public long findMinId() {
+    Changes changes = changes();
+    return store.read(() -> {
+      List<Device> first = collect(changes, allIds(changes), device -> true, 1);
+      return first.isEmpty() ? 0 : first.getFirst().getId();
+    });
+  }
+
+  @Override
+  public long findMaxId() {
+    Changes changes = changes();
+    return store.read(() -> {
+      List<Device> last = collect(changes, allIds(changes).descendingSet(), device -> true, 1);
+      return last.isEmpty() ? 0 : last.getFirst().getId();
+    });
+  }
+
+  @Override
+  public Stream<Device> streamRange(long afterId, long toId, Limit limit) {
+    Changes changes = changes();
+    return store.read(() -> collect(changes, allIds(changes).subSet(afterId, false, toId, true),
+        device -> true, max(limit))).stream();
+  }
+
+  @Override
+  public boolean existsByBrandIdIsNull() {
+    Changes changes = changes();
+    return store.read(() -> !collect(changes, withChanged(changes, store.idsWithoutBrandId()),
+        device -> device.getBrandId() == null, 1).isEmpty());
+  }
+
+  @Override
+  public List<Device> findWithoutBrandId(long afterId, Limit limit) {
+    Changes changes = changes();
+    return store.read(() -> collect(changes,
+        withChanged(changes, store.idsWithoutBrandId()).tailSet(afterId, false),
+        device -> device.getBrandId() == null, max(limit)));
+  }
+
+  @Override
+  public int assignBrand(Collection<Long> ids, Long brandId, String name, LocalDateTime now) {
+    return update(ids, device -> device.getBrandId() == null, device -> {
+      device.setBrandId(brandId);
+      device.setBrand(name);
+      return device;
+    }, now);
+  }
+
+  @Override
+  public int updateStateByIds(Collection<Long> ids, DeviceState target,
+      Collection<DeviceState> excluded, LocalDateTime now) {
+    return update(ids,
+        device -> device.getState() != null && !excluded.contains(device.getState()),
+        device -> {
+          device.setState(target);
+          device.setLeaseExpiresAt(null);
+          device.setLeaseToken(null);
+          return device;
+        }, now);
+  }
+
+  @Override
+  public int acquireLease(Long id, String token, LocalDateTime expiresAt, LocalDateTime now) {
+    return update(List.of(id),
+        device -> device.getState() == DeviceState.AVAILABLE
+            || device.getState() == DeviceState.IN_USE && device.getLeaseExpiresAt() != null
+            && !device.getLeaseExpiresAt().isAfter(now),
+        device -> {
+          device.setState(DeviceState.IN_USE);
+          device.setLeaseExpiresAt(expiresAt);
+          device.setLeaseToken(token);
+          return device;
+        }, now);
+  }
+
+  @Override
+  public int renewLease(Long id, String token, LocalDateTime expiresAt, LocalDateTime now) {
+    return update(List.of(id),
+        device -> device.getState() == DeviceState.IN_USE && device.getLeaseExpiresAt() != null
+            && device.getLeaseExpiresAt().isAfter(now) && holds(device, token),
+        device -> {
+          device.setLeaseExpiresAt(expiresAt);
+          return device;
+        }, now);
+  }
+
+  @Override
+  public int releaseLease(Long id, String token, LocalDateTime now) {
+    return update(List.of(id),
+        device -> device.getState() == DeviceState.IN_USE && device.getLeaseExpiresAt() != null
+            && holds(device, token),
+        LogDeviceRepository::endLease, now);
+  }
+
+  @Override
+  public int expireLeases(Collection<Long> ids, LocalDateTime now) {
+    return update(ids,
+        device -> device.getState() == DeviceState.IN_USE && device.getLeaseExpiresAt() != null
+            && !device.getLeaseExpiresAt().isAfter(now),
+        LogDeviceRepository::endLease, now);
+  }
+
+  @Override
+  public List<Long> findIdsWithExpiredLease(LocalDateTime now, Limit limit) {
+    Changes changes = changes();
+    return store.read(() -> collect(changes,
+        withChanged(changes, store.idsInState(DeviceState.IN_USE)),
+        device -> device.getState() == DeviceState.IN_USE && device.getLeaseExpiresAt() != null
+            && !device.getLeaseExpiresAt().isAfter(now), Integer.MAX_VALUE))
+        .stream()
+        .sorted(Comparator.comparing(Device::getLeaseExpiresAt))
+        .limit(max(limit))
+        .map(Device::getId)
+        .toList();
+  }
+
+  @Override
+  public List<LeaseEntry> findActiveLeases(long afterId, Limit limit) {
+    Changes changes = changes();
+    return store.read(() -> collect(changes,
+        withChanged(changes, store.idsInState(DeviceState.IN_USE)).tailSet(afterId, false),
+        device -> device.getState() == DeviceState.IN_USE && device.getLeaseExpiresAt() != null,
+        max(limit)))
+        .stream()
+        .map(device -> new LeaseEntry(device.getId(), device.getLeaseExpiresAt()))
+        .toList();
+  }
+
+  @Override
+  public int softDelete(Long id, LocalDateTime now) {
+    return update(List.of(id),
+        device -> device.getState() != null && device.getState() != DeviceState.IN_USE,
+        device -> {
+          device.setDeletedAt(now);
+          return device;
+        }, now);
+  }
+
+  @Override
+  public int restore(Long id, String tenant, LocalDateTime cutoff, LocalDateTime now) {
+    return undelete(id, device -> tenant.equals(device.getTenantId()), cutoff, now);
+  }
+
+  @Override
+  public int restoreInAnyTenant(Long id, LocalDateTime cutoff, LocalDateTime now) {
+    return undelete(id, device -> true, cutoff, now);
+  }
+
+  /**
+   * Like the native query, sees deleted devices and those of every tenant.
+   */
+  @Override
+  public List<Device> findChangedSince(LocalDateTime since, LocalDateTime afterTime,
+      long afterId, int limit) {
+    TimeKey from = new TimeKey(since, Long.MIN_VALUE);
+    TimeKey after = new TimeKey(afterTime, afterId);
+    return store.read(() -> {
+      NavigableSet<TimeKey> changed = after.compareTo(from) < 0
+          ? store.byUpdatedAt().tailSet(from, true)
+          : store.byUpdatedAt().tailSet(after, false);
+      return changed.stream()
+          .limit(limit)
+          .map(key -> store.get(key.id()).copy())
+          .toList();
+    });
+  }
+
+  /**
+   * Like the native query, sees the devices of every tenant.
+   */
+  @Override
+  public List<Long> findIdsDeletedBefore(LocalDateTime cutoff, int limit) {
+    Changes changes = changes();
+    return store.read(() -> withChanged(changes, store.deletedIds()).stream()
+            .map(id -> get(changes, id))
+            .filter(device -> device != null && device.getDeletedAt() != null
+                && device.getDeletedAt().isBefore(cutoff))
+            .toList())
+        .stream()
+        .sorted(Comparator.comparing(Device::getDeletedAt))
+        .limit(limit)
+        .map(Device::getId)
+        .toList();
+  }
+
+  @Override
+  public int purge(Collection<Long> ids, LocalDateTime cutoff) {
+    return write(changes -> {
+      int purged = 0;
+      for (Long id : ids) {
+        Device device = get(changes, id);
+        if (device != null && device.getDeletedAt() != null
+            && device.getDeletedAt().isBefore(cutoff)) {
+          remove(changes, id);
+          purged++;
+        }
+      }
+      return purged;
+    });
+  }
+
+  @Override
+  public List<Device> lockForBulk(Collection<Long> ids, Collection<Long> brandIds,
+      String brandName, DeviceState state, long afterId, int limit) {
+    Changes changes = beginChanges();
+    return store.read(() -> {
+      NavigableSet<Long> candidates;
+      if (ids != null) {
+        candidates = new TreeSet<>(ids);
+      } else if (brandIds != null || brandName != null) {
+        candidates = withChanged(changes, brandCandidates(brandIds, brandName));
+      } else if (state != null) {
+        candidates = withChanged(changes, store.idsInState(state));
+      } else {
+        candidates = allIds(changes);
+      }
+      List<Device> devices = collect(changes, candidates.tailSet(afterId, false), device ->
+              matchesBrand(device, brandIds, brandName)
+                  && (state == null || state == device.getState()),
+          limit);
+      if (changes != null) {
+        devices.forEach(device -> changes.hold(device.getId()));
+      }
+      return devices;
+    });
+  }
+
+  @Override
+  public List<Device> findCreatedBetween(LocalDateTime from, LocalDateTime to,
+      Collection<Long> brandIds, String brandName, DeviceState state, LocalDateTime afterTime,
+      long afterId, int limit) {
+    return store.read(() -> {
+      NavigableSet<TimeKey> window = store.byCreationTime();
+      // As in SQL, a bound excludes the devices without a creation time.
+      if (from != null || afterTime != null) {
+        TimeKey start = new TimeKey(from, Long.MIN_VALUE);
+        TimeKey after = new TimeKey(afterTime, afterId);
+        window = after.compareTo(start) < 0 ? window.tailSet(start, true)
+            : window.tailSet(after, false);
+      } else if (to != null) {
+        window = window.tailSet(new TimeKey(LocalDateTime.MIN, Long.MIN_VALUE), true);
+      }
+      if (to != null) {
+        window = window.headSet(new TimeKey(to, Long.MIN_VALUE), false);
+      }
+      Iterable<Long> ids = window.stream().map(TimeKey::id)::iterator;
+      return collect(null, ids, device ->
+              matchesBrand(device, brandIds, brandName)
+                  && (state == null || state == device.getState()),
+          limit);
+    });
+  }
+
+  @Override
+  public List<Device> findAll(Sort sort) {
+    throw unsupported();
+  }
+
+  @Override
+  public Page<Device> findAll(Pageable pageable) {
+    throw unsupported();
+  }
+
+  @Override
+  public <S extends Device> Optional<S> findOne(Example<S> example) {
+    throw unsupported();
+  }
+
+  @Override
+  public <S extends Device> List<S> findAll(Example<S> example) {
+    throw unsupported();
+  }
+
+  @Override
+  public <S extends Device> List<S> findAll(Example<S> example, Sort sort) {
+    throw unsupported();
+  }
+
+  @Override
+  public <S extends Device> Page<S> findAll(Example<S> example, Pageable pageable) {
+    throw unsupported();
+  }
+
+  @Override
+  public <S extends Device> long count(Example<S> example) {
+    throw unsupported();
+  }
+
+  @Override
+  public <S extends Device> boolean exists(Example<S> example) {
+    throw unsupported();
+  }
+
+  @Override
+  public <S extends Device, R> R findBy(Example<S> example,
+      Function<FetchableFluentQuery<S>, R> queryFunction) {
+    throw unsupported();
+  }
+
+  /**
+   * Applies {@code change} to every visible device among {@code ids} that matches
+   * {@code condition}, stamping and versioning it like the bulk updates of the JPA repository.
+   * Fails if one of them is held by the transaction but was changed by another one since.
+   */
+  private int update(Collection<Long> ids, Predicate<Device> condition,
+      UnaryOperator<Device> change, LocalDateTime now) {
+    return write(changes -> {
+      int updated = 0;
+      for (Long id : ids) {
+        if (changes != null) {
+          changes.verify(id);
+        }
+        Device device = get(changes, id);
+        if (isVisible(device) && condition.test(device)) {
+          put(changes, written(change.apply(device.copy()), now));
+          updated++;
+        }
+      }
+      return updated;
+    });
+  }
+
+  private int undelete(Long id, Predicate<Device> tenant, LocalDateTime cutoff,
+      LocalDateTime now) {
+    return write(changes -> {
+      Device device = get(changes, id);
+      if (device == null || device.getDeletedAt() == null
+          || device.getDeletedAt().isBefore(cutoff) || !tenant.test(device)) {
+        return 0;
+      }
+      Device restored = device.copy();
+      restored.setDeletedAt(null);
+      put(changes, written(restored, now));
+      return 1;
+    });
+  }
+
+  /**
+   * Runs {@code change} under the store's exclusive lock, with the current transaction's
+   * {@link Changes} to write to, or {@code null} outside a transaction.
+   */
+  private <T> T write(Function<Changes, T> change) {
+    Changes changes = beginChanges();
+    return store.write(() -> change.apply(changes));
+  }
+
+  private void put(Changes changes, Device device) {
+    if (changes != null) {
+      changes.put(device.getId(), device);
+    } else {
+      checkNotCommitting(device.getId());
+      store.put(device);
+    }
+  }
+
+  private void remove(Changes changes, Long id) {
+    if (changes != null) {
+      changes.put(id, null);
+    } else {
+      checkNotCommitting(id);
+      store.remove(id);
+    }
+  }
+
+  private void checkNotCommitting(Long id) {
+    if (committing.containsKey(id)) {
+      throw new ObjectOptimisticLockingFailureException(Device.class, id);
+    }
+  }
+
+  /**
+   * The device as the transaction of {@code changes} sees it. Must run under the store's lock.
+   */
+  private Device get(Changes changes, Long id) {
+    if (changes != null && changes.changed.containsKey(id)) {
+      return changes.changed.get(id);
+    }
+    return store.get(id);
+  }
+
+  private NavigableSet<Long> allIds(Changes changes) {
+    return withChanged(changes, store.devices().navigableKeySet());
+  }
+
+  /**
+   * {@code ids}, read from one of the store's indexes, plus the devices the transaction of
+   * {@code changes} wrote. The index does not reflect those, so queries filter them again.
+   */
+  private static NavigableSet<Long> withChanged(Changes changes, Set<Long> ids) {
+    if (changes == null || changes.changed.isEmpty()) {
+      return ids instanceof NavigableSet<Long> sorted ? sorted : new TreeSet<>(ids);
+    }
+    NavigableSet<Long> all = new TreeSet<>(ids);
+    all.addAll(changes.changed.keySet());
+    return all;
+  }
+
+  /**
+   * The {@link Changes} of the current transaction, if it wrote or locked devices.
+   */
+  private Changes changes() {
+    return (Changes) TransactionSynchronizationManager.getResource(this);
+  }
+
+  /**
+   * The {@link Changes} of the current transaction, started on first use, or {@code null}
+   * outside a transaction.
+   */
+  private Changes beginChanges() {
+    Changes changes = changes();
+    if (changes == null && TransactionSynchronizationManager.isActualTransactionActive()
+        && TransactionSynchronizationManager.isSynchronizationActive()) {
+      changes = new Changes();
+      TransactionSynchronizationManager.bindResource(this, changes);
+      TransactionSynchronizationManager.registerSynchronization(changes);
+    }
+    return changes;
+  }
+
+  private NavigableSet<Long> brandCandidates(Collection<Long> brandIds, String brandName) {
+    NavigableSet<Long> candidates = new TreeSet<>();
+    if (brandIds != null) {
+      brandIds.forEach(brandId -> candidates.addAll(store.idsWithBrandId(brandId)));
+    }
+    if (brandName != null) {
+      candidates.addAll(store.idsWithoutBrandId(brandName));
+    }
+    return candidates;
+  }
+
+  /**
+   * Copies of the first {@code limit} visible devices among {@code ids} matching
+   * {@code filter}, in the order of {@code ids}, as the transaction of {@code changes} sees
+   * them. Must run under the store's lock.
+   */
+  private List<Device> collect(Changes changes, Iterable<Long> ids, Predicate<Device> filter,
+      int limit) {
+    List<Device> devices = new ArrayList<>();
+    for (Long id : ids) {
+      if (devices.size() >= limit) {
+        break;
+      }
+      Device device = get(changes, id);
+      if (isVisible(device) && filter.test(device)) {
+        devices.add(device.copy());
+      }
+    }
+    return devices;
+  }
+
+  private static Device visibleCopy(Device device) {
+    return isVisible(device) ? device.copy() : null;
+  }
+
+  /**
+   * Whether entity queries see the device: not deleted, and of the current tenant unless
+   * running as root.
+   */
+  private static boolean isVisible(Device device) {
+    return device != null && device.getDeletedAt() == null
+        && (TenantContext.isRoot()
+        || TenantContext.current().equals(TenantContext.of(device.getTenantId())));
+  }
+
+  /**
+   * Matches like {@code DeviceRepositoryCustomImpl}: a device referencing one of
+   * {@code brandIds}, or without a brand id and named {@code brandName}.
+   */
+  private static boolean matchesBrand(Device device, Collection<Long> brandIds,
+      String brandName) {
+    if (brandIds == null && brandName == null) {
+      return true;
+    }
+    return device.getBrandId() != null
+        ? brandIds != null && brandIds.contains(device.getBrandId())
+        : brandName != null && brandName.equals(device.getBrand());
+  }
+
+  private static boolean holds(Device device, String token) {
+    return device.getLeaseToken() == null || device.getLeaseToken().equals(token);
+  }
+
+  private static Device endLease(Device device) {
+    device.setState(DeviceState.AVAILABLE);
+    device.setLeaseExpiresAt(null);
+    device.setLeaseToken(null);
+    return device;
+  }
+
+  private static Device written(Device device, LocalDateTime now) {
+    device.setUpdatedAt(now);
+    device.setVersion(device.getVersion() + 1);
+    return device;
+  }
+
+  private static long version(Device device) {
+    return device == null ? ABSENT : device.getVersion();
+  }
+
+  private static int max(Limit limit) {
+    return limit.isUnlimited() ? Integer.MAX_VALUE : limit.max();
+  }
+
+  private static UnsupportedOperationException unsupported() {
+    return new UnsupportedOperationException("Not supported by the device log");
+  }
+
+  /**
+   * The writes of one transaction, kept out of the store until it commits. Bound to the
+   * transaction on its first write, so that its queries see them.
+   */
+  private final class Changes implements TransactionSynchronization {
+
+    /**
+     * Devices written by the transaction, by id, {@code null} once removed.
+     */
+    private final NavigableMap<Long, Device> changed = new TreeMap<>();
+    /**
+     * Stored version of each device the transaction wrote or holds, when it first did.
+     */
+    private final Map<Long, Long> seen = new HashMap<>();
+
+    /**
+     * Holds the stored device to its current version until the transaction commits. Must run
+     * under the store's lock.
+     */
+    private void hold(Long id) {
+      verify(id);
+      seen.putIfAbsent(id, version(store.get(id)));
+    }
+
+    /**
+     * Fails if the transaction holds the device but another one changed it since.
+     */
+    private void verify(Long id) {
+      Long version = seen.get(id);
+      if (version != null && version != version(store.get(id))) {
+        throw new ObjectOptimisticLockingFailureException(Device.class, id);
+      }
+    }
+
+    private void put(Long id, Device device) {
+      hold(id);
+      changed.put(id, device);
+    }
+
+    /**
+     * Ahead of the listeners of the transaction's events, which expect its writes in place.
+     */
+    @Override
+    public int getOrder() {
+      return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    @Override
+    public void suspend() {
+      TransactionSynchronizationManager.unbindResource(LogDeviceRepository.this);
+    }
+
+    @Override
+    public void resume() {
+      TransactionSynchronizationManager.bindResource(LogDeviceRepository.this, this);
+    }
+
+    /**
+     * Fails the commit if a held device changed, or is being committed by another transaction,
+     * and otherwise keeps other writes off the held devices until the writes are applied.
+     */
+    @Override
+    public void beforeCommit(boolean readOnly) {
+      store.write(() -> {
+        seen.keySet().forEach(id -> {
+          verify(id);
+          checkNotCommitting(id);
+        });
+        seen.keySet().forEach(id -> committing.put(id, this));
+        return null;
+      });
+    }
+
+    @Override
+    public void afterCommit() {
+      store.write(() -> {
+        changed.forEach((id, device) -> {
+          if (device == null) {
+            store.remove(id);
+          } else {
+            store.put(device);
+          }
+        });
+        return null;
+      });
+    }
+
+    @Override
+    public void afterCompletion(int status) {
+      TransactionSynchronizationManager.unbindResourceIfPossible(LogDeviceRepository.this);
+      if (!seen.isEmpty()) {
+        store.write(() -> {
+          seen.keySet().forEach(id -> committing.remove(id, this));
+          return null;
+        });
+      }
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package com.joaomps.devicemanager.model;
+
+import com.joaomps.devicemanager.tenant.TenantContext;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.TenantId;
+
+/**
+ * Entry of the brand dictionary. Devices reference their brand by id, so spelling variants of a
+ * brand ("Apple", "apple ") are one brand and brand filters compare integers. Every tenant has its
+ * own entries, so one tenant's spelling never shows up on another tenant's devices.
+ */
+@Entity
+@Table(name = "model_brands",
+    uniqueConstraints = @UniqueConstraint(name = "uk_brands_tenant_normalized_name",
+        columnNames = {"tenantId", "normalizedName"}))
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class Brand {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  /**
+   * Tenant owning the entry, filtered by Hibernate like the tenant of a device.
+   */
+  @TenantId
+  @ColumnDefault("'" + TenantContext.DEFAULT_TENANT + "'")
+  @Column(nullable = false, updatable = false, length = 64)
+  private String tenantId;
+
+  /**
+   * Lower-cased name with whitespace collapsed, the key brands are matched on.
+   */
+  @Column(nullable = false, updatable = false)
+  private String normalizedName;
+
+  /**
+   * Spelling the brand was first created with, returned for every device of the brand.
+   */
+  @Column(nullable = false)
+  private String name;
+}
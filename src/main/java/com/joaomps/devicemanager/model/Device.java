@@ -1,5 +1,8 @@
 package com.joaomps.devicemanager.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.joaomps.devicemanager.tenant.TenantContext;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
@@ -7,16 +10,31 @@ import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotBlank;
 import java.time.LocalDateTime;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.SQLRestriction;
+import org.hibernate.annotations.TenantId;
 
 @Entity
-@Table(name = "model_devices")
+@Table(name = "model_devices", indexes = {
+    @Index(name = "idx_devices_tenant_brand", columnList = "tenantId, brand"),
+    @Index(name = "idx_devices_tenant_brand_id", columnList = "tenantId, brandId"),
+    @Index(name = "idx_devices_tenant_state", columnList = "tenantId, state"),
+    @Index(name = "idx_devices_tenant_creation_time", columnList = "tenantId, creationTime, id"),
+    @Index(name = "idx_devices_lease_expires_at", columnList = "leaseExpiresAt"),
+    @Index(name = "idx_devices_deleted_at", columnList = "deletedAt"),
+    @Index(name = "idx_devices_updated_at", columnList = "updatedAt, id")})
+@SQLRestriction("deleted_at is null")
 @AllArgsConstructor
 @NoArgsConstructor
 @Getter
@@ -27,14 +45,87 @@ public class Device {
   @GeneratedValue(strategy = GenerationType.IDENTITY)
   private Long id;
 
+  /**
+   * Customer owning the device. Set from the request's tenant on insert and added by Hibernate to
+   * every query, so a tenant never sees or changes another tenant's devices.
+   */
+  @TenantId
+  @JsonIgnore
+  @ColumnDefault("'" + TenantContext.DEFAULT_TENANT + "'")
+  @Column(nullable = false, updatable = false, length = 64)
+  private String tenantId;
+
   @NotBlank(message = "Name cannot be blank")
   private String name;
   @NotBlank(message = "Brand cannot be blank")
   private String brand;
 
+  /**
+   * Entry of the brand dictionary for {@link #brand}. {@code null} only on rows written before
+   * the dictionary existed and not backfilled yet.
+   */
+  @JsonIgnore
+  private Long brandId;
+
   @Enumerated(EnumType.STRING)
   private DeviceState state;
 
   @Column(updatable = false)
   private LocalDateTime creationTime;
+
+  /**
+   * When the current check-out expires and the device is reclaimed to AVAILABLE. Only set while
+   * the device is IN_USE under a lease.
+   */
+  @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+  private LocalDateTime leaseExpiresAt;
+
+  /**
+   * Secret handed to the lease holder, required to renew or release the lease.
+   */
+  @JsonIgnore
+  private String leaseToken;
+
+  /**
+   * When the device was deleted. Deleted devices are hidden from every query, can be restored
+   * during the retention window and are physically removed afterwards.
+   */
+  @JsonIgnore
+  private LocalDateTime deletedAt;
+
+  /**
+   * When the row was last written, by this or any other node. Set on every entity save and by
+   * every bulk update, so the change feed can find what changed since it last looked.
+   */
+  @JsonIgnore
+  private LocalDateTime updatedAt;
+
+  /**
+   * Incremented by every write, entity saves and bulk updates alike, so a save based on a stale
+   * read fails instead of overwriting a concurrent change.
+   */
+  @Version
+  @JsonIgnore
+  @ColumnDefault("0")
+  @Column(nullable = false)
+  private long version;
+
+  public Device(Long id, String name, String brand, DeviceState state,
+      LocalDateTime creationTime) {
+    this(id, null, name, brand, null, state, creationTime, null, null, null, null, 0);
+  }
+
+  /**
+   * Detached copy of every field, for callers that hand out a device they keep.
+   */
+  public Device copy() {
+    return new Device(id, tenantId, name, brand, brandId, state, creationTime, leaseExpiresAt,
+        leaseToken, deletedAt, updatedAt, version);
+  }
+
+  @PrePersist
+  @PreUpdate
+  void touch() {
+    updatedAt = LocalDateTime.now();
+  }
 }
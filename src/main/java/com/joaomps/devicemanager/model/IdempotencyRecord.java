@@ -0,0 +1,62 @@
+package com.joaomps.devicemanager.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Response of a completed request sent with an {@code Idempotency-Key}, kept so that retries of
+ * the request, on any node, get the original response back. The row is inserted as
+ * {@link #PENDING} before the request runs, so only one node at a time can run it.
+ */
+@Entity
+@Table(name = "model_idempotency_records",
+    indexes = @Index(name = "idx_idempotency_records_expires_at", columnList = "expiresAt"))
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class IdempotencyRecord {
+
+  public static final int PENDING = 0;
+
+  /**
+   * SHA-256 of the tenant, method, path and key of the request.
+   */
+  @Id
+  @Column(length = 64)
+  private String id;
+
+  /**
+   * SHA-256 of the request body, to detect a key reused for a different request.
+   */
+  @Column(nullable = false, length = 64)
+  private String fingerprint;
+
+  /**
+   * HTTP status of the response, or {@link #PENDING} while the request holding the key is still
+   * running.
+   */
+  private int status;
+
+  private String contentType;
+
+  /**
+   * Response headers to replay, one {@code name: value} line each.
+   */
+  @Column(columnDefinition = "text")
+  private String headers;
+
+  @Column(columnDefinition = "text")
+  private String body;
+
+  @Column(nullable = false)
+  private LocalDateTime expiresAt;
+}
@@ -0,0 +1,82 @@
+package com.joaomps.devicemanager.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A long-running operation executed in the background. Progress is checkpointed with every
+ * chunk ({@code resumeAfter} is the handler-specific resume point), so a job interrupted by a
+ * restart continues where it stopped.
+ */
+@Entity
+@Table(name = "model_jobs", indexes = @Index(name = "idx_jobs_status", columnList = "status"))
+@NoArgsConstructor
+@Getter
+@Setter
+public class Job {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false)
+  private JobType type;
+
+  /**
+   * Tenant that submitted the job, whose devices it works on.
+   */
+  @JsonIgnore
+  @Column(length = 64, updatable = false)
+  private String tenantId;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false)
+  private JobStatus status;
+
+  @JsonRawValue
+  @Column(columnDefinition = "text")
+  private String parameters;
+
+  private Long resumeAfter;
+
+  private long processed;
+
+  private boolean cancelRequested;
+
+  /**
+   * Node running the job, unique per process: a restarted node is a new owner.
+   */
+  private String owner;
+
+  /**
+   * Until when {@link #owner} holds the job. Renewed by the owner while it runs the job; once it
+   * passes, the owner is presumed dead and the job is handed to another node.
+   */
+  private LocalDateTime leaseExpiresAt;
+
+  @Column(length = 2000)
+  private String message;
+
+  @Column(updatable = false)
+  private LocalDateTime createdAt;
+
+  private LocalDateTime startedAt;
+
+  private LocalDateTime updatedAt;
+
+  private LocalDateTime finishedAt;
+}
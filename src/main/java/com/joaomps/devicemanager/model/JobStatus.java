@@ -0,0 +1,9 @@
+package com.joaomps.devicemanager.model;
+
+public enum JobStatus {
+  PENDING, RUNNING, COMPLETED, FAILED, CANCELLED;
+
+  public boolean isFinished() {
+    return this == COMPLETED || this == FAILED || this == CANCELLED;
+  }
+}
@@ -0,0 +1,7 @@
+package com.joaomps.devicemanager.model;
+
+public enum JobType {
+  BULK_STATE_TRANSITION,
+  BRAND_BACKFILL,
+  DEVICE_SWEEP
+}
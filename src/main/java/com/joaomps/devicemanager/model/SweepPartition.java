@@ -0,0 +1,61 @@
+package com.joaomps.devicemanager.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Id range of a device sweep job, processed by one worker, with its own resume point.
+ */
+@Entity
+@Table(name = "model_sweep_partitions",
+    indexes = @Index(name = "idx_sweep_partitions_job_id", columnList = "jobId"))
+@NoArgsConstructor
+@AllArgsConstructor
+@Getter
+@Setter
+public class SweepPartition {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  @Column(nullable = false, updatable = false)
+  private Long jobId;
+
+  /**
+   * Exclusive lower bound of the range.
+   */
+  @Column(updatable = false)
+  private long fromId;
+
+  /**
+   * Inclusive upper bound of the range.
+   */
+  @Column(updatable = false)
+  private long toId;
+
+  /**
+   * Last id processed, {@code fromId} until the first slice is committed.
+   */
+  private long resumeAfter;
+
+  private long processed;
+
+  private boolean done;
+
+  /**
+   * Outcome of the processor over the devices up to {@code resumeAfter}, see
+   * {@code DeviceSweepProcessor.Sweep#state()}.
+   */
+  @Column(length = 4000)
+  private String state;
+}
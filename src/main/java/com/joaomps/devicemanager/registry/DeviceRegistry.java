@@ -0,0 +1,442 @@
+package com.joaomps.devicemanager.registry;
+
+import com.joaomps.devicemanager.event.DeviceChangedEvent;
+import com.joaomps.devicemanager.model.Device;
+import com.joaomps.devicemanager.model.DeviceState;
+import com.joaomps.devicemanager.repository.DeviceRepository;
+import com.joaomps.devicemanager.tenant.TenantContext;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Optional copy of every device in a compact, off-heap layout, for point lookups that must not
+ * touch the database or create garbage. Enabled with {@code device-manager.registry.enabled}.
+ *
+ * <p>Devices live in an open-addressing table of fixed-size slots in a direct buffer: the id,
+ * creation, lease and update times as longs, brand and tenant as ids into small dictionaries, the
+ * state as a byte and the position of the UTF-8 name in a separate off-heap arena. That is 56
+ * bytes per device plus its name, and nothing for the collector to trace.
+ *
+ * <p>The registry is loaded at startup and updated from {@link DeviceChangedEvent}s: those of this
+ * node's commits and those the change feed publishes for writes made by other nodes, so a device
+ * written elsewhere is current here after one feed poll. A write older than the stored
+ * {@code updatedAt} is ignored, whichever order the two sources deliver in, and events arriving
+ * while the startup load runs are applied once it is done, so the load cannot overwrite them.
+ * Writers hold a {@link StampedLock} exclusively; readers use an optimistic stamp and only fall
+ * back to the read lock if a write overlapped.
+ */
+@Component
+public class DeviceRegistry {
+
+  private static final Logger log = LoggerFactory.getLogger(DeviceRegistry.class);
+
+  private static final int SLOT_SIZE = 56;
+  private static final int ID = 0;
+  private static final int CREATION = 8;
+  private static final int LEASE_EXPIRES = 16;
+  private static final int NAME_OFFSET = 24;
+  private static final int NAME_LENGTH = 28;
+  private static final int BRAND = 32;
+  private static final int TENANT = 36;
+  private static final int STATE = 40;
+  private static final int UPDATED = 48;
+
+  private static final long EMPTY = 0;
+  private static final byte NO_STATE = -1;
+  private static final DeviceState[] STATES = DeviceState.values();
+  private static final int LOAD_PAGE_SIZE = 5_000;
+  private static final ThreadLocal<DeviceView> VIEWS = ThreadLocal.withInitial(DeviceView::new);
+
+  private final DeviceRepository deviceRepository;
+  private final boolean enabled;
+  private final StampedLock lock = new StampedLock();
+  private final Dictionary brands = new Dictionary();
+  private final Dictionary tenants = new Dictionary();
+  private final Object loadLock = new Object();
+
+  /**
+   * Events received while {@link #load()} runs, applied once it is done. Guarded by
+   * {@code loadLock}, {@code null} outside of the load.
+   */
+  private List<DeviceChangedEvent> pendingDuringLoad;
+
+  private ByteBuffer slots;
+  private int mask;
+  private int size;
+  private ByteBuffer names;
+  private int namesUsed;
+  private int namesGarbage;
+
+  public DeviceRegistry(DeviceRepository deviceRepository,
+      @Value("${device-manager.registry.enabled:false}") boolean enabled,
+      @Value("${device-manager.registry.initial-capacity:65536}") int initialCapacity) {
+    this.deviceRepository = deviceRepository;
+    this.enabled = enabled;
+    int capacity = Integer.highestOneBit(Math.max(16, initialCapacity - 1) << 1);
+    if (enabled) {
+      this.slots = ByteBuffer.allocateDirect(capacity * SLOT_SIZE);
+      this.mask = capacity - 1;
+      this.names = ByteBuffer.allocateDirect(capacity * 16);
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    if (!enabled) {
+      return;
+    }
+    synchronized (loadLock) {
+      pendingDuringLoad = new ArrayList<>();
+    }
+    try {
+      long start = System.nanoTime();
+      long afterId = 0;
+      List<Device> page;
+      do {
+        page = deviceRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(LOAD_PAGE_SIZE));
+        for (Device device : page) {
+          put(device);
+          afterId = device.getId();
+        }
+      } while (page.size() == LOAD_PAGE_SIZE);
+      log.info("Device registry loaded with {} devices ({} KiB off-heap) in {} ms", size(),
+          offHeapBytes() / 1024, (System.nanoTime() - start) / 1_000_000);
+    } catch (DataAccessException e) {
+      log.warn("Could not load the device registry: {}", e.getMessage());
+    } finally {
+      synchronized (loadLock) {
+        pendingDuringLoad.forEach(this::apply);
+        pendingDuringLoad = null;
+      }
+    }
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onDeviceChanged(DeviceChangedEvent event) {
+    Device device = event.device();
+    if (!enabled || device == null || device.getId() == null) {
+      return;
+    }
+    synchronized (loadLock) {
+      if (pendingDuringLoad != null) {
+        pendingDuringLoad.add(event);
+        return;
+      }
+    }
+    apply(event);
+  }
+
+  /**
+   * Fills {@code into} with the device, if the tenant has one with this id. Does not allocate.
+   */
+  public boolean read(String tenant, long id, DeviceView into) {
+    if (!enabled || id == EMPTY) {
+      return false;
+    }
+    int tenantId = tenants.idOf(tenant);
+    if (tenantId < 0 && !TenantContext.ROOT.equals(tenant)) {
+      return false;
+    }
+
+    long stamp = lock.tryOptimisticRead();
+    if (stamp != 0) {
+      try {
+        boolean found = readSlot(tenantId, id, into);
+        if (lock.validate(stamp)) {
+          return found;
+        }
+      } catch (IndexOutOfBoundsException e) {
+        // Torn read of a slot being rewritten, retried below under the lock.
+      }
+    }
+    stamp = lock.readLock();
+    try {
+      return readSlot(tenantId, id, into);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  /**
+   * The device as an entity, or {@code null} if the tenant has none with this id.
+   */
+  public Device get(String tenant, long id) {
+    DeviceView view = VIEWS.get();
+    return read(tenant, id, view) ? view.toDevice() : null;
+  }
+
+  /**
+   * Stores the device, unless the registry holds a write of it with a later {@code updatedAt}.
+   */
+  public void put(Device device) {
+    byte[] name = device.getName() == null ? new byte[0]
+        : device.getName().getBytes(StandardCharsets.UTF_8);
+    int brand = brands.intern(device.getBrand());
+    int tenant = tenants.intern(TenantContext.of(device.getTenantId()));
+    long updated = DeviceView.toMicros(device.getUpdatedAt());
+
+    long stamp = lock.writeLock();
+    try {
+      int slot = find(device.getId());
+      if (slot >= 0 && slots.getLong(slot * SLOT_SIZE + UPDATED) > updated) {
+        return;
+      }
+      if (slot < 0) {
+        if ((size + 1) * 10L > (mask + 1) * 7L) {
+          resize((mask + 1) * 2);
+          slot = find(device.getId());
+        }
+        slot = -slot - 1;
+        size++;
+      } else {
+        namesGarbage += slots.getInt(slot * SLOT_SIZE + NAME_LENGTH);
+      }
+
+      int nameOffset = appendName(name);
+      int base = slot * SLOT_SIZE;
+      slots.putLong(base + ID, device.getId());
+      slots.putLong(base + CREATION, DeviceView.toMicros(device.getCreationTime()));
+      slots.putLong(base + LEASE_EXPIRES, DeviceView.toMicros(device.getLeaseExpiresAt()));
+      slots.putInt(base + NAME_OFFSET, nameOffset);
+      slots.putInt(base + NAME_LENGTH, name.length);
+      slots.putInt(base + BRAND, brand);
+      slots.putInt(base + TENANT, tenant);
+      slots.put(base + STATE,
+          device.getState() == null ? NO_STATE : (byte) device.getState().ordinal());
+      slots.putLong(base + UPDATED, updated);
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  public void remove(long id) {
+    remove(id, Long.MAX_VALUE);
+  }
+
+  /**
+   * Removes the device unless the registry holds a write of it later than {@code updatedMicros},
+   * e.g. a restore that overtook the deletion.
+   */
+  private void remove(long id, long updatedMicros) {
+    long stamp = lock.writeLock();
+    try {
+      int slot = find(id);
+      if (slot < 0 || slots.getLong(slot * SLOT_SIZE + UPDATED) > updatedMicros) {
+        return;
+      }
+      namesGarbage += slots.getInt(slot * SLOT_SIZE + NAME_LENGTH);
+      // Backward-shift deletion: pull later entries of the probe sequence into the hole.
+      int hole = slot;
+      int next = (hole + 1) & mask;
+      while (slots.getLong(next * SLOT_SIZE + ID) != EMPTY) {
+        int home = home(slots.getLong(next * SLOT_SIZE + ID));
+        if (((next - home) & mask) >= ((next - hole) & mask)) {
+          copySlot(next, hole);
+          hole = next;
+        }
+        next = (next + 1) & mask;
+      }
+      slots.putLong(hole * SLOT_SIZE + ID, EMPTY);
+      size--;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  public int size() {
+    long stamp = lock.readLock();
+    try {
+      return size;
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  public long offHeapBytes() {
+    long stamp = lock.readLock();
+    try {
+      return slots == null ? 0 : (long) slots.capacity() + names.capacity();
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  private void apply(DeviceChangedEvent event) {
+    Device device = event.device();
+    if (event.type() == DeviceChangedEvent.Type.DELETED) {
+      remove(device.getId(), DeviceView.toMicros(device.getUpdatedAt()));
+    } else {
+      put(device);
+    }
+  }
+
+  private boolean readSlot(int tenantId, long id, DeviceView into) {
+    ByteBuffer table = slots;
+    int tableMask = mask;
+    int slot = home(id, tableMask);
+    for (int probes = 0; probes <= tableMask; probes++) {
+      int base = slot * SLOT_SIZE;
+      long slotId = table.getLong(base + ID);
+      if (slotId == EMPTY) {
+        return false;
+      }
+      if (slotId == id) {
+        if (tenantId >= 0 && table.getInt(base + TENANT) != tenantId) {
+          return false;
+        }
+        int nameLength = table.getInt(base + NAME_LENGTH);
+        if (nameLength < 0 || nameLength > names.capacity()) {
+          throw new IndexOutOfBoundsException(nameLength);
+        }
+        if (into.name.length < nameLength) {
+          into.name = new byte[Math.max(nameLength, into.name.length * 2)];
+        }
+        names.get(table.getInt(base + NAME_OFFSET), into.name, 0, nameLength);
+        byte state = table.get(base + STATE);
+        into.id = id;
+        into.nameLength = nameLength;
+        into.tenant = tenants.valueOf(table.getInt(base + TENANT));
+        into.brand = brands.valueOf(table.getInt(base + BRAND));
+        into.state = state == NO_STATE ? null : STATES[state];
+        into.creationMicros = table.getLong(base + CREATION);
+        into.leaseExpiresMicros = table.getLong(base + LEASE_EXPIRES);
+        return true;
+      }
+      slot = (slot + 1) & tableMask;
+    }
+    return false;
+  }
+
+  /**
+   * Slot holding {@code id}, or {@code -(insertion slot) - 1} if there is none.
+   */
+  private int find(long id) {
+    int slot = home(id);
+    while (true) {
+      long slotId = slots.getLong(slot * SLOT_SIZE + ID);
+      if (slotId == id) {
+        return slot;
+      }
+      if (slotId == EMPTY) {
+        return -slot - 1;
+      }
+      slot = (slot + 1) & mask;
+    }
+  }
+
+  private int home(long id) {
+    return home(id, mask);
+  }
+
+  private static int home(long id, int mask) {
+    long hash = id * 0x9E3779B97F4A7C15L;
+    return (int) (hash ^ (hash >>> 32)) & mask;
+  }
+
+  private void copySlot(int from, int to) {
+    ByteBuffer source = slots.slice(from * SLOT_SIZE, SLOT_SIZE);
+    slots.put(to * SLOT_SIZE, source, 0, SLOT_SIZE);
+  }
+
+  private void resize(int capacity) {
+    ByteBuffer previous = slots;
+    int previousCapacity = mask + 1;
+    slots = ByteBuffer.allocateDirect(capacity * SLOT_SIZE);
+    mask = capacity - 1;
+    for (int slot = 0; slot < previousCapacity; slot++) {
+      long id = previous.getLong(slot * SLOT_SIZE + ID);
+      if (id != EMPTY) {
+        int target = -find(id) - 1;
+        slots.put(target * SLOT_SIZE, previous, slot * SLOT_SIZE, SLOT_SIZE);
+      }
+    }
+  }
+
+  private int appendName(byte[] name) {
+    if (namesUsed + name.length > names.capacity()) {
+      compactNames(name.length);
+    }
+    int offset = namesUsed;
+    names.put(offset, name);
+    namesUsed += name.length;
+    return offset;
+  }
+
+  /**
+   * Copies the names still referenced into a new arena, with room for at least {@code needed}
+   * more bytes, dropping those of removed and renamed devices.
+   */
+  private void compactNames(int needed) {
+    int live = namesUsed - namesGarbage;
+    int capacity = names.capacity();
+    while (capacity < (live + needed) * 2L) {
+      capacity *= 2;
+    }
+    ByteBuffer previous = names;
+    names = ByteBuffer.allocateDirect(capacity);
+    namesUsed = 0;
+    namesGarbage = 0;
+    for (int slot = 0; slot <= mask; slot++) {
+      int base = slot * SLOT_SIZE;
+      if (slots.getLong(base + ID) != EMPTY) {
+        int length = slots.getInt(base + NAME_LENGTH);
+        names.put(namesUsed, previous, slots.getInt(base + NAME_OFFSET), length);
+        slots.putInt(base + NAME_OFFSET, namesUsed);
+        namesUsed += length;
+      }
+    }
+  }
+
+  /**
+   * Append-only mapping between strings and small ids. Reading by id is a plain array access.
+   */
+  private static final class Dictionary {
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] values = new String[16];
+    private int count;
+
+    int idOf(String value) {
+      Integer id = value == null ? null : ids.get(value);
+      return id == null ? -1 : id;
+    }
+
+    String valueOf(int id) {
+      return id < 0 ? null : values[id];
+    }
+
+    synchronized int intern(String value) {
+      if (value == null) {
+        return -1;
+      }
+      Integer id = ids.get(value);
+      if (id != null) {
+        return id;
+      }
+      String[] next = count == values.length ? Arrays.copyOf(values, count * 2) : values;
+      next[count] = value;
+      values = next;
+      ids.put(value, count);
+      return count++;
+    }
+  }
+}
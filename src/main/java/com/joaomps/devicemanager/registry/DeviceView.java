@@ -0,0 +1,194 @@
+package com.joaomps.devicemanager.registry;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.json.UTF8JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.joaomps.devicemanager.model.Device;
+import com.joaomps.devicemanager.model.DeviceState;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Reusable holder that {@link DeviceRegistry#read(String, long, DeviceView)} fills in place, so a
+ * lookup does not allocate. Keep one per thread; the name is exposed as UTF-8 bytes and only
+ * {@link #name()} and {@link #toDevice()} create objects.
+ *
+ * <p>Serializes to the same JSON as the {@link Device} it holds, writing the name bytes and the
+ * times, formatted into a reused buffer, straight to the generator when it writes UTF-8 bytes, as
+ * it does for HTTP responses.
+ */
+public final class DeviceView extends JsonSerializable.Base {
+
+  static final long NO_TIME = Long.MIN_VALUE;
+
+  private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+  long id;
+  String tenant;
+  String brand;
+  DeviceState state;
+  long creationMicros;
+  long leaseExpiresMicros;
+  byte[] name = new byte[64];
+  int nameLength;
+  private final char[] time = new char[26];
+
+  public long id() {
+    return id;
+  }
+
+  public String brand() {
+    return brand;
+  }
+
+  public DeviceState state() {
+    return state;
+  }
+
+  /**
+   * Creation time in microseconds since the epoch (UTC), or {@link Long#MIN_VALUE} if unset.
+   */
+  public long creationMicros() {
+    return creationMicros;
+  }
+
+  /**
+   * Lease expiry in microseconds since the epoch (UTC), or {@link Long#MIN_VALUE} if not leased.
+   */
+  public long leaseExpiresMicros() {
+    return leaseExpiresMicros;
+  }
+
+  /**
+   * UTF-8 encoded name, valid up to {@link #nameLength()}.
+   */
+  public byte[] nameBytes() {
+    return name;
+  }
+
+  public int nameLength() {
+    return nameLength;
+  }
+
+  public String name() {
+    return new String(name, 0, nameLength, StandardCharsets.UTF_8);
+  }
+
+  public Device toDevice() {
+    Device device = new Device(id, name(), brand, state, toTime(creationMicros));
+    device.setTenantId(tenant);
+    device.setLeaseExpiresAt(toTime(leaseExpiresMicros));
+    return device;
+  }
+
+  @Override
+  public void serialize(JsonGenerator generator, SerializerProvider serializers)
+      throws IOException {
+    generator.writeStartObject();
+    generator.writeNumberField("id", id);
+    generator.writeFieldName("name");
+    if (generator instanceof UTF8JsonGenerator) {
+      generator.writeUTF8String(name, 0, nameLength);
+    } else {
+      // Generators writing characters rather than bytes cannot take UTF-8 input.
+      generator.writeString(name());
+    }
+    generator.writeStringField("brand", brand);
+    generator.writeStringField("state", state == null ? null : state.name());
+    writeTime(generator, "creationTime", creationMicros);
+    writeTime(generator, "leaseExpiresAt", leaseExpiresMicros);
+    generator.writeEndObject();
+  }
+
+  @Override
+  public void serializeWithType(JsonGenerator generator, SerializerProvider serializers,
+      TypeSerializer typeSerializer) throws IOException {
+    serialize(generator, serializers);
+  }
+
+  private void writeTime(JsonGenerator generator, String field, long micros)
+      throws IOException {
+    generator.writeFieldName(field);
+    if (micros == NO_TIME) {
+      generator.writeNull();
+      return;
+    }
+    int length = formatTime(micros, time);
+    if (length < 0) {
+      generator.writeString(DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(toTime(micros)));
+    } else {
+      generator.writeString(time, 0, length);
+    }
+  }
+
+  /**
+   * Writes {@code micros} into {@code into} as {@link DateTimeFormatter#ISO_LOCAL_DATE_TIME} does,
+   * the format Jackson uses for {@link LocalDateTime}, and returns the length. Returns -1 for years
+   * outside 0-9999, which that format writes differently.
+   */
+  static int formatTime(long micros, char[] into) {
+    long seconds = Math.floorDiv(micros, 1_000_000L);
+    int fraction = (int) Math.floorMod(micros, 1_000_000L);
+    long days = Math.floorDiv(seconds, 86_400L);
+    int secondOfDay = (int) Math.floorMod(seconds, 86_400L);
+
+    // Civil date from days since the epoch, on 400-year eras starting on March 1st.
+    long shifted = days + 719_468;
+    long era = Math.floorDiv(shifted, 146_097);
+    long dayOfEra = shifted - era * 146_097;
+    long yearOfEra = (dayOfEra - dayOfEra / 1_460 + dayOfEra / 36_524 - dayOfEra / 146_096) / 365;
+    long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+    long monthIndex = (5 * dayOfYear + 2) / 153;
+    int day = (int) (dayOfYear - (153 * monthIndex + 2) / 5 + 1);
+    int month = (int) (monthIndex < 10 ? monthIndex + 3 : monthIndex - 9);
+    long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+    if (year < 0 || year > 9_999) {
+      return -1;
+    }
+
+    digits(into, 0, (int) year, 4);
+    into[4] = '-';
+    digits(into, 5, month, 2);
+    into[7] = '-';
+    digits(into, 8, day, 2);
+    into[10] = 'T';
+    digits(into, 11, secondOfDay / 3_600, 2);
+    into[13] = ':';
+    digits(into, 14, secondOfDay / 60 % 60, 2);
+    into[16] = ':';
+    digits(into, 17, secondOfDay % 60, 2);
+    if (fraction == 0) {
+      return 19;
+    }
+    into[19] = '.';
+    digits(into, 20, fraction, 6);
+    int length = 26;
+    while (into[length - 1] == '0') {
+      length--;
+    }
+    return length;
+  }
+
+  private static void digits(char[] into, int offset, int value, int width) {
+    for (int i = offset + width - 1; i >= offset; i--) {
+      into[i] = (char) ('0' + value % 10);
+      value /= 10;
+    }
+  }
+
+  static long toMicros(LocalDateTime time) {
+    return time == null ? NO_TIME : ChronoUnit.MICROS.between(EPOCH, time);
+  }
+
+  static LocalDateTime toTime(long micros) {
+    return micros == NO_TIME ? null
+        : LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+            (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+  }
+}
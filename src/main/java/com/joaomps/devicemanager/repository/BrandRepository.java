@@ -0,0 +1,16 @@
+package com.joaomps.devicemanager.repository;
+
+import com.joaomps.devicemanager.model.Brand;
+import java.util.List;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface BrandRepository extends JpaRepository<Brand, Long> {
+
+  Optional<Brand> findByTenantIdAndNormalizedName(String tenantId, String normalizedName);
+
+  /**
+   * Entries of every tenant visible to the caller, i.e. of all tenants when running as root.
+   */
+  List<Brand> findByNormalizedName(String normalizedName);
+}
@@ -2,12 +2,187 @@ package com.joaomps.devicemanager.repository;
 
 import com.joaomps.devicemanager.model.Device;
 import com.joaomps.devicemanager.model.DeviceState;
+import jakarta.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
-public interface DeviceRepository extends JpaRepository<Device, Long> {
+public interface DeviceRepository extends JpaRepository<Device, Long>, DeviceRepositoryCustom {
 
-  List<Device> findByBrand(String brand);
+  List<Device> findByBrandId(Long brandId);
+
+  /**
+   * Brand filter while the brand backfill runs: devices not backfilled yet are matched by name.
+   */
+  @Query("select d from Device d where d.brandId = :brandId"
+      + " or (d.brandId is null and d.brand = :brand)")
+  List<Device> findByBrandDuringBackfill(@Param("brandId") Long brandId,
+      @Param("brand") String brand);
 
   List<Device> findByState(DeviceState state);
+
+  List<Device> findByIdGreaterThanOrderByIdAsc(long afterId, Limit limit);
+
+  List<Device> findAllByOrderByIdDesc(Limit limit);
+
+  @Query("select coalesce(min(d.id), 0) from Device d")
+  long findMinId();
+
+  @Query("select coalesce(max(d.id), 0) from Device d")
+  long findMaxId();
+
+  /**
+   * Streams the devices with ids in {@code (afterId, toId]} in id order, fetching rows from the
+   * cursor in batches instead of loading them all. Must be consumed inside a transaction. The
+   * devices are loaded read-only: changes made to them are never written.
+   */
+  @QueryHints({
+      @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+      @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  @Query("select d from Device d where d.id > :afterId and d.id <= :toId order by d.id")
+  Stream<Device> streamRange(@Param("afterId") long afterId, @Param("toId") long toId,
+      Limit limit);
+
+  boolean existsByBrandIdIsNull();
+
+  @Query("select d from Device d where d.brandId is null and d.id > :afterId order by d.id")
+  List<Device> findWithoutBrandId(@Param("afterId") long afterId, Limit limit);
+
+  /**
+   * Points the given devices at a brand entry, unless a write assigned one in the meantime.
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("update Device d set d.brandId = :brandId, d.brand = :name, d.updatedAt = :now,"
+      + " d.version = d.version + 1 where d.id in :ids and d.brandId is null")
+  int assignBrand(@Param("ids") Collection<Long> ids, @Param("brandId") Long brandId,
+      @Param("name") String name, @Param("now") LocalDateTime now);
+
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("update Device d set d.state = :target, d.leaseExpiresAt = null, d.leaseToken = null,"
+      + " d.updatedAt = :now, d.version = d.version + 1"
+      + " where d.id in :ids and d.state not in :excluded")
+  int updateStateByIds(@Param("ids") Collection<Long> ids, @Param("target") DeviceState target,
+      @Param("excluded") Collection<DeviceState> excluded, @Param("now") LocalDateTime now);
+
+  /**
+   * Checks a device out under a new lease, if it is available or its previous lease expired.
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("update Device d set d.state = com.joaomps.devicemanager.model.DeviceState.IN_USE,"
+      + " d.leaseExpiresAt = :expiresAt, d.leaseToken = :token, d.updatedAt = :now,"
+      + " d.version = d.version + 1"
+      + " where d.id = :id and d.deletedAt is null"
+      + " and (d.state = com.joaomps.devicemanager.model.DeviceState.AVAILABLE"
+      + " or (d.state = com.joaomps.devicemanager.model.DeviceState.IN_USE"
+      + " and d.leaseExpiresAt <= :now))")
+  int acquireLease(@Param("id") Long id, @Param("token") String token,
+      @Param("expiresAt") LocalDateTime expiresAt, @Param("now") LocalDateTime now);
+
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("update Device d set d.leaseExpiresAt = :expiresAt, d.updatedAt = :now,"
+      + " d.version = d.version + 1"
+      + " where d.id = :id and d.state = com.joaomps.devicemanager.model.DeviceState.IN_USE"
+      + " and d.leaseExpiresAt > :now and (d.leaseToken is null or d.leaseToken = :token)")
+  int renewLease(@Param("id") Long id, @Param("token") String token,
+      @Param("expiresAt") LocalDateTime expiresAt, @Param("now") LocalDateTime now);
+
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("update Device d set d.state = com.joaomps.devicemanager.model.DeviceState.AVAILABLE,"
+      + " d.leaseExpiresAt = null, d.leaseToken = null, d.updatedAt = :now,"
+      + " d.version = d.version + 1"
+      + " where d.id = :id and d.state = com.joaomps.devicemanager.model.DeviceState.IN_USE"
+      + " and d.leaseExpiresAt is not null and (d.leaseToken is null or d.leaseToken = :token)")
+  int releaseLease(@Param("id") Long id, @Param("token") String token,
+      @Param("now") LocalDateTime now);
+
+  /**
+   * Reclaims the given devices whose lease expired. Devices renewed or released in the meantime
+   * are left alone.
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("update Device d set d.state = com.joaomps.devicemanager.model.DeviceState.AVAILABLE,"
+      + " d.leaseExpiresAt = null, d.leaseToken = null, d.updatedAt = :now,"
+      + " d.version = d.version + 1"
+      + " where d.id in :ids and d.state = com.joaomps.devicemanager.model.DeviceState.IN_USE"
+      + " and d.leaseExpiresAt <= :now")
+  int expireLeases(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+  @Query("select d.id from Device d where d.leaseExpiresAt <= :now"
+      + " and d.state = com.joaomps.devicemanager.model.DeviceState.IN_USE order by d.leaseExpiresAt")
+  List<Long> findIdsWithExpiredLease(@Param("now") LocalDateTime now, Limit limit);
+
+  @Query("select new com.joaomps.devicemanager.repository.LeaseEntry(d.id, d.leaseExpiresAt)"
+      + " from Device d where d.leaseExpiresAt is not null and d.id > :afterId"
+      + " and d.state = com.joaomps.devicemanager.model.DeviceState.IN_USE order by d.id")
+  List<LeaseEntry> findActiveLeases(@Param("afterId") long afterId, Limit limit);
+
+  /**
+   * Marks a device deleted, unless it was put in use since it was checked.
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query("update Device d set d.deletedAt = :now, d.updatedAt = :now,"
+      + " d.version = d.version + 1"
+      + " where d.id = :id and d.deletedAt is null"
+      + " and d.state <> com.joaomps.devicemanager.model.DeviceState.IN_USE")
+  int softDelete(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+  /**
+   * Undeletes a device deleted after {@code cutoff}. Native, as deleted rows are invisible to
+   * entity queries, so the tenant is checked explicitly.
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query(nativeQuery = true, value = "update model_devices set deleted_at = null, updated_at = :now,"
+      + " version = version + 1"
+      + " where id = :id and tenant_id = :tenant and deleted_at >= :cutoff")
+  int restore(@Param("id") Long id, @Param("tenant") String tenant,
+      @Param("cutoff") LocalDateTime cutoff, @Param("now") LocalDateTime now);
+
+  /**
+   * Same as {@link #restore} for callers running as root, whatever tenant the device belongs to.
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query(nativeQuery = true, value = "update model_devices set deleted_at = null, updated_at = :now,"
+      + " version = version + 1"
+      + " where id = :id and deleted_at >= :cutoff")
+  int restoreInAnyTenant(@Param("id") Long id, @Param("cutoff") LocalDateTime cutoff,
+      @Param("now") LocalDateTime now);
+
+  /**
+   * Devices written at or after {@code since}, deleted ones included, in write order after the
+   * cursor position {@code (afterTime, afterId)}. Native, so neither the deleted filter nor the
+   * tenant filter applies: the change feed follows every tenant.
+   */
+  @Query(nativeQuery = true, value = "select * from model_devices where updated_at >= :since"
+      + " and (updated_at > :afterTime or (updated_at = :afterTime and id > :afterId))"
+      + " order by updated_at, id limit :limit")
+  List<Device> findChangedSince(@Param("since") LocalDateTime since,
+      @Param("afterTime") LocalDateTime afterTime, @Param("afterId") long afterId,
+      @Param("limit") int limit);
+
+  /**
+   * Ids of up to {@code limit} devices deleted before {@code cutoff}, oldest first.
+   */
+  @Query(nativeQuery = true, value = "select id from model_devices where deleted_at < :cutoff"
+      + " order by deleted_at limit :limit")
+  List<Long> findIdsDeletedBefore(@Param("cutoff") LocalDateTime cutoff,
+      @Param("limit") int limit);
+
+  /**
+   * Physically removes the given devices, unless they were restored since they were selected.
+   * Takes the ids from {@link #findIdsDeletedBefore} rather than a limited subquery, which not
+   * every database accepts in a DELETE.
+   */
+  @Modifying
+  @Query(nativeQuery = true, value = "delete from model_devices where id in (:ids)"
+      + " and deleted_at < :cutoff")
+  int purge(@Param("ids") Collection<Long> ids, @Param("cutoff") LocalDateTime cutoff);
 }
@@ -0,0 +1,35 @@
+package com.joaomps.devicemanager.repository;
+
+import com.joaomps.devicemanager.model.Device;
+import com.joaomps.devicemanager.model.DeviceState;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Device queries with optional filters. Each is built from the filters actually given, so every
+ * combination gets its own plain query instead of one with {@code (:x is null or ...)} guards
+ * that keep the planner from using an index.
+ */
+public interface DeviceRepositoryCustom {
+
+  /**
+   * Locks and returns up to {@code limit} devices with ids greater than {@code afterId}, in id
+   * order, matching every filter that is not {@code null}. The brand matches devices referencing
+   * one of {@code brandIds} or, when {@code brandName} is given, devices without a brand id whose
+   * brand is {@code brandName}; see {@code BrandDictionary.filter}.
+   */
+  List<Device> lockForBulk(Collection<Long> ids, Collection<Long> brandIds, String brandName,
+      DeviceState state, long afterId, int limit);
+
+  /**
+   * Returns up to {@code limit} devices created in {@code [from, to)}, either bound being
+   * optional, in {@code (creationTime, id)} order after the cursor position
+   * {@code (afterTime, afterId)}, if any, and matching the brand and state filters that are not
+   * {@code null}. The brand filter works as in {@link #lockForBulk}. Served by the tenant and
+   * creation time index, which also gives the order.
+   */
+  List<Device> findCreatedBetween(LocalDateTime from, LocalDateTime to,
+      Collection<Long> brandIds, String brandName, DeviceState state, LocalDateTime afterTime,
+      long afterId, int limit);
+}
@@ -0,0 +1,100 @@
+package com.joaomps.devicemanager.repository;
+
+import com.joaomps.devicemanager.model.Device;
+import com.joaomps.devicemanager.model.DeviceState;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.TypedQuery;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+class DeviceRepositoryCustomImpl implements DeviceRepositoryCustom {
+
+  private final EntityManager entityManager;
+
+  DeviceRepositoryCustomImpl(EntityManager entityManager) {
+    this.entityManager = entityManager;
+  }
+
+  @Override
+  public List<Device> lockForBulk(Collection<Long> ids, Collection<Long> brandIds,
+      String brandName, DeviceState state, long afterId, int limit) {
+    Map<String, Object> parameters = new LinkedHashMap<>();
+    StringBuilder jpql = new StringBuilder("select d from Device d where d.id > :afterId");
+    parameters.put("afterId", afterId);
+    if (ids != null) {
+      jpql.append(" and d.id in :ids");
+      parameters.put("ids", ids);
+    }
+    appendBrand(jpql, parameters, brandIds, brandName);
+    if (state != null) {
+      jpql.append(" and d.state = :state");
+      parameters.put("state", state);
+    }
+    jpql.append(" order by d.id");
+
+    TypedQuery<Device> query = entityManager.createQuery(jpql.toString(), Device.class)
+        .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+        .setMaxResults(limit);
+    parameters.forEach(query::setParameter);
+    return query.getResultList();
+  }
+
+  @Override
+  public List<Device> findCreatedBetween(LocalDateTime from, LocalDateTime to,
+      Collection<Long> brandIds, String brandName, DeviceState state, LocalDateTime afterTime,
+      long afterId, int limit) {
+    Map<String, Object> parameters = new LinkedHashMap<>();
+    StringBuilder jpql = new StringBuilder("select d from Device d where 1 = 1");
+    if (from != null) {
+      jpql.append(" and d.creationTime >= :from");
+      parameters.put("from", from);
+    }
+    if (to != null) {
+      jpql.append(" and d.creationTime < :to");
+      parameters.put("to", to);
+    }
+    if (afterTime != null) {
+      jpql.append(" and (d.creationTime, d.id) > (:afterTime, :afterId)");
+      parameters.put("afterTime", afterTime);
+      parameters.put("afterId", afterId);
+    }
+    appendBrand(jpql, parameters, brandIds, brandName);
+    if (state != null) {
+      jpql.append(" and d.state = :state");
+      parameters.put("state", state);
+    }
+    jpql.append(" order by d.creationTime, d.id");
+
+    TypedQuery<Device> query = entityManager.createQuery(jpql.toString(), Device.class)
+        .setMaxResults(limit);
+    parameters.forEach(query::setParameter);
+    return query.getResultList();
+  }
+
+  /**
+   * Matches devices referencing one of {@code brandIds} or, when {@code brandName} is given,
+   * devices without a brand id named {@code brandName}. Nothing is added if both are
+   * {@code null}, and nothing matches if neither can.
+   */
+  private static void appendBrand(StringBuilder jpql, Map<String, Object> parameters,
+      Collection<Long> brandIds, String brandName) {
+    if (brandIds == null && brandName == null) {
+      return;
+    }
+    List<String> brand = new ArrayList<>();
+    if (brandIds != null && !brandIds.isEmpty()) {
+      brand.add("d.brandId in :brandIds");
+      parameters.put("brandIds", brandIds);
+    }
+    if (brandName != null) {
+      brand.add("(d.brandId is null and d.brand = :brand)");
+      parameters.put("brand", brandName);
+    }
+    jpql.append(brand.isEmpty() ? " and 1 = 0" : " and (" + String.join(" or ", brand) + ")");
+  }
+}
@@ -0,0 +1,47 @@
+package com.joaomps.devicemanager.repository;
+
+import com.joaomps.devicemanager.model.IdempotencyRecord;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+  Optional<IdempotencyRecord> findByIdAndExpiresAtAfter(String id, LocalDateTime now);
+
+  /**
+   * Claims a key for a request about to run. Fails with a
+   * {@link org.springframework.dao.DataIntegrityViolationException} if a row with the same id
+   * exists, pending or completed.
+   */
+  @Transactional
+  @Modifying
+  @Query(nativeQuery = true, value = "insert into model_idempotency_records"
+      + " (id, fingerprint, status, expires_at) values (:id, :fingerprint, "
+      + IdempotencyRecord.PENDING + ", :expiresAt)")
+  int insertClaim(@Param("id") String id, @Param("fingerprint") String fingerprint,
+      @Param("expiresAt") LocalDateTime expiresAt);
+
+  /**
+   * Drops the claim of a request that produced no response worth keeping.
+   */
+  @Transactional
+  @Modifying
+  @Query("delete from IdempotencyRecord r where r.id = :id and r.status = "
+      + IdempotencyRecord.PENDING)
+  int releaseClaim(@Param("id") String id);
+
+  @Transactional
+  @Modifying
+  @Query("delete from IdempotencyRecord r where r.id = :id and r.expiresAt <= :now")
+  int deleteIfExpired(@Param("id") String id, @Param("now") LocalDateTime now);
+
+  @Transactional
+  @Modifying
+  @Query("delete from IdempotencyRecord r where r.expiresAt <= :now")
+  int deleteExpired(@Param("now") LocalDateTime now);
+}
@@ -0,0 +1,109 @@
+package com.joaomps.devicemanager.repository;
+
+import com.joaomps.devicemanager.model.Job;
+import com.joaomps.devicemanager.model.JobStatus;
+import com.joaomps.devicemanager.model.JobType;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface JobRepository extends JpaRepository<Job, Long> {
+
+  @Query("select j.id from Job j where j.status = :status order by j.id")
+  List<Long> findIdsByStatus(@Param("status") JobStatus status, Limit limit);
+
+  boolean existsByTypeAndStatusIn(JobType type, Collection<JobStatus> statuses);
+
+  @Query("select j.cancelRequested from Job j where j.id = :id")
+  boolean isCancelRequested(@Param("id") Long id);
+
+  /**
+   * Atomically moves a pending job to running under a lease of {@code owner}. Returns 0 when
+   * another node claimed it first.
+   */
+  @Transactional
+  @Modifying
+  @Query("update Job j set j.status = com.joaomps.devicemanager.model.JobStatus.RUNNING,"
+      + " j.owner = :owner, j.leaseExpiresAt = :leaseExpiresAt, j.startedAt = :now,"
+      + " j.updatedAt = :now"
+      + " where j.id = :id and j.status = com.joaomps.devicemanager.model.JobStatus.PENDING")
+  int claim(@Param("id") Long id, @Param("owner") String owner, @Param("now") LocalDateTime now,
+      @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt);
+
+  /**
+   * Records a chunk's progress and renews the lease, in the chunk's transaction when there is
+   * one. Returns 0 when {@code owner} no longer runs the job.
+   */
+  @Transactional
+  @Modifying
+  @Query("update Job j set j.resumeAfter = :resumeAfter, j.processed = j.processed + :processed,"
+      + " j.leaseExpiresAt = :leaseExpiresAt, j.updatedAt = :now"
+      + " where j.id = :id and j.owner = :owner"
+      + " and j.status = com.joaomps.devicemanager.model.JobStatus.RUNNING")
+  int checkpoint(@Param("id") Long id, @Param("owner") String owner,
+      @Param("resumeAfter") Long resumeAfter, @Param("processed") long processed,
+      @Param("now") LocalDateTime now, @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt);
+
+  /**
+   * Extends the leases of every job {@code owner} is running.
+   */
+  @Transactional
+  @Modifying
+  @Query("update Job j set j.leaseExpiresAt = :leaseExpiresAt"
+      + " where j.owner = :owner and j.status = com.joaomps.devicemanager.model.JobStatus.RUNNING")
+  int renewLeases(@Param("owner") String owner,
+      @Param("leaseExpiresAt") LocalDateTime leaseExpiresAt);
+
+  /**
+   * Ends a job, unless {@code owner} lost it to another node in the meantime.
+   */
+  @Transactional
+  @Modifying
+  @Query("update Job j set j.status = :status, j.message = :message, j.owner = null,"
+      + " j.leaseExpiresAt = null, j.updatedAt = :now, j.finishedAt = :now"
+      + " where j.id = :id and j.owner = :owner")
+  int finish(@Param("id") Long id, @Param("owner") String owner,
+      @Param("status") JobStatus status, @Param("message") String message,
+      @Param("now") LocalDateTime now);
+
+  /**
+   * Hands a running job of {@code owner} back to the queue, keeping its checkpoint.
+   */
+  @Transactional
+  @Modifying
+  @Query("update Job j set j.status = com.joaomps.devicemanager.model.JobStatus.PENDING,"
+      + " j.owner = null, j.leaseExpiresAt = null, j.updatedAt = :now"
+      + " where j.id = :id and j.owner = :owner"
+      + " and j.status = com.joaomps.devicemanager.model.JobStatus.RUNNING")
+  int release(@Param("id") Long id, @Param("owner") String owner,
+      @Param("now") LocalDateTime now);
+
+  /**
+   * Re-queues running jobs whose lease expired, because their node crashed or hung.
+   */
+  @Transactional
+  @Modifying
+  @Query("update Job j set j.status = com.joaomps.devicemanager.model.JobStatus.PENDING,"
+      + " j.owner = null, j.leaseExpiresAt = null, j.updatedAt = :now"
+      + " where j.status = com.joaomps.devicemanager.model.JobStatus.RUNNING"
+      + " and j.leaseExpiresAt < :now")
+  int releaseExpired(@Param("now") LocalDateTime now);
+
+  @Transactional
+  @Modifying
+  @Query("update Job j set j.cancelRequested = true where j.id = :id")
+  int requestCancel(@Param("id") Long id);
+
+  @Transactional
+  @Modifying
+  @Query("update Job j set j.status = com.joaomps.devicemanager.model.JobStatus.CANCELLED,"
+      + " j.updatedAt = :now, j.finishedAt = :now"
+      + " where j.id = :id and j.status = com.joaomps.devicemanager.model.JobStatus.PENDING")
+  int cancelPending(@Param("id") Long id, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,7 @@
+package com.joaomps.devicemanager.repository;
+
+import java.time.LocalDateTime;
+
+public record LeaseEntry(Long deviceId, LocalDateTime expiresAt) {
+
+}
@@ -0,0 +1,39 @@
+package com.joaomps.devicemanager.repository;
+
+import com.joaomps.devicemanager.model.SweepPartition;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface SweepPartitionRepository extends JpaRepository<SweepPartition, Long> {
+
+  List<SweepPartition> findByJobIdOrderByFromId(Long jobId);
+
+  @Transactional
+  @Modifying
+  @Query("update SweepPartition p set p.resumeAfter = :resumeAfter,"
+      + " p.processed = p.processed + :processed, p.done = :done, p.state = :state"
+      + " where p.id = :id")
+  int checkpoint(@Param("id") Long id, @Param("resumeAfter") long resumeAfter,
+      @Param("processed") long processed, @Param("done") boolean done,
+      @Param("state") String state);
+
+  /**
+   * Removes the partitions of jobs that will not resume: finished, failed or cancelled.
+   */
+  @Transactional
+  @Modifying
+  @Query("delete from SweepPartition p where p.jobId in (select j.id from Job j"
+      + " where j.status in (com.joaomps.devicemanager.model.JobStatus.COMPLETED,"
+      + " com.joaomps.devicemanager.model.JobStatus.FAILED,"
+      + " com.joaomps.devicemanager.model.JobStatus.CANCELLED))")
+  int deleteOfFinishedJobs();
+
+  @Transactional
+  @Modifying
+  @Query("delete from SweepPartition p where p.jobId = :jobId")
+  int deleteByJobId(@Param("jobId") Long jobId);
+}
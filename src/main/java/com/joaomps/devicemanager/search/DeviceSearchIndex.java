@@ -0,0 +1,59 @@
+package com.joaomps.devicemanager.search;
+
+import com.joaomps.devicemanager.model.Device;
+import com.joaomps.devicemanager.tenant.TenantContext;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-process trigram index over device names and brands, with one independent index per tenant
+ * so that a search only touches the posting lists of the searching tenant's devices.
+ */
+@Component
+public class DeviceSearchIndex {
+
+  private final Map<String, TenantSearchIndex> tenants = new ConcurrentHashMap<>();
+
+  public void index(Device device) {
+    if (device == null || device.getId() == null) {
+      return;
+    }
+    tenants.computeIfAbsent(TenantContext.of(device.getTenantId()),
+        tenant -> new TenantSearchIndex()).index(device);
+  }
+
+  public void remove(String tenant, long id) {
+    TenantSearchIndex index = tenants.get(tenant);
+    if (index != null) {
+      index.remove(id);
+    }
+  }
+
+  public void clear() {
+    tenants.clear();
+  }
+
+  public int size() {
+    return tenants.values().stream().mapToInt(TenantSearchIndex::size).sum();
+  }
+
+  /**
+   * Returns the best {@code limit} devices of {@code tenant} matching the query, ranked by
+   * relevance, best match first, and how many devices match in total.
+   */
+  public SearchResult search(String tenant, String query, SearchMode mode, int limit) {
+    TenantSearchIndex index = tenants.get(tenant);
+    return index == null ? SearchResult.EMPTY : index.search(query, mode, limit);
+  }
+
+  public record SearchHit(long id, double score) {
+
+  }
+
+  public record SearchResult(List<SearchHit> hits, int total) {
+
+    static final SearchResult EMPTY = new SearchResult(List.of(), 0);
+  }
+}
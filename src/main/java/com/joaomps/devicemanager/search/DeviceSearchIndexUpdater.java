@@ -0,0 +1,71 @@
+package com.joaomps.devicemanager.search;
+
+import com.joaomps.devicemanager.event.DeviceChangedEvent;
+import com.joaomps.devicemanager.model.Device;
+import com.joaomps.devicemanager.repository.DeviceRepository;
+import com.joaomps.devicemanager.tenant.TenantContext;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Builds the search index at startup and keeps it in sync with device writes, made by this node
+ * or, through the {@link com.joaomps.devicemanager.event.DeviceChangeFeed change feed}, by any
+ * other.
+ */
+@Component
+public class DeviceSearchIndexUpdater {
+
+  private static final Logger log = LoggerFactory.getLogger(DeviceSearchIndexUpdater.class);
+
+  private static final int REBUILD_PAGE_SIZE = 5_000;
+
+  private final DeviceSearchIndex searchIndex;
+  private final DeviceRepository deviceRepository;
+
+  public DeviceSearchIndexUpdater(DeviceSearchIndex searchIndex,
+      DeviceRepository deviceRepository) {
+    this.searchIndex = searchIndex;
+    this.deviceRepository = deviceRepository;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuild() {
+    try {
+      long start = System.nanoTime();
+      long afterId = 0;
+      List<Device> page;
+      do {
+        page = deviceRepository.findByIdGreaterThanOrderByIdAsc(afterId,
+            Limit.of(REBUILD_PAGE_SIZE));
+        page.forEach(searchIndex::index);
+        if (!page.isEmpty()) {
+          afterId = page.getLast().getId();
+        }
+      } while (page.size() == REBUILD_PAGE_SIZE);
+      log.info("Search index built with {} devices in {} ms", searchIndex.size(),
+          (System.nanoTime() - start) / 1_000_000);
+    } catch (DataAccessException e) {
+      log.warn("Could not build the search index: {}", e.getMessage());
+    }
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onDeviceChanged(DeviceChangedEvent event) {
+    Device device = event.device();
+    if (device == null || device.getId() == null) {
+      return;
+    }
+    if (event.type() == DeviceChangedEvent.Type.DELETED) {
+      searchIndex.remove(TenantContext.of(device.getTenantId()), device.getId());
+    } else {
+      searchIndex.index(device);
+    }
+  }
+}
@@ -0,0 +1,108 @@
+package com.joaomps.devicemanager.search;
+
+import java.util.Arrays;
+
+/**
+ * Sorted, de-duplicated list of device ids stored in a primitive array.
+ *
+ * <p>Device ids are generated in increasing order, so most insertions are appends. Keeping the
+ * ids sorted lets the index intersect lists with a linear merge instead of hashing.
+ */
+final class PostingList {
+
+  private long[] ids = new long[4];
+  private int size;
+
+  synchronized void add(long id) {
+    if (size > 0 && ids[size - 1] < id) {
+      append(id);
+      return;
+    }
+    int index = Arrays.binarySearch(ids, 0, size, id);
+    if (index >= 0) {
+      return;
+    }
+    int insertAt = -index - 1;
+    ensureCapacity();
+    System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+    ids[insertAt] = id;
+    size++;
+  }
+
+  synchronized void remove(long id) {
+    int index = Arrays.binarySearch(ids, 0, size, id);
+    if (index < 0) {
+      return;
+    }
+    System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+    size--;
+  }
+
+  synchronized int size() {
+    return size;
+  }
+
+  synchronized long[] snapshot() {
+    return Arrays.copyOf(ids, size);
+  }
+
+  /**
+   * Keeps only the ids of {@code sorted} that are also in this list.
+   */
+  synchronized long[] retainAll(long[] sorted) {
+    long[] result = new long[Math.min(sorted.length, size)];
+    int count = 0;
+    int i = 0;
+    int j = 0;
+    while (i < sorted.length && j < size) {
+      if (sorted[i] == ids[j]) {
+        result[count++] = sorted[i];
+        i++;
+        j++;
+      } else if (sorted[i] < ids[j]) {
+        i++;
+      } else {
+        j++;
+      }
+    }
+    return Arrays.copyOf(result, count);
+  }
+
+  /**
+   * Increments {@code counts[i]} for every id {@code sorted[i]} that is in this list, by binary
+   * search when {@code sorted} is much shorter than the list and by a linear merge otherwise.
+   */
+  synchronized void count(long[] sorted, int[] counts) {
+    if ((long) sorted.length * (64 - Long.numberOfLeadingZeros(size)) < size) {
+      for (int i = 0; i < sorted.length; i++) {
+        if (Arrays.binarySearch(ids, 0, size, sorted[i]) >= 0) {
+          counts[i]++;
+        }
+      }
+      return;
+    }
+    int i = 0;
+    int j = 0;
+    while (i < sorted.length && j < size) {
+      if (sorted[i] == ids[j]) {
+        counts[i++]++;
+        j++;
+      } else if (sorted[i] < ids[j]) {
+        i++;
+      } else {
+        j++;
+      }
+    }
+  }
+
+  private void append(long id) {
+    ensureCapacity();
+    ids[size++] = id;
+  }
+
+  private void ensureCapacity() {
+    if (size == ids.length) {
+      ids = Arrays.copyOf(ids, ids.length * 2);
+    }
+  }
+}
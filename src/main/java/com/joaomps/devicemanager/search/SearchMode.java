@@ -0,0 +1,16 @@
+package com.joaomps.devicemanager.search;
+
+public enum SearchMode {
+  /**
+   * Name, brand or one of their words starts with the query.
+   */
+  PREFIX,
+  /**
+   * Name or brand contains the query.
+   */
+  SUBSTRING,
+  /**
+   * Substring matches plus devices sharing most of the query trigrams, tolerating typos.
+   */
+  FUZZY
+}
@@ -0,0 +1,337 @@
+package com.joaomps.devicemanager.search;
+
+import com.joaomps.devicemanager.model.Device;
+import com.joaomps.devicemanager.search.DeviceSearchIndex.SearchHit;
+import com.joaomps.devicemanager.search.DeviceSearchIndex.SearchResult;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Trigram index over the names and brands of one tenant's devices.
+ *
+ * <p>Every field is indexed with its plain trigrams, used for substring and fuzzy matching, plus
+ * two marker grams at the start of every word, used for (word) prefix matching of queries shorter
+ * than a trigram. Candidates are found by intersecting sorted posting lists and then verified and
+ * ranked against the normalized text kept for each device. Only the best {@code limit} matches
+ * are kept while ranking, in a bounded heap, so a broad query does not sort every match.
+ */
+final class TenantSearchIndex {
+
+  static final char WORD_START = '\u0001';
+
+  /**
+   * Minimum share of the query grams a device must contain to be a fuzzy match.
+   */
+  static final double FUZZY_THRESHOLD = 0.5;
+
+  private static final Comparator<SearchHit> RANKING = Comparator
+      .comparingDouble(SearchHit::score).reversed()
+      .thenComparingLong(SearchHit::id);
+
+  private final Map<Long, IndexedDevice> documents = new ConcurrentHashMap<>();
+  private final Map<String, PostingList> postings = new ConcurrentHashMap<>();
+
+  void index(Device device) {
+    long id = device.getId();
+    IndexedDevice document = new IndexedDevice(normalize(device.getName()),
+        normalize(device.getBrand()));
+    documents.compute(id, (key, previous) -> {
+      Set<String> grams = document.grams();
+      if (previous != null) {
+        Set<String> stale = previous.grams();
+        stale.removeAll(grams);
+        stale.forEach(gram -> removePosting(gram, id));
+      }
+      grams.forEach(gram -> postings.computeIfAbsent(gram, g -> new PostingList()).add(id));
+      return document;
+    });
+  }
+
+  void remove(long id) {
+    documents.computeIfPresent(id, (key, previous) -> {
+      previous.grams().forEach(gram -> removePosting(gram, id));
+      return null;
+    });
+  }
+
+  int size() {
+    return documents.size();
+  }
+
+  /**
+   * Returns the best {@code limit} matching device ids ranked by relevance, best match first,
+   * and the number of matches.
+   */
+  SearchResult search(String query, SearchMode mode, int limit) {
+    String normalized = normalize(query);
+    if (normalized.isEmpty()) {
+      return SearchResult.EMPTY;
+    }
+
+    TopHits hits = new TopHits(limit);
+    if (mode == SearchMode.FUZZY) {
+      fuzzySearch(normalized, hits);
+    } else {
+      exactSearch(normalized, mode, hits);
+    }
+    return hits.result();
+  }
+
+  private void exactSearch(String query, SearchMode mode, TopHits hits) {
+    Set<String> required = new HashSet<>();
+    if (mode == SearchMode.PREFIX || query.length() < 3) {
+      addWordStartGrams(query, required, true);
+    }
+    addTrigrams(query, required);
+
+    for (long id : intersect(required)) {
+      IndexedDevice document = documents.get(id);
+      if (document == null) {
+        continue;
+      }
+      double score = document.score(query);
+      double minimum = mode == SearchMode.PREFIX || query.length() < 3
+          ? Scores.WORD_PREFIX_BRAND
+          : Scores.SUBSTRING_BRAND;
+      if (score >= minimum) {
+        hits.offer(id, score);
+      }
+    }
+  }
+
+  /**
+   * A device containing at least {@link #FUZZY_THRESHOLD} of the {@code n} query grams is in any
+   * {@code n - needed + 1} of their posting lists, so only the shortest that many lists are
+   * scanned for candidates, plus the shortest trigram list for substring matches. The grams of
+   * each candidate are then counted against every list.
+   */
+  private void fuzzySearch(String query, TopHits hits) {
+    Set<String> trigrams = new HashSet<>();
+    addTrigrams(query, trigrams);
+    Set<String> grams = new HashSet<>(trigrams);
+    addWordStartGrams(query, grams, true);
+
+    List<PostingList> lists = new ArrayList<>(grams.size());
+    PostingList shortestTrigrams = null;
+    boolean allTrigrams = !trigrams.isEmpty();
+    for (String gram : grams) {
+      PostingList posting = postings.get(gram);
+      boolean trigram = trigrams.contains(gram);
+      if (posting == null) {
+        allTrigrams &= !trigram;
+        continue;
+      }
+      lists.add(posting);
+      if (trigram && (shortestTrigrams == null || posting.size() < shortestTrigrams.size())) {
+        shortestTrigrams = posting;
+      }
+    }
+    lists.sort(Comparator.comparingInt(PostingList::size));
+
+    int needed = (int) Math.ceil(FUZZY_THRESHOLD * grams.size());
+    int missing = grams.size() - lists.size();
+    List<long[]> scanned = new ArrayList<>();
+    for (int i = 0; i < grams.size() - needed + 1 - missing && i < lists.size(); i++) {
+      scanned.add(lists.get(i).snapshot());
+    }
+    if (allTrigrams) {
+      scanned.add(shortestTrigrams.snapshot());
+    }
+    long[] candidates = union(scanned);
+
+    int[] counts = new int[candidates.length];
+    for (PostingList list : lists) {
+      list.count(candidates, counts);
+    }
+    for (int i = 0; i < candidates.length; i++) {
+      IndexedDevice document = documents.get(candidates[i]);
+      if (document == null) {
+        continue;
+      }
+      double similarity = (double) counts[i] / grams.size();
+      double score = document.score(query);
+      if (score > 0) {
+        hits.offer(candidates[i], score);
+      } else if (similarity >= FUZZY_THRESHOLD) {
+        hits.offer(candidates[i], Scores.FUZZY * similarity);
+      }
+    }
+  }
+
+  private static long[] union(List<long[]> lists) {
+    long[] all = new long[lists.stream().mapToInt(ids -> ids.length).sum()];
+    int offset = 0;
+    for (long[] ids : lists) {
+      System.arraycopy(ids, 0, all, offset, ids.length);
+      offset += ids.length;
+    }
+    Arrays.sort(all);
+    int size = 0;
+    for (int i = 0; i < all.length; i++) {
+      if (size == 0 || all[i] != all[size - 1]) {
+        all[size++] = all[i];
+      }
+    }
+    return Arrays.copyOf(all, size);
+  }
+
+  private long[] intersect(Set<String> grams) {
+    List<PostingList> lists = new ArrayList<>(grams.size());
+    for (String gram : grams) {
+      PostingList posting = postings.get(gram);
+      if (posting == null) {
+        return new long[0];
+      }
+      lists.add(posting);
+    }
+    if (lists.isEmpty()) {
+      return new long[0];
+    }
+
+    lists.sort(Comparator.comparingInt(PostingList::size));
+    long[] result = lists.getFirst().snapshot();
+    for (int i = 1; i < lists.size() && result.length > 0; i++) {
+      result = lists.get(i).retainAll(result);
+    }
+    return result;
+  }
+
+  private void removePosting(String gram, long id) {
+    postings.computeIfPresent(gram, (key, posting) -> {
+      posting.remove(id);
+      return posting.size() == 0 ? null : posting;
+    });
+  }
+
+  static String normalize(String text) {
+    if (text == null) {
+      return "";
+    }
+    return text.replace(WORD_START, ' ')
+        .trim()
+        .replaceAll("\\s+", " ")
+        .toLowerCase(Locale.ROOT);
+  }
+
+  private static void addTrigrams(String text, Set<String> target) {
+    for (int i = 0; i + 3 <= text.length(); i++) {
+      target.add(text.substring(i, i + 3));
+    }
+  }
+
+  /**
+   * Adds the marker grams of every word start, or only of the first word when
+   * {@code firstWordOnly} is set (used for queries).
+   */
+  private static void addWordStartGrams(String text, Set<String> target, boolean firstWordOnly) {
+    for (int i = 0; i < text.length(); i++) {
+      if (text.charAt(i) == ' ' || (i > 0 && text.charAt(i - 1) != ' ')) {
+        continue;
+      }
+      target.add("" + WORD_START + WORD_START + text.charAt(i));
+      if (i + 1 < text.length() && text.charAt(i + 1) != ' ') {
+        target.add("" + WORD_START + text.charAt(i) + text.charAt(i + 1));
+      }
+      if (firstWordOnly) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Keeps the best {@code limit} hits offered and counts all of them. The heap's head is the
+   * worst hit kept, replaced whenever a better one is offered.
+   */
+  private static final class TopHits {
+
+    private final int limit;
+    private final PriorityQueue<SearchHit> heap;
+    private int total;
+
+    private TopHits(int limit) {
+      this.limit = Math.max(0, limit);
+      this.heap = new PriorityQueue<>(Math.max(1, Math.min(this.limit, 1024)), RANKING.reversed());
+    }
+
+    void offer(long id, double score) {
+      total++;
+      if (heap.size() < limit) {
+        heap.add(new SearchHit(id, score));
+        return;
+      }
+      SearchHit worst = heap.peek();
+      if (worst != null && (score > worst.score()
+          || (score == worst.score() && id < worst.id()))) {
+        heap.poll();
+        heap.add(new SearchHit(id, score));
+      }
+    }
+
+    SearchResult result() {
+      List<SearchHit> ranked = new ArrayList<>(heap);
+      ranked.sort(RANKING);
+      return new SearchResult(ranked, total);
+    }
+  }
+
+  private static final class Scores {
+
+    static final double EXACT_NAME = 100;
+    static final double EXACT_BRAND = 90;
+    static final double PREFIX_NAME = 80;
+    static final double PREFIX_BRAND = 70;
+    static final double WORD_PREFIX_NAME = 60;
+    static final double WORD_PREFIX_BRAND = 55;
+    static final double SUBSTRING_NAME = 40;
+    static final double SUBSTRING_BRAND = 35;
+    static final double FUZZY = 30;
+
+    private Scores() {
+    }
+  }
+
+  private record IndexedDevice(String name, String brand) {
+
+    Set<String> grams() {
+      Set<String> grams = new HashSet<>();
+      for (String field : new String[]{name, brand}) {
+        addTrigrams(field, grams);
+        addWordStartGrams(field, grams, false);
+      }
+      return grams;
+    }
+
+    double score(String query) {
+      return Math.max(
+          score(name, query, Scores.EXACT_NAME, Scores.PREFIX_NAME, Scores.WORD_PREFIX_NAME,
+              Scores.SUBSTRING_NAME),
+          score(brand, query, Scores.EXACT_BRAND, Scores.PREFIX_BRAND, Scores.WORD_PREFIX_BRAND,
+              Scores.SUBSTRING_BRAND));
+    }
+
+    private static double score(String field, String query, double exact, double prefix,
+        double wordPrefix, double substring) {
+      if (field.equals(query)) {
+        return exact;
+      }
+      if (field.startsWith(query)) {
+        return prefix;
+      }
+      if (field.contains(" " + query)) {
+        return wordPrefix;
+      }
+      if (field.contains(query)) {
+        return substring;
+      }
+      return 0;
+    }
+  }
+}
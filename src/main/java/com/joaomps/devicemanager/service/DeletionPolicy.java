@@ -0,0 +1,30 @@
+package com.joaomps.devicemanager.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * How long deleted devices are kept, and can be restored, before they are purged.
+ */
+@Component
+public class DeletionPolicy {
+
+  private final Duration retention;
+
+  public DeletionPolicy(@Value("${device-manager.deletes.retention:P7D}") Duration retention) {
+    this.retention = retention;
+  }
+
+  /**
+   * Devices deleted before the returned time are past the retention window.
+   */
+  public LocalDateTime retentionCutoff(LocalDateTime now) {
+    return now.minus(retention);
+  }
+
+  public Duration getRetention() {
+    return retention;
+  }
+}
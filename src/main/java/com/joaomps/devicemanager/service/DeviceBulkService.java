@@ -0,0 +1,192 @@
+package com.joaomps.devicemanager.service;
+
+import com.joaomps.devicemanager.brand.BrandDictionary;
+import com.joaomps.devicemanager.dto.BulkChunkProgress;
+import com.joaomps.devicemanager.dto.BulkStateTransitionRequest;
+import com.joaomps.devicemanager.dto.BulkStateTransitionResult;
+import com.joaomps.devicemanager.event.DeviceChangedEvent;
+import com.joaomps.devicemanager.model.Device;
+import com.joaomps.devicemanager.model.DeviceState;
+import com.joaomps.devicemanager.repository.DeviceRepository;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Set-based state transitions over many devices.
+ *
+ * <p>Matching devices are walked in id order with keyset pagination and every chunk is applied as
+ * a single UPDATE in its own transaction, so a run can be resumed from the last reported id and
+ * never holds row locks for longer than one chunk. The chunk's rows are locked when they are read,
+ * so the UPDATE and the reported counts see the same devices.
+ *
+ * <p>Devices in use are left untouched unless the request explicitly includes them. A single
+ * update through {@link DeviceService} may still change their state, but a bulk transition would
+ * otherwise end every active lease it matches by accident.
+ */
+@Service
+public class DeviceBulkService {
+
+  private static final Logger log = LoggerFactory.getLogger(DeviceBulkService.class);
+
+  private final DeviceRepository deviceRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final ApplicationEventPublisher eventPublisher;
+  private final BrandDictionary brandDictionary;
+
+  public DeviceBulkService(DeviceRepository deviceRepository,
+      PlatformTransactionManager transactionManager, ApplicationEventPublisher eventPublisher,
+      BrandDictionary brandDictionary) {
+    this.deviceRepository = deviceRepository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.eventPublisher = eventPublisher;
+    this.brandDictionary = brandDictionary;
+  }
+
+  public BulkStateTransitionResult transitionState(BulkStateTransitionRequest request) {
+    List<BulkChunkProgress> chunks = new ArrayList<>();
+    long matched = 0;
+    long updated = 0;
+    long skippedInUse = 0;
+    long afterId = request.effectiveAfterId();
+
+    while (true) {
+      Optional<BulkChunkProgress> chunk = transitionChunk(request, afterId, chunks.size() + 1);
+      if (chunk.isEmpty()) {
+        break;
+      }
+
+      BulkChunkProgress progress = chunk.get();
+      chunks.add(progress);
+      matched += progress.matched();
+      updated += progress.updated();
+      skippedInUse += progress.skippedInUse();
+      afterId = progress.lastId();
+
+      if (progress.last()) {
+        break;
+      }
+    }
+
+    log.info("Bulk transition to {} finished: {} matched, {} updated, {} skipped in use",
+        request.targetState(), matched, updated, skippedInUse);
+    return new BulkStateTransitionResult(matched, updated, skippedInUse,
+        chunks.isEmpty() ? request.afterId() : Long.valueOf(afterId), chunks);
+  }
+
+  /**
+   * Applies the transition to the next chunk of matching devices with ids greater than
+   * {@code afterId}. Returns empty once no device is left.
+   */
+  public Optional<BulkChunkProgress> transitionChunk(BulkStateTransitionRequest request,
+      long afterId, int chunkNumber) {
+    return transitionChunk(request, afterId, chunkNumber, progress -> {
+    });
+  }
+
+  /**
+   * Like {@link #transitionChunk(BulkStateTransitionRequest, long, int)}, handing the chunk's
+   * progress to {@code onProgress} before its transaction commits.
+   */
+  public Optional<BulkChunkProgress> transitionChunk(BulkStateTransitionRequest request,
+      long afterId, int chunkNumber, Consumer<BulkChunkProgress> onProgress) {
+    return Optional.ofNullable(transactionTemplate.execute(status -> {
+      Chunk chunk = lockChunk(request, afterId);
+      if (chunk == null) {
+        return null;
+      }
+
+      DeviceState target = request.targetState();
+      boolean skipInUse = !request.includeInUse() && target != DeviceState.IN_USE;
+      List<Device> candidates = chunk.devices().stream()
+          .filter(device -> device.getState() != target)
+          .toList();
+      int updated = 0;
+      LocalDateTime now = LocalDateTime.now();
+      if (!candidates.isEmpty()) {
+        Set<DeviceState> excluded = EnumSet.of(target);
+        if (skipInUse) {
+          excluded.add(DeviceState.IN_USE);
+        }
+        updated = deviceRepository.updateStateByIds(
+            candidates.stream().map(Device::getId).toList(), target, excluded, now);
+      }
+      // The rows are locked, so every candidate the UPDATE left alone is in use.
+      int skippedInUse = skipInUse ? candidates.size() - updated : 0;
+
+      // The UPDATE bypasses the entity lifecycle and detached the loaded devices: apply the same
+      // change to them so listeners see the new state without reloading the chunk.
+      for (Device device : candidates) {
+        if (!skipInUse || device.getState() != DeviceState.IN_USE) {
+          device.setState(target);
+          device.setLeaseExpiresAt(null);
+          device.setLeaseToken(null);
+          device.setUpdatedAt(now);
+          eventPublisher.publishEvent(DeviceChangedEvent.saved(device));
+        }
+      }
+
+      BulkChunkProgress progress = new BulkChunkProgress(chunkNumber, afterId + 1,
+          chunk.lastId(), chunk.devices().size(), updated, skippedInUse, chunk.last());
+      log.debug("Bulk transition chunk {}: {}", chunkNumber, progress);
+      onProgress.accept(progress);
+      return progress;
+    }));
+  }
+
+  /**
+   * Locks the next chunk of matching devices. With an explicit id list the chunk is a window of
+   * the (already sorted) list, so the resume point advances even when none of its ids match the
+   * other filters. The brand is matched through the {@link BrandDictionary}, like brand reads.
+   */
+  private Chunk lockChunk(BulkStateTransitionRequest request, long afterId) {
+    int chunkSize = request.effectiveChunkSize();
+    List<Long> brandIds = null;
+    String brandName = null;
+    if (request.brand() != null) {
+      BrandDictionary.Filter brand = brandDictionary.filter(request.brand());
+      if (brand == null) {
+        return null;
+      }
+      brandIds = brand.ids();
+      brandName = brand.name();
+    }
+
+    if (request.ids() != null && !request.ids().isEmpty()) {
+      List<Long> sortedIds = request.ids();
+      int from = Collections.binarySearch(sortedIds, afterId);
+      from = from < 0 ? -from - 1 : from + 1;
+      if (from >= sortedIds.size()) {
+        return null;
+      }
+      int to = Math.min(from + chunkSize, sortedIds.size());
+      boolean last = to == sortedIds.size();
+      List<Long> candidates = sortedIds.subList(from, to);
+      List<Device> devices = deviceRepository.lockForBulk(candidates, brandIds, brandName,
+          request.state(), afterId, chunkSize);
+      return new Chunk(devices, candidates.getLast(), last);
+    }
+
+    List<Device> devices = deviceRepository.lockForBulk(null, brandIds, brandName,
+        request.state(), afterId, chunkSize);
+    if (devices.isEmpty()) {
+      return null;
+    }
+    return new Chunk(devices, devices.getLast().getId(), devices.size() < chunkSize);
+  }
+
+  private record Chunk(List<Device> devices, long lastId, boolean last) {
+
+  }
+}
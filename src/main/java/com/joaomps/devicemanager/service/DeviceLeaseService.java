@@ -0,0 +1,96 @@
+package com.joaomps.devicemanager.service;
+
+import com.joaomps.devicemanager.dto.DeviceLease;
+import com.joaomps.devicemanager.event.DeviceChangedEvent;
+import com.joaomps.devicemanager.exception.DeviceNotFoundException;
+import com.joaomps.devicemanager.exception.InvalidOperationException;
+import com.joaomps.devicemanager.exception.InvalidRequestException;
+import com.joaomps.devicemanager.model.Device;
+import com.joaomps.devicemanager.repository.DeviceRepository;
+import com.joaomps.devicemanager.util.Constants;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Time-bounded check-out of devices.
+ *
+ * <p>Every operation is a single conditional UPDATE, so two clients racing for the same device
+ * cannot both get it and a holder cannot renew a lease that was already reclaimed. Leases that
+ * are not renewed in time are reclaimed by {@link LeaseExpiryScheduler}.
+ */
+@Service
+@Transactional
+public class DeviceLeaseService {
+
+  private final DeviceRepository deviceRepository;
+  private final LeasePolicy leasePolicy;
+  private final ApplicationEventPublisher eventPublisher;
+
+  public DeviceLeaseService(DeviceRepository deviceRepository, LeasePolicy leasePolicy,
+      ApplicationEventPublisher eventPublisher) {
+    this.deviceRepository = deviceRepository;
+    this.leasePolicy = leasePolicy;
+    this.eventPublisher = eventPublisher;
+  }
+
+  public DeviceLease acquire(Long id, Duration ttl) {
+    validateTtl(ttl);
+    LocalDateTime now = LocalDateTime.now();
+    LocalDateTime expiresAt = now.plus(ttl);
+    String token = UUID.randomUUID().toString();
+
+    if (deviceRepository.acquireLease(id, token, expiresAt, now) == 0) {
+      findDevice(id);
+      throw new InvalidOperationException("Device is not available");
+    }
+    publishChanged(id);
+    return new DeviceLease(id, token, expiresAt);
+  }
+
+  /**
+   * Extends the lease to {@code ttl} from now. Devices put IN_USE by a regular update hold a
+   * tokenless default lease, which any caller may renew.
+   */
+  public DeviceLease renew(Long id, String token, Duration ttl) {
+    validateTtl(ttl);
+    LocalDateTime now = LocalDateTime.now();
+    LocalDateTime expiresAt = now.plus(ttl);
+
+    if (deviceRepository.renewLease(id, token, expiresAt, now) == 0) {
+      findDevice(id);
+      throw new InvalidOperationException("Lease is not held with the given token or expired");
+    }
+    publishChanged(id);
+    return new DeviceLease(id, token, expiresAt);
+  }
+
+  public void release(Long id, String token) {
+    if (deviceRepository.releaseLease(id, token, LocalDateTime.now()) == 0) {
+      findDevice(id);
+      throw new InvalidOperationException("Lease is not held with the given token");
+    }
+    publishChanged(id);
+  }
+
+  private void validateTtl(Duration ttl) {
+    if (ttl == null || !leasePolicy.isValidTtl(ttl)) {
+      throw new InvalidRequestException("Lease ttl must be between " + leasePolicy.getMinTtl()
+          + " and " + leasePolicy.getMaxTtl());
+    }
+  }
+
+  private Device findDevice(Long id) {
+    return deviceRepository.findById(id)
+        .orElseThrow(
+            () -> new DeviceNotFoundException(Constants.DEVICE_WITH_ID + id + " not found"));
+  }
+
+  private void publishChanged(Long id) {
+    // The UPDATE bypasses the entity lifecycle, reload so listeners see the new lease.
+    eventPublisher.publishEvent(DeviceChangedEvent.saved(findDevice(id)));
+  }
+}
@@ -0,0 +1,81 @@
+package com.joaomps.devicemanager.service;
+
+import com.joaomps.devicemanager.repository.DeviceRepository;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Physically removes devices deleted longer ago than the retention window.
+ *
+ * <p>Runs off-peak ({@code device-manager.purge.cron}) and deletes in small batches, each in its
+ * own short transaction with a pause in between. A batch first selects the ids of the oldest
+ * deletes, then removes those rows by id. A run stops after
+ * {@code device-manager.purge.max-batches} batches and leaves the rest for the next run.
+ */
+@Component
+public class DevicePurgeScheduler {
+
+  private static final Logger log = LoggerFactory.getLogger(DevicePurgeScheduler.class);
+
+  private final DeviceRepository deviceRepository;
+  private final DeletionPolicy deletionPolicy;
+  private final TransactionTemplate transactionTemplate;
+  private final int batchSize;
+  private final int maxBatches;
+  private final Duration batchPause;
+
+  public DevicePurgeScheduler(DeviceRepository deviceRepository, DeletionPolicy deletionPolicy,
+      PlatformTransactionManager transactionManager,
+      @Value("${device-manager.purge.batch-size:500}") int batchSize,
+      @Value("${device-manager.purge.max-batches:200}") int maxBatches,
+      @Value("${device-manager.purge.batch-pause:PT0.2S}") Duration batchPause) {
+    this.deviceRepository = deviceRepository;
+    this.deletionPolicy = deletionPolicy;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.batchSize = batchSize;
+    this.maxBatches = maxBatches;
+    this.batchPause = batchPause;
+  }
+
+  /**
+   * Returns the number of devices purged.
+   */
+  @Scheduled(cron = "${device-manager.purge.cron:0 */10 2-5 * * *}")
+  public long purge() {
+    LocalDateTime cutoff = deletionPolicy.retentionCutoff(LocalDateTime.now());
+    long purged = 0;
+    try {
+      for (int batch = 0; batch < maxBatches; batch++) {
+        List<Long> ids = deviceRepository.findIdsDeletedBefore(cutoff, batchSize);
+        if (!ids.isEmpty()) {
+          Integer deleted = transactionTemplate.execute(
+              status -> deviceRepository.purge(ids, cutoff));
+          purged += deleted == null ? 0 : deleted;
+        }
+        if (ids.size() < batchSize) {
+          break;
+        }
+        if (!batchPause.isZero()) {
+          Thread.sleep(batchPause.toMillis());
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (DataAccessException e) {
+      log.warn("Could not purge deleted devices: {}", e.getMessage());
+    }
+    if (purged > 0) {
+      log.info("Purged {} devices deleted before {}", purged, cutoff);
+    }
+    return purged;
+  }
+}
@@ -0,0 +1,48 @@
+package com.joaomps.devicemanager.service;
+
+import com.joaomps.devicemanager.dto.DeviceSearchResult;
+import com.joaomps.devicemanager.model.Device;
+import com.joaomps.devicemanager.repository.DeviceRepository;
+import com.joaomps.devicemanager.search.DeviceSearchIndex;
+import com.joaomps.devicemanager.search.DeviceSearchIndex.SearchHit;
+import com.joaomps.devicemanager.search.DeviceSearchIndex.SearchResult;
+import com.joaomps.devicemanager.search.SearchMode;
+import com.joaomps.devicemanager.tenant.TenantContext;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+@Service
+@Transactional(readOnly = true)
+public class DeviceSearchService {
+
+  private final DeviceSearchIndex searchIndex;
+  private final DeviceRepository deviceRepository;
+
+  public DeviceSearchService(DeviceSearchIndex searchIndex, DeviceRepository deviceRepository) {
+    this.searchIndex = searchIndex;
+    this.deviceRepository = deviceRepository;
+  }
+
+  /**
+   * Ranks the current tenant's matches with the in-process index, keeping only the matches up to
+   * the end of the requested page, and loads that page, in a single query, from the database.
+   */
+  public DeviceSearchResult search(String query, SearchMode mode, int page, int size) {
+    int limit = (int) Math.min((long) (page + 1) * size, Integer.MAX_VALUE);
+    SearchResult result = searchIndex.search(TenantContext.current(), query, mode, limit);
+    List<SearchHit> hits = result.hits();
+    int from = (int) Math.min((long) page * size, hits.size());
+    int to = Math.min(from + size, hits.size());
+    List<Long> ids = hits.subList(from, to).stream().map(SearchHit::id).toList();
+
+    Map<Long, Device> devices = deviceRepository.findAllById(ids).stream()
+        .collect(Collectors.toMap(Device::getId, Function.identity()));
+    List<Device> ordered = ids.stream().map(devices::get).filter(Objects::nonNull).toList();
+    return new DeviceSearchResult(ordered, result.total(), page, size);
+  }
+}
@@ -2,57 +2,213 @@ package com.joaomps.devicemanager.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.joaomps.devicemanager.brand.BrandDictionary;
+import com.joaomps.devicemanager.cache.DeviceCache;
+import com.joaomps.devicemanager.dto.CreationTimeCursor;
 import com.joaomps.devicemanager.dto.DeviceCreationRequest;
+import com.joaomps.devicemanager.dto.DeviceLookupResult;
+import com.joaomps.devicemanager.dto.DevicePage;
+import com.joaomps.devicemanager.event.DeviceChangedEvent;
 import com.joaomps.devicemanager.exception.DeviceNotFoundException;
 import com.joaomps.devicemanager.exception.InvalidOperationException;
+import com.joaomps.devicemanager.exception.InvalidRequestException;
 import com.joaomps.devicemanager.model.Device;
 import com.joaomps.devicemanager.model.DeviceState;
+import com.joaomps.devicemanager.registry.DeviceRegistry;
+import com.joaomps.devicemanager.registry.DeviceView;
 import com.joaomps.devicemanager.repository.DeviceRepository;
+import com.joaomps.devicemanager.tenant.TenantContext;
 import com.joaomps.devicemanager.util.Constants;
+import com.joaomps.devicemanager.validation.DeviceValidator;
 import jakarta.validation.Valid;
 import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
+@Transactional(readOnly = true)
 public class DeviceService {
 
+  /**
+   * Most ids sent to the database in one IN list by {@link #findAllById}.
+   */
+  static final int LOOKUP_CHUNK_SIZE = 1_000;
+
+  static final int MAX_PAGE_SIZE = 1_000;
+
   private final DeviceRepository deviceRepository;
   private final ObjectMapper objectMapper;
+  private final ApplicationEventPublisher eventPublisher;
+  private final LeasePolicy leasePolicy;
+  private final DeviceCache deviceCache;
+  private final DeletionPolicy deletionPolicy;
+  private final DeviceRegistry deviceRegistry;
+  private final BrandDictionary brandDictionary;
 
-  public DeviceService(DeviceRepository deviceRepository, ObjectMapper objectMapper) {
+  public DeviceService(DeviceRepository deviceRepository, ObjectMapper objectMapper,
+      ApplicationEventPublisher eventPublisher, LeasePolicy leasePolicy, DeviceCache deviceCache,
+      DeletionPolicy deletionPolicy, DeviceRegistry deviceRegistry,
+      BrandDictionary brandDictionary) {
     this.deviceRepository = deviceRepository;
     this.objectMapper = objectMapper;
+    this.eventPublisher = eventPublisher;
+    this.leasePolicy = leasePolicy;
+    this.deviceCache = deviceCache;
+    this.deletionPolicy = deletionPolicy;
+    this.deviceRegistry = deviceRegistry;
+    this.brandDictionary = brandDictionary;
   }
 
+  @Transactional
   public Device createDevice(@Valid DeviceCreationRequest device) {
     Device newDevice = new Device();
     newDevice.setName(device.name());
     newDevice.setBrand(device.brand());
     newDevice.setCreationTime(LocalDateTime.now());
     newDevice.setState(DeviceState.AVAILABLE);
-    return deviceRepository.save(newDevice);
+    applyBrand(newDevice);
+    return saved(deviceRepository.save(newDevice));
+  }
+
+  /**
+   * Fills {@code into} from the off-heap registry, if it is enabled and holds the device. Neither
+   * allocates nor opens a transaction, so a hit costs no connection; on a miss callers fall back
+   * to {@link #findById}.
+   */
+  @Transactional(propagation = Propagation.SUPPORTS)
+  public boolean readRegistered(Long id, DeviceView into) {
+    return deviceRegistry.isEnabled() && deviceRegistry.read(TenantContext.current(), id, into);
   }
 
   public Optional<Device> findById(Long id) {
-    return deviceRepository.findById(id);
+    String tenant = TenantContext.current();
+    Device cached = deviceCache.get(tenant, id);
+    if (cached != null) {
+      return Optional.of(cached);
+    }
+
+    long stamp = deviceCache.stamp(tenant);
+    Optional<Device> device = deviceRepository.findById(id);
+    device.ifPresent(found -> deviceCache.put(tenant, stamp, found));
+    return device;
+  }
+
+  /**
+   * Fetches many devices at once. Ids are served from the registry or the cache where possible,
+   * the rest with one IN query per {@value #LOOKUP_CHUNK_SIZE} ids.
+   */
+  public DeviceLookupResult findAllById(Collection<Long> ids) {
+    String tenant = TenantContext.current();
+    Set<Long> requested = new LinkedHashSet<>(ids);
+    Map<Long, Device> found = new HashMap<>();
+    List<Long> uncached = new ArrayList<>();
+    for (Long id : requested) {
+      Device device = deviceRegistry.isEnabled() ? deviceRegistry.get(tenant, id) : null;
+      if (device == null) {
+        device = deviceCache.get(tenant, id);
+      }
+      if (device != null) {
+        found.put(id, device);
+      } else {
+        uncached.add(id);
+      }
+    }
+
+    long stamp = deviceCache.stamp(tenant);
+    for (int from = 0; from < uncached.size(); from += LOOKUP_CHUNK_SIZE) {
+      List<Long> chunk = uncached.subList(from,
+          Math.min(from + LOOKUP_CHUNK_SIZE, uncached.size()));
+      for (Device device : deviceRepository.findAllById(chunk)) {
+        found.put(device.getId(), device);
+        deviceCache.put(tenant, stamp, device);
+      }
+    }
+
+    List<Device> devices = new ArrayList<>(found.size());
+    List<Long> missing = new ArrayList<>();
+    for (Long id : requested) {
+      Device device = found.get(id);
+      if (device != null) {
+        devices.add(device);
+      } else {
+        missing.add(id);
+      }
+    }
+    return new DeviceLookupResult(devices, missing);
   }
 
   public List<Device> findAll() {
     return deviceRepository.findAll();
   }
 
+  /**
+   * Finds the devices of a brand, matching its name ignoring case and whitespace.
+   */
   public List<Device> findByBrand(String brand) {
-    return deviceRepository.findByBrand(brand);
+    Optional<BrandDictionary.Entry> entry = brandDictionary.find(brand);
+    if (!brandDictionary.isBackfilled()) {
+      return deviceRepository.findByBrandDuringBackfill(
+          entry.map(BrandDictionary.Entry::id).orElse(null),
+          entry.map(BrandDictionary.Entry::name).orElse(brand));
+    }
+    return entry.map(found -> deviceRepository.findByBrandId(found.id())).orElse(List.of());
   }
 
   public List<Device> findByState(DeviceState state) {
     return deviceRepository.findByState(state);
   }
 
+  /**
+   * Lists the devices created in {@code [createdAfter, createdBefore)}, either bound being
+   * optional, oldest first, one page of {@code size} devices at a time.
+   */
+  public DevicePage findCreatedBetween(LocalDateTime createdAfter, LocalDateTime createdBefore,
+      String brand, DeviceState state, String cursor, int size) {
+    if (size < 1 || size > MAX_PAGE_SIZE) {
+      throw new InvalidRequestException("Size must be between 1 and " + MAX_PAGE_SIZE);
+    }
+    if (createdAfter != null && createdBefore != null && !createdAfter.isBefore(createdBefore)) {
+      throw new InvalidRequestException("createdAfter must be before createdBefore");
+    }
+
+    BrandDictionary.Filter brandFilter = null;
+    if (brand != null) {
+      brandFilter = brandDictionary.filter(brand);
+      if (brandFilter == null) {
+        return new DevicePage(List.of(), null);
+      }
+    }
+
+    CreationTimeCursor position = cursor == null ? null : CreationTimeCursor.decode(cursor);
+    List<Device> devices = deviceRepository.findCreatedBetween(createdAfter, createdBefore,
+        brandFilter == null ? null : brandFilter.ids(),
+        brandFilter == null ? null : brandFilter.name(), state,
+        position == null ? null : position.creationTime(), position == null ? 0 : position.id(),
+        size + 1);
+    if (devices.size() <= size) {
+      return new DevicePage(devices, null);
+    }
+    List<Device> page = devices.subList(0, size);
+    return new DevicePage(List.copyOf(page), CreationTimeCursor.of(page.getLast()).encode());
+  }
+
+  /**
+   * Marks the device deleted with a single-column UPDATE. The row is purged in the background once
+   * the retention window has passed, see {@link DevicePurgeScheduler}.
+   */
+  @Transactional
   public void deleteById(Long id) {
     Device device = deviceRepository.findById(id)
         .orElseThrow(
@@ -61,14 +217,89 @@ public class DeviceService {
     if (DeviceState.IN_USE == device.getState()) {
       throw new InvalidOperationException("Cannot delete a device that is in use");
     }
+    LocalDateTime now = LocalDateTime.now();
+    if (deviceRepository.softDelete(id, now) == 0) {
+      // Either put in use or deleted by another request since it was read.
+      if (!deviceRepository.existsById(id)) {
+        throw new DeviceNotFoundException(Constants.DEVICE_WITH_ID + id + " was not found");
+      }
+      throw new InvalidOperationException("Cannot delete a device that is in use");
+    }
+
+    // Detached by the update: stamped like the row, so listeners order it after earlier writes.
+    device.setDeletedAt(now);
+    device.setUpdatedAt(now);
+    eventPublisher.publishEvent(DeviceChangedEvent.deleted(device));
+  }
+
+  @Transactional
+  public Device restoreDevice(Long id) {
+    LocalDateTime now = LocalDateTime.now();
+    LocalDateTime cutoff = deletionPolicy.retentionCutoff(now);
+    int restored = TenantContext.isRoot()
+        ? deviceRepository.restoreInAnyTenant(id, cutoff, now)
+        : deviceRepository.restore(id, TenantContext.current(), cutoff, now);
+    if (restored == 0) {
+      throw new DeviceNotFoundException(Constants.DEVICE_WITH_ID + id
+          + " was not deleted within the last " + deletionPolicy.getRetention());
+    }
+
+    Device device = deviceRepository.findById(id)
+        .orElseThrow(
+            () -> new DeviceNotFoundException(Constants.DEVICE_WITH_ID + id + " not found"));
+    if (device.getBrandId() == null) {
+      // Deleted before the brand backfill, which skips deleted rows. Saved explicitly, as not
+      // every repository tracks changes to the devices it returns.
+      applyBrand(device);
+      device = deviceRepository.save(device);
+    }
+    return saved(device);
+  }
 
-    deviceRepository.delete(device);
+  /**
+   * Keeps the lease fields consistent with the state written by a regular update: leaving IN_USE
+   * ends the lease, entering IN_USE starts the default lease (if configured) and any update that
+   * keeps a device IN_USE without an explicit lease renews the default one.
+   */
+  private void applyLease(Device device, DeviceState previousState) {
+    if (device.getState() != DeviceState.IN_USE) {
+      device.setLeaseExpiresAt(null);
+      device.setLeaseToken(null);
+      return;
+    }
+
+    if (previousState != DeviceState.IN_USE) {
+      device.setLeaseToken(null);
+    }
+    if (device.getLeaseToken() == null) {
+      device.setLeaseExpiresAt(leasePolicy.defaultExpiry(LocalDateTime.now()));
+    }
+  }
+
+  /**
+   * Points the device at its brand dictionary entry and normalizes the brand name to the entry's
+   * spelling.
+   */
+  private void applyBrand(Device device) {
+    // New devices get the tenant of the request on insert; those created as root get none.
+    String tenant = device.getTenantId() != null || TenantContext.isRoot()
+        ? TenantContext.of(device.getTenantId()) : TenantContext.current();
+    BrandDictionary.Entry entry = brandDictionary.resolve(tenant, device.getBrand());
+    if (entry != null) {
+      device.setBrand(entry.name());
+      device.setBrandId(entry.id());
+    }
+  }
+
+  private Device saved(Device device) {
+    eventPublisher.publishEvent(DeviceChangedEvent.saved(device));
+    return device;
   }
 
   private static void validateImmutablePropertiesForInUseDevice(Device newDeviceDetails,
       Device existingDevice) {
     if (!existingDevice.getName().equals(newDeviceDetails.getName()) ||
-        !existingDevice.getBrand().equals(newDeviceDetails.getBrand())) {
+        !sameBrand(existingDevice.getBrand(), newDeviceDetails.getBrand())) {
       throw new InvalidOperationException(
           "Cannot update name or brand of a device that is in use");
     }
@@ -77,28 +308,43 @@ public class DeviceService {
   private static void validateImmutableFieldsForInUseDevice(Map<String, Object> updates,
       Device existingDevice) {
     if ((updates.containsKey("name") && !existingDevice.getName().equals(updates.get("name"))) ||
-        (updates.containsKey("brand") && !existingDevice.getBrand()
-            .equals(updates.get("brand")))) {
+        (updates.containsKey("brand")
+            && !sameBrand(existingDevice.getBrand(), updates.get("brand")))) {
       throw new InvalidOperationException(
           "Cannot update name or brand of a device that is in use");
     }
   }
 
+  private static boolean sameBrand(String brand, Object other) {
+    return other instanceof String otherBrand
+        && Objects.equals(BrandDictionary.normalize(brand),
+        BrandDictionary.normalize(otherBrand));
+  }
+
+  @Transactional
   public Device updateDevice(Long id, Device newDeviceDetails) {
     Device existingDevice = deviceRepository.findById(id)
         .orElseThrow(
             () -> new DeviceNotFoundException(Constants.DEVICE_WITH_ID + id + " not found"));
 
     newDeviceDetails.setId(id);
+    newDeviceDetails.setTenantId(existingDevice.getTenantId());
     newDeviceDetails.setCreationTime(existingDevice.getCreationTime());
+    newDeviceDetails.setLeaseExpiresAt(existingDevice.getLeaseExpiresAt());
+    newDeviceDetails.setLeaseToken(existingDevice.getLeaseToken());
+    // Saved over the version read here: a concurrent write in between fails the update.
+    newDeviceDetails.setVersion(existingDevice.getVersion());
 
     if (existingDevice.getState() == DeviceState.IN_USE) {
       validateImmutablePropertiesForInUseDevice(newDeviceDetails, existingDevice);
     }
+    applyLease(newDeviceDetails, existingDevice.getState());
+    applyBrand(newDeviceDetails);
 
-    return deviceRepository.save(newDeviceDetails);
+    return saved(deviceRepository.save(newDeviceDetails));
   }
 
+  @Transactional
   public Device partialUpdateDevice(Long id, Map<String, Object> updates) {
     Device existingDevice = deviceRepository.findById(id)
         .orElseThrow(
@@ -111,12 +357,16 @@ public class DeviceService {
     if (existingDevice.getState() == DeviceState.IN_USE) {
       validateImmutableFieldsForInUseDevice(updates, existingDevice);
     }
+    DeviceState previousState = existingDevice.getState();
 
     try {
       JsonNode updatesNode = objectMapper.valueToTree(updates);
       Device deviceUpdates = objectMapper.readerForUpdating(existingDevice).readValue(updatesNode);
+      DeviceValidator.check(deviceUpdates);
+      applyLease(deviceUpdates, previousState);
+      applyBrand(deviceUpdates);
 
-      return deviceRepository.save(deviceUpdates);
+      return saved(deviceRepository.save(deviceUpdates));
     } catch (IOException e) {
       throw new RuntimeException("Error processing update request", e);
     }
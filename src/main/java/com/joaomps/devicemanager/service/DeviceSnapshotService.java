@@ -0,0 +1,290 @@
+package com.joaomps.devicemanager.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.joaomps.devicemanager.dto.DeviceSnapshotDelta;
+import com.joaomps.devicemanager.event.DeviceChangedEvent;
+import com.joaomps.devicemanager.exception.SnapshotExpiredException;
+import com.joaomps.devicemanager.model.Device;
+import com.joaomps.devicemanager.repository.DeviceRepository;
+import com.joaomps.devicemanager.snapshot.DeviceSnapshot;
+import com.joaomps.devicemanager.snapshot.DeviceSnapshotWriter;
+import com.joaomps.devicemanager.tenant.TenantContext;
+import jakarta.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Maintains a {@link DeviceSnapshot} of every tenant whose devices are consumed as a whole.
+ *
+ * <p>A tenant's snapshot is built on its first request and rebuilt every
+ * {@code device-manager.snapshot.refresh-interval} if any of its devices changed, so any number
+ * of consumers polling the full inventory cost one scan per interval. Snapshots not requested for
+ * {@code device-manager.snapshot.idle-timeout} are dropped. The changes between consecutive
+ * snapshots are kept for the last {@code device-manager.snapshot.max-deltas} versions, so
+ * consumers holding a recent snapshot only fetch what changed.
+ *
+ * <p>Versions are derived from the devices themselves (see {@link DeviceSnapshotWriter}), so every
+ * node serves the same version and ETag for the same data, and a rebuild that finds nothing
+ * changed keeps the current snapshot. The files of a replaced or dropped snapshot are deleted
+ * {@code device-manager.snapshot.delete-grace} later, once responses handed to sendfile from it
+ * have started.
+ */
+@Service
+public class DeviceSnapshotService {
+
+  private static final Logger log = LoggerFactory.getLogger(DeviceSnapshotService.class);
+
+  private static final int SCAN_PAGE_SIZE = 1_000;
+
+  private final DeviceRepository deviceRepository;
+  private final ObjectWriter objectWriter;
+  private final Path directory;
+  private final Duration idleTimeout;
+  private final int maxDeltas;
+  private final Duration deleteGrace;
+  private final Map<String, TenantSnapshots> tenants = new ConcurrentHashMap<>();
+  private final Queue<Retired> retired = new ConcurrentLinkedQueue<>();
+
+  public DeviceSnapshotService(DeviceRepository deviceRepository, ObjectMapper objectMapper,
+      @Value("${device-manager.snapshot.directory:}") String directory,
+      @Value("${device-manager.snapshot.idle-timeout:PT30M}") Duration idleTimeout,
+      @Value("${device-manager.snapshot.max-deltas:30}") int maxDeltas,
+      @Value("${device-manager.snapshot.delete-grace:PT1M}") Duration deleteGrace)
+      throws IOException {
+    this.deviceRepository = deviceRepository;
+    this.objectWriter = objectMapper.writerFor(Device.class);
+    this.directory = directory.isBlank()
+        ? Files.createTempDirectory("device-snapshots")
+        : Files.createDirectories(Path.of(directory));
+    this.idleTimeout = idleTimeout;
+    this.maxDeltas = maxDeltas;
+    this.deleteGrace = deleteGrace;
+  }
+
+  /**
+   * Current snapshot of the calling tenant, built first if it has none yet.
+   */
+  public DeviceSnapshot current() {
+    TenantSnapshots snapshots = tenants.computeIfAbsent(TenantContext.current(),
+        TenantSnapshots::new);
+    snapshots.lastAccess = System.nanoTime();
+    DeviceSnapshot current = snapshots.current;
+    if (current != null) {
+      return current;
+    }
+    synchronized (snapshots) {
+      if (snapshots.current == null) {
+        rebuild(snapshots);
+      }
+      return snapshots.current;
+    }
+  }
+
+  /**
+   * Devices changed or removed between snapshot {@code version} and the current snapshot.
+   */
+  public DeviceSnapshotDelta changesSince(long version) {
+    DeviceSnapshot current = current();
+    TenantSnapshots snapshots = tenants.get(current.tenant());
+    synchronized (snapshots) {
+      current = snapshots.current;
+      if (version == current.version()) {
+        return new DeviceSnapshotDelta(version, version, List.of(), List.of());
+      }
+
+      Map<Long, Device> upserted = new LinkedHashMap<>();
+      TreeSet<Long> removed = new TreeSet<>();
+      boolean found = false;
+      for (DeviceSnapshotDelta delta : snapshots.deltas) {
+        found |= delta.fromVersion() == version;
+        if (!found) {
+          continue;
+        }
+        for (Device device : delta.upserted()) {
+          removed.remove(device.getId());
+          upserted.put(device.getId(), device);
+        }
+        for (Long id : delta.removed()) {
+          upserted.remove(id);
+          removed.add(id);
+        }
+      }
+      if (!found) {
+        throw new SnapshotExpiredException("Snapshot " + version
+            + " is unknown or too old, fetch the full snapshot instead");
+      }
+      return new DeviceSnapshotDelta(version, current.version(), new ArrayList<>(upserted.values()),
+          new ArrayList<>(removed));
+    }
+  }
+
+  /**
+   * Rebuilds the snapshots of tenants with changed devices and drops those nobody reads anymore.
+   */
+  @Scheduled(fixedDelayString = "${device-manager.snapshot.refresh-interval:PT1M}")
+  public void refresh() {
+    long now = System.nanoTime();
+    deleteRetired(now);
+    for (TenantSnapshots snapshots : tenants.values()) {
+      if (now - snapshots.lastAccess > idleTimeout.toNanos()) {
+        tenants.remove(snapshots.tenant);
+        synchronized (snapshots) {
+          retire(snapshots.current);
+        }
+        continue;
+      }
+      if (!snapshots.dirty) {
+        continue;
+      }
+      try {
+        synchronized (snapshots) {
+          rebuild(snapshots);
+        }
+      } catch (DataAccessException | UncheckedIOException e) {
+        log.warn("Could not refresh the device snapshot of tenant {}: {}", snapshots.tenant,
+            e.getMessage());
+      }
+    }
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onDeviceChanged(DeviceChangedEvent event) {
+    Device device = event.device();
+    if (device == null) {
+      return;
+    }
+    TenantSnapshots snapshots = tenants.get(TenantContext.of(device.getTenantId()));
+    if (snapshots != null) {
+      snapshots.dirty = true;
+    }
+    TenantSnapshots all = tenants.get(TenantContext.ROOT);
+    if (all != null) {
+      all.dirty = true;
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    tenants.values().forEach(snapshots -> retire(snapshots.current));
+    tenants.clear();
+    retired.forEach(entry -> entry.snapshot().delete());
+    retired.clear();
+  }
+
+  private void rebuild(TenantSnapshots snapshots) {
+    // Cleared first, a change committed during the scan marks the tenant again.
+    snapshots.dirty = false;
+    long start = System.nanoTime();
+    DeviceSnapshot previous = snapshots.current;
+
+    try (DeviceSnapshotWriter writer = new DeviceSnapshotWriter(directory, snapshots.tenant,
+        previous, objectWriter)) {
+      TenantContext.callAs(TenantContext.ROOT.equals(snapshots.tenant) ? null : snapshots.tenant,
+          () -> {
+            scan(writer);
+            return null;
+          });
+      if (previous != null && writer.version() == previous.version()) {
+        // Only fields left out of the JSON changed; the unfinished files are removed on close.
+        return;
+      }
+      DeviceSnapshot snapshot = writer.finish();
+      retire(snapshots.replace(snapshot, writer.delta(), maxDeltas));
+      log.debug("Built snapshot {} of tenant {} with {} devices in {} ms", snapshot.version(),
+          snapshots.tenant, snapshot.size(), (System.nanoTime() - start) / 1_000_000);
+    } catch (IOException e) {
+      snapshots.dirty = true;
+      throw new UncheckedIOException("Could not write the device snapshot", e);
+    } catch (RuntimeException e) {
+      snapshots.dirty = true;
+      throw e;
+    }
+  }
+
+  private void retire(DeviceSnapshot snapshot) {
+    if (snapshot != null) {
+      retired.add(new Retired(snapshot, System.nanoTime() + deleteGrace.toNanos()));
+    }
+  }
+
+  private void deleteRetired(long now) {
+    retired.removeIf(entry -> {
+      if (now - entry.deleteAfter() < 0) {
+        return false;
+      }
+      entry.snapshot().delete();
+      return true;
+    });
+  }
+
+  private void scan(DeviceSnapshotWriter writer) {
+    long afterId = 0;
+    List<Device> page;
+    do {
+      page = deviceRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(SCAN_PAGE_SIZE));
+      for (Device device : page) {
+        try {
+          writer.write(device);
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+        afterId = device.getId();
+      }
+    } while (page.size() == SCAN_PAGE_SIZE);
+  }
+
+  private record Retired(DeviceSnapshot snapshot, long deleteAfter) {
+
+  }
+
+  private static final class TenantSnapshots {
+
+    private final String tenant;
+    private final Deque<DeviceSnapshotDelta> deltas = new ArrayDeque<>();
+    private volatile DeviceSnapshot current;
+    private volatile boolean dirty;
+    private volatile long lastAccess = System.nanoTime();
+
+    private TenantSnapshots(String tenant) {
+      this.tenant = tenant;
+    }
+
+    /**
+     * Publishes {@code snapshot} and returns the one it replaced, if any.
+     */
+    private DeviceSnapshot replace(DeviceSnapshot snapshot, DeviceSnapshotDelta delta,
+        int maxDeltas) {
+      DeviceSnapshot replaced = current;
+      current = snapshot;
+      if (delta != null) {
+        deltas.addLast(delta);
+        while (deltas.size() > maxDeltas) {
+          deltas.removeFirst();
+        }
+      }
+      return replaced;
+    }
+  }
+}
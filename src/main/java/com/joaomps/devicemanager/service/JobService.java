@@ -0,0 +1,292 @@
+package com.joaomps.devicemanager.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.joaomps.devicemanager.exception.InvalidOperationException;
+import com.joaomps.devicemanager.exception.InvalidRequestException;
+import com.joaomps.devicemanager.exception.JobNotFoundException;
+import com.joaomps.devicemanager.job.JobContext;
+import com.joaomps.devicemanager.job.JobHandler;
+import com.joaomps.devicemanager.job.JobOwnershipLostException;
+import com.joaomps.devicemanager.model.Job;
+import com.joaomps.devicemanager.model.JobStatus;
+import com.joaomps.devicemanager.model.JobType;
+import com.joaomps.devicemanager.repository.JobRepository;
+import com.joaomps.devicemanager.tenant.TenantContext;
+import jakarta.annotation.PreDestroy;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Runs {@link Job}s in the background on a small, bounded pool of worker threads.
+ *
+ * <p>Jobs are persisted and claimed with a conditional UPDATE, so several nodes can share the
+ * queue. A claim is a lease of {@code device-manager.jobs.lease-ttl}, renewed by every checkpoint
+ * and every dispatch while the node runs the job. A job whose lease expired, because its node
+ * crashed or hung, is picked up again by any node from its last checkpoint; the previous owner's
+ * further checkpoints then fail and roll back. Owners are identified per process (host name and a
+ * random suffix), so a restarted node never takes a live job for its own.
+ *
+ * <p>At most {@code device-manager.jobs.max-concurrent} jobs run on a node at a time and workers
+ * pause between chunks, which keeps background work from starving interactive requests of
+ * database connections.
+ */
+@Service
+public class JobService {
+
+  private static final Logger log = LoggerFactory.getLogger(JobService.class);
+
+  private static final int MAX_MESSAGE_LENGTH = 2000;
+
+  private final JobRepository jobRepository;
+  private final Map<JobType, JobHandler> handlers = new EnumMap<>(JobType.class);
+  private final String node;
+  private final int maxConcurrent;
+  private final Duration chunkPause;
+  private final Duration leaseTtl;
+  private final ExecutorService executor;
+  private final AtomicInteger running = new AtomicInteger();
+  private volatile boolean shuttingDown;
+
+  public JobService(JobRepository jobRepository, List<JobHandler> handlers,
+      @Value("${device-manager.jobs.max-concurrent:2}") int maxConcurrent,
+      @Value("${device-manager.jobs.chunk-pause:PT0.05S}") Duration chunkPause,
+      @Value("${device-manager.jobs.lease-ttl:PT1M}") Duration leaseTtl) {
+    this.jobRepository = jobRepository;
+    handlers.forEach(handler -> this.handlers.put(handler.type(), handler));
+    this.node = nodeId();
+    this.maxConcurrent = maxConcurrent;
+    this.chunkPause = chunkPause;
+    this.leaseTtl = leaseTtl;
+    AtomicInteger threadNumber = new AtomicInteger();
+    this.executor = Executors.newFixedThreadPool(Math.max(1, maxConcurrent), runnable -> {
+      Thread thread = new Thread(runnable, "job-worker-" + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      thread.setPriority(Thread.NORM_PRIORITY - 1);
+      return thread;
+    });
+  }
+
+  public Job submit(JobType type, JsonNode parameters) {
+    JobHandler handler = handlers.get(type);
+    if (handler == null) {
+      throw new InvalidRequestException("No handler registered for job type " + type);
+    }
+
+    LocalDateTime now = LocalDateTime.now();
+    Job job = new Job();
+    job.setType(type);
+    job.setTenantId(TenantContext.isRoot() ? null : TenantContext.current());
+    job.setStatus(JobStatus.PENDING);
+    job.setParameters(handler.prepare(parameters));
+    job.setCreatedAt(now);
+    job.setUpdatedAt(now);
+    Job saved = jobRepository.save(job);
+
+    dispatch();
+    return saved;
+  }
+
+  /**
+   * Finds a job of the current tenant, or any job when running as root.
+   */
+  public Job findById(Long id) {
+    return jobRepository.findById(id)
+        .filter(job -> TenantContext.isRoot()
+            || TenantContext.current().equals(TenantContext.of(job.getTenantId())))
+        .orElseThrow(() -> new JobNotFoundException("Job with id " + id + " was not found"));
+  }
+
+  public Job cancel(Long id) {
+    Job job = findById(id);
+    if (job.getStatus().isFinished()) {
+      throw new InvalidOperationException("Cannot cancel a job that already finished");
+    }
+
+    if (jobRepository.cancelPending(id, LocalDateTime.now()) == 0) {
+      // Already running: the worker stops at its next checkpoint.
+      jobRepository.requestCancel(id);
+    }
+    return findById(id);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void resumeInterruptedJobs() {
+    dispatch();
+  }
+
+  /**
+   * Renews the leases of the jobs this node runs, re-queues jobs whose lease expired and claims
+   * pending jobs while this node has free worker slots.
+   */
+  @Scheduled(fixedDelayString = "${device-manager.jobs.dispatch-interval:PT5S}")
+  public synchronized void dispatch() {
+    if (shuttingDown) {
+      return;
+    }
+
+    try {
+      LocalDateTime now = LocalDateTime.now();
+      if (running.get() > 0) {
+        jobRepository.renewLeases(node, now.plus(leaseTtl));
+      }
+      int released = jobRepository.releaseExpired(now);
+      if (released > 0) {
+        log.info("Re-queued {} jobs whose node stopped renewing their lease", released);
+      }
+
+      int free = maxConcurrent - running.get();
+      if (free <= 0) {
+        return;
+      }
+      for (Long id : jobRepository.findIdsByStatus(JobStatus.PENDING, Limit.of(free))) {
+        LocalDateTime claimedAt = LocalDateTime.now();
+        if (jobRepository.claim(id, node, claimedAt, claimedAt.plus(leaseTtl)) == 1) {
+          running.incrementAndGet();
+          executor.execute(() -> execute(id));
+        }
+      }
+    } catch (DataAccessException e) {
+      log.warn("Could not dispatch pending jobs: {}", e.getMessage());
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    shuttingDown = true;
+    executor.shutdown();
+    if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+      log.warn("Jobs still running after 30s, they will resume from their last checkpoint");
+      executor.shutdownNow();
+    }
+  }
+
+  int runningJobs() {
+    return running.get();
+  }
+
+  String node() {
+    return node;
+  }
+
+  private static String nodeId() {
+    String host;
+    try {
+      host = InetAddress.getLocalHost().getHostName();
+    } catch (UnknownHostException e) {
+      host = "node";
+    }
+    return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+  }
+
+  private void execute(Long id) {
+    try {
+      Job job = findById(id);
+      WorkerContext context = new WorkerContext(id);
+      String summary;
+      if (job.getTenantId() != null) {
+        TenantContext.set(job.getTenantId());
+      }
+      try {
+        summary = handlers.get(job.getType()).run(job, context);
+      } finally {
+        TenantContext.clear();
+      }
+
+      if (context.cancelled) {
+        jobRepository.finish(id, node, JobStatus.CANCELLED, "Cancelled", LocalDateTime.now());
+      } else if (context.interrupted) {
+        jobRepository.release(id, node, LocalDateTime.now());
+      } else {
+        jobRepository.finish(id, node, JobStatus.COMPLETED, summary, LocalDateTime.now());
+      }
+    } catch (Exception e) {
+      if (ownershipLost(e)) {
+        log.warn("Job {} was handed to another node after its lease expired", id);
+      } else if (shuttingDown) {
+        // Most likely interrupted by shutdownNow(): another node resumes it from its checkpoint.
+        log.warn("Job {} stopped by shutdown: {}", id, e.getMessage());
+        jobRepository.release(id, node, LocalDateTime.now());
+      } else {
+        log.error("Job {} failed", id, e);
+        String message = String.valueOf(e.getMessage());
+        jobRepository.finish(id, node, JobStatus.FAILED,
+            message.length() > MAX_MESSAGE_LENGTH
+                ? message.substring(0, MAX_MESSAGE_LENGTH) : message,
+            LocalDateTime.now());
+      }
+    } finally {
+      running.decrementAndGet();
+    }
+    dispatch();
+  }
+
+  private static boolean ownershipLost(Throwable e) {
+    for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+      if (cause instanceof JobOwnershipLostException) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private final class WorkerContext implements JobContext {
+
+    private final Long jobId;
+    private volatile boolean cancelled;
+    private volatile boolean interrupted;
+
+    private WorkerContext(Long jobId) {
+      this.jobId = jobId;
+    }
+
+    @Override
+    public void checkpoint(Long resumeAfter, long processed) {
+      LocalDateTime now = LocalDateTime.now();
+      if (jobRepository.checkpoint(jobId, node, resumeAfter, processed, now,
+          now.plus(leaseTtl)) == 0) {
+        throw new JobOwnershipLostException(jobId);
+      }
+    }
+
+    @Override
+    public boolean proceed() {
+      if (shuttingDown) {
+        interrupted = true;
+        return false;
+      }
+      if (jobRepository.isCancelRequested(jobId)) {
+        cancelled = true;
+        return false;
+      }
+      if (!chunkPause.isZero()) {
+        try {
+          Thread.sleep(chunkPause);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          interrupted = true;
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
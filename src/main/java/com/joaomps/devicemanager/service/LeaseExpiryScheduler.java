@@ -0,0 +1,199 @@
+package com.joaomps.devicemanager.service;
+
+import com.joaomps.devicemanager.cluster.ClusterMembership;
+import com.joaomps.devicemanager.cluster.ShardRebalancedEvent;
+import com.joaomps.devicemanager.event.DeviceChangedEvent;
+import com.joaomps.devicemanager.model.Device;
+import com.joaomps.devicemanager.model.DeviceState;
+import com.joaomps.devicemanager.repository.DeviceRepository;
+import com.joaomps.devicemanager.repository.LeaseEntry;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Reclaims devices whose lease expired.
+ *
+ * <p>Active leases of the devices this node owns are kept in a priority queue ordered by expiry,
+ * so finding due leases costs O(log n) per lease instead of a table scan. The queue holds at most
+ * one entry per device: a renewal only records the new deadline, and when the old entry comes up
+ * it is pushed back with that deadline. Due leases are reclaimed in batches with one conditional
+ * UPDATE each, which leaves alone leases renewed or released in the meantime. An infrequent sweep
+ * over the lease expiry index catches anything the queues missed.
+ */
+@Component
+public class LeaseExpiryScheduler {
+
+  private static final Logger log = LoggerFactory.getLogger(LeaseExpiryScheduler.class);
+
+  static final int BATCH_SIZE = 1_000;
+
+  private static final int LOAD_PAGE_SIZE = 10_000;
+
+  private final DeviceRepository deviceRepository;
+  private final ClusterMembership membership;
+  private final ApplicationEventPublisher eventPublisher;
+  private final TransactionTemplate transactionTemplate;
+  private final PriorityBlockingQueue<Deadline> queue = new PriorityBlockingQueue<>(1024,
+      Comparator.comparingLong(Deadline::expiresAt));
+  private final Map<Long, Long> deadlines = new ConcurrentHashMap<>();
+
+  public LeaseExpiryScheduler(DeviceRepository deviceRepository, ClusterMembership membership,
+      ApplicationEventPublisher eventPublisher, PlatformTransactionManager transactionManager) {
+    this.deviceRepository = deviceRepository;
+    this.membership = membership;
+    this.eventPublisher = eventPublisher;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void load() {
+    try {
+      long afterId = 0;
+      List<LeaseEntry> page;
+      do {
+        page = deviceRepository.findActiveLeases(afterId, Limit.of(LOAD_PAGE_SIZE));
+        for (LeaseEntry entry : page) {
+          if (membership.isLocal(entry.deviceId())) {
+            schedule(entry.deviceId(), entry.expiresAt());
+          }
+        }
+        if (!page.isEmpty()) {
+          afterId = page.getLast().deviceId();
+        }
+      } while (page.size() == LOAD_PAGE_SIZE);
+      log.info("Tracking {} active leases", deadlines.size());
+    } catch (DataAccessException e) {
+      log.warn("Could not load active leases: {}", e.getMessage());
+    }
+  }
+
+  @EventListener
+  public void onShardRebalanced(ShardRebalancedEvent event) {
+    deadlines.clear();
+    queue.clear();
+    load();
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onDeviceChanged(DeviceChangedEvent event) {
+    Device device = event.device();
+    if (device == null || device.getId() == null) {
+      return;
+    }
+    if (event.type() == DeviceChangedEvent.Type.SAVED && device.getState() == DeviceState.IN_USE
+        && device.getLeaseExpiresAt() != null && membership.isLocal(device.getId())) {
+      schedule(device.getId(), device.getLeaseExpiresAt());
+    } else {
+      deadlines.remove(device.getId());
+    }
+  }
+
+  void schedule(long deviceId, LocalDateTime expiresAt) {
+    long deadline = toMillis(expiresAt);
+    Long previous = deadlines.put(deviceId, deadline);
+    if (previous == null || deadline < previous) {
+      queue.add(new Deadline(deviceId, deadline));
+    }
+  }
+
+  int tracked() {
+    return deadlines.size();
+  }
+
+  /**
+   * Reclaims every lease of this node that is due.
+   */
+  @Scheduled(fixedDelayString = "${device-manager.leases.expiry-interval:PT1S}")
+  public void expireDue() {
+    long now = System.currentTimeMillis();
+    List<Long> due = new ArrayList<>(BATCH_SIZE);
+    Deadline head;
+    while ((head = queue.peek()) != null && head.expiresAt() <= now) {
+      queue.poll();
+      Long current = deadlines.get(head.deviceId());
+      if (current == null) {
+        continue;
+      }
+      if (current > head.expiresAt() || !deadlines.remove(head.deviceId(), current)) {
+        // Renewed since this entry was queued.
+        queue.add(new Deadline(head.deviceId(), deadlines.getOrDefault(head.deviceId(), current)));
+        continue;
+      }
+      due.add(head.deviceId());
+      if (due.size() == BATCH_SIZE) {
+        expire(due);
+        due = new ArrayList<>(BATCH_SIZE);
+      }
+    }
+    if (!due.isEmpty()) {
+      expire(due);
+    }
+  }
+
+  /**
+   * Safety net for leases no node tracks, e.g. after a node crashed. It goes through the lease
+   * expiry index and reclaims regardless of ownership, the conditional UPDATE makes concurrent
+   * sweeps on several nodes harmless.
+   */
+  @Scheduled(initialDelayString = "${device-manager.leases.sweep-interval:PT5M}",
+      fixedDelayString = "${device-manager.leases.sweep-interval:PT5M}")
+  public void sweep() {
+    try {
+      List<Long> ids;
+      do {
+        ids = deviceRepository.findIdsWithExpiredLease(LocalDateTime.now(), Limit.of(BATCH_SIZE));
+        if (ids.isEmpty() || expire(ids) == 0) {
+          break;
+        }
+      } while (ids.size() == BATCH_SIZE);
+    } catch (DataAccessException e) {
+      log.warn("Could not sweep expired leases: {}", e.getMessage());
+    }
+  }
+
+  private int expire(List<Long> ids) {
+    try {
+      Integer expired = transactionTemplate.execute(status -> {
+        int updated = deviceRepository.expireLeases(ids, LocalDateTime.now());
+        if (updated > 0) {
+          // The UPDATE bypasses the entity lifecycle, reload so listeners see the new state.
+          deviceRepository.findAllById(ids)
+              .forEach(device -> eventPublisher.publishEvent(DeviceChangedEvent.saved(device)));
+        }
+        return updated;
+      });
+      int count = expired == null ? 0 : expired;
+      log.debug("Reclaimed {} of {} due leases", count, ids.size());
+      return count;
+    } catch (DataAccessException e) {
+      log.warn("Could not reclaim {} expired leases: {}", ids.size(), e.getMessage());
+      return 0;
+    }
+  }
+
+  private static long toMillis(LocalDateTime dateTime) {
+    return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+  }
+
+  private record Deadline(long deviceId, long expiresAt) {
+
+  }
+}
@@ -0,0 +1,48 @@
+package com.joaomps.devicemanager.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Lease durations. {@code device-manager.leases.default-ttl} puts devices marked IN_USE through a
+ * regular update under a lease too, so a client that crashes without releasing them does not
+ * keep them in use forever. It is disabled when empty.
+ */
+@Component
+public class LeasePolicy {
+
+  private final Duration defaultTtl;
+  private final Duration minTtl;
+  private final Duration maxTtl;
+
+  public LeasePolicy(
+      @Value("${device-manager.leases.default-ttl:}") Duration defaultTtl,
+      @Value("${device-manager.leases.min-ttl:PT1S}") Duration minTtl,
+      @Value("${device-manager.leases.max-ttl:PT24H}") Duration maxTtl) {
+    this.defaultTtl = defaultTtl;
+    this.minTtl = minTtl;
+    this.maxTtl = maxTtl;
+  }
+
+  /**
+   * Expiry for a device put IN_USE without an explicit lease, or {@code null} when such devices
+   * are not leased.
+   */
+  public LocalDateTime defaultExpiry(LocalDateTime now) {
+    return defaultTtl == null || defaultTtl.isZero() ? null : now.plus(defaultTtl);
+  }
+
+  public boolean isValidTtl(Duration ttl) {
+    return ttl.compareTo(minTtl) >= 0 && ttl.compareTo(maxTtl) <= 0;
+  }
+
+  public Duration getMinTtl() {
+    return minTtl;
+  }
+
+  public Duration getMaxTtl() {
+    return maxTtl;
+  }
+}
@@ -0,0 +1,106 @@
+package com.joaomps.devicemanager.snapshot;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+
+/**
+ * Immutable, serialized copy of all devices of a tenant, as a JSON array identical to
+ * {@code GET /api/v1/devices}.
+ *
+ * <p>The array is stored twice, plain and gzip-compressed, in files that are memory-mapped once
+ * and then served to every consumer without serializing or compressing again. The id and a hash of
+ * every device are kept to compute the changes to the next snapshot.
+ */
+public final class DeviceSnapshot {
+
+  private final String tenant;
+  private final long version;
+  private final LocalDateTime createdAt;
+  private final Path identityFile;
+  private final Path gzipFile;
+  private final MappedByteBuffer identity;
+  private final MappedByteBuffer gzip;
+  private final long[] ids;
+  private final long[] hashes;
+
+  DeviceSnapshot(String tenant, long version, LocalDateTime createdAt, Path identityFile,
+      Path gzipFile, long[] ids, long[] hashes) throws IOException {
+    this.tenant = tenant;
+    this.version = version;
+    this.createdAt = createdAt;
+    this.identityFile = identityFile;
+    this.gzipFile = gzipFile;
+    this.identity = map(identityFile);
+    this.gzip = map(gzipFile);
+    this.ids = ids;
+    this.hashes = hashes;
+  }
+
+  public String tenant() {
+    return tenant;
+  }
+
+  public long version() {
+    return version;
+  }
+
+  public LocalDateTime createdAt() {
+    return createdAt;
+  }
+
+  public int size() {
+    return ids.length;
+  }
+
+  public String etag() {
+    return "\"" + version + "\"";
+  }
+
+  public Path file(boolean gzipped) {
+    return gzipped ? gzipFile : identityFile;
+  }
+
+  /**
+   * Read-only view of the mapped file contents, positioned at the start.
+   */
+  public MappedByteBuffer content(boolean gzipped) {
+    return (gzipped ? gzip : identity).duplicate();
+  }
+
+  public long length(boolean gzipped) {
+    return (gzipped ? gzip : identity).capacity();
+  }
+
+  /**
+   * Hash of the serialized device, or 0 if the snapshot does not contain it.
+   */
+  long hashOf(long id) {
+    int index = Arrays.binarySearch(ids, id);
+    return index < 0 ? 0 : hashes[index];
+  }
+
+  long[] ids() {
+    return ids;
+  }
+
+  public void delete() {
+    try {
+      Files.deleteIfExists(identityFile);
+      Files.deleteIfExists(gzipFile);
+    } catch (IOException e) {
+      // Left for the next cleanup of the snapshot directory.
+    }
+  }
+
+  private static MappedByteBuffer map(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+  }
+}
@@ -0,0 +1,159 @@
+package com.joaomps.devicemanager.snapshot;
+
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.joaomps.devicemanager.dto.DeviceSnapshotDelta;
+import com.joaomps.devicemanager.model.Device;
+import com.joaomps.devicemanager.tenant.TenantContext;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams devices, in increasing id order, into the files of a new {@link DeviceSnapshot} and
+ * computes the changes from the previous one on the way.
+ *
+ * <p>The version of the snapshot is a hash of the serialized devices, so nodes reading the same
+ * devices from the shared database produce the same version and ETag whenever they build it.
+ */
+public final class DeviceSnapshotWriter implements Closeable {
+
+  private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+
+  private static final AtomicLong BUILDS = new AtomicLong(System.currentTimeMillis());
+
+  private final String tenant;
+  private final DeviceSnapshot previous;
+  private final ObjectWriter objectWriter;
+  private final Path identityFile;
+  private final Path gzipFile;
+  private final Path identityTemp;
+  private final Path gzipTemp;
+  private final OutputStream identity;
+  private final OutputStream gzip;
+  private final List<Device> upserted = new ArrayList<>();
+  private long[] ids = new long[1024];
+  private long[] hashes = new long[1024];
+  private int count;
+  private long contentHash = FNV_OFFSET;
+  private boolean finished;
+
+  public DeviceSnapshotWriter(Path directory, String tenant, DeviceSnapshot previous,
+      ObjectWriter objectWriter) throws IOException {
+    this.tenant = tenant;
+    this.previous = previous;
+    this.objectWriter = objectWriter;
+    // Unique per build, as builds of identical content share their version.
+    String name = (TenantContext.ROOT.equals(tenant) ? "_all" : tenant) + "-"
+        + BUILDS.incrementAndGet() + ".json";
+    this.identityFile = directory.resolve(name);
+    this.gzipFile = directory.resolve(name + ".gz");
+    this.identityTemp = directory.resolve(name + ".tmp");
+    this.gzipTemp = directory.resolve(name + ".gz.tmp");
+    this.identity = new BufferedOutputStream(Files.newOutputStream(identityTemp), 64 * 1024);
+    this.gzip = new GZIPOutputStream(Files.newOutputStream(gzipTemp), 64 * 1024) {
+      {
+        def.setLevel(Deflater.BEST_COMPRESSION);
+      }
+    };
+    write(new byte[]{'['});
+  }
+
+  public void write(Device device) throws IOException {
+    byte[] json = objectWriter.writeValueAsBytes(device);
+    if (count > 0) {
+      write(new byte[]{','});
+    }
+    write(json);
+
+    long id = device.getId();
+    long hash = hash(json);
+    if (count == ids.length) {
+      ids = Arrays.copyOf(ids, count * 2);
+      hashes = Arrays.copyOf(hashes, count * 2);
+    }
+    ids[count] = id;
+    hashes[count] = hash;
+    count++;
+    contentHash = (contentHash ^ hash) * FNV_PRIME;
+
+    if (previous != null && previous.hashOf(id) != hash) {
+      upserted.add(device);
+    }
+  }
+
+  /**
+   * Version of the snapshot holding the devices written so far.
+   */
+  public long version() {
+    return contentHash & Long.MAX_VALUE;
+  }
+
+  public DeviceSnapshot finish() throws IOException {
+    write(new byte[]{']'});
+    identity.close();
+    gzip.close();
+    Files.move(identityTemp, identityFile, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+    Files.move(gzipTemp, gzipFile, StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+    finished = true;
+    return new DeviceSnapshot(tenant, version(), LocalDateTime.now(), identityFile, gzipFile,
+        Arrays.copyOf(ids, count), Arrays.copyOf(hashes, count));
+  }
+
+  /**
+   * Changes since the previous snapshot, or {@code null} if there is none. Only valid after
+   * {@link #finish()}.
+   */
+  public DeviceSnapshotDelta delta() {
+    if (previous == null) {
+      return null;
+    }
+    long[] current = Arrays.copyOf(ids, count);
+    List<Long> removed = new ArrayList<>();
+    for (long id : previous.ids()) {
+      if (Arrays.binarySearch(current, id) < 0) {
+        removed.add(id);
+      }
+    }
+    return new DeviceSnapshotDelta(previous.version(), version(), List.copyOf(upserted),
+        List.copyOf(removed));
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (!finished) {
+      identity.close();
+      gzip.close();
+      Files.deleteIfExists(identityTemp);
+      Files.deleteIfExists(gzipTemp);
+    }
+  }
+
+  private void write(byte[] bytes) throws IOException {
+    identity.write(bytes);
+    gzip.write(bytes);
+  }
+
+  private static long hash(byte[] bytes) {
+    long hash = FNV_OFFSET;
+    for (byte b : bytes) {
+      hash ^= b & 0xff;
+      hash *= FNV_PRIME;
+    }
+    // 0 means "absent" in DeviceSnapshot.hashOf
+    return hash == 0 ? 1 : hash;
+  }
+}
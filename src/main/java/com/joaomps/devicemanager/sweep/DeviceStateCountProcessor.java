@@ -0,0 +1,77 @@
+package com.joaomps.devicemanager.sweep;
+
+import com.joaomps.devicemanager.model.Device;
+import com.joaomps.devicemanager.model.DeviceState;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts devices per state, and the devices in use without a lease, which nothing will ever
+ * reclaim automatically. The state of a partition is its counts, as {@code name=count} pairs.
+ */
+@Component
+public class DeviceStateCountProcessor implements DeviceSweepProcessor {
+
+  static final String UNLEASED = "IN_USE without lease";
+
+  @Override
+  public String name() {
+    return "state-counts";
+  }
+
+  @Override
+  public Sweep resume(String state) {
+    Map<String, Long> counts = parse(state);
+
+    return new Sweep() {
+      @Override
+      public void accept(Device device) {
+        if (device.getState() != null) {
+          counts.merge(device.getState().name(), 1L, Long::sum);
+        }
+        if (device.getState() == DeviceState.IN_USE && device.getLeaseExpiresAt() == null) {
+          counts.merge(UNLEASED, 1L, Long::sum);
+        }
+      }
+
+      @Override
+      public String state() {
+        return format(counts);
+      }
+    };
+  }
+
+  @Override
+  public String summary(List<String> states) {
+    Map<String, Long> counts = parse(null);
+    for (String state : states) {
+      parse(state).forEach((name, count) -> counts.merge(name, count, Long::sum));
+    }
+    return format(counts);
+  }
+
+  private static Map<String, Long> parse(String state) {
+    Map<String, Long> counts = new LinkedHashMap<>();
+    for (DeviceState deviceState : DeviceState.values()) {
+      counts.put(deviceState.name(), 0L);
+    }
+    counts.put(UNLEASED, 0L);
+    if (state != null && !state.isEmpty()) {
+      for (String pair : state.split(", ")) {
+        int separator = pair.lastIndexOf('=');
+        counts.merge(pair.substring(0, separator),
+            Long.parseLong(pair.substring(separator + 1)), Long::sum);
+      }
+    }
+    return counts;
+  }
+
+  private static String format(Map<String, Long> counts) {
+    return counts.entrySet().stream()
+        .map(entry -> entry.getKey() + "=" + entry.getValue())
+        .collect(Collectors.joining(", "));
+  }
+}
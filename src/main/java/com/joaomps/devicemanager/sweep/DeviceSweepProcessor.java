@@ -0,0 +1,47 @@
+package com.joaomps.devicemanager.sweep;
+
+import com.joaomps.devicemanager.model.Device;
+import java.util.List;
+
+/**
+ * Work applied to every device by a {@code DEVICE_SWEEP} job. Implementations are Spring beans,
+ * selected by {@link #name()} in the job parameters.
+ *
+ * <p>Sweeps only read devices: they are loaded read-only and changes made to them are discarded.
+ * Processors that need to change devices must go through {@code DeviceService}, which publishes
+ * the {@code DeviceChangedEvent} the registry and other nodes rely on.
+ *
+ * <p>The outcome is collected per partition. Its state is saved with every checkpoint of the
+ * partition, in the same transaction as the resume point, so a sweep resumed after a restart
+ * continues from exactly the devices it has counted.
+ */
+public interface DeviceSweepProcessor {
+
+  String name();
+
+  /**
+   * Starts processing a partition from the state saved at its last checkpoint, or from scratch
+   * if {@code state} is {@code null}.
+   */
+  Sweep resume(String state);
+
+  /**
+   * Short description of the outcome, stored as the job's message, from the final states of
+   * every partition.
+   */
+  String summary(List<String> states);
+
+  interface Sweep {
+
+    /**
+     * Called for every device of the partition in id order, from a single worker, inside the
+     * transaction of the slice the device was read in.
+     */
+    void accept(Device device);
+
+    /**
+     * State of the partition so far, saved when the current slice commits.
+     */
+    String state();
+  }
+}
@@ -0,0 +1,194 @@
+package com.joaomps.devicemanager.sweep;
+
+import com.joaomps.devicemanager.job.JobContext;
+import com.joaomps.devicemanager.model.Device;
+import com.joaomps.devicemanager.model.SweepPartition;
+import com.joaomps.devicemanager.repository.DeviceRepository;
+import com.joaomps.devicemanager.repository.SweepPartitionRepository;
+import com.joaomps.devicemanager.tenant.TenantContext;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Runs a {@link DeviceSweepProcessor} over every device of the job's tenant, in parallel.
+ *
+ * <p>The id range of the table is split into {@code device-manager.sweep.partitions-per-worker}
+ * partitions per worker, persisted as {@link SweepPartition}s, and the partitions are processed
+ * by a pool of {@code device-manager.sweep.parallelism} threads shared by every sweep. A worker
+ * reads its partition in slices of {@code device-manager.sweep.slice-size} devices, each streamed
+ * from a cursor in its own transaction, which also checkpoints the partition, with the state of
+ * the processor over it, and the job. An interrupted sweep therefore resumes every partition where
+ * it stopped, with the outcome it had reached there. The pool size bounds the connections a
+ * sweep holds, and the job's chunk pause throttles every worker between slices. Devices created
+ * after a sweep started may be skipped.
+ */
+@Component
+public class DeviceSweeper {
+
+  private final DeviceRepository deviceRepository;
+  private final SweepPartitionRepository partitionRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final int parallelism;
+  private final int partitionsPerWorker;
+  private final int sliceSize;
+  private final ExecutorService executor;
+
+  public DeviceSweeper(DeviceRepository deviceRepository,
+      SweepPartitionRepository partitionRepository, PlatformTransactionManager transactionManager,
+      @Value("${device-manager.sweep.parallelism:4}") int parallelism,
+      @Value("${device-manager.sweep.partitions-per-worker:4}") int partitionsPerWorker,
+      @Value("${device-manager.sweep.slice-size:1000}") int sliceSize) {
+    this.deviceRepository = deviceRepository;
+    this.partitionRepository = partitionRepository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.parallelism = Math.max(1, parallelism);
+    this.partitionsPerWorker = Math.max(1, partitionsPerWorker);
+    this.sliceSize = sliceSize;
+    AtomicInteger threadNumber = new AtomicInteger();
+    this.executor = Executors.newFixedThreadPool(this.parallelism, runnable -> {
+      Thread thread = new Thread(runnable, "sweep-worker-" + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      thread.setPriority(Thread.NORM_PRIORITY - 1);
+      return thread;
+    });
+  }
+
+  /**
+   * Sweeps the devices of the current tenant, or of every tenant when running as root, and
+   * returns the outcome over every partition, including those processed by earlier runs of the
+   * job. Returns early when the job is asked to stop; the partitions are kept so the job resumes
+   * later.
+   */
+  public Outcome sweep(Long jobId, DeviceSweepProcessor processor, JobContext context)
+      throws InterruptedException, ExecutionException {
+    partitionRepository.deleteOfFinishedJobs();
+    List<SweepPartition> partitions = partitionRepository.findByJobIdOrderByFromId(jobId);
+    if (partitions.isEmpty()) {
+      partitions = plan(jobId);
+    }
+
+    String tenant = TenantContext.isRoot() ? null : TenantContext.current();
+    AtomicBoolean stop = new AtomicBoolean();
+    // Written by the worker of each partition, read once every worker has finished.
+    String[] states = new String[partitions.size()];
+    long[] processed = new long[partitions.size()];
+    List<Future<?>> workers = new ArrayList<>();
+    for (int i = 0; i < partitions.size(); i++) {
+      SweepPartition partition = partitions.get(i);
+      states[i] = partition.getState();
+      processed[i] = partition.getProcessed();
+      if (!partition.isDone()) {
+        int index = i;
+        workers.add(executor.submit(() -> TenantContext.callAs(tenant,
+            () -> sweepPartition(partition, processor, context, stop, states, processed, index))));
+      }
+    }
+
+    ExecutionException failure = null;
+    for (Future<?> worker : workers) {
+      try {
+        worker.get();
+      } catch (ExecutionException e) {
+        stop.set(true);
+        failure = failure == null ? e : failure;
+      } catch (InterruptedException e) {
+        stop.set(true);
+        throw e;
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+    if (!stop.get()) {
+      partitionRepository.deleteByJobId(jobId);
+    }
+    return new Outcome(Arrays.stream(processed).sum(),
+        processor.summary(Arrays.asList(states)));
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private List<SweepPartition> plan(Long jobId) {
+    long minId = deviceRepository.findMinId();
+    long maxId = deviceRepository.findMaxId();
+    if (maxId == 0) {
+      return List.of();
+    }
+
+    long ids = maxId - minId + 1;
+    int count = (int) Math.min((long) parallelism * partitionsPerWorker, ids);
+    long span = (ids + count - 1) / count;
+    List<SweepPartition> partitions = new ArrayList<>(count);
+    long fromId = minId - 1;
+    while (fromId < maxId) {
+      long toId = Math.min(fromId + span, maxId);
+      partitions.add(new SweepPartition(null, jobId, fromId, toId, fromId, 0, false, null));
+      fromId = toId;
+    }
+    return partitionRepository.saveAll(partitions);
+  }
+
+  private Void sweepPartition(SweepPartition partition, DeviceSweepProcessor processor,
+      JobContext context, AtomicBoolean stop, String[] states, long[] processed, int index) {
+    long afterId = partition.getResumeAfter();
+    while (!stop.get()) {
+      long from = afterId;
+      // Restarted from the committed state, so a slice that rolls back is not counted twice.
+      DeviceSweepProcessor.Sweep sweep = processor.resume(states[index]);
+      long[] slice = transactionTemplate.execute(status -> {
+        long last = from;
+        long count = 0;
+        try (Stream<Device> devices = deviceRepository.streamRange(from, partition.getToId(),
+            Limit.of(sliceSize))) {
+          for (Device device : (Iterable<Device>) devices::iterator) {
+            sweep.accept(device);
+            last = device.getId();
+            count++;
+          }
+        }
+        boolean done = count < sliceSize;
+        long resumeAfter = done ? partition.getToId() : last;
+        partitionRepository.checkpoint(partition.getId(), resumeAfter, count, done,
+            sweep.state());
+        context.checkpoint(null, count);
+        return new long[]{resumeAfter, count};
+      });
+
+      long count = slice[1];
+      afterId = slice[0];
+      states[index] = sweep.state();
+      processed[index] += count;
+      if (count < sliceSize) {
+        break;
+      }
+      if (!context.proceed()) {
+        stop.set(true);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Devices processed by every run of a sweep, and the processor's summary of them.
+   */
+  public record Outcome(long processed, String summary) {
+
+  }
+}
@@ -0,0 +1,27 @@
+package com.joaomps.devicemanager.tenant;
+
+import org.hibernate.cfg.MultiTenancySettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+public class TenantConfig {
+
+  @Bean
+  public FilterRegistrationBean<TenantFilter> tenantFilter() {
+    FilterRegistrationBean<TenantFilter> registration = new FilterRegistrationBean<>(
+        new TenantFilter());
+    registration.addUrlPatterns("/api/*");
+    registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 5);
+    return registration;
+  }
+
+  @Bean
+  public HibernatePropertiesCustomizer tenantIdentifierResolverCustomizer() {
+    return properties -> properties.put(MultiTenancySettings.MULTI_TENANT_IDENTIFIER_RESOLVER,
+        new TenantIdentifierResolver());
+  }
+}
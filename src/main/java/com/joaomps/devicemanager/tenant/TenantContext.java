@@ -0,0 +1,76 @@
+package com.joaomps.devicemanager.tenant;
+
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Tenant of the work done by the current thread.
+ *
+ * <p>API requests always run as a concrete tenant, set by {@link TenantFilter}. Threads that never
+ * set one, such as schedulers and startup loaders, run as {@link #ROOT} and see the devices of
+ * every tenant.
+ */
+public final class TenantContext {
+
+  public static final String DEFAULT_TENANT = "default";
+  public static final String ROOT = "*";
+
+  private static final Pattern VALID_TENANT = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+  private static final ThreadLocal<String> CURRENT = new ThreadLocal<>();
+
+  private TenantContext() {
+  }
+
+  public static String current() {
+    String tenant = CURRENT.get();
+    return tenant == null ? ROOT : tenant;
+  }
+
+  public static boolean isRoot() {
+    return CURRENT.get() == null;
+  }
+
+  public static void set(String tenant) {
+    if (!isValid(tenant)) {
+      throw new IllegalArgumentException("Invalid tenant id: " + tenant);
+    }
+    CURRENT.set(tenant);
+  }
+
+  public static void clear() {
+    CURRENT.remove();
+  }
+
+  public static boolean isValid(String tenant) {
+    return tenant != null && VALID_TENANT.matcher(tenant).matches();
+  }
+
+  /**
+   * Runs {@code action} as {@code tenant}, or as root if it is {@code null}, restoring the previous
+   * tenant afterwards.
+   */
+  public static <T> T callAs(String tenant, Supplier<T> action) {
+    String previous = CURRENT.get();
+    if (tenant == null) {
+      CURRENT.remove();
+    } else {
+      set(tenant);
+    }
+    try {
+      return action.get();
+    } finally {
+      if (previous == null) {
+        CURRENT.remove();
+      } else {
+        CURRENT.set(previous);
+      }
+    }
+  }
+
+  /**
+   * Tenant a stored device belongs to. Devices written before tenants existed have none.
+   */
+  public static String of(String tenantId) {
+    return tenantId == null ? DEFAULT_TENANT : tenantId;
+  }
+}
@@ -0,0 +1,42 @@
+package com.joaomps.devicemanager.tenant;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Binds every API request to the tenant named by the {@code X-Tenant-Id} header, or to the
+ * default tenant when it is missing.
+ */
+public class TenantFilter extends OncePerRequestFilter {
+
+  public static final String TENANT_HEADER = "X-Tenant-Id";
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+      FilterChain filterChain) throws ServletException, IOException {
+    String tenant = request.getHeader(TENANT_HEADER);
+    if (tenant == null || tenant.isBlank()) {
+      tenant = TenantContext.DEFAULT_TENANT;
+    }
+    if (!TenantContext.isValid(tenant)) {
+      response.setStatus(HttpStatus.BAD_REQUEST.value());
+      response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+      response.getWriter().write("{\"" + TENANT_HEADER
+          + "\":\"Must be 1 to 64 letters, digits, '-' or '_'\"}");
+      return;
+    }
+
+    TenantContext.set(tenant);
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      TenantContext.clear();
+    }
+  }
+}
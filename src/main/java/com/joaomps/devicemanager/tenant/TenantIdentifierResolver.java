@@ -0,0 +1,25 @@
+package com.joaomps.devicemanager.tenant;
+
+import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
+
+/**
+ * Hands the tenant of the current thread to Hibernate, which adds it to every query on
+ * tenant-scoped entities and stamps it on every insert.
+ */
+public class TenantIdentifierResolver implements CurrentTenantIdentifierResolver<String> {
+
+  @Override
+  public String resolveCurrentTenantIdentifier() {
+    return TenantContext.current();
+  }
+
+  @Override
+  public boolean validateExistingCurrentSessions() {
+    return false;
+  }
+
+  @Override
+  public boolean isRoot(String tenantId) {
+    return TenantContext.ROOT.equals(tenantId);
+  }
+}
@@ -0,0 +1,35 @@
+package com.joaomps.devicemanager.tracing;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Keeps the most recent traces in memory, for tests and local debugging
+ * ({@code device-manager.tracing.exporter=memory}).
+ */
+public class InMemorySpanExporter implements SpanExporter {
+
+  private final int capacity;
+  private final Deque<Trace> traces = new ArrayDeque<>();
+
+  public InMemorySpanExporter(int capacity) {
+    this.capacity = capacity;
+  }
+
+  @Override
+  public synchronized void export(Trace trace) {
+    if (traces.size() == capacity) {
+      traces.removeFirst();
+    }
+    traces.addLast(trace);
+  }
+
+  public synchronized List<Trace> traces() {
+    return List.copyOf(traces);
+  }
+
+  public synchronized void clear() {
+    traces.clear();
+  }
+}
@@ -0,0 +1,32 @@
+package com.joaomps.devicemanager.tracing;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Writes every trace as a single JSON line to the {@code device-manager.tracing} logger.
+ */
+public class LoggingSpanExporter implements SpanExporter {
+
+  private static final Logger log = LoggerFactory.getLogger("device-manager.tracing");
+
+  private final ObjectMapper objectMapper;
+
+  public LoggingSpanExporter(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+  }
+
+  @Override
+  public void export(Trace trace) {
+    if (!log.isInfoEnabled()) {
+      return;
+    }
+    try {
+      log.info(objectMapper.writeValueAsString(trace));
+    } catch (JsonProcessingException e) {
+      log.warn("Could not serialize trace {}: {}", trace.traceId(), e.getOriginalMessage());
+    }
+  }
+}
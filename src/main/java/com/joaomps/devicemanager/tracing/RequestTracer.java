@@ -0,0 +1,279 @@
+package com.joaomps.devicemanager.tracing;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records spans of the request handled by the current thread.
+ *
+ * <p>Whether a request is traced is decided once when it starts (head-based sampling): a share of
+ * {@code device-manager.tracing.sample-rate} of the requests, plus requests whose W3C
+ * {@code traceparent} header has the sampled flag. Unsampled requests cost a single random draw
+ * and every span call is a thread-local lookup.
+ *
+ * <p>Slow-request capture is off unless {@code device-manager.tracing.slow-threshold} is set.
+ * Then every other request is recorded too, into a buffer reused by the thread, and only exported
+ * when it took longer than the threshold. Those requests only get the spans of the traced
+ * methods: SQL statements are timed for sampled requests alone (see {@link #isSampled()}).
+ */
+@Component
+public class RequestTracer {
+
+  public static final int NO_SPAN = -1;
+  public static final int ROOT_SPAN = 0;
+
+  private static final Pattern TRACEPARENT =
+      Pattern.compile("^00-([0-9a-f]{32})-([0-9a-f]{16})-([0-9a-f]{2})$");
+
+  private final double sampleRate;
+  private final long slowThresholdNanos;
+  private final int maxSpans;
+  private final SpanExporter exporter;
+  private final ThreadLocal<ActiveTrace> current = new ThreadLocal<>();
+  private final ThreadLocal<ActiveTrace> buffers = new ThreadLocal<>();
+
+  public RequestTracer(
+      @Value("${device-manager.tracing.sample-rate:0.01}") double sampleRate,
+      @Value("${device-manager.tracing.slow-threshold:}") Duration slowThreshold,
+      @Value("${device-manager.tracing.max-spans:256}") int maxSpans,
+      SpanExporter exporter) {
+    this.sampleRate = sampleRate;
+    this.slowThresholdNanos = slowThreshold == null ? 0 : slowThreshold.toNanos();
+    this.maxSpans = maxSpans;
+    this.exporter = exporter;
+  }
+
+  /**
+   * Starts a trace for the current thread, continuing the one described by {@code traceparent}
+   * if given. Returns whether the request is being recorded.
+   */
+  public boolean begin(String traceparent) {
+    String traceId = null;
+    String parentSpanId = null;
+    boolean sampled = false;
+    if (traceparent != null) {
+      Matcher matcher = TRACEPARENT.matcher(traceparent);
+      if (matcher.matches()) {
+        traceId = matcher.group(1);
+        parentSpanId = matcher.group(2);
+        sampled = (HexFormat.fromHexDigits(matcher.group(3)) & 1) == 1;
+      }
+    }
+    sampled = sampled || ThreadLocalRandom.current().nextDouble() < sampleRate;
+    if (!sampled && slowThresholdNanos <= 0) {
+      return false;
+    }
+
+    ActiveTrace trace = buffers.get();
+    if (trace == null) {
+      trace = new ActiveTrace();
+      buffers.set(trace);
+    }
+    trace.reset(sampled, sampled && traceId == null ? newId(16) : traceId, parentSpanId);
+    trace.start("request", System.nanoTime(), maxSpans);
+    current.set(trace);
+    return true;
+  }
+
+  public boolean isRecording() {
+    return current.get() != null;
+  }
+
+  /**
+   * Whether the current request was picked by sampling, as opposed to only being recorded in case
+   * it turns out slow.
+   */
+  public boolean isSampled() {
+    ActiveTrace trace = current.get();
+    return trace != null && trace.sampled;
+  }
+
+  /**
+   * Trace id of the current request if it was sampled, for correlation in responses and logs.
+   */
+  public String currentTraceId() {
+    ActiveTrace trace = current.get();
+    return trace == null || !trace.sampled ? null : trace.traceId;
+  }
+
+  /**
+   * Opens a child of the innermost open span. Returns {@link #NO_SPAN} when the request is not
+   * recorded, which every other method accepts and ignores.
+   */
+  public int startSpan(String name) {
+    ActiveTrace trace = current.get();
+    return trace == null ? NO_SPAN : trace.start(name, System.nanoTime(), maxSpans);
+  }
+
+  public void endSpan(int span) {
+    ActiveTrace trace = current.get();
+    if (trace != null && span >= 0) {
+      trace.end(span, System.nanoTime());
+    }
+  }
+
+  public void attribute(int span, String key, Object value) {
+    ActiveTrace trace = current.get();
+    if (trace != null && span >= 0 && span < trace.size) {
+      trace.attribute(span, key, value);
+    }
+  }
+
+  /**
+   * Ends the trace of the current thread and exports it if it was sampled or slow.
+   */
+  public void finish(String name) {
+    ActiveTrace trace = current.get();
+    if (trace == null) {
+      return;
+    }
+    current.remove();
+
+    long end = System.nanoTime();
+    trace.names[ROOT_SPAN] = name;
+    trace.endAll(end);
+    long duration = end - trace.starts[ROOT_SPAN];
+    boolean slow = slowThresholdNanos > 0 && duration >= slowThresholdNanos;
+    if (trace.sampled || slow) {
+      exporter.export(trace.toTrace(slow));
+    }
+  }
+
+  private static String newId(int bytes) {
+    byte[] id = new byte[bytes];
+    ThreadLocalRandom.current().nextBytes(id);
+    return HexFormat.of().formatHex(id);
+  }
+
+  /**
+   * Spans of one request in parallel arrays, reused across the requests of a thread.
+   */
+  private static final class ActiveTrace {
+
+    private boolean sampled;
+    private String traceId;
+    private String parentSpanId;
+    private String[] names = new String[16];
+    private long[] starts = new long[16];
+    private long[] ends = new long[16];
+    private int[] parents = new int[16];
+    private List<Object>[] attributes = newAttributes(16);
+    private int size;
+    private int open;
+    private int dropped;
+
+    void reset(boolean sampled, String traceId, String parentSpanId) {
+      this.sampled = sampled;
+      this.traceId = traceId;
+      this.parentSpanId = parentSpanId;
+      Arrays.fill(names, 0, size, null);
+      for (int i = 0; i < size; i++) {
+        if (attributes[i] != null) {
+          attributes[i].clear();
+        }
+      }
+      size = 0;
+      open = NO_SPAN;
+      dropped = 0;
+    }
+
+    int start(String name, long now, int maxSpans) {
+      if (size == maxSpans) {
+        dropped++;
+        return NO_SPAN;
+      }
+      if (size == names.length) {
+        grow();
+      }
+      names[size] = name;
+      starts[size] = now;
+      ends[size] = -1;
+      parents[size] = open;
+      open = size;
+      return size++;
+    }
+
+    void end(int span, long now) {
+      if (ends[span] >= 0) {
+        return;
+      }
+      // Also closes children left open, e.g. when an exception skipped their end.
+      for (int i = size - 1; i >= span; i--) {
+        if (ends[i] < 0) {
+          ends[i] = now;
+        }
+      }
+      open = parents[span];
+    }
+
+    void endAll(long now) {
+      if (size > 0) {
+        end(ROOT_SPAN, now);
+      }
+    }
+
+    void attribute(int span, String key, Object value) {
+      if (attributes[span] == null) {
+        attributes[span] = new ArrayList<>(4);
+      }
+      attributes[span].add(key);
+      attributes[span].add(value);
+    }
+
+    Trace toTrace(boolean slow) {
+      String id = traceId == null ? newId(16) : traceId;
+      long base = ThreadLocalRandom.current().nextLong() & 0x7fff_ffff_ffff_0000L;
+      long[] childTime = new long[size];
+      for (int i = 1; i < size; i++) {
+        if (parents[i] >= 0) {
+          childTime[parents[i]] += ends[i] - starts[i];
+        }
+      }
+
+      List<Span> spans = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        Map<String, Object> spanAttributes = new LinkedHashMap<>();
+        List<Object> pairs = attributes[i];
+        if (pairs != null) {
+          for (int j = 0; j + 1 < pairs.size(); j += 2) {
+            spanAttributes.put((String) pairs.get(j), pairs.get(j + 1));
+          }
+        }
+        long duration = ends[i] - starts[i];
+        spans.add(new Span(spanId(base, i), parents[i] < 0 ? parentSpanId
+            : spanId(base, parents[i]), names[i], (starts[i] - starts[ROOT_SPAN]) / 1_000,
+            duration / 1_000, Math.max(0, duration - childTime[i]) / 1_000, spanAttributes));
+      }
+      return new Trace(id, names[ROOT_SPAN], sampled, slow,
+          (ends[ROOT_SPAN] - starts[ROOT_SPAN]) / 1_000, dropped, spans);
+    }
+
+    private void grow() {
+      int capacity = names.length * 2;
+      names = Arrays.copyOf(names, capacity);
+      starts = Arrays.copyOf(starts, capacity);
+      ends = Arrays.copyOf(ends, capacity);
+      parents = Arrays.copyOf(parents, capacity);
+      attributes = Arrays.copyOf(attributes, capacity);
+    }
+
+    private static String spanId(long base, int index) {
+      return HexFormat.of().toHexDigits(base + index);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object>[] newAttributes(int capacity) {
+      return new List[capacity];
+    }
+  }
+}
@@ -0,0 +1,12 @@
+package com.joaomps.devicemanager.tracing;
+
+import java.util.Map;
+
+/**
+ * A finished span. Offsets and durations are in microseconds relative to the start of the trace;
+ * {@code selfMicros} is the part of the duration not covered by child spans.
+ */
+public record Span(String spanId, String parentSpanId, String name, long startMicros,
+                   long durationMicros, long selfMicros, Map<String, Object> attributes) {
+
+}
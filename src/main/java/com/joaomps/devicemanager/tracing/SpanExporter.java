@@ -0,0 +1,10 @@
+package com.joaomps.devicemanager.tracing;
+
+/**
+ * Receives finished traces. Called on the request thread, so implementations must be cheap or
+ * hand the trace off.
+ */
+public interface SpanExporter {
+
+  void export(Trace trace);
+}
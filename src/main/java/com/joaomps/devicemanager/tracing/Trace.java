@@ -0,0 +1,12 @@
+package com.joaomps.devicemanager.tracing;
+
+import java.util.List;
+
+/**
+ * A finished request trace. {@code sampled} tells whether the request was picked by head-based
+ * sampling; unsampled traces are only exported when they were slower than the slow threshold.
+ */
+public record Trace(String traceId, String name, boolean sampled, boolean slow,
+                    long durationMicros, int droppedSpans, List<Span> spans) {
+
+}
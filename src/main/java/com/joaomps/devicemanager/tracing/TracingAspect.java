@@ -0,0 +1,92 @@
+package com.joaomps.devicemanager.tracing;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.stereotype.Component;
+
+/**
+ * Opens a span around every controller, service and repository call of a recorded request.
+ *
+ * <p>After a controller returns, a {@code render response} span stays open until the trace ends,
+ * so the time spent serializing the response body shows up separately. Time spent inside a
+ * service but outside its repository calls, such as merging a partial update, appears as the
+ * service span's self time.
+ */
+@Aspect
+@Component
+public class TracingAspect {
+
+  private final RequestTracer tracer;
+  private final Map<String, String> spanNames = new ConcurrentHashMap<>();
+
+  public TracingAspect(RequestTracer tracer) {
+    this.tracer = tracer;
+  }
+
+  @Around("within(com.joaomps.devicemanager.controller..*)"
+      + " && @within(org.springframework.web.bind.annotation.RestController)")
+  public Object traceController(ProceedingJoinPoint joinPoint) throws Throwable {
+    if (!tracer.isRecording()) {
+      return joinPoint.proceed();
+    }
+    Object result = trace(joinPoint, "controller");
+    tracer.startSpan("render response");
+    return result;
+  }
+
+  @Around("within(com.joaomps.devicemanager.service..*)"
+      + " && @within(org.springframework.stereotype.Service)")
+  public Object traceService(ProceedingJoinPoint joinPoint) throws Throwable {
+    if (!tracer.isRecording()) {
+      return joinPoint.proceed();
+    }
+    return trace(joinPoint, "service");
+  }
+
+  @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+  public Object traceRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+    if (!tracer.isRecording()) {
+      return joinPoint.proceed();
+    }
+    return trace(joinPoint, "repository");
+  }
+
+  private Object trace(ProceedingJoinPoint joinPoint, String layer) throws Throwable {
+    int span = tracer.startSpan(spanName(joinPoint));
+    tracer.attribute(span, "layer", layer);
+    try {
+      return joinPoint.proceed();
+    } catch (Throwable e) {
+      tracer.attribute(span, "error", e.getClass().getSimpleName());
+      throw e;
+    } finally {
+      tracer.endSpan(span);
+    }
+  }
+
+  /**
+   * {@code Type.method}, where the type is the repository interface rather than the Spring Data
+   * base interface declaring an inherited method such as {@code findById}.
+   */
+  private String spanName(ProceedingJoinPoint joinPoint) {
+    MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+    Object proxy = joinPoint.getThis();
+    Class<?> type = AopUtils.getTargetClass(proxy);
+    // Repository proxies implement the application's repository interface directly.
+    for (Class<?> candidate : proxy.getClass().getInterfaces()) {
+      if (candidate.getPackageName().startsWith("com.joaomps.devicemanager")) {
+        type = candidate;
+        break;
+      }
+    }
+    String key = type.getName() + '#' + signature.getMethod().getName();
+    Class<?> owner = type;
+    return spanNames.computeIfAbsent(key,
+        k -> owner.getSimpleName() + "." + signature.getMethod().getName());
+  }
+}
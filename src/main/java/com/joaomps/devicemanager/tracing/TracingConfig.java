@@ -0,0 +1,52 @@
+package com.joaomps.devicemanager.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+@Configuration
+public class TracingConfig {
+
+  @Bean
+  public FilterRegistrationBean<TracingFilter> tracingFilter(RequestTracer tracer) {
+    FilterRegistrationBean<TracingFilter> registration = new FilterRegistrationBean<>(
+        new TracingFilter(tracer));
+    registration.addUrlPatterns("/api/*");
+    // Ahead of shard routing, so the time spent forwarding to the owner is traced as well.
+    registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+    return registration;
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "device-manager.tracing.exporter", havingValue = "log",
+      matchIfMissing = true)
+  public SpanExporter loggingSpanExporter(ObjectMapper objectMapper) {
+    return new LoggingSpanExporter(objectMapper);
+  }
+
+  @Bean
+  @ConditionalOnProperty(name = "device-manager.tracing.exporter", havingValue = "memory")
+  public InMemorySpanExporter inMemorySpanExporter() {
+    return new InMemorySpanExporter(1_000);
+  }
+
+  @Bean
+  public static BeanPostProcessor tracingDataSourcePostProcessor(
+      ObjectProvider<RequestTracer> tracer) {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof TracingDataSource)) {
+          return new TracingDataSource(dataSource, tracer);
+        }
+        return bean;
+      }
+    };
+  }
+}
@@ -0,0 +1,155 @@
+package com.joaomps.devicemanager.tracing;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * Times every JDBC statement executed by a recorded request and attaches the SQL and the number
+ * of rows read or written to its span.
+ *
+ * <p>Only sampled requests get the proxies. Connections handed out to any other request,
+ * including one recorded in case it turns out slow, are returned unwrapped, so the reflective
+ * calls stay off the path of the requests that are not sampled.
+ */
+public class TracingDataSource extends DelegatingDataSource {
+
+  private final ObjectProvider<RequestTracer> tracerProvider;
+  private volatile RequestTracer tracer;
+
+  public TracingDataSource(DataSource target, ObjectProvider<RequestTracer> tracerProvider) {
+    super(target);
+    this.tracerProvider = tracerProvider;
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    return wrap(super.getConnection());
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    return wrap(super.getConnection(username, password));
+  }
+
+  private Connection wrap(Connection connection) {
+    RequestTracer requestTracer = tracer();
+    if (requestTracer == null || !requestTracer.isSampled()) {
+      return connection;
+    }
+    return (Connection) proxy(Connection.class, connection, (target, method, args) -> {
+      Object result = invoke(target, method, args);
+      if (result instanceof Statement statement && requestTracer.isSampled()) {
+        String sql = args != null && args.length > 0 && args[0] instanceof String s ? s : null;
+        return wrap(statement, sql, requestTracer);
+      }
+      return result;
+    });
+  }
+
+  private static Statement wrap(Statement statement, String preparedSql, RequestTracer tracer) {
+    Class<? extends Statement> type = statement instanceof CallableStatement
+        ? CallableStatement.class
+        : statement instanceof PreparedStatement ? PreparedStatement.class : Statement.class;
+    return (Statement) proxy(type, statement, (target, method, args) -> {
+      if (!method.getName().startsWith("execute")) {
+        return invoke(target, method, args);
+      }
+
+      int span = tracer.startSpan("sql " + method.getName());
+      tracer.attribute(span, "db.statement",
+          args != null && args.length > 0 && args[0] instanceof String sql ? sql : preparedSql);
+      try {
+        Object result = invoke(target, method, args);
+        if (result instanceof ResultSet resultSet) {
+          return countingResultSet(resultSet, span, tracer);
+        }
+        if (result instanceof Number rows) {
+          tracer.attribute(span, "db.rows", rows.longValue());
+        } else if (result instanceof int[] batch) {
+          long rows = 0;
+          for (int count : batch) {
+            rows += Math.max(0, count);
+          }
+          tracer.attribute(span, "db.rows", rows);
+          tracer.attribute(span, "db.batch", batch.length);
+        }
+        return result;
+      } catch (SQLException e) {
+        tracer.attribute(span, "error", e.getSQLState());
+        throw e;
+      } finally {
+        tracer.endSpan(span);
+      }
+    });
+  }
+
+  private static ResultSet countingResultSet(ResultSet resultSet, int span, RequestTracer tracer) {
+    long[] rows = new long[1];
+    return (ResultSet) proxy(ResultSet.class, resultSet, (target, method, args) -> {
+      Object result = invoke(target, method, args);
+      if ("next".equals(method.getName()) && Boolean.TRUE.equals(result)) {
+        rows[0]++;
+      } else if ("close".equals(method.getName())) {
+        tracer.attribute(span, "db.rows", rows[0]);
+      }
+      return result;
+    });
+  }
+
+  private RequestTracer tracer() {
+    RequestTracer requestTracer = tracer;
+    if (requestTracer == null) {
+      requestTracer = tracerProvider.getIfAvailable();
+      tracer = requestTracer;
+    }
+    return requestTracer;
+  }
+
+  private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+    try {
+      return method.invoke(target, args);
+    } catch (InvocationTargetException e) {
+      throw e.getTargetException();
+    }
+  }
+
+  private static Object proxy(Class<?> type, Object target, TargetHandler handler) {
+    InvocationHandler invocationHandler = (proxy, method, args) -> {
+      switch (method.getName()) {
+        case "equals" -> {
+          return proxy == args[0];
+        }
+        case "hashCode" -> {
+          return System.identityHashCode(proxy);
+        }
+        case "unwrap" -> {
+          if (args[0] == type) {
+            return proxy;
+          }
+        }
+        default -> {
+        }
+      }
+      return handler.invoke(target, method, args);
+    };
+    return Proxy.newProxyInstance(TracingDataSource.class.getClassLoader(),
+        new Class<?>[]{type}, invocationHandler);
+  }
+
+  @FunctionalInterface
+  private interface TargetHandler {
+
+    Object invoke(Object target, Method method, Object[] args) throws Throwable;
+  }
+}
@@ -0,0 +1,48 @@
+package com.joaomps.devicemanager.tracing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Opens the root span of every API request and finishes the trace once the response is written.
+ */
+public class TracingFilter extends OncePerRequestFilter {
+
+  public static final String TRACEPARENT_HEADER = "traceparent";
+  public static final String TRACE_ID_HEADER = "X-Trace-Id";
+
+  private final RequestTracer tracer;
+
+  public TracingFilter(RequestTracer tracer) {
+    this.tracer = tracer;
+  }
+
+  @Override
+  protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+      FilterChain filterChain) throws ServletException, IOException {
+    if (!tracer.begin(request.getHeader(TRACEPARENT_HEADER))) {
+      filterChain.doFilter(request, response);
+      return;
+    }
+
+    String traceId = tracer.currentTraceId();
+    if (traceId != null) {
+      response.setHeader(TRACE_ID_HEADER, traceId);
+    }
+    try {
+      filterChain.doFilter(request, response);
+    } finally {
+      Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+      String route = pattern != null ? pattern.toString() : request.getRequestURI();
+      tracer.attribute(RequestTracer.ROOT_SPAN, "http.method", request.getMethod());
+      tracer.attribute(RequestTracer.ROOT_SPAN, "http.route", route);
+      tracer.attribute(RequestTracer.ROOT_SPAN, "http.status", response.getStatus());
+      tracer.finish(request.getMethod() + " " + route);
+    }
+  }
+}
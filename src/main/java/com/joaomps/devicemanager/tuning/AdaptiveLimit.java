@@ -0,0 +1,99 @@
+package com.joaomps.devicemanager.tuning;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Additive-increase, multiplicative-decrease limit on the number of concurrent database
+ * connections.
+ *
+ * <p>The limit grows by one while callers queue for connections. It shrinks by {@code backoff}
+ * when callers queue and, at the same time, the time a connection is held is more than
+ * {@code tolerance} above the lowest value seen in the last {@code window} samples: at that point
+ * the database itself is the bottleneck and extra connections only add to its queue. A longer
+ * hold time without anyone waiting, e.g. slower requests or a GC pause, is not congestion and
+ * leaves the limit alone. A limit far above the concurrency actually used is slowly lowered.
+ * Because {@code backoff * (1 + tolerance)} is below one, the limit keeps probing below the point
+ * where latency starts to climb, so the baseline is re-learned when the query mix changes.
+ */
+public final class AdaptiveLimit {
+
+  public enum Decision {
+    INCREASE, DECREASE, SHRINK, HOLD
+  }
+
+  private final int min;
+  private final int max;
+  private final double tolerance;
+  private final double backoff;
+  private final double waitTargetMillis;
+  private final int window;
+  private final Deque<Double> latencies = new ArrayDeque<>();
+  private int limit;
+  private double baselineMillis;
+
+  public AdaptiveLimit(int min, int max, int initial, double tolerance, double backoff,
+      Duration waitTarget, int window) {
+    if (min < 1 || max < min) {
+      throw new IllegalArgumentException("Invalid limit bounds [" + min + ", " + max + "]");
+    }
+    if (backoff <= 0 || backoff >= 1 || tolerance <= 0) {
+      throw new IllegalArgumentException("Backoff must be in (0, 1) and tolerance positive");
+    }
+    this.min = min;
+    this.max = max;
+    this.tolerance = tolerance;
+    this.backoff = backoff;
+    this.waitTargetMillis = waitTarget.toNanos() / 1_000_000.0;
+    this.window = window;
+    this.limit = Math.max(min, Math.min(max, initial));
+  }
+
+  public synchronized Decision update(PoolSample sample) {
+    if (sample.completed() == 0) {
+      return sample.threadsAwaiting() > 0 ? increase() : Decision.HOLD;
+    }
+
+    latencies.addLast(sample.usageMillis());
+    if (latencies.size() > window) {
+      latencies.removeFirst();
+    }
+    baselineMillis = latencies.stream().mapToDouble(Double::doubleValue).min().orElseThrow();
+
+    boolean congested = sample.acquireMillis() > waitTargetMillis || sample.threadsAwaiting() > 0;
+    if (congested && sample.usageMillis() > baselineMillis * (1 + tolerance)) {
+      int decreased = Math.max(min, (int) Math.floor(limit * backoff));
+      Decision decision = decreased < limit ? Decision.DECREASE : Decision.HOLD;
+      limit = decreased;
+      return decision;
+    }
+    if (congested) {
+      return increase();
+    }
+    if (sample.concurrency() < limit * 0.5 && limit > min) {
+      limit--;
+      return Decision.SHRINK;
+    }
+    return Decision.HOLD;
+  }
+
+  public synchronized int limit() {
+    return limit;
+  }
+
+  /**
+   * Lowest recent connection hold time, in milliseconds.
+   */
+  public synchronized double baselineMillis() {
+    return baselineMillis;
+  }
+
+  private Decision increase() {
+    if (limit >= max) {
+      return Decision.HOLD;
+    }
+    limit++;
+    return Decision.INCREASE;
+  }
+}
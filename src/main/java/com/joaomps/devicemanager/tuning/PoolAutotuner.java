@@ -0,0 +1,216 @@
+package com.joaomps.devicemanager.tuning;
+
+import com.joaomps.devicemanager.tuning.AdaptiveLimit.Decision;
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import javax.sql.DataSource;
+import org.apache.coyote.AbstractProtocol;
+import org.apache.coyote.ProtocolHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.boot.web.embedded.tomcat.TomcatWebServer;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sizes the Hikari connection pool, and optionally the Tomcat request threads with it, from live
+ * pool metrics.
+ *
+ * <p>Every {@code device-manager.autotune.interval} the connection wait and hold times recorded by
+ * Hikari ({@code hikaricp.connections.acquire} and {@code hikaricp.connections.usage}) are fed to
+ * an {@link AdaptiveLimit}, and the resulting limit becomes the pool's maximum size. The pool
+ * starts at its configured size. With {@code device-manager.autotune.executor.enabled}, Tomcat
+ * gets {@code threads-per-connection} threads per connection whenever the limit changes, so that
+ * once the database is saturated excess requests wait in the accept queue instead of holding a
+ * thread while they wait for a connection. It is off by default, leaving Tomcat's configured
+ * threads untouched. Every decision is exported as a metric.
+ */
+@Component
+public class PoolAutotuner {
+
+  private static final Logger log = LoggerFactory.getLogger(PoolAutotuner.class);
+
+  private static final String METRIC_PREFIX = "devicemanager.autotune.";
+  private static final String HIKARI_USAGE = "hikaricp.connections.usage";
+  private static final String HIKARI_ACQUIRE = "hikaricp.connections.acquire";
+
+  private final DataSource dataSource;
+  private final MeterRegistry meterRegistry;
+  private final boolean enabled;
+  private final int minConnections;
+  private final int maxConnections;
+  private final double tolerance;
+  private final double backoff;
+  private final Duration waitTarget;
+  private final int window;
+  private final boolean executorEnabled;
+  private final int threadsPerConnection;
+  private final int minThreads;
+  private final int maxThreads;
+
+  private volatile AdaptiveLimit limit;
+  private volatile AbstractProtocol<?> tomcat;
+  private HikariDataSource hikari;
+  private Timer usageTimer;
+  private Timer acquireTimer;
+  private long lastSampleNanos;
+  private long lastCount;
+  private double lastUsageMillis;
+  private long lastAcquireCount;
+  private double lastAcquireMillis;
+  private volatile double latencyMillis;
+  private volatile int executorLimit;
+
+  public PoolAutotuner(DataSource dataSource, MeterRegistry meterRegistry,
+      @Value("${device-manager.autotune.enabled:true}") boolean enabled,
+      @Value("${device-manager.autotune.pool.min:4}") int minConnections,
+      @Value("${device-manager.autotune.pool.max:40}") int maxConnections,
+      @Value("${device-manager.autotune.latency-tolerance:0.25}") double tolerance,
+      @Value("${device-manager.autotune.backoff:0.7}") double backoff,
+      @Value("${device-manager.autotune.wait-target:PT0.005S}") Duration waitTarget,
+      @Value("${device-manager.autotune.window:60}") int window,
+      @Value("${device-manager.autotune.executor.enabled:false}") boolean executorEnabled,
+      @Value("${device-manager.autotune.executor.threads-per-connection:8}") int threadsPerConnection,
+      @Value("${device-manager.autotune.executor.min:25}") int minThreads,
+      @Value("${device-manager.autotune.executor.max:400}") int maxThreads) {
+    this.dataSource = dataSource;
+    this.meterRegistry = meterRegistry;
+    this.enabled = enabled;
+    this.minConnections = minConnections;
+    this.maxConnections = maxConnections;
+    this.tolerance = tolerance;
+    this.backoff = backoff;
+    this.waitTarget = waitTarget;
+    this.window = window;
+    this.executorEnabled = executorEnabled;
+    this.threadsPerConnection = threadsPerConnection;
+    this.minThreads = minThreads;
+    this.maxThreads = maxThreads;
+  }
+
+  @EventListener
+  public void onWebServerInitialized(WebServerInitializedEvent event) {
+    if (event.getWebServer() instanceof TomcatWebServer webServer) {
+      ProtocolHandler handler = webServer.getTomcat().getConnector().getProtocolHandler();
+      if (handler instanceof AbstractProtocol<?> protocol) {
+        tomcat = protocol;
+      }
+    }
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public synchronized void start() {
+    if (!enabled) {
+      return;
+    }
+    try {
+      hikari = dataSource.unwrap(HikariDataSource.class);
+    } catch (SQLException e) {
+      log.info("Connection pool autotuning disabled, the data source is not a Hikari pool");
+      return;
+    }
+    usageTimer = meterRegistry.find(HIKARI_USAGE).tag("pool", hikari.getPoolName()).timer();
+    acquireTimer = meterRegistry.find(HIKARI_ACQUIRE).tag("pool", hikari.getPoolName()).timer();
+    if (usageTimer == null || acquireTimer == null) {
+      log.info("Connection pool autotuning disabled, Hikari metrics are not registered");
+      return;
+    }
+
+    limit = new AdaptiveLimit(minConnections, maxConnections, hikari.getMaximumPoolSize(),
+        tolerance, backoff, waitTarget, window);
+    resetSample();
+    Gauge.builder(METRIC_PREFIX + "pool.limit", limit, AdaptiveLimit::limit)
+        .description("Maximum connection pool size chosen by the autotuner")
+        .register(meterRegistry);
+    if (executorEnabled) {
+      Gauge.builder(METRIC_PREFIX + "executor.limit", this, tuner -> tuner.executorLimit)
+          .description("Maximum Tomcat request threads chosen by the autotuner")
+          .register(meterRegistry);
+    }
+    Gauge.builder(METRIC_PREFIX + "db.latency", this, tuner -> tuner.latencyMillis)
+        .description("Mean connection hold time over the last interval")
+        .baseUnit("milliseconds")
+        .register(meterRegistry);
+    Gauge.builder(METRIC_PREFIX + "db.latency.baseline", limit, AdaptiveLimit::baselineMillis)
+        .description("Lowest recent connection hold time")
+        .baseUnit("milliseconds")
+        .register(meterRegistry);
+    log.info("Connection pool autotuning started at {} connections, bounds [{}, {}]",
+        limit.limit(), minConnections, maxConnections);
+  }
+
+  @Scheduled(fixedDelayString = "${device-manager.autotune.interval:PT5S}")
+  public synchronized void tune() {
+    AdaptiveLimit current = limit;
+    HikariPoolMXBean pool = hikari == null ? null : hikari.getHikariPoolMXBean();
+    if (current == null || pool == null) {
+      return;
+    }
+
+    PoolSample sample = sample(pool);
+    int before = current.limit();
+    Decision decision = current.update(sample);
+    meterRegistry.counter(METRIC_PREFIX + "decisions", "decision", decision.name().toLowerCase())
+        .increment();
+    if (current.limit() != before) {
+      apply(current.limit());
+      log.debug("Connection pool limit {} -> {} ({}, {})", before, current.limit(), decision,
+          sample);
+    }
+  }
+
+  private PoolSample sample(HikariPoolMXBean pool) {
+    long now = System.nanoTime();
+    double elapsedMillis = Math.max(1, (now - lastSampleNanos) / 1_000_000.0);
+    long count = usageTimer.count() - lastCount;
+    double usageMillis = usageTimer.totalTime(TimeUnit.MILLISECONDS) - lastUsageMillis;
+    long acquires = acquireTimer.count() - lastAcquireCount;
+    double acquireMillis = acquireTimer.totalTime(TimeUnit.MILLISECONDS) - lastAcquireMillis;
+    resetSample();
+
+    latencyMillis = count == 0 ? 0 : usageMillis / count;
+    return new PoolSample(count, latencyMillis, acquires == 0 ? 0 : acquireMillis / acquires,
+        usageMillis / elapsedMillis, pool.getThreadsAwaitingConnection());
+  }
+
+  private void resetSample() {
+    lastSampleNanos = System.nanoTime();
+    lastCount = usageTimer.count();
+    lastUsageMillis = usageTimer.totalTime(TimeUnit.MILLISECONDS);
+    lastAcquireCount = acquireTimer.count();
+    lastAcquireMillis = acquireTimer.totalTime(TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Sets the pool's maximum size. A lower maximum only stops new connections from being opened:
+   * the connections above it are left to Hikari, which closes them once they have been idle for
+   * its idle timeout. Evicting them instead would close every connection of the pool, busy ones as
+   * they are returned, on each step down.
+   */
+  private void apply(int connections) {
+    HikariConfigMXBean config = hikari.getHikariConfigMXBean();
+    if (config.getMinimumIdle() > connections) {
+      config.setMinimumIdle(connections);
+    }
+    config.setMaximumPoolSize(connections);
+
+    AbstractProtocol<?> protocol = tomcat;
+    if (executorEnabled && protocol != null) {
+      int floor = Math.max(minThreads, protocol.getMinSpareThreads());
+      int threads = Math.max(floor, Math.min(maxThreads, connections * threadsPerConnection));
+      protocol.setMaxThreads(threads);
+      executorLimit = threads;
+    }
+  }
+}
@@ -0,0 +1,15 @@
+package com.joaomps.devicemanager.tuning;
+
+/**
+ * Connection pool activity over one tuning interval.
+ *
+ * @param completed        connections returned to the pool during the interval
+ * @param usageMillis      mean time a connection was held, i.e. database latency per unit of work
+ * @param acquireMillis    mean time callers waited for a connection
+ * @param concurrency      mean number of connections in use (total hold time / interval)
+ * @param threadsAwaiting  callers waiting for a connection at the end of the interval
+ */
+public record PoolSample(long completed, double usageMillis, double acquireMillis,
+                         double concurrency, int threadsAwaiting) {
+
+}
@@ -0,0 +1,23 @@
+package com.joaomps.devicemanager.validation;
+
+import com.joaomps.devicemanager.controller.DeviceController;
+import org.springframework.web.bind.WebDataBinder;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.InitBinder;
+
+/**
+ * Validates the bodies of device creations and full updates with {@link DeviceValidator}
+ * rather than the global Bean Validation validator, keeping the same error responses.
+ */
+@ControllerAdvice(assignableTypes = DeviceController.class)
+public class DeviceValidationAdvice {
+
+  private final DeviceValidator validator = new DeviceValidator();
+
+  @InitBinder({"deviceCreationRequest", "device"})
+  public void useDeviceValidator(WebDataBinder binder) {
+    if (binder.getTarget() != null && validator.supports(binder.getTarget().getClass())) {
+      binder.setValidator(validator);
+    }
+  }
+}
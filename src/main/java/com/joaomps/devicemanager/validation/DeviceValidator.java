@@ -0,0 +1,88 @@
+package com.joaomps.devicemanager.validation;
+
+import com.joaomps.devicemanager.dto.DeviceCreationRequest;
+import com.joaomps.devicemanager.exception.InvalidRequestException;
+import com.joaomps.devicemanager.model.Device;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.Errors;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.Validator;
+
+/**
+ * Hand-written equivalent of the {@code @NotBlank} constraints on {@link DeviceCreationRequest}
+ * and {@link Device}, used on the device write endpoints instead of Bean Validation.
+ *
+ * <p>The checks and messages must stay in line with the annotations. Hibernate does not validate
+ * entities on flush ({@code jakarta.persistence.validation.mode=none}), so writes that do not go
+ * through a validated request body use {@link #check(Device)}. Errors are added as
+ * {@link FieldError}s directly, as Spring's Bean Validation adapter does, so no property is read
+ * back through reflection.
+ */
+public class DeviceValidator implements Validator {
+
+  static final String NAME_BLANK = "Name cannot be blank";
+  static final String BRAND_BLANK = "Brand cannot be blank";
+
+  private static final String NOT_BLANK = "NotBlank";
+
+  @Override
+  public boolean supports(Class<?> clazz) {
+    return DeviceCreationRequest.class == clazz || Device.class.isAssignableFrom(clazz);
+  }
+
+  @Override
+  public void validate(Object target, Errors errors) {
+    if (target instanceof DeviceCreationRequest request) {
+      validate(request.name(), request.brand(), errors);
+    } else if (target instanceof Device device) {
+      validate(device.getName(), device.getBrand(), errors);
+    }
+  }
+
+  /**
+   * Checks a device about to be written, throwing {@link InvalidRequestException} with the
+   * message of the first blank property.
+   */
+  public static void check(Device device) {
+    if (isBlank(device.getName())) {
+      throw new InvalidRequestException(NAME_BLANK);
+    }
+    if (isBlank(device.getBrand())) {
+      throw new InvalidRequestException(BRAND_BLANK);
+    }
+  }
+
+  private static void validate(String name, String brand, Errors errors) {
+    if (isBlank(name)) {
+      reject(errors, "name", name, NAME_BLANK);
+    }
+    if (isBlank(brand)) {
+      reject(errors, "brand", brand, BRAND_BLANK);
+    }
+  }
+
+  /**
+   * Same rule as Hibernate Validator's {@code @NotBlank}: {@code null}, or nothing left after
+   * {@link String#trim()}. Not {@link String#isBlank()}, which also strips Unicode spaces.
+   */
+  static boolean isBlank(String value) {
+    if (value == null) {
+      return true;
+    }
+    for (int i = 0; i < value.length(); i++) {
+      if (value.charAt(i) > ' ') {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void reject(Errors errors, String field, String value, String message) {
+    if (errors instanceof BindingResult bindingResult) {
+      bindingResult.addError(new FieldError(errors.getObjectName(), field, value, false,
+          bindingResult.resolveMessageCodes(NOT_BLANK, field), null, message));
+    } else {
+      errors.rejectValue(field, NOT_BLANK, message);
+    }
+  }
+}
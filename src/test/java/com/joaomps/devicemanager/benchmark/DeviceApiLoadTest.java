@@ -0,0 +1,245 @@
+package com.joaomps.devicemanager.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.joaomps.devicemanager.controller.DeviceLeaseController;
+import com.joaomps.devicemanager.model.Device;
+import com.joaomps.devicemanager.model.DeviceState;
+import com.joaomps.devicemanager.repository.DeviceRepository;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Boots the application on a random port against an in-memory database, seeds devices and drives
+ * a mixed workload over real HTTP:
+ *
+ * <ul>
+ *   <li>a fixed-rate phase reporting p50/p99/p99.9 latency corrected for coordinated omission,</li>
+ *   <li>a closed-loop phase reporting the maximum throughput.</li>
+ * </ul>
+ *
+ * <p>The results are compared with {@code benchmark/load-test-baseline.properties} and the test
+ * fails when any of them regresses by more than the stored tolerance. The baseline records the
+ * settings and machine it was measured with, and the gate is skipped when the run uses other
+ * settings or no baseline has been recorded yet. Run with {@code -Pbenchmark}; tune with
+ * {@code -Dloadtest.devices}, {@code -Dloadtest.rate}, {@code -Dloadtest.duration} (seconds) and
+ * {@code -Dloadtest.workers}, and record the baseline on the reference machine with
+ * {@code -Dloadtest.record-baseline=true}.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("benchmark")
+@TestPropertySource(properties = "spring.datasource.hikari.maximum-pool-size=20")
+class DeviceApiLoadTest {
+
+  private static final String BASELINE_RESOURCE = "/benchmark/load-test-baseline.properties";
+  private static final Path BASELINE_SOURCE =
+      Path.of("src/test/resources" + BASELINE_RESOURCE);
+
+  private static final int DEVICES = Integer.getInteger("loadtest.devices", 10_000);
+  private static final int RATE = Integer.getInteger("loadtest.rate", 500);
+  private static final Duration DURATION =
+      Duration.ofSeconds(Integer.getInteger("loadtest.duration", 30));
+  private static final Duration WARMUP = Duration.ofSeconds(10);
+  private static final int WORKERS = Integer.getInteger("loadtest.workers", 32);
+  private static final double MAX_ERROR_RATE = 0.01;
+  private static final List<String> SETTINGS =
+      List.of("devices", "rate", "duration", "workers");
+
+  @LocalServerPort
+  private int port;
+
+  @Autowired
+  private DeviceRepository deviceRepository;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  private final HttpClient client = HttpClient.newBuilder()
+      .executor(Executors.newVirtualThreadPerTaskExecutor())
+      .connectTimeout(Duration.ofSeconds(5))
+      .build();
+
+  private long firstId;
+
+  @BeforeEach
+  void seed() {
+    if (deviceRepository.count() < DEVICES) {
+      insertDevices();
+    }
+    firstId = deviceRepository.findAll().stream().mapToLong(Device::getId).min().orElse(1);
+  }
+
+  private void insertDevices() {
+    List<Device> batch = new ArrayList<>(1_000);
+    for (int i = 0; i < DEVICES; i++) {
+      batch.add(new Device(null, "Device " + i, "Brand" + (i % 50), DeviceState.AVAILABLE,
+          LocalDateTime.now()));
+      if (batch.size() == 1_000) {
+        deviceRepository.saveAll(batch);
+        batch.clear();
+      }
+    }
+    deviceRepository.saveAll(batch);
+  }
+
+  @Test
+  void mixedWorkload_staysWithinBaseline() throws Exception {
+    LoadGenerator.fixedRate(this::mixedRequest, RATE, WARMUP);
+
+    LoadGenerator.Result latency = LoadGenerator.fixedRate(this::mixedRequest, RATE, DURATION);
+    LoadGenerator.Result saturation =
+        LoadGenerator.closedLoop(this::mixedRequest, WORKERS, DURATION);
+
+    Properties measured = new Properties();
+    measured.setProperty("p50", Long.toString(latency.percentileMicros(50)));
+    measured.setProperty("p99", Long.toString(latency.percentileMicros(99)));
+    measured.setProperty("p999", Long.toString(latency.percentileMicros(99.9)));
+    measured.setProperty("max-throughput", Long.toString((long) saturation.throughput()));
+    measured.setProperty("devices", Integer.toString(DEVICES));
+    measured.setProperty("rate", Integer.toString(RATE));
+    measured.setProperty("duration", Long.toString(DURATION.toSeconds()));
+    measured.setProperty("workers", Integer.toString(WORKERS));
+
+    System.out.printf(
+        "[load] %d devices | %d req/s for %ds: p50 %d us, p99 %d us, p99.9 %d us, max %d us,"
+            + " errors %.2f%% | %d workers: %.0f req/s, errors %.2f%%%n",
+        DEVICES, RATE, DURATION.toSeconds(), latency.percentileMicros(50),
+        latency.percentileMicros(99), latency.percentileMicros(99.9), latency.maxMicros(),
+        latency.errorRate() * 100, WORKERS, saturation.throughput(),
+        saturation.errorRate() * 100);
+
+    assertTrue(latency.errorRate() <= MAX_ERROR_RATE,
+        "Error rate " + latency.errorRate() + " at " + RATE + " req/s");
+    assertTrue(saturation.errorRate() <= MAX_ERROR_RATE,
+        "Error rate " + saturation.errorRate() + " under saturation");
+
+    if (Boolean.getBoolean("loadtest.record-baseline")) {
+      recordBaseline(measured);
+      return;
+    }
+    assertWithinBaseline(measured);
+  }
+
+  /**
+   * 70% reads by id, 15% partial updates and 15% allocations (lease check-out and release).
+   */
+  private boolean mixedRequest(long sequence) throws IOException, InterruptedException {
+    long id = firstId + ThreadLocalRandom.current().nextInt(DEVICES);
+    int kind = (int) (sequence % 20);
+    if (kind < 14) {
+      return send(request(id, "").GET()) == 200;
+    }
+    if (kind < 17) {
+      String body = "{\"name\":\"Device " + id + " rev " + sequence + "\"}";
+      int status = send(request(id, "")
+          .method("PATCH", HttpRequest.BodyPublishers.ofString(body))
+          .header("Content-Type", "application/json"));
+      // 409: the device is allocated right now and its name cannot change, a valid outcome.
+      return status == 200 || status == 409;
+    }
+    return allocate(id);
+  }
+
+  private boolean allocate(long id) throws IOException, InterruptedException {
+    HttpResponse<String> acquired = client.send(
+        request(id, "/lease?ttl=PT1M").POST(HttpRequest.BodyPublishers.noBody()).build(),
+        HttpResponse.BodyHandlers.ofString());
+    if (acquired.statusCode() == 409) {
+      // Lost the race for the device to another allocation, a valid outcome.
+      return true;
+    }
+    if (acquired.statusCode() != 201) {
+      return false;
+    }
+    JsonNode lease = objectMapper.readTree(acquired.body());
+    return send(request(id, "/lease").DELETE()
+        .header(DeviceLeaseController.LEASE_TOKEN_HEADER, lease.get("token").asText())) == 204;
+  }
+
+  private HttpRequest.Builder request(long id, String suffix) {
+    return HttpRequest.newBuilder(
+            URI.create("http://localhost:" + port + "/api/v1/devices/" + id + suffix))
+        .timeout(Duration.ofSeconds(10));
+  }
+
+  private int send(HttpRequest.Builder request) throws IOException, InterruptedException {
+    return client.send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+  }
+
+  private static void assertWithinBaseline(Properties measured) throws IOException {
+    Properties baseline = new Properties();
+    try (InputStream in = DeviceApiLoadTest.class.getResourceAsStream(BASELINE_RESOURCE)) {
+      if (in == null) {
+        System.out.println("[load] No baseline stored, skipping the regression gate");
+        return;
+      }
+      baseline.load(in);
+    }
+    for (String setting : SETTINGS) {
+      if (!measured.getProperty(setting).equals(baseline.getProperty(setting))) {
+        System.out.println("[load] Baseline was recorded with " + setting + "="
+            + baseline.getProperty(setting) + ", skipping the regression gate");
+        return;
+      }
+    }
+    double tolerance = Double.parseDouble(baseline.getProperty("tolerance", "0.25"));
+
+    List<String> regressions = new ArrayList<>();
+    for (String latency : List.of("p50", "p99", "p999")) {
+      long limit = (long) (Long.parseLong(baseline.getProperty(latency)) * (1 + tolerance));
+      long value = Long.parseLong(measured.getProperty(latency));
+      if (value > limit) {
+        regressions.add(latency + " " + value + " us > " + limit + " us");
+      }
+    }
+    long minThroughput =
+        (long) (Long.parseLong(baseline.getProperty("max-throughput")) * (1 - tolerance));
+    long throughput = Long.parseLong(measured.getProperty("max-throughput"));
+    if (throughput < minThroughput) {
+      regressions.add("max-throughput " + throughput + " req/s < " + minThroughput + " req/s");
+    }
+
+    assertTrue(regressions.isEmpty(), "Regressed past the baseline: " + regressions);
+  }
+
+  private static void recordBaseline(Properties measured) throws IOException {
+    measured.setProperty("tolerance", "0.25");
+    measured.setProperty("machine", System.getProperty("os.name") + " "
+        + System.getProperty("os.arch") + ", " + Runtime.getRuntime().availableProcessors()
+        + " cpus, " + Runtime.getRuntime().maxMemory() / (1024 * 1024) + " MB heap");
+    measured.setProperty("java", System.getProperty("java.vm.name") + " "
+        + System.getProperty("java.version"));
+    Files.createDirectories(BASELINE_SOURCE.getParent());
+    try (OutputStream out = Files.newOutputStream(BASELINE_SOURCE)) {
+      measured.store(out, "Recorded by DeviceApiLoadTest. Latencies in microseconds,"
+          + " throughput in requests per second, duration in seconds");
+    }
+    System.out.println("[load] Baseline written to " + BASELINE_SOURCE.toAbsolutePath());
+  }
+}
@@ -0,0 +1,154 @@
+package com.joaomps.devicemanager.benchmark;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.LongStream;
+
+/**
+ * Drives an operation either at a fixed rate (open loop) or as fast as a fixed number of workers
+ * allow (closed loop).
+ *
+ * <p>In the fixed-rate mode every request has an intended start time on a schedule that does not
+ * wait for earlier requests, and latency is measured from that time rather than from when the
+ * request was actually sent. A stall therefore shows up as the queueing delay it causes for every
+ * request scheduled during it, instead of as a single slow sample (coordinated omission).
+ */
+final class LoadGenerator {
+
+  @FunctionalInterface
+  interface Operation {
+
+    /**
+     * Runs one request and returns whether it succeeded.
+     */
+    boolean run(long sequence) throws Exception;
+  }
+
+  record Result(long requests, long errors, Duration elapsed, long[] latenciesMicros) {
+
+    double throughput() {
+      return requests * 1_000_000_000.0 / Math.max(1, elapsed.toNanos());
+    }
+
+    double errorRate() {
+      return requests == 0 ? 0 : (double) errors / requests;
+    }
+
+    long percentileMicros(double percentile) {
+      if (latenciesMicros.length == 0) {
+        return 0;
+      }
+      int index = (int) Math.ceil(percentile / 100 * latenciesMicros.length) - 1;
+      return latenciesMicros[Math.clamp(index, 0, latenciesMicros.length - 1)];
+    }
+
+    long maxMicros() {
+      return latenciesMicros.length == 0 ? 0 : latenciesMicros[latenciesMicros.length - 1];
+    }
+  }
+
+  private LoadGenerator() {
+  }
+
+  static Result fixedRate(Operation operation, int requestsPerSecond, Duration duration)
+      throws InterruptedException {
+    int total = (int) Math.max(1, duration.toMillis() * requestsPerSecond / 1000);
+    long intervalNanos = 1_000_000_000L / requestsPerSecond;
+    long[] latencies = new long[total];
+    AtomicInteger recorded = new AtomicInteger();
+    AtomicLong errors = new AtomicLong();
+
+    long start = System.nanoTime();
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (int i = 0; i < total; i++) {
+        long intendedStart = start + i * intervalNanos;
+        long wait = intendedStart - System.nanoTime();
+        if (wait > 0) {
+          LockSupport.parkNanos(wait);
+        }
+        long sequence = i;
+        executor.execute(() -> {
+          if (!succeeded(operation, sequence)) {
+            errors.incrementAndGet();
+          }
+          latencies[recorded.getAndIncrement()] = (System.nanoTime() - intendedStart) / 1_000;
+        });
+      }
+    }
+    Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+    return result(total, errors.get(), elapsed, latencies, recorded.get());
+  }
+
+  static Result closedLoop(Operation operation, int workers, Duration duration)
+      throws InterruptedException {
+    long end = System.nanoTime() + duration.toNanos();
+    AtomicLong sequence = new AtomicLong();
+    AtomicLong errors = new AtomicLong();
+    AtomicBoolean running = new AtomicBoolean(true);
+    LatencyBuffer[] buffers = new LatencyBuffer[workers];
+
+    long start = System.nanoTime();
+    ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    for (int w = 0; w < workers; w++) {
+      LatencyBuffer buffer = new LatencyBuffer();
+      buffers[w] = buffer;
+      executor.execute(() -> {
+        while (running.get() && System.nanoTime() < end) {
+          long requestStart = System.nanoTime();
+          if (!succeeded(operation, sequence.getAndIncrement())) {
+            errors.incrementAndGet();
+          }
+          buffer.add((System.nanoTime() - requestStart) / 1_000);
+        }
+      });
+    }
+    executor.shutdown();
+    if (!executor.awaitTermination(duration.toMillis() + 60_000, TimeUnit.MILLISECONDS)) {
+      running.set(false);
+      executor.shutdownNow();
+    }
+    Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+    long[] latencies = Arrays.stream(buffers).flatMapToLong(LatencyBuffer::stream).toArray();
+    return result(latencies.length, errors.get(), elapsed, latencies, latencies.length);
+  }
+
+  private static boolean succeeded(Operation operation, long sequence) {
+    try {
+      return operation.run(sequence);
+    } catch (Exception e) {
+      return false;
+    }
+  }
+
+  private static Result result(long requests, long errors, Duration elapsed, long[] latencies,
+      int recorded) {
+    long[] sorted = Arrays.copyOf(latencies, recorded);
+    Arrays.sort(sorted);
+    return new Result(requests, errors, elapsed, sorted);
+  }
+
+  private static final class LatencyBuffer {
+
+    private long[] values = new long[1024];
+    private int size;
+
+    void add(long value) {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, size * 2);
+      }
+      values[size++] = value;
+    }
+
+    LongStream stream() {
+      return Arrays.stream(values, 0, size);
+    }
+  }
+}
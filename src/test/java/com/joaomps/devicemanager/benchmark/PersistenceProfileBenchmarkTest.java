@@ -0,0 +1,131 @@
+package com.joaomps.devicemanager.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Compares connection hold time and statements per request of the default persistence settings
+ * (open-in-view on, no batching) with the {@code prod} profile. Run with {@code -Pbenchmark}.
+ */
+@Tag("benchmark")
+class PersistenceProfileBenchmarkTest {
+
+  private static final int DEVICES = 500;
+  private static final int READS = 2_000;
+  private static final int PATCHES = 500;
+
+  abstract static class Workload {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    abstract String label();
+
+    @Test
+    void runWorkload() throws Exception {
+      Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+      statistics.setStatisticsEnabled(true);
+      statistics.clear();
+      Timer usage = meterRegistry.find("hikaricp.connections.usage").timer();
+      double usageBefore = usage == null ? 0 : usage.totalTime(TimeUnit.MICROSECONDS);
+      long usageCountBefore = usage == null ? 0 : usage.count();
+
+      long start = System.nanoTime();
+      for (int i = 0; i < DEVICES; i++) {
+        mockMvc.perform(post("/api/v1/devices")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Device" + i + "\",\"brand\":\"Brand" + (i % 10) + "\"}"))
+            .andExpect(status().isCreated());
+      }
+      for (int i = 0; i < READS; i++) {
+        mockMvc.perform(get("/api/v1/devices/" + (i % DEVICES + 1))).andExpect(status().isOk());
+      }
+      for (int i = 0; i < PATCHES; i++) {
+        mockMvc.perform(patch("/api/v1/devices/" + (i % DEVICES + 1))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(Map.of("name", "Renamed" + i))))
+            .andExpect(status().isOk());
+      }
+      long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+      int requests = DEVICES + READS + PATCHES;
+      usage = meterRegistry.find("hikaricp.connections.usage").timer();
+      double holdMicros = usage == null ? Double.NaN
+          : (usage.totalTime(TimeUnit.MICROSECONDS) - usageBefore)
+              / Math.max(1, usage.count() - usageCountBefore);
+
+      System.out.printf(
+          "[%s] %d requests in %d ms | statements/request %.2f | connections acquired %d"
+              + " | mean connection hold %.1f us | transactions %d%n",
+          label(), requests, elapsedMillis,
+          (double) statistics.getPrepareStatementCount() / requests,
+          statistics.getConnectCount(), holdMicros, statistics.getTransactionCount());
+      assertTrue(statistics.getPrepareStatementCount() > 0);
+    }
+  }
+
+  @Nested
+  @SpringBootTest
+  @AutoConfigureMockMvc
+  @AutoConfigureObservability(tracing = false)
+  @ActiveProfiles("benchmark")
+  @TestPropertySource(properties = {
+      "spring.jpa.open-in-view=true",
+      "spring.jpa.properties.hibernate.generate_statistics=true"
+  })
+  class DefaultSettings extends Workload {
+
+    @Override
+    String label() {
+      return "default";
+    }
+  }
+
+  @Nested
+  @SpringBootTest
+  @AutoConfigureMockMvc
+  @AutoConfigureObservability(tracing = false)
+  @ActiveProfiles({"benchmark", "prod"})
+  @TestPropertySource(properties = {
+      "spring.jpa.properties.hibernate.generate_statistics=true"
+  })
+  class ProductionProfile extends Workload {
+
+    @Override
+    String label() {
+      return "prod";
+    }
+  }
+}
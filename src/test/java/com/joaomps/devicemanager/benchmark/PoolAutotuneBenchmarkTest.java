@@ -0,0 +1,178 @@
+package com.joaomps.devicemanager.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.joaomps.devicemanager.tuning.PoolAutotuner;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Runs the pool autotuner against a real Hikari pool in front of a stand-in database that injects
+ * latency: every statement takes one of {@link #CAPACITY} workers for {@link #SERVICE_MILLIS}, and
+ * statements finding all workers busy queue for one, as they would on a saturated server. Client
+ * threads hammer the pool while the tuner runs every {@link #INTERVAL}, reading Hikari's own
+ * metrics, and the limit it settles on is checked against the stand-in's capacity. Run with
+ * {@code -Pbenchmark}.
+ */
+@Tag("benchmark")
+class PoolAutotuneBenchmarkTest {
+
+  private static final Duration INTERVAL = Duration.ofMillis(100);
+  private static final int CAPACITY = 8;
+  private static final long SERVICE_MILLIS = 5;
+
+  @Test
+  void overloadedDatabase_settlesNearCapacity() throws Exception {
+    List<Integer> limits = run(30, 64, 0, 300);
+
+    assertSettledWithin(limits, CAPACITY / 2, CAPACITY * 3 / 2);
+  }
+
+  @Test
+  void lightLoad_shrinksToWhatIsUsed() throws Exception {
+    List<Integer> limits = run(20, 2, SERVICE_MILLIS, 150);
+
+    assertSettledWithin(limits, 2, 4);
+  }
+
+  /**
+   * Starts a pool of {@code initial} connections with {@code clients} threads issuing one
+   * statement per connection and pausing {@code thinkMillis} between them, runs {@code ticks}
+   * tuning intervals and returns the pool's maximum size after each of them.
+   */
+  private static List<Integer> run(int initial, int clients, long thinkMillis, int ticks)
+      throws Exception {
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    HikariConfig config = new HikariConfig();
+    config.setPoolName("autotune-benchmark");
+    config.setDataSource(standInDatabase(new Semaphore(CAPACITY, true)));
+    config.setMaximumPoolSize(initial);
+    config.setMinimumIdle(1);
+    config.setConnectionTimeout(Duration.ofSeconds(30).toMillis());
+    config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+
+    List<Integer> limits = new ArrayList<>();
+    try (HikariDataSource pool = new HikariDataSource(config)) {
+      PoolAutotuner tuner = new PoolAutotuner(pool, meterRegistry, true, 2, 60, 0.25, 0.7,
+          Duration.ofMillis(5), 60, false, 8, 25, 400);
+      tuner.start();
+      List<Thread> threads = new ArrayList<>();
+      for (int i = 0; i < clients; i++) {
+        threads.add(Thread.ofPlatform().daemon().start(() -> query(pool, thinkMillis)));
+      }
+      try {
+        for (int tick = 0; tick < ticks; tick++) {
+          Thread.sleep(INTERVAL);
+          tuner.tune();
+          limits.add(pool.getHikariConfigMXBean().getMaximumPoolSize());
+        }
+      } finally {
+        threads.forEach(Thread::interrupt);
+        for (Thread thread : threads) {
+          thread.join();
+        }
+      }
+    }
+    System.out.printf("[autotune] start %d, %d clients, capacity %d -> last limits %s%n",
+        initial, clients, CAPACITY, limits.subList(limits.size() - 20, limits.size()));
+    return limits;
+  }
+
+  private static void query(DataSource pool, long thinkMillis) {
+    while (!Thread.currentThread().isInterrupted()) {
+      try (Connection connection = pool.getConnection();
+          Statement statement = connection.createStatement()) {
+        statement.execute("select 1");
+      } catch (SQLException e) {
+        if (Thread.currentThread().isInterrupted()) {
+          return;
+        }
+      }
+      if (thinkMillis > 0) {
+        try {
+          Thread.sleep(thinkMillis);
+        } catch (InterruptedException e) {
+          return;
+        }
+      }
+    }
+  }
+
+  private static void assertSettledWithin(List<Integer> limits, int low, int high) {
+    List<Integer> tail = limits.subList(limits.size() - 50, limits.size());
+    for (int value : tail) {
+      assertTrue(value >= low && value <= high,
+          "Limit " + value + " outside [" + low + ", " + high + "], last limits: " + tail);
+    }
+  }
+
+  private static DataSource standInDatabase(Semaphore workers) {
+    return proxy(DataSource.class, method -> switch (method.getName()) {
+      case "getConnection" -> proxy(Connection.class, connectionMethod ->
+          switch (connectionMethod.getName()) {
+            case "createStatement" -> proxy(Statement.class, statementMethod -> {
+              if (statementMethod.getName().equals("execute")) {
+                execute(workers);
+                return false;
+              }
+              return defaultValue(statementMethod);
+            });
+            case "isValid" -> true;
+            default -> defaultValue(connectionMethod);
+          });
+      default -> defaultValue(method);
+    });
+  }
+
+  private static void execute(Semaphore workers) throws SQLException {
+    try {
+      workers.acquire();
+      try {
+        Thread.sleep(SERVICE_MILLIS);
+      } finally {
+        workers.release();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new SQLException("Statement interrupted", e);
+    }
+  }
+
+  private static <T> T proxy(Class<T> type, Behaviour behaviour) {
+    return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] {type},
+        (proxy, method, args) -> switch (method.getName()) {
+          case "equals" -> proxy == args[0];
+          case "hashCode" -> System.identityHashCode(proxy);
+          case "toString" -> "stand-in " + type.getSimpleName();
+          default -> behaviour.invoke(method);
+        }));
+  }
+
+  private static Object defaultValue(Method method) {
+    Class<?> type = method.getReturnType();
+    return type.isPrimitive() && type != void.class ? Array.get(Array.newInstance(type, 1), 0)
+        : null;
+  }
+
+  @FunctionalInterface
+  private interface Behaviour {
+
+    Object invoke(Method method) throws Exception;
+  }
+}
@@ -0,0 +1,142 @@
+package com.joaomps.devicemanager.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.joaomps.devicemanager.brand.BrandDictionary;
+import com.joaomps.devicemanager.model.Device;
+import com.joaomps.devicemanager.model.DeviceState;
+import com.joaomps.devicemanager.repository.DeviceRepository;
+import com.joaomps.devicemanager.tenant.TenantContext;
+import com.sun.management.OperatingSystemMXBean;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+/**
+ * Measures bytes on the wire and CPU per response of brand-filtered device lists of 10 to 10000
+ * devices, without compression and with gzip, over HTTP/1.1 and cleartext HTTP/2 (h2c). The
+ * client does not decompress, so the body length is what was sent. CPU is the process CPU time,
+ * client included, divided by the number of requests. Run with {@code -Pbenchmark}.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("benchmark")
+class ResponseCompressionBenchmarkTest {
+
+  private static final int[] LIST_SIZES = {10, 100, 1_000, 10_000};
+  private static final int DEVICES_PER_ROUND = 100_000;
+
+  @LocalServerPort
+  private int port;
+
+  @Autowired
+  private DeviceRepository deviceRepository;
+
+  @Autowired
+  private BrandDictionary brandDictionary;
+
+  private final HttpClient client = HttpClient.newBuilder()
+      .connectTimeout(Duration.ofSeconds(5))
+      .build();
+  private final OperatingSystemMXBean os =
+      (OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+
+  @BeforeEach
+  void seed() {
+    if (deviceRepository.count() > 0) {
+      return;
+    }
+    TenantContext.callAs(TenantContext.DEFAULT_TENANT, () -> {
+      for (int size : LIST_SIZES) {
+        BrandDictionary.Entry brand = brandDictionary.resolve(TenantContext.DEFAULT_TENANT,
+            "Brand" + size);
+        List<Device> batch = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+          Device device = new Device(null, "Device " + size + "-" + i, brand.name(),
+              i % 3 == 0 ? DeviceState.IN_USE : DeviceState.AVAILABLE, LocalDateTime.now());
+          device.setBrandId(brand.id());
+          batch.add(device);
+        }
+        deviceRepository.saveAll(batch);
+      }
+      return null;
+    });
+  }
+
+  @Test
+  void deviceLists_compressedSizeAndCpu() throws Exception {
+    System.out.printf("%-8s %-9s %-9s %12s %12s %8s %12s %10s%n", "devices", "protocol",
+        "encoding", "wire bytes", "raw bytes", "ratio", "cpu us/req", "ms/req");
+    for (int size : LIST_SIZES) {
+      for (HttpClient.Version version : HttpClient.Version.values()) {
+        Measurement identity = measure(size, version, "identity");
+        Measurement gzip = measure(size, version, "gzip");
+        print(size, version, "identity", identity, identity.bytes);
+        print(size, version, "gzip", gzip, identity.bytes);
+
+        assertEquals(version, gzip.version, "h2c upgrade was not negotiated");
+        if (identity.bytes < 2_048) {
+          assertEquals("identity", gzip.encoding, "small lists are sent as is");
+        } else {
+          assertEquals("gzip", gzip.encoding);
+          assertTrue(gzip.bytes * 4 < identity.bytes,
+              "gzip should shrink a list of " + size + " devices at least 4x");
+        }
+      }
+    }
+  }
+
+  private Measurement measure(int size, HttpClient.Version version, String encoding)
+      throws Exception {
+    HttpRequest request = HttpRequest.newBuilder(
+            URI.create("http://localhost:" + port + "/api/v1/devices?brand=Brand" + size))
+        .version(version)
+        .header("Accept-Encoding", encoding)
+        .timeout(Duration.ofSeconds(30))
+        .build();
+    for (int i = 0; i < 5; i++) {
+      client.send(request, HttpResponse.BodyHandlers.discarding());
+    }
+
+    int rounds = Math.max(20, DEVICES_PER_ROUND / size);
+    long cpuBefore = os.getProcessCpuTime();
+    long start = System.nanoTime();
+    HttpResponse<byte[]> response = null;
+    for (int i = 0; i < rounds; i++) {
+      response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+    long elapsed = System.nanoTime() - start;
+    long cpu = os.getProcessCpuTime() - cpuBefore;
+    assertEquals(200, response.statusCode());
+    return new Measurement(response.body().length,
+        response.headers().firstValue("Content-Encoding").orElse("identity"),
+        response.version(), cpu / rounds / 1_000, elapsed / rounds / 1e6);
+  }
+
+  private static void print(int size, HttpClient.Version version, String requested,
+      Measurement measurement, int rawBytes) {
+    System.out.printf("%-8d %-9s %-9s %12d %12d %8.1f %12d %10.2f%n", size, version, requested,
+        measurement.bytes, rawBytes, (double) rawBytes / measurement.bytes,
+        measurement.cpuMicros, measurement.millis);
+  }
+
+  private record Measurement(int bytes, String encoding, HttpClient.Version version,
+                             long cpuMicros, double millis) {
+
+  }
+}
@@ -0,0 +1,96 @@
+package com.joaomps.devicemanager.benchmark;
+
+import com.joaomps.devicemanager.model.Device;
+import com.joaomps.devicemanager.model.DeviceState;
+import com.joaomps.devicemanager.search.DeviceSearchIndex;
+import com.joaomps.devicemanager.search.SearchMode;
+import com.joaomps.devicemanager.tenant.TenantContext;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Measures search latency of the in-process index for one tenant with
+ * {@code -Dbenchmark.search.devices} devices (100k by default), fetching the first page of 20
+ * results as the search endpoint does. Reports p50 and p99 per mode, for queries matching a few
+ * devices and for broad ones matching a large share of the tenant. Runs in a single thread
+ * without a Spring context or database, so only the index is measured. Run with
+ * {@code -Pbenchmark}.
+ */
+@Tag("benchmark")
+class SearchIndexBenchmarkTest {
+
+  private static final int DEVICES = Integer.getInteger("benchmark.search.devices", 100_000);
+  private static final int WARMUP_QUERIES = 2_000;
+  private static final int QUERIES = 5_000;
+  private static final int PAGE_SIZE = 20;
+
+  private static final String[] BRANDS = {"Apple", "Samsung", "Google", "Xiaomi", "Motorola",
+      "Nokia", "Sony", "Huawei", "Lenovo", "Oppo"};
+  private static final String[] MODELS = {"Phone", "Tablet", "Watch", "Router", "Sensor",
+      "Camera", "Speaker", "Tracker", "Scanner", "Gateway"};
+
+  private final DeviceSearchIndex searchIndex = new DeviceSearchIndex();
+
+  @BeforeEach
+  void setUp() {
+    for (long id = 1; id <= DEVICES; id++) {
+      searchIndex.index(new Device(id, name(id), BRANDS[(int) (id % BRANDS.length)],
+          DeviceState.AVAILABLE, null));
+    }
+  }
+
+  @Test
+  void measureSearchLatency() {
+    Random random = new Random(42);
+    report("prefix, narrow", SearchMode.PREFIX, () -> "unit" + (random.nextInt(DEVICES) + 1));
+    report("prefix, broad", SearchMode.PREFIX,
+        () -> BRANDS[random.nextInt(BRANDS.length)].substring(0, 2));
+    report("substring, narrow", SearchMode.SUBSTRING,
+        () -> "nit" + (random.nextInt(DEVICES) + 1));
+    report("substring, broad", SearchMode.SUBSTRING,
+        () -> MODELS[random.nextInt(MODELS.length)].substring(1));
+    report("fuzzy, narrow", SearchMode.FUZZY, () -> "unti" + (random.nextInt(DEVICES) + 1));
+    report("fuzzy, broad", SearchMode.FUZZY,
+        () -> typo(BRANDS[random.nextInt(BRANDS.length)]));
+  }
+
+  private void report(String label, SearchMode mode, QuerySource queries) {
+    long matched = 0;
+    for (int i = 0; i < WARMUP_QUERIES; i++) {
+      matched += search(queries.next(), mode);
+    }
+    long[] nanos = new long[QUERIES];
+    matched = 0;
+    for (int i = 0; i < QUERIES; i++) {
+      String query = queries.next();
+      long start = System.nanoTime();
+      matched += search(query, mode);
+      nanos[i] = System.nanoTime() - start;
+    }
+    Arrays.sort(nanos);
+    System.out.printf("[%s] %d devices | p50 %.3f ms | p99 %.3f ms | %d matches per query%n",
+        label, DEVICES, nanos[QUERIES / 2] / 1e6, nanos[QUERIES * 99 / 100] / 1e6,
+        matched / QUERIES);
+  }
+
+  private int search(String query, SearchMode mode) {
+    return searchIndex.search(TenantContext.DEFAULT_TENANT, query, mode, PAGE_SIZE).total();
+  }
+
+  private static String name(long id) {
+    return MODELS[(int) (id / BRANDS.length % MODELS.length)] + " Unit" + id;
+  }
+
+  private static String typo(String word) {
+    return word.substring(0, word.length() - 2) + word.charAt(word.length() - 1);
+  }
+
+  @FunctionalInterface
+  private interface QuerySource {
+
+    String next();
+  }
+}
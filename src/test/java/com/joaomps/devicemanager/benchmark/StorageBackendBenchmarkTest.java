@@ -0,0 +1,163 @@
+package com.joaomps.devicemanager.benchmark;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+/**
+ * Compares write and read throughput of the {@code local} profile's device log with the JPA
+ * repository on its embedded database file, on an in-memory database, and on PostgreSQL when
+ * {@code -Dbenchmark.postgres.url} points at one. Each backend also has to keep devices in use
+ * from being deleted. Run with {@code -Pbenchmark}.
+ */
+@Tag("benchmark")
+class StorageBackendBenchmarkTest {
+
+  private static final int DEVICES = 2_000;
+  private static final int READS = 10_000;
+  private static final int QUERIES = 500;
+  private static final int PATCHES = 2_000;
+  private static final int BRANDS = 20;
+
+  abstract static class Workload {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    abstract String label();
+
+    @Test
+    void runWorkload() throws Exception {
+      long start = System.nanoTime();
+      for (int i = 0; i < DEVICES; i++) {
+        mockMvc.perform(post("/api/v1/devices")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Device" + i + "\",\"brand\":\"Brand" + (i % BRANDS) + "\"}"))
+            .andExpect(status().isCreated());
+      }
+      long creates = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      for (int i = 0; i < READS; i++) {
+        mockMvc.perform(get("/api/v1/devices/" + (i % DEVICES + 1))).andExpect(status().isOk());
+      }
+      long reads = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      for (int i = 0; i < QUERIES; i++) {
+        mockMvc.perform(i % 2 == 0
+                ? get("/api/v1/devices").param("brand", "Brand" + (i % BRANDS))
+                : get("/api/v1/devices").param("state", "AVAILABLE"))
+            .andExpect(status().isOk());
+      }
+      long queries = System.nanoTime() - start;
+
+      start = System.nanoTime();
+      for (int i = 0; i < PATCHES; i++) {
+        mockMvc.perform(patch("/api/v1/devices/" + (i % DEVICES + 1))
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\":\"Renamed" + i + "\"}"))
+            .andExpect(status().isOk());
+      }
+      long patches = System.nanoTime() - start;
+
+      mockMvc.perform(patch("/api/v1/devices/1")
+              .contentType(MediaType.APPLICATION_JSON)
+              .content("{\"state\":\"IN_USE\"}"))
+          .andExpect(status().isOk());
+      mockMvc.perform(delete("/api/v1/devices/1")).andExpect(status().isConflict());
+
+      System.out.printf("[%s] creates %.0f/s | reads by id %.0f/s | brand and state queries %.0f/s"
+              + " | partial updates %.0f/s%n",
+          label(), rate(DEVICES, creates), rate(READS, reads), rate(QUERIES, queries),
+          rate(PATCHES, patches));
+    }
+
+    private static double rate(int operations, long nanos) {
+      return operations * 1e9 / nanos;
+    }
+  }
+
+  @Nested
+  @SpringBootTest
+  @AutoConfigureMockMvc
+  @ActiveProfiles({"benchmark", "local"})
+  @TestPropertySource(properties = "device-manager.local.snapshot-interval=PT24H")
+  class LocalLog extends Workload {
+
+    @DynamicPropertySource
+    static void dataDir(DynamicPropertyRegistry registry) throws IOException {
+      String dataDir = Files.createTempDirectory("device-manager-local").toString();
+      registry.add("device-manager.local.data-dir", () -> dataDir);
+    }
+
+    @Override
+    String label() {
+      return "local, device log";
+    }
+  }
+
+  @Nested
+  @SpringBootTest
+  @AutoConfigureMockMvc
+  @ActiveProfiles({"benchmark", "local"})
+  @TestPropertySource(properties = {"device-manager.local.snapshot-interval=PT24H",
+      "device-manager.local.device-store=jpa"})
+  class LocalJpa extends Workload {
+
+    @DynamicPropertySource
+    static void dataDir(DynamicPropertyRegistry registry) throws IOException {
+      String dataDir = Files.createTempDirectory("device-manager-local").toString();
+      registry.add("device-manager.local.data-dir", () -> dataDir);
+    }
+
+    @Override
+    String label() {
+      return "local, jpa";
+    }
+  }
+
+  @Nested
+  @SpringBootTest
+  @AutoConfigureMockMvc
+  @ActiveProfiles("benchmark")
+  class InMemory extends Workload {
+
+    @Override
+    String label() {
+      return "in-memory";
+    }
+  }
+
+  @Nested
+  @SpringBootTest
+  @AutoConfigureMockMvc
+  @EnabledIfSystemProperty(named = "benchmark.postgres.url", matches = ".+")
+  @ActiveProfiles("benchmark")
+  @TestPropertySource(properties = "spring.datasource.url=${benchmark.postgres.url}")
+  class Postgres extends Workload {
+
+    @Override
+    String label() {
+      return "postgres";
+    }
+  }
+}
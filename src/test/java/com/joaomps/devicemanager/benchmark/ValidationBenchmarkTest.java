@@ -0,0 +1,143 @@
+package com.joaomps.devicemanager.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.joaomps.devicemanager.controller.DeviceController;
+import com.joaomps.devicemanager.dto.DeviceCreationRequest;
+import com.joaomps.devicemanager.exception.GlobalExceptionHandler;
+import com.joaomps.devicemanager.validation.DeviceValidator;
+import com.sun.management.ThreadMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.MethodParameter;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.Validator;
+import org.springframework.validation.beanvalidation.LocalValidatorFactoryBean;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+
+/**
+ * Compares time and allocation per request body of validating device creations, and building
+ * the 400 response body, with Bean Validation and the previous error map against
+ * {@link DeviceValidator} and the current {@link GlobalExceptionHandler}. Runs in a single
+ * thread without a Spring context, so only the validation step is measured. Run with
+ * {@code -Pbenchmark}.
+ */
+@Tag("benchmark")
+class ValidationBenchmarkTest {
+
+  private static final int WARMUP_ITERATIONS = 200_000;
+  private static final int ITERATIONS = 1_000_000;
+
+  private static final DeviceCreationRequest[] VALID = {
+      new DeviceCreationRequest("Device1", "Apple")};
+  private static final DeviceCreationRequest[] ONE_ERROR = {
+      new DeviceCreationRequest("", "Apple"), new DeviceCreationRequest("Device1", " ")};
+  private static final DeviceCreationRequest[] TWO_ERRORS = {
+      new DeviceCreationRequest(null, "\t")};
+
+  private final ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+  private final DeviceValidator deviceValidator = new DeviceValidator();
+  private final GlobalExceptionHandler handler = new GlobalExceptionHandler();
+  private LocalValidatorFactoryBean beanValidator;
+  private MethodParameter parameter;
+
+  @BeforeEach
+  void setUp() throws NoSuchMethodException {
+    beanValidator = new LocalValidatorFactoryBean();
+    beanValidator.afterPropertiesSet();
+    parameter = new MethodParameter(
+        DeviceController.class.getMethod("createDevice", DeviceCreationRequest.class), 0);
+  }
+
+  @AfterEach
+  void tearDown() {
+    beanValidator.close();
+  }
+
+  @Test
+  void compareValidators() {
+    report("valid", VALID);
+    report("one blank field", ONE_ERROR);
+    report("two blank fields", TWO_ERRORS);
+  }
+
+  private void report(String label, DeviceCreationRequest[] requests) {
+    Function<DeviceCreationRequest, Map<String, String>> before =
+        request -> previousErrorBody(validate(beanValidator, request));
+    Function<DeviceCreationRequest, Map<String, String>> after =
+        request -> errorBody(validate(deviceValidator, request));
+    for (DeviceCreationRequest request : requests) {
+      assertEquals(before.apply(request), after.apply(request));
+    }
+
+    Result beanValidation = measure(before, requests);
+    Result handWritten = measure(after, requests);
+    System.out.printf("[%s] bean validation %.0f ns/op %d B/op | hand-written %.0f ns/op %d B/op%n",
+        label, beanValidation.nanosPerOp(), beanValidation.bytesPerOp(),
+        handWritten.nanosPerOp(), handWritten.bytesPerOp());
+  }
+
+  private Result measure(Function<DeviceCreationRequest, Map<String, String>> path,
+      DeviceCreationRequest[] requests) {
+    int sink = 0;
+    for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+      sink += path.apply(requests[i % requests.length]).size();
+    }
+
+    long threadId = Thread.currentThread().threadId();
+    long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+    long start = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++) {
+      sink += path.apply(requests[i % requests.length]).size();
+    }
+    long elapsed = System.nanoTime() - start;
+    long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+    if (sink < 0) {
+      throw new IllegalStateException();
+    }
+    return new Result((double) elapsed / ITERATIONS, allocated / ITERATIONS);
+  }
+
+  private static BeanPropertyBindingResult validate(Validator validator,
+      DeviceCreationRequest request) {
+    BeanPropertyBindingResult result = new BeanPropertyBindingResult(request,
+        "deviceCreationRequest");
+    validator.validate(request, result);
+    return result;
+  }
+
+  private Map<String, String> errorBody(BeanPropertyBindingResult result) {
+    if (!result.hasErrors()) {
+      return Map.of();
+    }
+    return handler.handleValidationErrors(new MethodArgumentNotValidException(parameter, result));
+  }
+
+  /**
+   * The error body as {@link GlobalExceptionHandler} built it before the fast path.
+   */
+  private Map<String, String> previousErrorBody(BeanPropertyBindingResult result) {
+    if (!result.hasErrors()) {
+      return Map.of();
+    }
+    MethodArgumentNotValidException ex = new MethodArgumentNotValidException(parameter, result);
+    Map<String, String> errors = new HashMap<>();
+    ex.getBindingResult().getAllErrors().forEach(error -> {
+      String fieldName = ((FieldError) error).getField();
+      String errorMessage = error.getDefaultMessage();
+      errors.put(fieldName, errorMessage);
+    });
+    return errors;
+  }
+
+  private record Result(double nanosPerOp, long bytesPerOp) {
+
+  }
+}
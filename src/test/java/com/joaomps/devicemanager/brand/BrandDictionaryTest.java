@@ -0,0 +1,128 @@
+package com.joaomps.devicemanager.brand;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.joaomps.devicemanager.model.Brand;
+import com.joaomps.devicemanager.repository.BrandRepository;
+import com.joaomps.devicemanager.tenant.TenantContext;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class BrandDictionaryTest {
+
+  private BrandRepository brandRepository;
+  private BrandDictionary brandDictionary;
+
+  @BeforeEach
+  void setUp() {
+    brandRepository = mock(BrandRepository.class);
+    brandDictionary = new BrandDictionary(brandRepository, mock(PlatformTransactionManager.class));
+  }
+
+  @Test
+  void resolve_withNewBrand_createsEntryOnce() {
+    when(brandRepository.findByTenantIdAndNormalizedName("acme", "apple"))
+        .thenReturn(Optional.empty());
+    when(brandRepository.saveAndFlush(any())).thenReturn(new Brand(1L, "acme", "apple", "Apple"));
+
+    BrandDictionary.Entry first = brandDictionary.resolve("acme", "Apple");
+    BrandDictionary.Entry second = brandDictionary.resolve("acme", "  apple ");
+
+    assertEquals(new BrandDictionary.Entry(1L, "Apple"), first);
+    assertSame(first, second);
+    verify(brandRepository, times(1)).findByTenantIdAndNormalizedName("acme", "apple");
+    verify(brandRepository, times(1)).saveAndFlush(any());
+  }
+
+  @Test
+  void resolve_inAnotherTenant_createsSeparateEntry() {
+    when(brandRepository.findByTenantIdAndNormalizedName(any(), eq("apple")))
+        .thenReturn(Optional.empty());
+    when(brandRepository.saveAndFlush(any()))
+        .thenReturn(new Brand(1L, "acme", "apple", "Apple"))
+        .thenReturn(new Brand(2L, "globex", "apple", "APPLE"));
+
+    assertEquals(new BrandDictionary.Entry(1L, "Apple"), brandDictionary.resolve("acme", "Apple"));
+    assertEquals(new BrandDictionary.Entry(2L, "APPLE"),
+        brandDictionary.resolve("globex", "APPLE"));
+    ArgumentCaptor<Brand> inserted = ArgumentCaptor.forClass(Brand.class);
+    verify(brandRepository, times(2)).saveAndFlush(inserted.capture());
+    assertEquals(List.of("acme", "globex"),
+        inserted.getAllValues().stream().map(Brand::getTenantId).toList());
+  }
+
+  @Test
+  void resolve_whenCreatedConcurrently_usesStoredEntry() {
+    when(brandRepository.findByTenantIdAndNormalizedName("acme", "sony"))
+        .thenReturn(Optional.empty())
+        .thenReturn(Optional.of(new Brand(2L, "acme", "sony", "Sony")));
+    when(brandRepository.saveAndFlush(any()))
+        .thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+    assertEquals(new BrandDictionary.Entry(2L, "Sony"), brandDictionary.resolve("acme", "SONY"));
+  }
+
+  @Test
+  void resolve_withBlankBrand_returnsNull() {
+    assertNull(brandDictionary.resolve("acme", "  "));
+    verify(brandRepository, never()).findByTenantIdAndNormalizedName(any(), any());
+  }
+
+  @Test
+  void find_withUnknownBrand_doesNotCreateIt() {
+    when(brandRepository.findByTenantIdAndNormalizedName("acme", "nokia"))
+        .thenReturn(Optional.empty());
+
+    assertTrue(TenantContext.callAs("acme", () -> brandDictionary.find("Nokia")).isEmpty());
+    verify(brandRepository, never()).saveAndFlush(any());
+  }
+
+  @Test
+  void filter_beforeBackfill_alsoMatchesByName() {
+    when(brandRepository.findByTenantIdAndNormalizedName("acme", "apple"))
+        .thenReturn(Optional.of(new Brand(1L, "acme", "apple", "Apple")));
+
+    assertEquals(new BrandDictionary.Filter(List.of(1L), "Apple"),
+        TenantContext.callAs("acme", () -> brandDictionary.filter(" APPLE")));
+  }
+
+  @Test
+  void filter_asRoot_matchesEntriesOfEveryTenant() {
+    when(brandRepository.findByNormalizedName("apple")).thenReturn(List.of(
+        new Brand(1L, "acme", "apple", "Apple"), new Brand(2L, "globex", "apple", "APPLE")));
+    brandDictionary.markBackfilled();
+
+    assertEquals(new BrandDictionary.Filter(List.of(1L, 2L), null),
+        brandDictionary.filter("apple"));
+  }
+
+  @Test
+  void filter_afterBackfillWithUnknownBrand_matchesNothing() {
+    when(brandRepository.findByTenantIdAndNormalizedName("acme", "nokia"))
+        .thenReturn(Optional.empty());
+    brandDictionary.markBackfilled();
+
+    assertNull(TenantContext.callAs("acme", () -> brandDictionary.filter("Nokia")));
+  }
+
+  @Test
+  void normalize_ignoresCaseAndWhitespace() {
+    assertEquals("google pixel", BrandDictionary.normalize("  Google \t PIXEL "));
+    assertNull(BrandDictionary.normalize(null));
+  }
+}
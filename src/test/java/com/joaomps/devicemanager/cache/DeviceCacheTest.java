@@ -0,0 +1,149 @@
+package com.joaomps.devicemanager.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.joaomps.devicemanager.cluster.ClusterMembership;
+import com.joaomps.devicemanager.cluster.ConsistentHashRing;
+import com.joaomps.devicemanager.cluster.ShardRebalancedEvent;
+import com.joaomps.devicemanager.event.DeviceChangedEvent;
+import com.joaomps.devicemanager.model.Device;
+import com.joaomps.devicemanager.model.DeviceState;
+import com.joaomps.devicemanager.tenant.TenantContext;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+
+class DeviceCacheTest {
+
+  private static final ClusterMembership SINGLE_NODE = membership("local", List.of());
+
+  private static ClusterMembership membership(String self, List<String> members) {
+    return new ClusterMembership(self, members, ConsistentHashRing.DEFAULT_VIRTUAL_NODES,
+        event -> {
+        });
+  }
+
+  private static DeviceCache cache(int perTenantCapacity, int maxTenants) {
+    return new DeviceCache(perTenantCapacity, maxTenants, Duration.ofMinutes(5), SINGLE_NODE);
+  }
+
+  private static Device device(long id, String tenant) {
+    Device device = new Device(id, "Device" + id, "Brand", DeviceState.AVAILABLE,
+        LocalDateTime.now());
+    device.setTenantId(tenant);
+    return device;
+  }
+
+  private static void load(DeviceCache cache, Device device) {
+    cache.put(device.getTenantId(), cache.stamp(device.getTenantId()), device);
+  }
+
+  @Test
+  void put_beyondTenantCapacity_evictsOnlyThatTenantsEntries() {
+    DeviceCache cache = cache(2, 10);
+    load(cache, device(1L, "small"));
+    for (long id = 100; id < 110; id++) {
+      load(cache, device(id, "large"));
+    }
+
+    assertEquals(2, cache.size("large"));
+    assertEquals(1, cache.size("small"));
+    assertEquals(1L, cache.get("small", 1L).getId());
+    assertNull(cache.get("large", 100L));
+  }
+
+  @Test
+  void get_withOtherTenant_misses() {
+    DeviceCache cache = cache(10, 10);
+    load(cache, device(1L, "tenant-a"));
+
+    assertNull(cache.get("tenant-b", 1L));
+  }
+
+  @Test
+  void put_afterConcurrentChange_isIgnored() {
+    DeviceCache cache = cache(10, 10);
+    Device stale = device(1L, "tenant-a");
+    long stamp = cache.stamp("tenant-a");
+
+    cache.onDeviceChanged(DeviceChangedEvent.saved(device(1L, "tenant-a")));
+    cache.put("tenant-a", stamp, stale);
+
+    assertNull(cache.get("tenant-a", 1L));
+  }
+
+  @Test
+  void onDeviceChanged_replacesAndEvictsEntries() {
+    DeviceCache cache = cache(10, 10);
+    load(cache, device(1L, "tenant-a"));
+    Device updated = device(1L, "tenant-a");
+
+    updated.setName("Renamed");
+    cache.onDeviceChanged(DeviceChangedEvent.saved(updated));
+    assertEquals("Renamed", cache.get("tenant-a", 1L).getName());
+
+    cache.onDeviceChanged(DeviceChangedEvent.deleted(updated));
+    assertNull(cache.get("tenant-a", 1L));
+  }
+
+  @Test
+  void stamp_forRootOrBeyondMaxTenants_disablesCaching() {
+    DeviceCache cache = cache(10, 1);
+    load(cache, device(1L, "tenant-a"));
+
+    assertTrue(cache.stamp(TenantContext.ROOT) < 0);
+    assertTrue(cache.stamp("tenant-b") < 0);
+  }
+
+  @Test
+  void get_returnsCopiesThatDoNotChangeTheEntry() {
+    DeviceCache cache = cache(10, 10);
+    load(cache, device(1L, "tenant-a"));
+
+    Device first = cache.get("tenant-a", 1L);
+    first.setName("Changed by a caller");
+
+    Device second = cache.get("tenant-a", 1L);
+    assertNotSame(first, second);
+    assertEquals("Device1", second.getName());
+  }
+
+  @Test
+  void get_afterTtl_misses() {
+    DeviceCache cache = new DeviceCache(10, 10, Duration.ofNanos(1), SINGLE_NODE);
+    load(cache, device(1L, "tenant-a"));
+
+    assertNull(cache.get("tenant-a", 1L));
+    assertEquals(0, cache.size("tenant-a"));
+  }
+
+  @Test
+  void put_withDeviceOwnedByOtherNode_isIgnored() {
+    ClusterMembership membership = membership("node-a", List.of("node-b"));
+    DeviceCache cache = new DeviceCache(100, 10, Duration.ofMinutes(5), membership);
+    LongStream.rangeClosed(1, 50).forEach(id -> load(cache, device(id, "tenant-a")));
+
+    LongStream.rangeClosed(1, 50).forEach(id -> assertEquals(membership.isLocal(id),
+        cache.get("tenant-a", id) != null));
+  }
+
+  @Test
+  void onShardRebalanced_dropsDevicesNoLongerOwned() {
+    ClusterMembership membership = membership("node-a", List.of());
+    DeviceCache cache = new DeviceCache(100, 10, Duration.ofMinutes(5), membership);
+    LongStream.rangeClosed(1, 50).forEach(id -> load(cache, device(id, "tenant-a")));
+    ConsistentHashRing previous = membership.ring();
+
+    membership.join("node-b");
+    cache.onShardRebalanced(new ShardRebalancedEvent(membership, previous, membership.ring()));
+
+    LongStream.rangeClosed(1, 50).forEach(id -> assertEquals(membership.isLocal(id),
+        cache.get("tenant-a", id) != null));
+    assertTrue(cache.size("tenant-a") < 50);
+  }
+}
@@ -0,0 +1,96 @@
+package com.joaomps.devicemanager.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationEventPublisher;
+
+class ClusterMembershipTest {
+
+  private static final List<String> MEMBERS = List.of("http://node-1:8080", "http://node-2:8080",
+      "http://node-3:8080");
+
+  private static ClusterMembership node(String self, List<String> members,
+      ApplicationEventPublisher publisher) {
+    return new ClusterMembership(self, members, ConsistentHashRing.DEFAULT_VIRTUAL_NODES,
+        publisher);
+  }
+
+  @Test
+  void isLocal_withSeveralInstances_exactlyOneNodeOwnsEachDevice() {
+    List<ClusterMembership> nodes = MEMBERS.stream()
+        .map(self -> node(self, MEMBERS, mock(ApplicationEventPublisher.class)))
+        .toList();
+
+    for (long id = 1; id <= 10_000; id++) {
+      long deviceId = id;
+      long owners = nodes.stream().filter(node -> node.isLocal(deviceId)).count();
+      assertEquals(1, owners);
+      assertEquals(nodes.get(0).ownerOf(deviceId), nodes.get(2).ownerOf(deviceId));
+    }
+  }
+
+  @Test
+  void constructor_withoutMembers_ownsEverything() {
+    ClusterMembership membership = node("local", List.of(), mock(ApplicationEventPublisher.class));
+
+    assertFalse(membership.isClustered());
+    assertTrue(membership.isLocal(42L));
+  }
+
+  @Test
+  void join_withNewNode_publishesRebalanceEvent() {
+    ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+    ClusterMembership membership = node(MEMBERS.get(0), MEMBERS.subList(0, 2), publisher);
+
+    assertTrue(membership.join(MEMBERS.get(2)));
+
+    ArgumentCaptor<ShardRebalancedEvent> event = ArgumentCaptor.forClass(ShardRebalancedEvent.class);
+    verify(publisher, times(1)).publishEvent(event.capture());
+    assertEquals(3, event.getValue().getCurrent().nodes().size());
+    for (long id = 1; id <= 10_000; id++) {
+      if (event.getValue().isLost(id)) {
+        assertEquals(MEMBERS.get(2), membership.ownerOf(id));
+      }
+    }
+  }
+
+  @Test
+  void join_withExistingNode_doesNothing() {
+    ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+    ClusterMembership membership = node(MEMBERS.get(0), MEMBERS, publisher);
+
+    assertFalse(membership.join(MEMBERS.get(1)));
+    verify(publisher, never()).publishEvent(any(ApplicationEvent.class));
+  }
+
+  @Test
+  void leave_withSelf_throwsIllegalArgumentException() {
+    ClusterMembership membership = node(MEMBERS.get(0), MEMBERS,
+        mock(ApplicationEventPublisher.class));
+
+    assertThrows(IllegalArgumentException.class, () -> membership.leave(MEMBERS.get(0)));
+  }
+
+  @Test
+  void leave_withMember_takesOverItsDevices() {
+    ClusterMembership membership = node(MEMBERS.get(0), MEMBERS.subList(0, 2),
+        mock(ApplicationEventPublisher.class));
+
+    assertTrue(membership.leave(MEMBERS.get(1)));
+
+    assertFalse(membership.isClustered());
+    assertTrue(membership.isLocal(7L));
+  }
+}
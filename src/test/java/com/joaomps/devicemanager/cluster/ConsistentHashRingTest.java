@@ -0,0 +1,75 @@
+package com.joaomps.devicemanager.cluster;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class ConsistentHashRingTest {
+
+  private static final int DEVICES = 100_000;
+
+  @Test
+  void ownerOf_isIndependentOfMemberOrder() {
+    ConsistentHashRing ring1 = new ConsistentHashRing(List.of("http://a", "http://b", "http://c"));
+    ConsistentHashRing ring2 = new ConsistentHashRing(List.of("http://c", "http://a", "http://b"));
+
+    for (long id = 1; id <= DEVICES; id++) {
+      assertEquals(ring1.ownerOf(id), ring2.ownerOf(id));
+    }
+  }
+
+  @Test
+  void ownerOf_spreadsSequentialIdsEvenly() {
+    ConsistentHashRing ring = new ConsistentHashRing(
+        List.of("http://a", "http://b", "http://c", "http://d"));
+
+    Map<String, Integer> counts = new HashMap<>();
+    for (long id = 1; id <= DEVICES; id++) {
+      counts.merge(ring.ownerOf(id), 1, Integer::sum);
+    }
+
+    assertEquals(4, counts.size());
+    counts.values().forEach(count ->
+        assertTrue(count > DEVICES / 4 * 0.75 && count < DEVICES / 4 * 1.25,
+            "Unbalanced shard with " + count + " devices"));
+  }
+
+  @Test
+  void withNode_onlyMovesKeysToTheNewNode() {
+    ConsistentHashRing before = new ConsistentHashRing(List.of("http://a", "http://b", "http://c"));
+    ConsistentHashRing after = before.withNode("http://d");
+
+    int moved = 0;
+    for (long id = 1; id <= DEVICES; id++) {
+      String previousOwner = before.ownerOf(id);
+      String currentOwner = after.ownerOf(id);
+      if (!previousOwner.equals(currentOwner)) {
+        assertEquals("http://d", currentOwner);
+        moved++;
+      }
+    }
+
+    assertTrue(moved > DEVICES / 4 * 0.75 && moved < DEVICES / 4 * 1.25,
+        "Unexpected number of moved keys: " + moved);
+  }
+
+  @Test
+  void withoutNode_restoresPreviousOwnership() {
+    ConsistentHashRing ring = new ConsistentHashRing(List.of("http://a", "http://b"));
+    ConsistentHashRing roundTrip = ring.withNode("http://c").withoutNode("http://c");
+
+    for (long id = 1; id <= DEVICES; id++) {
+      assertEquals(ring.ownerOf(id), roundTrip.ownerOf(id));
+    }
+  }
+
+  @Test
+  void constructor_withNoNodes_throwsIllegalArgumentException() {
+    assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(List.of()));
+  }
+}
@@ -6,25 +6,35 @@ import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.joaomps.devicemanager.dto.DeviceCreationRequest;
+import com.joaomps.devicemanager.dto.DeviceLookupResult;
+import com.joaomps.devicemanager.dto.DevicePage;
 import com.joaomps.devicemanager.exception.DeviceNotFoundException;
 import com.joaomps.devicemanager.exception.InvalidOperationException;
 import com.joaomps.devicemanager.model.Device;
 import com.joaomps.devicemanager.model.DeviceState;
+import com.joaomps.devicemanager.registry.DeviceRegistry;
+import com.joaomps.devicemanager.repository.DeviceRepository;
 import com.joaomps.devicemanager.service.DeviceService;
+import com.joaomps.devicemanager.tenant.TenantContext;
 import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
@@ -32,6 +42,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -73,7 +84,8 @@ class DeviceControllerTest {
     mockMvc.perform(post("/api/v1/devices")
             .contentType(MediaType.APPLICATION_JSON)
             .content(objectMapper.writeValueAsString(request)))
-        .andExpect(status().isBadRequest());
+        .andExpect(status().isBadRequest())
+        .andExpect(content().json("{\"name\":\"Name cannot be blank\"}", true));
   }
 
   @Test
@@ -83,7 +95,18 @@ class DeviceControllerTest {
     mockMvc.perform(post("/api/v1/devices")
             .contentType(MediaType.APPLICATION_JSON)
             .content(objectMapper.writeValueAsString(request)))
-        .andExpect(status().isBadRequest());
+        .andExpect(status().isBadRequest())
+        .andExpect(content().json("{\"brand\":\"Brand cannot be blank\"}", true));
+  }
+
+  @Test
+  void createDevice_withMissingFields_returnsAllErrors() throws Exception {
+    mockMvc.perform(post("/api/v1/devices")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"name\":\"  \"}"))
+        .andExpect(status().isBadRequest())
+        .andExpect(content().json(
+            "{\"name\":\"Name cannot be blank\",\"brand\":\"Brand cannot be blank\"}", true));
   }
 
   @Test
@@ -99,6 +122,23 @@ class DeviceControllerTest {
         .andExpect(jsonPath("$.state").value(device.getState().toString()));
   }
 
+  @Test
+  void getDeviceById_withRegisteredDevice_writesViewWithoutEntity() throws Exception {
+    Device device = new Device(1L, "Device1", "BrandA", DeviceState.AVAILABLE,
+        LocalDateTime.of(2024, 5, 1, 12, 30, 15, 250_000_000));
+    DeviceRegistry registry = new DeviceRegistry(mock(DeviceRepository.class), true, 16);
+    registry.put(device);
+    when(deviceService.readRegistered(eq(1L), any())).thenAnswer(
+        invocation -> registry.read(TenantContext.DEFAULT_TENANT, 1L, invocation.getArgument(1)));
+
+    mockMvc.perform(get("/api/v1/devices/1"))
+        .andExpect(status().isOk())
+        .andExpect(content().json("{\"id\":1,\"name\":\"Device1\",\"brand\":\"BrandA\","
+            + "\"state\":\"AVAILABLE\",\"creationTime\":\"2024-05-01T12:30:15.25\","
+            + "\"leaseExpiresAt\":null}", true));
+    verify(deviceService, never()).findById(anyLong());
+  }
+
   @Test
   void getDeviceById_withNonExistingId_returnsNotFound() throws Exception {
     when(deviceService.findById(anyLong())).thenReturn(Optional.empty());
@@ -109,6 +149,59 @@ class DeviceControllerTest {
         .andExpect(status().isNotFound());
   }
 
+  @Test
+  void lookupDevices_returnsFoundAndMissing() throws Exception {
+    Device device = new Device(1L, "Device1", "BrandA", DeviceState.AVAILABLE, LocalDateTime.now());
+    when(deviceService.findAllById(List.of(1L, 2L)))
+        .thenReturn(new DeviceLookupResult(List.of(device), List.of(2L)));
+
+    mockMvc.perform(post("/api/v1/devices/lookup")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"ids\":[1,2,1]}"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.devices", hasSize(1)))
+        .andExpect(jsonPath("$.devices[0].id").value(1))
+        .andExpect(jsonPath("$.missing[0]").value(2));
+  }
+
+  @Test
+  void lookupDevices_withoutIds_returnsBadRequest() throws Exception {
+    mockMvc.perform(post("/api/v1/devices/lookup")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"ids\":[]}"))
+        .andExpect(status().isBadRequest());
+  }
+
+  @Test
+  void getDevicesCreatedAfter_withBrand_returnsPage() throws Exception {
+    LocalDateTime from = LocalDateTime.of(2026, 1, 5, 0, 0);
+    Device device = new Device(1L, "Device1", "BrandA", DeviceState.AVAILABLE, from.plusDays(1));
+    when(deviceService.findCreatedBetween(from, null, "BrandA", null, null, 100))
+        .thenReturn(new DevicePage(List.of(device), "next"));
+
+    mockMvc.perform(get("/api/v1/devices")
+            .param("createdAfter", "2026-01-05T00:00:00")
+            .param("brand", "BrandA"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.devices[0].id").value(1))
+        .andExpect(jsonPath("$.nextCursor").value("next"));
+  }
+
+  @Test
+  void getDevicesCreatedBefore_withStateAndCursor_returnsPage() throws Exception {
+    LocalDateTime to = LocalDateTime.of(2026, 1, 12, 0, 0);
+    when(deviceService.findCreatedBetween(null, to, null, DeviceState.IN_USE, "abc", 10))
+        .thenReturn(new DevicePage(List.of(), null));
+
+    mockMvc.perform(get("/api/v1/devices")
+            .param("createdBefore", "2026-01-12T00:00:00")
+            .param("state", "IN_USE")
+            .param("cursor", "abc")
+            .param("size", "10"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.devices", hasSize(0)));
+  }
+
   @Test
   void getAllDevices_returnsListOfDevices() throws Exception {
     Device device1 = new Device(1L, "Device1", "BrandA", DeviceState.AVAILABLE,
@@ -184,6 +277,26 @@ class DeviceControllerTest {
         .andExpect(status().isConflict());
   }
 
+  @Test
+  void restoreDevice_withinRetention_returnsDevice() throws Exception {
+    Device device = new Device(1L, "TestDevice", "TestBrand", DeviceState.AVAILABLE,
+        LocalDateTime.now());
+    when(deviceService.restoreDevice(1L)).thenReturn(device);
+
+    mockMvc.perform(post("/api/v1/devices/1/restore"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.id").value(1));
+  }
+
+  @Test
+  void restoreDevice_pastRetention_returnsNotFound() throws Exception {
+    when(deviceService.restoreDevice(1L))
+        .thenThrow(new DeviceNotFoundException("Device with id 1 was not found"));
+
+    mockMvc.perform(post("/api/v1/devices/1/restore"))
+        .andExpect(status().isNotFound());
+  }
+
   @Test
   void updateDevice_withValidDetails_returnsUpdatedDevice() throws Exception {
     Device deviceDetails = new Device(null, "UpdatedDevice", "UpdatedBrand", DeviceState.AVAILABLE,
@@ -203,6 +316,17 @@ class DeviceControllerTest {
         .andExpect(jsonPath("$.state").value(updatedDevice.getState().toString()));
   }
 
+  @Test
+  void updateDevice_withBlankName_returnsBadRequest() throws Exception {
+    Device deviceDetails = new Device(null, " ", "UpdatedBrand", DeviceState.AVAILABLE, null);
+
+    mockMvc.perform(put("/api/v1/devices/1")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsString(deviceDetails)))
+        .andExpect(status().isBadRequest())
+        .andExpect(content().json("{\"name\":\"Name cannot be blank\"}", true));
+  }
+
   @Test
   void updateDevice_withNonExistingId_returnsNotFound() throws Exception {
     Device deviceDetails = new Device(null, "UpdatedDevice", "UpdatedBrand", DeviceState.AVAILABLE,
@@ -293,4 +417,17 @@ class DeviceControllerTest {
             .content(objectMapper.writeValueAsString(updates)))
         .andExpect(status().isConflict());
   }
+
+  @Test
+  void partialUpdateDevice_withConcurrentWrite_returnsConflict() throws Exception {
+    doThrow(new ObjectOptimisticLockingFailureException(Device.class, 1L))
+        .when(deviceService).partialUpdateDevice(eq(1L), any(Map.class));
+
+    mockMvc.perform(patch("/api/v1/devices/1")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"name\":\"UpdatedDevice\"}"))
+        .andExpect(status().isConflict())
+        .andExpect(jsonPath("$.error").value(
+            "The device was changed by another request, retry with its current state"));
+  }
 }
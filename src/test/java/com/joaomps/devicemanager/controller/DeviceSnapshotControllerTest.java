@@ -0,0 +1,27 @@
+package com.joaomps.devicemanager.controller;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class DeviceSnapshotControllerTest {
+
+  @Test
+  void acceptsGzip_withListedOrWildcardCoding_acceptsIt() {
+    assertTrue(DeviceSnapshotController.acceptsGzip("gzip"));
+    assertTrue(DeviceSnapshotController.acceptsGzip("deflate, gzip;q=0.5"));
+    assertTrue(DeviceSnapshotController.acceptsGzip("br;q=1.0, *;q=0.1"));
+    assertTrue(DeviceSnapshotController.acceptsGzip("X-GZIP"));
+  }
+
+  @Test
+  void acceptsGzip_withZeroQualityOrOtherCodings_refusesIt() {
+    assertFalse(DeviceSnapshotController.acceptsGzip(null));
+    assertFalse(DeviceSnapshotController.acceptsGzip("gzip;q=0"));
+    assertFalse(DeviceSnapshotController.acceptsGzip("gzip; q=0.0, *"));
+    assertFalse(DeviceSnapshotController.acceptsGzip("*;q=0"));
+    assertFalse(DeviceSnapshotController.acceptsGzip("deflate, br"));
+    assertFalse(DeviceSnapshotController.acceptsGzip("identity, gzipped"));
+  }
+}
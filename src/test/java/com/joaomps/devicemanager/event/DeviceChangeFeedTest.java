@@ -0,0 +1,94 @@
+package com.joaomps.devicemanager.event;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.joaomps.devicemanager.model.Device;
+import com.joaomps.devicemanager.model.DeviceState;
+import com.joaomps.devicemanager.repository.DeviceRepository;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.QueryTimeoutException;
+
+class DeviceChangeFeedTest {
+
+  private DeviceRepository deviceRepository;
+  private ApplicationEventPublisher eventPublisher;
+  private DeviceChangeFeed feed;
+
+  private static Device device(long id, LocalDateTime updatedAt) {
+    Device device = new Device(id, "Device" + id, "Brand", DeviceState.AVAILABLE, null);
+    device.setUpdatedAt(updatedAt);
+    return device;
+  }
+
+  @BeforeEach
+  void setUp() {
+    deviceRepository = mock(DeviceRepository.class);
+    eventPublisher = mock(ApplicationEventPublisher.class);
+    feed = new DeviceChangeFeed(deviceRepository, eventPublisher, Duration.ofSeconds(10));
+  }
+
+  @Test
+  void poll_publishesSavedAndDeletedDevices() {
+    LocalDateTime now = LocalDateTime.now();
+    Device deleted = device(2L, now);
+    deleted.setDeletedAt(now);
+    when(deviceRepository.findChangedSince(any(), any(), anyLong(), anyInt()))
+        .thenReturn(List.of(device(1L, now), deleted));
+
+    assertEquals(2, feed.poll());
+
+    ArgumentCaptor<DeviceChangedEvent> events = ArgumentCaptor.forClass(DeviceChangedEvent.class);
+    verify(eventPublisher, times(2)).publishEvent(events.capture());
+    assertEquals(DeviceChangedEvent.Type.SAVED, events.getAllValues().get(0).type());
+    assertEquals(DeviceChangedEvent.Type.DELETED, events.getAllValues().get(1).type());
+  }
+
+  @Test
+  void poll_skipsChangesAlreadyPublished() {
+    LocalDateTime now = LocalDateTime.now();
+    when(deviceRepository.findChangedSince(any(), any(), anyLong(), anyInt()))
+        .thenReturn(List.of(device(1L, now)))
+        .thenReturn(List.of(device(1L, now), device(2L, now)))
+        .thenReturn(List.of(device(1L, now.plusSeconds(1))));
+
+    assertEquals(1, feed.poll());
+    assertEquals(1, feed.poll());
+    assertEquals(1, feed.poll());
+    verify(eventPublisher, times(3)).publishEvent(any(DeviceChangedEvent.class));
+  }
+
+  @Test
+  void poll_readsFromOverlapBeforeNewestChange() {
+    LocalDateTime newest = LocalDateTime.now().plusMinutes(1);
+    when(deviceRepository.findChangedSince(any(), any(), anyLong(), anyInt()))
+        .thenReturn(List.of(device(1L, newest)))
+        .thenReturn(List.of());
+
+    feed.poll();
+    feed.poll();
+
+    verify(deviceRepository).findChangedSince(newest.minusSeconds(10), newest.minusSeconds(10),
+        0L, DeviceChangeFeed.PAGE_SIZE);
+  }
+
+  @Test
+  void poll_withDatabaseError_publishesNothing() {
+    when(deviceRepository.findChangedSince(any(), any(), anyLong(), anyInt()))
+        .thenThrow(new QueryTimeoutException("timeout"));
+
+    assertEquals(0, feed.poll());
+  }
+}
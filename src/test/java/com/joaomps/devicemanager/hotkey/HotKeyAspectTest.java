@@ -0,0 +1,75 @@
+package com.joaomps.devicemanager.hotkey;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.joaomps.devicemanager.controller.DeviceController;
+import com.joaomps.devicemanager.model.Device;
+import com.joaomps.devicemanager.model.DeviceState;
+import com.joaomps.devicemanager.service.DeviceService;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+class HotKeyAspectTest {
+
+  private HotKeyTracker tracker;
+  private DeviceService target;
+  private DeviceService deviceService;
+
+  @BeforeEach
+  void setUp() {
+    tracker = new HotKeyTracker(true, 1.0, 16);
+    target = mock(DeviceService.class);
+    AspectJProxyFactory factory = new AspectJProxyFactory(target);
+    factory.setProxyTargetClass(true);
+    factory.addAspect(new HotKeyAspect(tracker));
+    deviceService = factory.getProxy();
+  }
+
+  @Test
+  void getDevice_servedFromRegistry_countsOneRead() {
+    when(target.readRegistered(eq(1L), any())).thenReturn(true);
+
+    new DeviceController(deviceService).getDeviceById(1L);
+
+    HotKeyTracker.HotKey hotKey = tracker.top(1).getFirst();
+    assertEquals(1, hotKey.accesses());
+    assertEquals(0, hotKey.writes());
+  }
+
+  @Test
+  void getDevice_missingFromRegistry_countsOneRead() {
+    when(target.readRegistered(eq(1L), any())).thenReturn(false);
+    when(target.findById(1L)).thenReturn(Optional.of(new Device(1L, "Device1", "BrandA",
+        DeviceState.AVAILABLE, LocalDateTime.now())));
+
+    new DeviceController(deviceService).getDeviceById(1L);
+
+    HotKeyTracker.HotKey hotKey = tracker.top(1).getFirst();
+    assertEquals(1, hotKey.accesses());
+    assertEquals(0, hotKey.writes());
+  }
+
+  @Test
+  void deleteById_withConcurrentWrite_countsWriteAndConflict() {
+    doThrow(new ObjectOptimisticLockingFailureException(Device.class, 1L))
+        .when(target).deleteById(1L);
+
+    assertThrows(ObjectOptimisticLockingFailureException.class,
+        () -> deviceService.deleteById(1L));
+
+    HotKeyTracker.HotKey hotKey = tracker.top(1).getFirst();
+    assertEquals(1, hotKey.accesses());
+    assertEquals(1, hotKey.writes());
+    assertEquals(1, hotKey.conflicts());
+  }
+}
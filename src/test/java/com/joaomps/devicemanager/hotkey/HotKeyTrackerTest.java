@@ -0,0 +1,88 @@
+package com.joaomps.devicemanager.hotkey;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class HotKeyTrackerTest {
+
+  @Test
+  void top_findsHeavyHittersAmongManyColdDevices() {
+    HotKeyTracker tracker = new HotKeyTracker(true, 1.0, 16);
+    for (int i = 0; i < 5_000; i++) {
+      tracker.recordAccess(1_000 + i, false);
+      if (i % 5 == 0) {
+        tracker.recordAccess(7, true);
+      }
+      if (i % 10 == 0) {
+        tracker.recordAccess(8, false);
+      }
+    }
+
+    List<HotKeyTracker.HotKey> top = tracker.top(2);
+
+    assertEquals(7, top.get(0).deviceId());
+    assertEquals(8, top.get(1).deviceId());
+    HotKeyTracker.HotKey hottest = top.getFirst();
+    assertTrue(hottest.accesses() - hottest.error() <= 1_000 && hottest.accesses() >= 1_000);
+    assertEquals(1_000, hottest.writes());
+  }
+
+  @Test
+  void top_reportsConflictRate() {
+    HotKeyTracker tracker = new HotKeyTracker(true, 1.0, 16);
+    for (int i = 0; i < 100; i++) {
+      tracker.recordAccess(7, true);
+      if (i % 4 == 0) {
+        tracker.recordConflict(7);
+      }
+    }
+
+    HotKeyTracker.HotKey hotKey = tracker.top(1).getFirst();
+
+    assertEquals(25, hotKey.conflicts());
+    assertEquals(0.25, hotKey.conflictRate(), 1e-9);
+  }
+
+  @Test
+  void recordAccess_fromConcurrentThreads_countsEveryAccess() throws Exception {
+    HotKeyTracker tracker = new HotKeyTracker(true, 1.0, 128);
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < 8; t++) {
+      threads.add(Thread.ofPlatform().start(() -> {
+        for (int i = 0; i < 1_600; i++) {
+          tracker.recordAccess(i % 16, false);
+        }
+      }));
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+
+    List<HotKeyTracker.HotKey> top = tracker.top(20);
+
+    assertEquals(16, top.size());
+    for (HotKeyTracker.HotKey hotKey : top) {
+      assertEquals(800, hotKey.accesses());
+      assertEquals(0, hotKey.error());
+    }
+  }
+
+  @Test
+  void decay_halvesCountsAndDropsColdDevices() {
+    HotKeyTracker tracker = new HotKeyTracker(true, 1.0, 16);
+    for (int i = 0; i < 10; i++) {
+      tracker.recordAccess(7, false);
+    }
+    tracker.recordAccess(8, false);
+
+    tracker.decay();
+
+    List<HotKeyTracker.HotKey> top = tracker.top(10);
+    assertEquals(1, top.size());
+    assertEquals(5, top.getFirst().accesses());
+  }
+}
@@ -0,0 +1,79 @@
+package com.joaomps.devicemanager.idempotency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.mock;
+
+import com.joaomps.devicemanager.repository.IdempotencyRecordRepository;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+class IdempotencyFilterTest {
+
+  private final AtomicInteger executions = new AtomicInteger();
+  private IdempotencyFilter filter;
+  private FilterChain chain;
+
+  @BeforeEach
+  void setUp() {
+    IdempotencyStore store = new IdempotencyStore(mock(IdempotencyRecordRepository.class),
+        Duration.ofHours(1), 100, false, Duration.ofMinutes(1));
+    filter = new IdempotencyFilter(store, Duration.ofSeconds(1));
+    chain = (request, response) -> {
+      request.getInputStream().readAllBytes();
+      ((HttpServletResponse) response).setStatus(201);
+      ((HttpServletResponse) response).setHeader("Location",
+          "/api/v1/devices/" + (executions.get() + 1));
+      response.setContentType("application/json");
+      response.getWriter().write("{\"id\":" + executions.incrementAndGet() + "}");
+    };
+  }
+
+  @Test
+  void retry_withSameKeyAndBody_replaysOriginalResponse() throws Exception {
+    MockHttpServletResponse first = send("key-1", "{\"name\":\"a\"}");
+    MockHttpServletResponse retry = send("key-1", "{\"name\":\"a\"}");
+
+    assertEquals(1, executions.get());
+    assertEquals(201, retry.getStatus());
+    assertEquals(first.getContentAsString(), retry.getContentAsString());
+    assertEquals("/api/v1/devices/1", retry.getHeader("Location"));
+    assertEquals("true", retry.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+    assertNull(first.getHeader(IdempotencyFilter.REPLAYED_HEADER));
+  }
+
+  @Test
+  void retry_withDifferentBody_isRejected() throws Exception {
+    send("key-1", "{\"name\":\"a\"}");
+    MockHttpServletResponse retry = send("key-1", "{\"name\":\"b\"}");
+
+    assertEquals(1, executions.get());
+    assertEquals(422, retry.getStatus());
+  }
+
+  @Test
+  void requests_withoutKey_alwaysExecute() throws Exception {
+    send(null, "{}");
+    send(null, "{}");
+
+    assertEquals(2, executions.get());
+  }
+
+  private MockHttpServletResponse send(String key, String body) throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/devices");
+    request.setContent(body.getBytes(StandardCharsets.UTF_8));
+    if (key != null) {
+      request.addHeader(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, key);
+    }
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(request, response, chain);
+    return response;
+  }
+}
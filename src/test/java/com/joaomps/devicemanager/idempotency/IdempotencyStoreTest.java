@@ -0,0 +1,142 @@
+package com.joaomps.devicemanager.idempotency;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.joaomps.devicemanager.idempotency.IdempotencyStore.StoredResponse;
+import com.joaomps.devicemanager.model.IdempotencyRecord;
+import com.joaomps.devicemanager.repository.IdempotencyRecordRepository;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+
+class IdempotencyStoreTest {
+
+  private IdempotencyRecordRepository repository;
+  private IdempotencyStore store;
+
+  @BeforeEach
+  void setUp() {
+    repository = mock(IdempotencyRecordRepository.class);
+    store = new IdempotencyStore(repository, Duration.ofHours(1), 2, false, Duration.ofMinutes(1));
+  }
+
+  @Test
+  void claim_whileInFlight_coalescesOnOriginal() {
+    assertNull(store.claim("k", "f"));
+
+    CompletableFuture<StoredResponse> duplicate = store.claim("k", "f");
+    assertNotNull(duplicate);
+    assertFalse(duplicate.isDone());
+
+    StoredResponse response = new StoredResponse("f", 201, "application/json", new byte[]{1});
+    store.complete("k", response);
+
+    assertEquals(201, duplicate.join().status());
+    assertEquals(201, store.claim("k", "f").join().status());
+    verify(repository, never()).save(any());
+  }
+
+  @Test
+  void complete_withoutResponse_releasesKey() {
+    assertNull(store.claim("k", "f"));
+    CompletableFuture<StoredResponse> duplicate = store.claim("k", "f");
+
+    store.complete("k", null);
+
+    assertNull(duplicate.join());
+    assertNull(store.claim("k", "f"));
+  }
+
+  @Test
+  void complete_beyondCapacity_evictsLeastRecentlyUsed() {
+    for (String key : new String[]{"a", "b", "c"}) {
+      store.claim(key, "f");
+      store.complete(key, new StoredResponse("f", 200, null, new byte[0]));
+    }
+
+    assertEquals(2, store.size());
+    assertNull(store.claim("a", "f"));
+  }
+
+  @Test
+  void claim_afterTtl_runsAgain() {
+    store = new IdempotencyStore(repository, Duration.ZERO, 10, false, Duration.ofMinutes(1));
+    store.claim("k", "f");
+    store.complete("k", new StoredResponse("f", 200, null, new byte[0]));
+
+    assertNull(store.claim("k", "f"));
+  }
+
+  @Test
+  void claim_whenPersistent_insertsClaimBeforeRunning() {
+    store = new IdempotencyStore(repository, Duration.ofHours(1), 10, true, Duration.ofMinutes(1));
+
+    assertNull(store.claim("k", "f"));
+
+    verify(repository).insertClaim(eq("k"), eq("f"), any());
+  }
+
+  @Test
+  void claim_whenHeldByOtherNode_waitsForItsResponse() {
+    store = new IdempotencyStore(repository, Duration.ofHours(1), 10, true, Duration.ofMinutes(1));
+    when(repository.insertClaim(eq("k"), eq("f"), any()))
+        .thenThrow(new DataIntegrityViolationException("duplicate key"));
+    IdempotencyRecord pending = new IdempotencyRecord("k", "f", IdempotencyRecord.PENDING, null,
+        null, null, LocalDateTime.now().plusMinutes(1));
+    IdempotencyRecord done = new IdempotencyRecord("k", "f", 201, "application/json",
+        "Location: /api/v1/devices/7\n", "{}", LocalDateTime.now().plusHours(1));
+    when(repository.findByIdAndExpiresAtAfter(eq("k"), any()))
+        .thenReturn(Optional.of(pending), Optional.of(pending), Optional.of(done));
+
+    CompletableFuture<StoredResponse> original = store.claim("k", "f");
+
+    assertNotNull(original);
+    StoredResponse response = original.join();
+    assertEquals(201, response.status());
+    assertEquals(List.of("/api/v1/devices/7"), response.headers().get("Location"));
+  }
+
+  @Test
+  void claim_withExpiredClaimOfOtherNode_takesItOver() {
+    store = new IdempotencyStore(repository, Duration.ofHours(1), 10, true, Duration.ofMinutes(1));
+    when(repository.insertClaim(eq("k"), eq("f"), any()))
+        .thenThrow(new DataIntegrityViolationException("duplicate key"))
+        .thenReturn(1);
+    when(repository.deleteIfExpired(eq("k"), any())).thenReturn(1);
+
+    assertNull(store.claim("k", "f"));
+  }
+
+  @Test
+  void complete_whenPersistentWithoutResponse_releasesClaim() {
+    store = new IdempotencyStore(repository, Duration.ofHours(1), 10, true, Duration.ofMinutes(1));
+    store.claim("k", "f");
+
+    store.complete("k", null);
+
+    verify(repository).releaseClaim("k");
+  }
+
+  @Test
+  void key_isScopedByTenant() {
+    String key = IdempotencyStore.key("a", "POST", "/api/v1/devices", "123");
+
+    assertEquals(64, key.length());
+    assertNotEquals(key, IdempotencyStore.key("b", "POST", "/api/v1/devices", "123"));
+  }
+}
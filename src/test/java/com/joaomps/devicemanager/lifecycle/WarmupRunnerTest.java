@@ -0,0 +1,97 @@
+package com.joaomps.devicemanager.lifecycle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.joaomps.devicemanager.cluster.ClusterCredentials;
+import com.joaomps.devicemanager.model.Device;
+import com.joaomps.devicemanager.repository.DeviceRepository;
+import com.joaomps.devicemanager.service.DeviceService;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.QueryTimeoutException;
+
+class WarmupRunnerTest {
+
+  private LifecycleHealthIndicator lifecycle;
+  private DataSource dataSource;
+  private Connection connection;
+  private DeviceRepository deviceRepository;
+  private DeviceService deviceService;
+  private WarmupRunner runner;
+
+  @BeforeEach
+  void setUp() throws SQLException {
+    lifecycle = new LifecycleHealthIndicator();
+    dataSource = mock(DataSource.class);
+    connection = mock(Connection.class);
+    when(dataSource.getConnection()).thenReturn(connection);
+    deviceRepository = mock(DeviceRepository.class);
+    deviceService = mock(DeviceService.class);
+    runner = new WarmupRunner(lifecycle, dataSource, deviceRepository, deviceService,
+        mock(ClusterCredentials.class), true, 3, 2, 10, Duration.ofSeconds(5));
+  }
+
+  @Test
+  void run_prefillsPoolAndCacheThenReportsReady() throws SQLException {
+    Device first = device(2L);
+    Device second = device(1L);
+    when(deviceRepository.findAllByOrderByIdDesc(any())).thenReturn(List.of(first, second));
+    lifecycle.warmingUp();
+    assertEquals(Status.OUT_OF_SERVICE, lifecycle.health().getStatus());
+
+    runner.run();
+
+    verify(dataSource, times(3)).getConnection();
+    verify(connection, times(3)).close();
+    verify(deviceService).findById(2L);
+    verify(deviceService).findById(1L);
+    assertEquals(LifecycleHealthIndicator.Phase.READY, lifecycle.phase());
+    assertEquals(Status.UP, lifecycle.health().getStatus());
+  }
+
+  @Test
+  void run_withDatabaseDown_stillReportsReady() throws SQLException {
+    when(dataSource.getConnection()).thenThrow(new SQLException("refused"));
+    when(deviceRepository.findAllByOrderByIdDesc(any()))
+        .thenThrow(new QueryTimeoutException("timeout"));
+
+    runner.run();
+
+    assertEquals(Status.UP, lifecycle.health().getStatus());
+  }
+
+  @Test
+  void shutdownDrain_takesInstanceOutOfService() {
+    lifecycle.ready(Map.of());
+    ShutdownDrain drain = new ShutdownDrain(lifecycle, mock(ApplicationEventPublisher.class),
+        Duration.ZERO);
+    drain.start();
+
+    drain.stop();
+
+    assertEquals(Status.OUT_OF_SERVICE, lifecycle.health().getStatus());
+    assertFalse(drain.isRunning());
+  }
+
+  private static Device device(Long id) {
+    Device device = new Device();
+    device.setId(id);
+    device.setName("Device " + id);
+    device.setTenantId("acme");
+    return device;
+  }
+}
@@ -0,0 +1,177 @@
+package com.joaomps.devicemanager.local;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.joaomps.devicemanager.model.Device;
+import com.joaomps.devicemanager.model.DeviceState;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DeviceLogStoreTest {
+
+  private static final LocalDateTime NOW = LocalDateTime.of(2026, 3, 1, 12, 0, 0, 123_456_000);
+
+  @TempDir
+  private Path directory;
+
+  private DeviceLogStore store;
+
+  @AfterEach
+  void tearDown() throws IOException {
+    store.close();
+  }
+
+  private DeviceLogStore open() throws IOException {
+    if (store != null) {
+      store.close();
+    }
+    store = new DeviceLogStore(directory, 0, Long.MAX_VALUE, 2);
+    return store;
+  }
+
+  private Device put(String name, Long brandId, DeviceState state) {
+    return store.write(() -> {
+      Device device = new Device(store.nextId(), "acme", name, "Brand", brandId, state, NOW,
+          null, null, null, NOW, 0);
+      store.put(device);
+      return device;
+    });
+  }
+
+  private List<String> files() throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.map(file -> file.getFileName().toString()).sorted().toList();
+    }
+  }
+
+  @Test
+  void reopen_recoversDevicesAndIndexes() throws IOException {
+    open();
+    put("Sensör", 7L, DeviceState.AVAILABLE);
+    Device second = put("Camera", null, DeviceState.IN_USE);
+    store.write(() -> {
+      Device changed = second.copy();
+      changed.setState(DeviceState.INACTIVE);
+      changed.setLeaseToken("token");
+      store.put(changed);
+      return null;
+    });
+
+    open();
+
+    Device recovered = store.read(() -> store.get(2L));
+    assertEquals("Camera", recovered.getName());
+    assertEquals("acme", recovered.getTenantId());
+    assertEquals("token", recovered.getLeaseToken());
+    assertEquals(NOW, recovered.getCreationTime());
+    assertNull(recovered.getBrandId());
+    assertEquals(Set.of(1L), store.read(() -> store.idsWithBrandId(7L)));
+    assertEquals(Set.of(2L), store.read(() -> store.idsWithoutBrandId("Brand")));
+    assertEquals(Set.of(), store.read(() -> store.idsInState(DeviceState.IN_USE)));
+    assertEquals(Set.of(2L), store.read(() -> store.idsInState(DeviceState.INACTIVE)));
+    long nextId = store.write(store::nextId);
+    assertEquals(3L, nextId);
+  }
+
+  @Test
+  void reopen_withTornLastRecord_dropsOnlyThatRecord() throws IOException {
+    open();
+    put("First", 7L, DeviceState.AVAILABLE);
+    put("Second", 7L, DeviceState.AVAILABLE);
+    store.close();
+    Path segment = directory.resolve(files().getFirst());
+    try (FileChannel file = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+      file.truncate(file.size() - 3);
+    }
+
+    open();
+
+    assertEquals(Set.of(1L), store.read(() -> store.devices().keySet()));
+    put("Third", 7L, DeviceState.AVAILABLE);
+    open();
+    assertEquals(Set.of(1L, 2L), store.read(() -> store.devices().keySet()));
+    assertEquals("Third", store.read(() -> store.get(2L)).getName());
+  }
+
+  @Test
+  void compact_replacesSegmentsWithSnapshot() throws IOException {
+    open();
+    put("First", 7L, DeviceState.AVAILABLE);
+    put("Second", 7L, DeviceState.AVAILABLE);
+    store.write(() -> {
+      store.remove(2L);
+      return null;
+    });
+
+    store.compact();
+    put("Third", 8L, DeviceState.AVAILABLE);
+
+    assertEquals(List.of("devices-00000000000000000002.log", "devices-00000000000000000002.snap"),
+        files());
+    open();
+    assertEquals(Set.of(1L, 3L), store.read(() -> store.devices().keySet()));
+    assertEquals(Set.of(3L), store.read(() -> store.idsWithBrandId(8L)));
+  }
+
+  @Test
+  void compact_keepsIdsOfRemovedDevicesUsed() throws IOException {
+    open();
+    put("First", 7L, DeviceState.AVAILABLE);
+    put("Second", 7L, DeviceState.AVAILABLE);
+    store.write(() -> {
+      store.remove(2L);
+      return null;
+    });
+    store.compact();
+
+    open();
+
+    long nextId = store.write(store::nextId);
+    assertEquals(3L, nextId);
+  }
+
+  @Test
+  void compact_keepsOnlyNewestSnapshots() throws IOException {
+    open();
+    for (int i = 0; i < 3; i++) {
+      put("Device" + i, 7L, DeviceState.AVAILABLE);
+      store.compact();
+    }
+
+    assertEquals(List.of("devices-00000000000000000003.snap", "devices-00000000000000000004.log",
+        "devices-00000000000000000004.snap"), files());
+  }
+
+  @Test
+  void write_whenChangeThrows_logsWhatItChanged() throws IOException {
+    open();
+
+    assertThrows(IllegalArgumentException.class, () -> store.write(() -> {
+      store.put(new Device(store.nextId(), "Kept", "Brand", DeviceState.AVAILABLE, NOW));
+      throw new IllegalArgumentException("stale");
+    }));
+
+    open();
+    assertEquals("Kept", store.read(() -> store.get(1L)).getName());
+  }
+
+  @Test
+  void put_outsideWrite_throwsIllegalStateException() throws IOException {
+    open();
+
+    assertThrows(IllegalStateException.class,
+        () -> store.put(new Device(1L, "Device", "Brand", DeviceState.AVAILABLE, NOW)));
+  }
+}
@@ -0,0 +1,95 @@
+package com.joaomps.devicemanager.local;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.stream.Stream;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+
+class LocalSnapshotSchedulerTest {
+
+  @TempDir
+  private Path dataDir;
+
+  private DataSource dataSource;
+  private Connection connection;
+  private Statement statement;
+  private ObjectProvider<DeviceLogStore> deviceLogStore;
+  private LocalSnapshotScheduler scheduler;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setUp() throws SQLException {
+    dataSource = mock(DataSource.class);
+    connection = mock(Connection.class);
+    statement = mock(Statement.class);
+    when(dataSource.getConnection()).thenReturn(connection);
+    when(connection.createStatement()).thenReturn(statement);
+    when(statement.execute(anyString())).thenAnswer(invocation -> {
+      String sql = invocation.getArgument(0);
+      Files.writeString(Path.of(sql.substring(sql.indexOf('\'') + 1, sql.lastIndexOf('\''))),
+          "snapshot");
+      return false;
+    });
+    deviceLogStore = mock(ObjectProvider.class);
+    scheduler = new LocalSnapshotScheduler(dataSource, deviceLogStore, dataDir.toString(), 2);
+  }
+
+  @Test
+  void snapshot_backsUpIntoSnapshotDirectory() throws SQLException {
+    Path snapshot = scheduler.snapshot();
+
+    assertTrue(Files.exists(snapshot));
+    assertEquals(dataDir.resolve("snapshots"), snapshot.getParent());
+    verify(statement).execute("BACKUP TO '" + snapshot.toAbsolutePath() + "'");
+    verify(connection).close();
+  }
+
+  @Test
+  void snapshot_keepsOnlyNewestSnapshots() throws IOException {
+    Path directory = Files.createDirectories(dataDir.resolve("snapshots"));
+    Files.writeString(directory.resolve("devicedb-20260101-000000.zip"), "old");
+    Files.writeString(directory.resolve("devicedb-20260102-000000.zip"), "newer");
+    Files.writeString(directory.resolve("notes.txt"), "unrelated");
+
+    Path snapshot = scheduler.snapshot();
+
+    try (Stream<Path> files = Files.list(directory)) {
+      assertEquals(List.of("devicedb-20260102-000000.zip", snapshot.getFileName().toString(),
+          "notes.txt"), files.map(file -> file.getFileName().toString()).sorted().toList());
+    }
+  }
+
+  @Test
+  void snapshot_compactsDeviceLog() throws IOException {
+    DeviceLogStore store = mock(DeviceLogStore.class);
+    when(deviceLogStore.getIfAvailable()).thenReturn(store);
+
+    scheduler.snapshot();
+
+    verify(store).compact();
+  }
+
+  @Test
+  void snapshot_whenBackupFails_returnsNull() throws SQLException {
+    when(statement.execute(anyString())).thenThrow(new SQLException("disk full"));
+
+    assertNull(scheduler.snapshot());
+  }
+}
@@ -0,0 +1,297 @@
+package com.joaomps.devicemanager.local;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.joaomps.devicemanager.model.Device;
+import com.joaomps.devicemanager.model.DeviceState;
+import com.joaomps.devicemanager.tenant.TenantContext;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.Limit;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+class LogDeviceRepositoryTest {
+
+  private static final LocalDateTime NOW = LocalDateTime.of(2026, 3, 1, 12, 0);
+
+  @TempDir
+  private Path directory;
+
+  private final TransactionTemplate transaction =
+      new TransactionTemplate(new SynchronizingTransactionManager());
+
+  private DeviceLogStore store;
+  private LogDeviceRepository repository;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    store = new DeviceLogStore(directory, 0, Long.MAX_VALUE, 2);
+    repository = new LogDeviceRepository(store);
+  }
+
+  @AfterEach
+  void tearDown() throws IOException {
+    store.close();
+  }
+
+  private Device create(String tenant, String name, Long brandId, LocalDateTime creationTime) {
+    Device device = new Device(null, name, "Brand" + brandId, DeviceState.AVAILABLE,
+        creationTime);
+    device.setBrandId(brandId);
+    return TenantContext.callAs(tenant, () -> repository.save(device));
+  }
+
+  private static List<Long> ids(List<Device> devices) {
+    return devices.stream().map(Device::getId).toList();
+  }
+
+  private Device stored(Long id) {
+    return store.read(() -> store.get(id));
+  }
+
+  /**
+   * Runs {@code write} outside the calling thread's transaction, as a concurrent request would.
+   */
+  private static void concurrently(Runnable write) throws InterruptedException {
+    Thread.ofPlatform().start(write).join();
+  }
+
+  @Test
+  void save_newDevice_stampsIdTenantAndVersion() {
+    Device device = create("acme", "Sensor", 7L, NOW);
+
+    assertEquals(1L, device.getId());
+    assertEquals("acme", device.getTenantId());
+    assertEquals(0L, device.getVersion());
+    assertEquals(TenantContext.DEFAULT_TENANT, create(null, "Camera", 7L, NOW).getTenantId());
+  }
+
+  @Test
+  void save_overStaleVersion_throwsOptimisticLockingFailure() {
+    Device device = create("acme", "Sensor", 7L, NOW);
+    Device first = repository.findById(device.getId()).orElseThrow();
+    Device second = repository.findById(device.getId()).orElseThrow();
+    first.setName("First");
+    repository.save(first);
+
+    second.setName("Second");
+    assertThrows(ObjectOptimisticLockingFailureException.class, () -> repository.save(second));
+    assertEquals("First", repository.findById(device.getId()).orElseThrow().getName());
+    assertEquals(1L, repository.findById(device.getId()).orElseThrow().getVersion());
+  }
+
+  @Test
+  void findById_returnsCopyVisibleToItsTenantOnly() {
+    Device device = create("acme", "Sensor", 7L, NOW);
+
+    repository.findById(device.getId()).orElseThrow().setName("Changed");
+
+    assertEquals("Sensor", repository.findById(device.getId()).orElseThrow().getName());
+    assertTrue(TenantContext.callAs("acme", () -> repository.existsById(device.getId())));
+    assertFalse(TenantContext.callAs("other", () -> repository.existsById(device.getId())));
+  }
+
+  @Test
+  void acquireLease_onlyWhenAvailableOrExpired() {
+    Device device = create("acme", "Sensor", 7L, NOW);
+
+    assertEquals(1, repository.acquireLease(device.getId(), "a", NOW.plusMinutes(5), NOW));
+    assertEquals(0, repository.acquireLease(device.getId(), "b", NOW.plusMinutes(5), NOW));
+    assertEquals(0, repository.softDelete(device.getId(), NOW));
+    assertEquals(0, repository.releaseLease(device.getId(), "b", NOW));
+    assertEquals(1, repository.acquireLease(device.getId(), "b", NOW.plusMinutes(15),
+        NOW.plusMinutes(10)));
+
+    Device leased = repository.findById(device.getId()).orElseThrow();
+    assertEquals(DeviceState.IN_USE, leased.getState());
+    assertEquals("b", leased.getLeaseToken());
+    assertEquals(2L, leased.getVersion());
+    assertEquals(List.of(device.getId()),
+        repository.findIdsWithExpiredLease(NOW.plusMinutes(20), Limit.unlimited()));
+    assertEquals(1, repository.expireLeases(List.of(device.getId()), NOW.plusMinutes(20)));
+    assertEquals(DeviceState.AVAILABLE,
+        repository.findById(device.getId()).orElseThrow().getState());
+  }
+
+  @Test
+  void softDelete_hidesDeviceUntilRestoredWithinCutoff() {
+    Device device = create("acme", "Sensor", 7L, NOW);
+
+    assertEquals(1, repository.softDelete(device.getId(), NOW));
+
+    assertTrue(repository.findById(device.getId()).isEmpty());
+    assertEquals(List.of(), repository.findByBrandId(7L));
+    assertEquals(0, repository.restore(device.getId(), "acme", NOW.plusSeconds(1), NOW));
+    assertEquals(0, repository.restore(device.getId(), "other", NOW, NOW));
+    assertEquals(List.of(device.getId()), repository.findIdsDeletedBefore(NOW.plusDays(1), 10));
+    assertEquals(1, repository.restore(device.getId(), "acme", NOW, NOW));
+    assertNull(repository.findById(device.getId()).orElseThrow().getDeletedAt());
+  }
+
+  @Test
+  void findCreatedBetween_pagesInCreationOrderWithFilters() {
+    create("acme", "Third", 7L, NOW.plusMinutes(3));
+    create("acme", "First", 7L, NOW.plusMinutes(1));
+    create("acme", "Other brand", 8L, NOW.plusMinutes(2));
+    create("acme", "Second", 7L, NOW.plusMinutes(1));
+    create("acme", "Too late", 7L, NOW.plusMinutes(10));
+
+    List<Device> page = repository.findCreatedBetween(NOW, NOW.plusMinutes(10), List.of(7L),
+        null, DeviceState.AVAILABLE, null, 0, 2);
+    assertEquals(List.of(2L, 4L), ids(page));
+
+    Device last = page.getLast();
+    assertEquals(List.of(1L), ids(repository.findCreatedBetween(NOW, NOW.plusMinutes(10),
+        List.of(7L), null, null, last.getCreationTime(), last.getId(), 2)));
+  }
+
+  @Test
+  void lockForBulk_matchesBrandByIdOrByNameWithoutId() {
+    create("acme", "With id", 7L, NOW);
+    Device legacy = create("acme", "Without id", null, NOW);
+    create("acme", "Other", 8L, NOW);
+
+    assertEquals(List.of(1L, legacy.getId()),
+        ids(repository.lockForBulk(null, List.of(7L), "Brandnull", null, 0, 10)));
+    assertEquals(List.of(legacy.getId()),
+        ids(repository.lockForBulk(null, List.of(7L), "Brandnull", null, 1, 10)));
+    assertEquals(1, repository.assignBrand(List.of(legacy.getId()), 7L, "Brand7", NOW));
+    assertFalse(repository.existsByBrandIdIsNull());
+    assertEquals(List.of(1L, legacy.getId()), ids(repository.findByBrandId(7L)));
+  }
+
+  @Test
+  void write_insideRolledBackTransaction_leavesStoreUnchanged() {
+    Device device = create("acme", "Sensor", 7L, NOW);
+
+    transaction.executeWithoutResult(status -> {
+      Device changed = repository.findById(device.getId()).orElseThrow();
+      changed.setName("Changed");
+      repository.save(changed);
+      assertEquals("Changed", repository.findById(device.getId()).orElseThrow().getName());
+      assertEquals(1, repository.softDelete(device.getId(), NOW));
+      assertTrue(repository.findById(device.getId()).isEmpty());
+      assertEquals("Sensor", stored(device.getId()).getName());
+      status.setRollbackOnly();
+    });
+
+    Device kept = repository.findById(device.getId()).orElseThrow();
+    assertEquals("Sensor", kept.getName());
+    assertEquals(0L, kept.getVersion());
+  }
+
+  @Test
+  void write_insideTransaction_isAppliedWhenItCommits() {
+    Device device = create("acme", "Sensor", 7L, NOW);
+
+    Device created = transaction.execute(status -> {
+      assertEquals(1, repository.acquireLease(device.getId(), "a", NOW.plusMinutes(5), NOW));
+      Device camera = create("acme", "Camera", 8L, NOW);
+      assertEquals(List.of(camera.getId()), ids(repository.findByBrandId(8L)));
+      assertEquals(List.of(device.getId()), ids(repository.findByState(DeviceState.IN_USE)));
+      assertNull(stored(camera.getId()));
+      assertEquals(DeviceState.AVAILABLE, stored(device.getId()).getState());
+      return camera;
+    });
+
+    assertEquals(DeviceState.IN_USE, stored(device.getId()).getState());
+    assertEquals(List.of(created.getId()), ids(repository.findByBrandId(8L)));
+  }
+
+  @Test
+  void commit_afterAnotherWriteToSameDevice_rollsBack() {
+    Device device = create("acme", "Sensor", 7L, NOW);
+
+    assertThrows(ObjectOptimisticLockingFailureException.class,
+        () -> transaction.executeWithoutResult(status -> {
+          repository.acquireLease(device.getId(), "a", NOW.plusMinutes(5), NOW);
+          try {
+            concurrently(() -> repository.acquireLease(device.getId(), "b", NOW.plusMinutes(5),
+                NOW));
+          } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+          }
+        }));
+
+    assertEquals("b", stored(device.getId()).getLeaseToken());
+  }
+
+  @Test
+  void updateStateByIds_afterLockedDeviceChanged_failsWholeChunk() {
+    Device first = create("acme", "First", 7L, NOW);
+    Device second = create("acme", "Second", 7L, NOW);
+
+    assertThrows(ObjectOptimisticLockingFailureException.class,
+        () -> transaction.executeWithoutResult(status -> {
+          List<Device> chunk = repository.lockForBulk(null, List.of(7L), null,
+              DeviceState.AVAILABLE, 0, 10);
+          try {
+            concurrently(() -> {
+              Device moved = repository.findById(second.getId()).orElseThrow();
+              moved.setBrandId(8L);
+              repository.save(moved);
+            });
+          } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+          }
+          repository.updateStateByIds(ids(chunk), DeviceState.INACTIVE,
+              Set.of(DeviceState.IN_USE), NOW);
+        }));
+
+    assertEquals(DeviceState.AVAILABLE, stored(first.getId()).getState());
+    assertEquals(DeviceState.AVAILABLE, stored(second.getId()).getState());
+    assertEquals(8L, stored(second.getId()).getBrandId());
+  }
+
+  @Test
+  void findChangedSince_seesDeletedDevicesInWriteOrder() {
+    Device first = create("acme", "First", 7L, NOW);
+    Device second = create("acme", "Second", 7L, NOW);
+    repository.softDelete(first.getId(), NOW.plusYears(1));
+
+    List<Device> changed = repository.findChangedSince(second.getUpdatedAt(),
+        second.getUpdatedAt(), 0, 10);
+
+    assertEquals(List.of(second.getId(), first.getId()), ids(changed));
+    assertEquals(NOW.plusYears(1), changed.getLast().getDeletedAt());
+  }
+
+  /**
+   * Runs transaction synchronization without any resource behind the transactions.
+   */
+  private static final class SynchronizingTransactionManager
+      extends AbstractPlatformTransactionManager {
+
+    @Override
+    protected Object doGetTransaction() {
+      return new Object();
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+    }
+
+    @Override
+    protected void doCommit(DefaultTransactionStatus status) {
+    }
+
+    @Override
+    protected void doRollback(DefaultTransactionStatus status) {
+    }
+  }
+}
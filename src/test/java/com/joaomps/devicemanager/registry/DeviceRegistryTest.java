@@ -0,0 +1,161 @@
+package com.joaomps.devicemanager.registry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.joaomps.devicemanager.event.DeviceChangedEvent;
+import com.joaomps.devicemanager.model.Device;
+import com.joaomps.devicemanager.model.DeviceState;
+import com.joaomps.devicemanager.repository.DeviceRepository;
+import com.joaomps.devicemanager.tenant.TenantContext;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DeviceRegistryTest {
+
+  private static final String TENANT = TenantContext.DEFAULT_TENANT;
+
+  private DeviceRegistry registry;
+
+  private static Device device(long id, String name) {
+    Device device = new Device(id, name, "Brand" + (id % 3), DeviceState.AVAILABLE,
+        LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123_456_000));
+    device.setTenantId(TENANT);
+    return device;
+  }
+
+  @BeforeEach
+  void setUp() {
+    registry = new DeviceRegistry(mock(DeviceRepository.class), true, 16);
+  }
+
+  @Test
+  void get_returnsDeviceAsStored() {
+    Device device = device(42L, "Sensör 42");
+    device.setState(DeviceState.IN_USE);
+    device.setLeaseExpiresAt(LocalDateTime.of(2024, 5, 1, 13, 0));
+    registry.put(device);
+
+    Device found = registry.get(TENANT, 42L);
+
+    assertEquals(42L, found.getId());
+    assertEquals("Sensör 42", found.getName());
+    assertEquals("Brand0", found.getBrand());
+    assertEquals(DeviceState.IN_USE, found.getState());
+    assertEquals(device.getCreationTime(), found.getCreationTime());
+    assertEquals(device.getLeaseExpiresAt(), found.getLeaseExpiresAt());
+  }
+
+  @Test
+  void read_withOtherTenant_misses() {
+    registry.put(device(1L, "a"));
+
+    assertNull(registry.get("other", 1L));
+    assertFalse(registry.read("other", 1L, new DeviceView()));
+  }
+
+  @Test
+  void put_beyondInitialCapacity_keepsEveryDevice() {
+    for (long id = 1; id <= 10_000; id++) {
+      registry.put(device(id, "Device" + id));
+    }
+
+    assertEquals(10_000, registry.size());
+    DeviceView view = new DeviceView();
+    for (long id = 1; id <= 10_000; id++) {
+      assertTrue(registry.read(TENANT, id, view));
+      assertEquals("Device" + id, view.name());
+    }
+  }
+
+  @Test
+  void remove_keepsCollidingDevicesReachable() {
+    for (long id = 1; id <= 1_000; id++) {
+      registry.put(device(id, "Device" + id));
+    }
+    for (long id = 1; id <= 1_000; id += 2) {
+      registry.onDeviceChanged(DeviceChangedEvent.deleted(device(id, "")));
+    }
+
+    assertEquals(500, registry.size());
+    for (long id = 1; id <= 1_000; id++) {
+      assertEquals(id % 2 == 0, registry.get(TENANT, id) != null, "device " + id);
+    }
+  }
+
+  @Test
+  void put_repeatedRenames_reclaimsNameSpace() {
+    registry.put(device(1L, "first"));
+    long initial = registry.offHeapBytes();
+    for (int i = 0; i < 10_000; i++) {
+      registry.onDeviceChanged(DeviceChangedEvent.saved(device(1L, "name-" + i)));
+    }
+
+    assertEquals("name-9999", registry.get(TENANT, 1L).getName());
+    assertEquals(initial, registry.offHeapBytes());
+  }
+
+  @Test
+  void put_withOlderWrite_keepsNewerDevice() {
+    LocalDateTime now = LocalDateTime.now();
+    Device newer = device(1L, "newer");
+    newer.setUpdatedAt(now);
+    Device older = device(1L, "older");
+    older.setUpdatedAt(now.minusSeconds(1));
+
+    registry.onDeviceChanged(DeviceChangedEvent.saved(newer));
+    registry.onDeviceChanged(DeviceChangedEvent.saved(older));
+
+    assertEquals("newer", registry.get(TENANT, 1L).getName());
+  }
+
+  @Test
+  void onDeviceChanged_deletionOlderThanStoredWrite_keepsDevice() {
+    LocalDateTime now = LocalDateTime.now();
+    Device restored = device(1L, "restored");
+    restored.setUpdatedAt(now);
+    Device deleted = device(1L, "restored");
+    deleted.setUpdatedAt(now.minusSeconds(1));
+
+    registry.onDeviceChanged(DeviceChangedEvent.saved(restored));
+    registry.onDeviceChanged(DeviceChangedEvent.deleted(deleted));
+
+    assertNotNull(registry.get(TENANT, 1L));
+  }
+
+  @Test
+  void load_appliesEventsReceivedMeanwhileAfterLoadedRows() {
+    DeviceRepository repository = mock(DeviceRepository.class);
+    DeviceRegistry loading = new DeviceRegistry(repository, true, 16);
+    LocalDateTime now = LocalDateTime.now();
+    Device loadedRenamed = device(1L, "before");
+    loadedRenamed.setUpdatedAt(now.minusSeconds(1));
+    Device loadedDeleted = device(2L, "deleted");
+    loadedDeleted.setUpdatedAt(now.minusSeconds(1));
+    when(repository.findByIdGreaterThanOrderByIdAsc(anyLong(), any())).thenAnswer(invocation -> {
+      // Committed while the page was read, so the page holds the previous state.
+      Device renamed = device(1L, "after");
+      renamed.setUpdatedAt(now);
+      loading.onDeviceChanged(DeviceChangedEvent.saved(renamed));
+      Device deleted = device(2L, "deleted");
+      deleted.setUpdatedAt(now);
+      loading.onDeviceChanged(DeviceChangedEvent.deleted(deleted));
+      return List.of(loadedRenamed, loadedDeleted);
+    });
+
+    loading.load();
+
+    assertEquals("after", loading.get(TENANT, 1L).getName());
+    assertNull(loading.get(TENANT, 2L));
+    assertEquals(1, loading.size());
+  }
+}
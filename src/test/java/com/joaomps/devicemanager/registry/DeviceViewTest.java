@@ -0,0 +1,86 @@
+package com.joaomps.devicemanager.registry;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.joaomps.devicemanager.model.Device;
+import com.joaomps.devicemanager.model.DeviceState;
+import com.joaomps.devicemanager.repository.DeviceRepository;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class DeviceViewTest {
+
+  private final ObjectMapper objectMapper = new ObjectMapper()
+      .registerModule(new JavaTimeModule())
+      .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+  private static DeviceRegistry registry() {
+    return new DeviceRegistry(mock(DeviceRepository.class), true, 16);
+  }
+
+  private void assertSameJson(Device device, DeviceView view) throws Exception {
+    JsonNode expected = objectMapper.readTree(objectMapper.writeValueAsBytes(device));
+    assertEquals(expected, objectMapper.readTree(objectMapper.writeValueAsBytes(view)));
+    assertEquals(expected, objectMapper.readTree(objectMapper.writeValueAsString(view)));
+  }
+
+  @Test
+  void serialize_writesSameJsonAsDevice() throws Exception {
+    Device device = new Device(7L, "Sensör \"7\"", "Brand", DeviceState.IN_USE,
+        LocalDateTime.of(2024, 2, 29, 23, 59, 1, 120_000_000));
+    device.setTenantId("acme");
+    device.setLeaseExpiresAt(LocalDateTime.of(2024, 3, 1, 0, 0));
+    DeviceRegistry registry = registry();
+    registry.put(device);
+    DeviceView view = new DeviceView();
+    registry.read("acme", 7L, view);
+
+    assertSameJson(device, view);
+  }
+
+  @Test
+  void serialize_withoutStateOrTimes_writesNulls() throws Exception {
+    Device device = new Device(8L, "", null, null, null);
+    device.setTenantId("acme");
+    DeviceRegistry registry = registry();
+    registry.put(device);
+    DeviceView view = new DeviceView();
+    registry.read("acme", 8L, view);
+
+    assertSameJson(device, view);
+  }
+
+  @Test
+  void formatTime_matchesIsoLocalDateTime() {
+    Random random = new Random(42);
+    char[] buffer = new char[26];
+    long min = DeviceView.toMicros(LocalDateTime.of(0, 1, 1, 0, 0));
+    long max = DeviceView.toMicros(LocalDateTime.of(9999, 12, 31, 23, 59, 59, 999_999_000));
+    for (int i = 0; i < 100_000; i++) {
+      long micros = min + Math.floorMod(random.nextLong(), max - min + 1);
+      if (i % 4 == 0) {
+        micros -= Math.floorMod(micros, 1_000_000L);
+      }
+      String expected = DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(DeviceView.toTime(micros));
+
+      assertEquals(expected, new String(buffer, 0, DeviceView.formatTime(micros, buffer)));
+    }
+  }
+
+  @Test
+  void formatTime_outsideFourDigitYears_declines() {
+    char[] buffer = new char[26];
+
+    assertEquals(-1, DeviceView.formatTime(
+        DeviceView.toMicros(LocalDateTime.of(10_000, 1, 1, 0, 0)), buffer));
+    assertEquals(-1, DeviceView.formatTime(
+        DeviceView.toMicros(LocalDateTime.of(-1, 12, 31, 0, 0)), buffer));
+  }
+}
@@ -0,0 +1,119 @@
+package com.joaomps.devicemanager.search;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.joaomps.devicemanager.model.Device;
+import com.joaomps.devicemanager.model.DeviceState;
+import com.joaomps.devicemanager.search.DeviceSearchIndex.SearchHit;
+import com.joaomps.devicemanager.search.DeviceSearchIndex.SearchResult;
+import com.joaomps.devicemanager.tenant.TenantContext;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class DeviceSearchIndexTest {
+
+  private static final String TENANT = TenantContext.DEFAULT_TENANT;
+
+  private DeviceSearchIndex searchIndex;
+
+  private static Device device(long id, String name, String brand) {
+    return new Device(id, name, brand, DeviceState.AVAILABLE, LocalDateTime.now());
+  }
+
+  private static List<Long> ids(List<SearchHit> hits) {
+    return hits.stream().map(SearchHit::id).toList();
+  }
+
+  private List<SearchHit> search(String tenant, String query, SearchMode mode) {
+    return searchIndex.search(tenant, query, mode, 10).hits();
+  }
+
+  @BeforeEach
+  void setUp() {
+    searchIndex = new DeviceSearchIndex();
+    searchIndex.index(device(1L, "iPhone 15 Pro", "Apple"));
+    searchIndex.index(device(2L, "Galaxy S24", "Samsung"));
+    searchIndex.index(device(3L, "Pixel 8", "Google"));
+    searchIndex.index(device(4L, "Apple Watch", "Apple"));
+  }
+
+  @Test
+  void search_withPrefix_matchesNameBrandAndWordStarts() {
+    assertEquals(List.of(4L, 1L), ids(search(TENANT, "app", SearchMode.PREFIX)));
+    assertEquals(List.of(1L), ids(search(TENANT, "pro", SearchMode.PREFIX)));
+    assertEquals(List.of(2L), ids(search(TENANT, "s", SearchMode.PREFIX)));
+  }
+
+  @Test
+  void search_withSubstring_matchesInsideWords() {
+    assertEquals(List.of(2L), ids(search(TENANT, "alax", SearchMode.SUBSTRING)));
+    assertTrue(search(TENANT, "alax", SearchMode.PREFIX).isEmpty());
+  }
+
+  @Test
+  void search_isCaseAndWhitespaceInsensitive() {
+    assertEquals(List.of(1L),
+        ids(search(TENANT, "  IPHONE   15 ", SearchMode.SUBSTRING)));
+  }
+
+  @Test
+  void search_withFuzzy_toleratesTypos() {
+    List<Long> hits = ids(search(TENANT, "samsng", SearchMode.FUZZY));
+
+    assertEquals(List.of(2L), hits);
+    assertTrue(search(TENANT, "samsng", SearchMode.SUBSTRING).isEmpty());
+  }
+
+  @Test
+  void search_ranksExactBeforePrefixBeforeSubstring() {
+    searchIndex.index(device(5L, "Pixel", "Google"));
+    searchIndex.index(device(6L, "Old pixel case", "Generic"));
+
+    assertEquals(List.of(5L, 3L, 6L),
+        ids(search(TENANT, "pixel", SearchMode.SUBSTRING)));
+  }
+
+  @Test
+  void search_withLimit_keepsBestHitsAndCountsAllMatches() {
+    for (long id = 10; id < 40; id++) {
+      searchIndex.index(device(id, "Pixel case " + id, "Generic"));
+    }
+    searchIndex.index(device(5L, "Pixel", "Google"));
+
+    SearchResult result = searchIndex.search(TENANT, "pixel", SearchMode.SUBSTRING, 3);
+
+    assertEquals(List.of(5L, 3L, 10L), ids(result.hits()));
+    assertEquals(32, result.total());
+    assertEquals(32, searchIndex.search(TENANT, "pixl", SearchMode.FUZZY, 0).total());
+  }
+
+  @Test
+  void index_withRenamedDevice_dropsStaleTerms() {
+    searchIndex.index(device(3L, "Nexus 5", "Google"));
+
+    assertTrue(search(TENANT, "pixel", SearchMode.SUBSTRING).isEmpty());
+    assertEquals(List.of(3L), ids(search(TENANT, "nexus", SearchMode.SUBSTRING)));
+  }
+
+  @Test
+  void remove_withIndexedDevice_removesItFromResults() {
+    searchIndex.remove(TENANT, 2L);
+
+    assertTrue(search(TENANT, "galaxy", SearchMode.SUBSTRING).isEmpty());
+    assertEquals(3, searchIndex.size());
+  }
+
+  @Test
+  void search_onlyReturnsDevicesOfTheGivenTenant() {
+    Device other = device(7L, "Galaxy Tab", "Samsung");
+    other.setTenantId("other");
+    searchIndex.index(other);
+
+    assertEquals(List.of(2L), ids(search(TENANT, "galaxy", SearchMode.PREFIX)));
+    assertEquals(List.of(7L), ids(search("other", "galaxy", SearchMode.PREFIX)));
+    assertTrue(search("unknown", "galaxy", SearchMode.PREFIX).isEmpty());
+  }
+}
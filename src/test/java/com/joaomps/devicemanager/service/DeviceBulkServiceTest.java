@@ -0,0 +1,158 @@
+package com.joaomps.devicemanager.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.joaomps.devicemanager.brand.BrandDictionary;
+import com.joaomps.devicemanager.dto.BulkChunkProgress;
+import com.joaomps.devicemanager.dto.BulkStateTransitionRequest;
+import com.joaomps.devicemanager.dto.BulkStateTransitionResult;
+import com.joaomps.devicemanager.event.DeviceChangedEvent;
+import com.joaomps.devicemanager.model.Device;
+import com.joaomps.devicemanager.model.DeviceState;
+import com.joaomps.devicemanager.repository.DeviceRepository;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class DeviceBulkServiceTest {
+
+  private DeviceRepository deviceRepository;
+  private ApplicationEventPublisher eventPublisher;
+  private BrandDictionary brandDictionary;
+  private DeviceBulkService deviceBulkService;
+
+  @BeforeEach
+  void setUp() {
+    deviceRepository = mock(DeviceRepository.class);
+    eventPublisher = mock(ApplicationEventPublisher.class);
+    brandDictionary = mock(BrandDictionary.class);
+    when(brandDictionary.filter("BrandA"))
+        .thenReturn(new BrandDictionary.Filter(List.of(7L), "BrandA"));
+    deviceBulkService = new DeviceBulkService(deviceRepository,
+        mock(PlatformTransactionManager.class), eventPublisher, brandDictionary);
+  }
+
+  @Test
+  void transitionState_withBrandFilter_updatesInChunksAndSkipsInUseDevices() {
+    BulkStateTransitionRequest request = new BulkStateTransitionRequest(null, "BrandA", null,
+        DeviceState.INACTIVE, null, 2, false);
+
+    when(deviceRepository.lockForBulk(isNull(), eq(List.of(7L)), eq("BrandA"), isNull(), eq(0L),
+        eq(2))).thenReturn(
+        List.of(device(1L, DeviceState.IN_USE), device(2L, DeviceState.AVAILABLE)));
+    when(deviceRepository.lockForBulk(isNull(), eq(List.of(7L)), eq("BrandA"), isNull(), eq(2L),
+        eq(2))).thenReturn(List.of(device(5L, DeviceState.AVAILABLE)));
+    when(deviceRepository.updateStateByIds(eq(List.of(1L, 2L)), eq(DeviceState.INACTIVE),
+        eq(EnumSet.of(DeviceState.INACTIVE, DeviceState.IN_USE)), any())).thenReturn(1);
+    when(deviceRepository.updateStateByIds(eq(List.of(5L)), eq(DeviceState.INACTIVE),
+        eq(EnumSet.of(DeviceState.INACTIVE, DeviceState.IN_USE)), any())).thenReturn(1);
+
+    BulkStateTransitionResult result = deviceBulkService.transitionState(request);
+
+    assertEquals(3, result.matched());
+    assertEquals(2, result.updated());
+    assertEquals(1, result.skippedInUse());
+    assertEquals(5L, result.lastProcessedId());
+    assertEquals(2, result.chunks().size());
+    assertTrue(result.chunks().get(1).last());
+    verify(eventPublisher, times(2)).publishEvent(any(DeviceChangedEvent.class));
+  }
+
+  @Test
+  void transitionChunk_countsAlreadyTransitionedDevicesAsMatchedOnly() {
+    BulkStateTransitionRequest request = new BulkStateTransitionRequest(null, null,
+        DeviceState.AVAILABLE, DeviceState.INACTIVE, null, 10, false);
+    when(deviceRepository.lockForBulk(isNull(), isNull(), isNull(), eq(DeviceState.AVAILABLE),
+        eq(0L), eq(10))).thenReturn(List.of(device(1L, DeviceState.INACTIVE),
+        device(2L, DeviceState.AVAILABLE)));
+    when(deviceRepository.updateStateByIds(eq(List.of(2L)), eq(DeviceState.INACTIVE),
+        eq(EnumSet.of(DeviceState.INACTIVE, DeviceState.IN_USE)), any())).thenReturn(1);
+
+    BulkChunkProgress progress = deviceBulkService.transitionChunk(request, 0L, 1).orElseThrow();
+
+    assertEquals(2, progress.matched());
+    assertEquals(1, progress.updated());
+    assertEquals(0, progress.skippedInUse());
+    ArgumentCaptor<DeviceChangedEvent> event = ArgumentCaptor.forClass(DeviceChangedEvent.class);
+    verify(eventPublisher).publishEvent(event.capture());
+    assertEquals(2L, event.getValue().device().getId());
+    assertEquals(DeviceState.INACTIVE, event.getValue().device().getState());
+  }
+
+  @Test
+  void transitionState_withAfterId_resumesFromThatId() {
+    BulkStateTransitionRequest request = new BulkStateTransitionRequest(null, null,
+        DeviceState.AVAILABLE, DeviceState.INACTIVE, 100L, null, false);
+
+    when(deviceRepository.lockForBulk(isNull(), isNull(), isNull(), eq(DeviceState.AVAILABLE),
+        eq(100L), anyInt())).thenReturn(List.of());
+
+    BulkStateTransitionResult result = deviceBulkService.transitionState(request);
+
+    assertEquals(0, result.matched());
+    assertEquals(100L, result.lastProcessedId());
+    verify(deviceRepository, never()).updateStateByIds(anyCollection(), any(), anyCollection(),
+        any());
+  }
+
+  @Test
+  void transitionState_withIdList_walksSortedWindows() {
+    BulkStateTransitionRequest request = new BulkStateTransitionRequest(List.of(9L, 3L, 3L, 7L),
+        null, null, DeviceState.INACTIVE, null, 2, true);
+
+    when(deviceRepository.lockForBulk(eq(List.of(3L, 7L)), isNull(), isNull(), isNull(), eq(0L),
+        eq(2))).thenReturn(List.of(device(3L, DeviceState.IN_USE)));
+    when(deviceRepository.lockForBulk(eq(List.of(9L)), isNull(), isNull(), isNull(), eq(7L),
+        eq(2))).thenReturn(List.of(device(9L, DeviceState.AVAILABLE)));
+    when(deviceRepository.updateStateByIds(anyCollection(), eq(DeviceState.INACTIVE),
+        eq(EnumSet.of(DeviceState.INACTIVE)), any())).thenReturn(1);
+
+    BulkStateTransitionResult result = deviceBulkService.transitionState(request);
+
+    assertEquals(2, result.matched());
+    assertEquals(2, result.updated());
+    assertEquals(0, result.skippedInUse());
+    assertEquals(9L, result.lastProcessedId());
+  }
+
+  @Test
+  void transitionChunk_withNoMatchingDevices_returnsEmpty() {
+    BulkStateTransitionRequest request = new BulkStateTransitionRequest(null, "BrandA", null,
+        DeviceState.INACTIVE, null, null, false);
+    when(deviceRepository.lockForBulk(isNull(), eq(List.of(7L)), eq("BrandA"), isNull(),
+        anyLong(), anyInt())).thenReturn(List.of());
+
+    assertTrue(deviceBulkService.transitionChunk(request, 0L, 1).isEmpty());
+  }
+
+  @Test
+  void transitionChunk_withBrandNoDeviceCanMatch_locksNothing() {
+    BulkStateTransitionRequest request = new BulkStateTransitionRequest(null, "Unknown", null,
+        DeviceState.INACTIVE, null, null, false);
+
+    assertTrue(deviceBulkService.transitionChunk(request, 0L, 1).isEmpty());
+    verify(deviceRepository, never()).lockForBulk(any(), any(), any(), any(), anyLong(),
+        anyInt());
+  }
+
+  private static Device device(long id, DeviceState state) {
+    return new Device(id, "Device" + id, "BrandA", state, LocalDateTime.now());
+  }
+}
@@ -0,0 +1,106 @@
+package com.joaomps.devicemanager.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.joaomps.devicemanager.dto.DeviceLease;
+import com.joaomps.devicemanager.event.DeviceChangedEvent;
+import com.joaomps.devicemanager.exception.DeviceNotFoundException;
+import com.joaomps.devicemanager.exception.InvalidOperationException;
+import com.joaomps.devicemanager.exception.InvalidRequestException;
+import com.joaomps.devicemanager.model.Device;
+import com.joaomps.devicemanager.model.DeviceState;
+import com.joaomps.devicemanager.repository.DeviceRepository;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+class DeviceLeaseServiceTest {
+
+  private DeviceRepository deviceRepository;
+  private ApplicationEventPublisher eventPublisher;
+  private DeviceLeaseService deviceLeaseService;
+
+  @BeforeEach
+  void setUp() {
+    deviceRepository = mock(DeviceRepository.class);
+    eventPublisher = mock(ApplicationEventPublisher.class);
+    LeasePolicy leasePolicy = new LeasePolicy(null, Duration.ofSeconds(1), Duration.ofHours(1));
+    deviceLeaseService = new DeviceLeaseService(deviceRepository, leasePolicy, eventPublisher);
+  }
+
+  @Test
+  void acquire_withAvailableDevice_returnsLeaseAndPublishesChange() {
+    Device device = new Device(1L, "Name", "Brand", DeviceState.IN_USE, LocalDateTime.now());
+    when(deviceRepository.acquireLease(eq(1L), anyString(), any(LocalDateTime.class),
+        any(LocalDateTime.class))).thenReturn(1);
+    when(deviceRepository.findById(1L)).thenReturn(Optional.of(device));
+
+    DeviceLease lease = deviceLeaseService.acquire(1L, Duration.ofMinutes(5));
+
+    assertEquals(1L, lease.deviceId());
+    assertNotNull(lease.token());
+    assertNotNull(lease.expiresAt());
+    verify(eventPublisher).publishEvent(any(DeviceChangedEvent.class));
+  }
+
+  @Test
+  void acquire_withDeviceInUse_throwsInvalidOperationException() {
+    Device device = new Device(1L, "Name", "Brand", DeviceState.IN_USE, LocalDateTime.now());
+    when(deviceRepository.acquireLease(eq(1L), anyString(), any(LocalDateTime.class),
+        any(LocalDateTime.class))).thenReturn(0);
+    when(deviceRepository.findById(1L)).thenReturn(Optional.of(device));
+
+    assertThrows(InvalidOperationException.class,
+        () -> deviceLeaseService.acquire(1L, Duration.ofMinutes(5)));
+    verify(eventPublisher, never()).publishEvent(any(Object.class));
+  }
+
+  @Test
+  void acquire_withNonExistingDevice_throwsDeviceNotFoundException() {
+    when(deviceRepository.findById(1L)).thenReturn(Optional.empty());
+
+    assertThrows(DeviceNotFoundException.class,
+        () -> deviceLeaseService.acquire(1L, Duration.ofMinutes(5)));
+  }
+
+  @Test
+  void acquire_withTtlOutOfBounds_throwsInvalidRequestException() {
+    assertThrows(InvalidRequestException.class,
+        () -> deviceLeaseService.acquire(1L, Duration.ofHours(2)));
+    verify(deviceRepository, never()).acquireLease(any(), any(), any(), any());
+  }
+
+  @Test
+  void renew_withWrongTokenOrExpiredLease_throwsInvalidOperationException() {
+    Device device = new Device(1L, "Name", "Brand", DeviceState.AVAILABLE, LocalDateTime.now());
+    when(deviceRepository.renewLease(eq(1L), eq("token"), any(LocalDateTime.class),
+        any(LocalDateTime.class))).thenReturn(0);
+    when(deviceRepository.findById(1L)).thenReturn(Optional.of(device));
+
+    assertThrows(InvalidOperationException.class,
+        () -> deviceLeaseService.renew(1L, "token", Duration.ofMinutes(5)));
+  }
+
+  @Test
+  void release_withValidToken_publishesChange() {
+    Device device = new Device(1L, "Name", "Brand", DeviceState.AVAILABLE, LocalDateTime.now());
+    when(deviceRepository.releaseLease(eq(1L), eq("token"), any())).thenReturn(1);
+    when(deviceRepository.findById(1L)).thenReturn(Optional.of(device));
+
+    deviceLeaseService.release(1L, "token");
+
+    verify(eventPublisher).publishEvent(any(DeviceChangedEvent.class));
+  }
+}
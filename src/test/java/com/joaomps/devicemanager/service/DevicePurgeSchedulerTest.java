@@ -0,0 +1,73 @@
+package com.joaomps.devicemanager.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.joaomps.devicemanager.repository.DeviceRepository;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class DevicePurgeSchedulerTest {
+
+  private DeviceRepository deviceRepository;
+  private DeletionPolicy deletionPolicy;
+  private DevicePurgeScheduler scheduler;
+
+  @BeforeEach
+  void setUp() {
+    deviceRepository = mock(DeviceRepository.class);
+    deletionPolicy = mock(DeletionPolicy.class);
+    when(deletionPolicy.retentionCutoff(any())).thenReturn(LocalDateTime.now().minusDays(7));
+    scheduler = new DevicePurgeScheduler(deviceRepository, deletionPolicy,
+        mock(PlatformTransactionManager.class), 2, 3, Duration.ZERO);
+  }
+
+  @Test
+  void purge_stopsAtFirstPartialBatch() {
+    when(deviceRepository.findIdsDeletedBefore(any(), eq(2)))
+        .thenReturn(List.of(1L, 2L), List.of(3L));
+    when(deviceRepository.purge(any(), any())).thenReturn(2, 1);
+
+    assertEquals(3, scheduler.purge());
+    verify(deviceRepository).purge(eq(List.of(1L, 2L)), any());
+    verify(deviceRepository).purge(eq(List.of(3L)), any());
+  }
+
+  @Test
+  void purge_stopsAtMaxBatches() {
+    when(deviceRepository.findIdsDeletedBefore(any(), eq(2))).thenReturn(List.of(1L, 2L));
+    when(deviceRepository.purge(any(), any())).thenReturn(2);
+
+    assertEquals(6, scheduler.purge());
+    verify(deviceRepository, times(3)).purge(any(), any());
+  }
+
+  @Test
+  void purge_withNothingToPurge_deletesNothing() {
+    when(deviceRepository.findIdsDeletedBefore(any(), eq(2))).thenReturn(List.of());
+
+    assertEquals(0, scheduler.purge());
+    verify(deviceRepository, never()).purge(any(), any());
+  }
+
+  @Test
+  void purge_withDatabaseError_keepsWhatWasPurged() {
+    when(deviceRepository.findIdsDeletedBefore(any(), eq(2))).thenReturn(List.of(1L, 2L));
+    when(deviceRepository.purge(any(), any()))
+        .thenReturn(2)
+        .thenThrow(new QueryTimeoutException("timeout"));
+
+    assertEquals(2, scheduler.purge());
+  }
+}
@@ -4,25 +4,43 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.ObjectReader;
+import com.joaomps.devicemanager.brand.BrandDictionary;
+import com.joaomps.devicemanager.cache.DeviceCache;
+import com.joaomps.devicemanager.dto.CreationTimeCursor;
 import com.joaomps.devicemanager.dto.DeviceCreationRequest;
+import com.joaomps.devicemanager.dto.DeviceLookupResult;
+import com.joaomps.devicemanager.dto.DevicePage;
+import com.joaomps.devicemanager.event.DeviceChangedEvent;
 import com.joaomps.devicemanager.exception.DeviceNotFoundException;
 import com.joaomps.devicemanager.exception.InvalidOperationException;
+import com.joaomps.devicemanager.exception.InvalidRequestException;
 import com.joaomps.devicemanager.model.Device;
 import com.joaomps.devicemanager.model.DeviceState;
+import com.joaomps.devicemanager.registry.DeviceRegistry;
+import com.joaomps.devicemanager.registry.DeviceView;
 import com.joaomps.devicemanager.repository.DeviceRepository;
+import com.joaomps.devicemanager.tenant.TenantContext;
 import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -36,6 +54,7 @@ import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.context.ApplicationEventPublisher;
 
 class DeviceServiceTest {
 
@@ -43,6 +62,18 @@ class DeviceServiceTest {
   private DeviceRepository deviceRepository;
   @Mock
   private ObjectMapper objectMapper;
+  @Mock
+  private ApplicationEventPublisher eventPublisher;
+  @Mock
+  private LeasePolicy leasePolicy;
+  @Mock
+  private DeviceCache deviceCache;
+  @Mock
+  private DeletionPolicy deletionPolicy;
+  @Mock
+  private DeviceRegistry deviceRegistry;
+  @Mock
+  private BrandDictionary brandDictionary;
 
   @InjectMocks
   private DeviceService deviceService;
@@ -83,6 +114,19 @@ class DeviceServiceTest {
     assertEquals("BrandA", result.getBrand());
     assertEquals(DeviceState.AVAILABLE, result.getState());
     verify(deviceRepository, times(1)).save(any(Device.class));
+    verify(eventPublisher, times(1)).publishEvent(DeviceChangedEvent.saved(device));
+  }
+
+  @Test
+  void createDevice_withBrandVariant_usesDictionaryEntry() {
+    when(brandDictionary.resolve(TenantContext.DEFAULT_TENANT, " brandA "))
+        .thenReturn(new BrandDictionary.Entry(7L, "BrandA"));
+    when(deviceRepository.save(any(Device.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+    Device result = deviceService.createDevice(new DeviceCreationRequest("Device1", " brandA "));
+
+    assertEquals("BrandA", result.getBrand());
+    assertEquals(7L, result.getBrandId());
   }
 
   @Test
@@ -97,6 +141,35 @@ class DeviceServiceTest {
     assertEquals(1L, result.get().getId());
   }
 
+  @Test
+  void findById_withCachedDevice_skipsRepository() {
+    Device device = new Device();
+    device.setId(1L);
+    when(deviceCache.get(TenantContext.ROOT, 1L)).thenReturn(device);
+
+    Optional<Device> result = deviceService.findById(1L);
+
+    assertTrue(result.isPresent());
+    verify(deviceRepository, never()).findById(1L);
+  }
+
+  @Test
+  void readRegistered_readsIntoViewWithoutRepository() {
+    DeviceView view = new DeviceView();
+    when(deviceRegistry.isEnabled()).thenReturn(true);
+    when(deviceRegistry.read(TenantContext.ROOT, 1L, view)).thenReturn(true);
+
+    assertTrue(deviceService.readRegistered(1L, view));
+    verify(deviceRegistry, never()).get(any(), anyLong());
+    verifyNoInteractions(deviceRepository);
+  }
+
+  @Test
+  void readRegistered_withRegistryDisabled_misses() {
+    assertFalse(deviceService.readRegistered(1L, new DeviceView()));
+    verify(deviceRegistry, never()).read(any(), anyLong(), any());
+  }
+
   @Test
   void findById_withNonExistingId_returnsEmptyOptional() {
     when(deviceRepository.findById(1L)).thenReturn(Optional.empty());
@@ -106,6 +179,37 @@ class DeviceServiceTest {
     assertFalse(result.isPresent());
   }
 
+  @Test
+  void findAllById_servesCachedIdsAndQueriesTheRestOnce() {
+    Device cached = new Device(1L, "Cached", "Brand", DeviceState.AVAILABLE, null);
+    Device stored = new Device(3L, "Stored", "Brand", DeviceState.AVAILABLE, null);
+    String tenant = TenantContext.current();
+    when(deviceCache.get(tenant, 1L)).thenReturn(cached);
+    when(deviceCache.stamp(tenant)).thenReturn(5L);
+    when(deviceRepository.findAllById(List.of(3L, 2L))).thenReturn(List.of(stored));
+
+    DeviceLookupResult result = deviceService.findAllById(List.of(3L, 1L, 2L, 3L));
+
+    assertEquals(List.of(stored, cached), result.devices());
+    assertEquals(List.of(2L), result.missing());
+    verify(deviceRepository, times(1)).findAllById(any());
+    verify(deviceCache).put(tenant, 5L, stored);
+  }
+
+  @Test
+  void findAllById_withManyIds_queriesInChunks() {
+    List<Long> ids = new ArrayList<>();
+    for (long id = 1; id <= DeviceService.LOOKUP_CHUNK_SIZE + 1; id++) {
+      ids.add(id);
+    }
+    when(deviceRepository.findAllById(any())).thenReturn(List.of());
+
+    DeviceLookupResult result = deviceService.findAllById(ids);
+
+    assertEquals(ids, result.missing());
+    verify(deviceRepository, times(2)).findAllById(any());
+  }
+
   @Test
   void findAll_returnsListOfDevices() {
     Device device1 = new Device();
@@ -121,9 +225,12 @@ class DeviceServiceTest {
   void findByBrand_withExistingBrand_returnsListOfDevices() {
     Device device = new Device();
     device.setBrand("BrandA");
-    when(deviceRepository.findByBrand("BrandA")).thenReturn(List.of(device));
+    when(brandDictionary.isBackfilled()).thenReturn(true);
+    when(brandDictionary.find("branda")).thenReturn(
+        Optional.of(new BrandDictionary.Entry(7L, "BrandA")));
+    when(deviceRepository.findByBrandId(7L)).thenReturn(List.of(device));
 
-    List<Device> result = deviceService.findByBrand("BrandA");
+    List<Device> result = deviceService.findByBrand("branda");
 
     assertEquals(1, result.size());
     assertEquals("BrandA", result.getFirst().getBrand());
@@ -131,11 +238,26 @@ class DeviceServiceTest {
 
   @Test
   void findByBrand_withNonExistingBrand_returnsEmptyList() {
-    when(deviceRepository.findByBrand("BrandA")).thenReturn(List.of());
+    when(brandDictionary.isBackfilled()).thenReturn(true);
+    when(brandDictionary.find("BrandA")).thenReturn(Optional.empty());
 
     List<Device> result = deviceService.findByBrand("BrandA");
 
     assertTrue(result.isEmpty());
+    verify(deviceRepository, never()).findByBrandId(any());
+  }
+
+  @Test
+  void findByBrand_duringBackfill_alsoMatchesByName() {
+    Device device = new Device();
+    device.setBrand("BrandA");
+    when(brandDictionary.find("BrandA")).thenReturn(
+        Optional.of(new BrandDictionary.Entry(7L, "BrandA")));
+    when(deviceRepository.findByBrandDuringBackfill(7L, "BrandA")).thenReturn(List.of(device));
+
+    List<Device> result = deviceService.findByBrand("BrandA");
+
+    assertEquals(1, result.size());
   }
 
   @Test
@@ -159,16 +281,139 @@ class DeviceServiceTest {
     assertTrue(result.isEmpty());
   }
 
+  @Test
+  void findCreatedBetween_withMorePages_returnsCursorOfLastDevice() {
+    LocalDateTime from = LocalDateTime.of(2026, 1, 1, 0, 0);
+    Device first = new Device(4L, "First", "Brand", DeviceState.AVAILABLE, from.plusHours(1));
+    Device second = new Device(2L, "Second", "Brand", DeviceState.AVAILABLE, from.plusHours(2));
+    Device third = new Device(3L, "Third", "Brand", DeviceState.AVAILABLE, from.plusHours(2));
+    when(deviceRepository.findCreatedBetween(eq(from), isNull(), isNull(), isNull(), isNull(),
+        isNull(), eq(0L), eq(3))).thenReturn(List.of(first, second, third));
+
+    DevicePage page = deviceService.findCreatedBetween(from, null, null, null, null, 2);
+
+    assertEquals(List.of(first, second), page.devices());
+    CreationTimeCursor cursor = CreationTimeCursor.decode(page.nextCursor());
+    assertEquals(from.plusHours(2), cursor.creationTime());
+    assertEquals(2L, cursor.id());
+  }
+
+  @Test
+  void findCreatedBetween_withCursorAndBrand_continuesAfterCursor() {
+    LocalDateTime time = LocalDateTime.of(2026, 1, 1, 2, 0);
+    when(brandDictionary.filter("brand"))
+        .thenReturn(new BrandDictionary.Filter(List.of(7L), "Brand"));
+    when(deviceRepository.findCreatedBetween(isNull(), isNull(), eq(List.of(7L)), eq("Brand"),
+        eq(DeviceState.AVAILABLE), eq(time), eq(2L), eq(3))).thenReturn(List.of());
+
+    DevicePage page = deviceService.findCreatedBetween(null, null, "brand", DeviceState.AVAILABLE,
+        new CreationTimeCursor(time, 2L).encode(), 2);
+
+    assertTrue(page.devices().isEmpty());
+    assertNull(page.nextCursor());
+  }
+
+  @Test
+  void findCreatedBetween_withBrandNoDeviceCanMatch_skipsQuery() {
+    DevicePage page = deviceService.findCreatedBetween(null, null, "unknown", null, null, 2);
+
+    assertTrue(page.devices().isEmpty());
+    verify(deviceRepository, never()).findCreatedBetween(any(), any(), any(), any(), any(), any(),
+        anyLong(), anyInt());
+  }
+
+  @Test
+  void findCreatedBetween_withEmptyWindow_throwsInvalidRequestException() {
+    LocalDateTime time = LocalDateTime.now();
+
+    assertThrows(InvalidRequestException.class,
+        () -> deviceService.findCreatedBetween(time, time, null, null, null, 10));
+    assertThrows(InvalidRequestException.class,
+        () -> deviceService.findCreatedBetween(null, null, null, null, "not a cursor", 10));
+  }
+
   @Test
   void deleteById_withExistingIdAndAvailableState_deletesDevice() {
     Device device = new Device();
     device.setId(1L);
     device.setState(DeviceState.AVAILABLE);
     when(deviceRepository.findById(1L)).thenReturn(Optional.of(device));
+    when(deviceRepository.softDelete(eq(1L), any())).thenReturn(1);
 
     deviceService.deleteById(1L);
 
-    verify(deviceRepository, times(1)).delete(device);
+    verify(deviceRepository, times(1)).softDelete(eq(1L), any());
+    verify(deviceRepository, never()).delete(device);
+    verify(eventPublisher, times(1)).publishEvent(DeviceChangedEvent.deleted(device));
+  }
+
+  @Test
+  void deleteById_whenPutInUseConcurrently_throwsInvalidOperationException() {
+    Device device = new Device();
+    device.setId(1L);
+    device.setState(DeviceState.AVAILABLE);
+    when(deviceRepository.findById(1L)).thenReturn(Optional.of(device));
+    when(deviceRepository.softDelete(eq(1L), any())).thenReturn(0);
+    when(deviceRepository.existsById(1L)).thenReturn(true);
+
+    assertThrows(InvalidOperationException.class, () -> deviceService.deleteById(1L));
+    verify(eventPublisher, never()).publishEvent(any(Object.class));
+  }
+
+  @Test
+  void deleteById_whenDeletedConcurrently_throwsDeviceNotFoundException() {
+    Device device = new Device();
+    device.setId(1L);
+    device.setState(DeviceState.AVAILABLE);
+    when(deviceRepository.findById(1L)).thenReturn(Optional.of(device));
+    when(deviceRepository.softDelete(eq(1L), any())).thenReturn(0);
+    when(deviceRepository.existsById(1L)).thenReturn(false);
+
+    assertThrows(DeviceNotFoundException.class, () -> deviceService.deleteById(1L));
+    verify(eventPublisher, never()).publishEvent(any(Object.class));
+  }
+
+  @Test
+  void restoreDevice_withinRetention_restoresDevice() {
+    Device device = new Device();
+    device.setId(1L);
+    device.setState(DeviceState.AVAILABLE);
+    when(deletionPolicy.retentionCutoff(any())).thenReturn(LocalDateTime.now().minusDays(7));
+    when(deviceRepository.restore(eq(1L), eq(TenantContext.DEFAULT_TENANT), any(), any()))
+        .thenReturn(1);
+    when(deviceRepository.findById(1L)).thenReturn(Optional.of(device));
+    when(deviceRepository.save(device)).thenReturn(device);
+
+    Device result = TenantContext.callAs(TenantContext.DEFAULT_TENANT,
+        () -> deviceService.restoreDevice(1L));
+
+    assertEquals(device, result);
+    verify(deviceRepository).save(device);
+    verify(eventPublisher, times(1)).publishEvent(DeviceChangedEvent.saved(device));
+  }
+
+  @Test
+  void restoreDevice_asRoot_restoresDeviceOfAnyTenant() {
+    Device device = new Device();
+    device.setId(1L);
+    device.setState(DeviceState.AVAILABLE);
+    when(deletionPolicy.retentionCutoff(any())).thenReturn(LocalDateTime.now().minusDays(7));
+    when(deviceRepository.restoreInAnyTenant(eq(1L), any(), any())).thenReturn(1);
+    when(deviceRepository.findById(1L)).thenReturn(Optional.of(device));
+    when(deviceRepository.save(device)).thenReturn(device);
+
+    assertEquals(device, deviceService.restoreDevice(1L));
+    verify(deviceRepository, never()).restore(any(), any(), any(), any());
+  }
+
+  @Test
+  void restoreDevice_pastRetention_throwsDeviceNotFoundException() {
+    when(deletionPolicy.retentionCutoff(any())).thenReturn(LocalDateTime.now().minusDays(7));
+    when(deviceRepository.restore(eq(1L), any(), any(), any())).thenReturn(0);
+
+    assertThrows(DeviceNotFoundException.class, () -> TenantContext.callAs(
+        TenantContext.DEFAULT_TENANT, () -> deviceService.restoreDevice(1L)));
+    verify(eventPublisher, never()).publishEvent(any(Object.class));
   }
 
   @Test
@@ -186,6 +431,7 @@ class DeviceServiceTest {
     when(deviceRepository.findById(1L)).thenReturn(Optional.of(device));
 
     assertThrows(InvalidOperationException.class, () -> deviceService.deleteById(1L));
+    verify(eventPublisher, never()).publishEvent(any(Object.class));
   }
 
   @Test
@@ -210,6 +456,22 @@ class DeviceServiceTest {
     verify(deviceRepository, times(1)).save(any(Device.class));
   }
 
+  @Test
+  void updateDevice_savesOverVersionRead() {
+    Device existingDevice = new Device(1L, "Name", "Brand", DeviceState.AVAILABLE,
+        LocalDateTime.now());
+    existingDevice.setVersion(4);
+    Device newDeviceDetails = new Device();
+    newDeviceDetails.setName("UpdatedName");
+    newDeviceDetails.setBrand("Brand");
+    when(deviceRepository.findById(1L)).thenReturn(Optional.of(existingDevice));
+    when(deviceRepository.save(any(Device.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+    Device result = deviceService.updateDevice(1L, newDeviceDetails);
+
+    assertEquals(4, result.getVersion());
+  }
+
   @Test
   void updateDevice_withNonExistingId_throwsDeviceNotFoundException() {
     Device newDeviceDetails = new Device();
@@ -237,6 +499,49 @@ class DeviceServiceTest {
         () -> deviceService.updateDevice(1L, newDeviceDetails));
   }
 
+  @Test
+  void updateDevice_toInUse_startsDefaultLease() {
+    LocalDateTime expiry = LocalDateTime.now().plusMinutes(30);
+    Device existingDevice = new Device();
+    existingDevice.setId(1L);
+    existingDevice.setState(DeviceState.AVAILABLE);
+
+    Device newDeviceDetails = new Device();
+    newDeviceDetails.setState(DeviceState.IN_USE);
+
+    when(deviceRepository.findById(1L)).thenReturn(Optional.of(existingDevice));
+    when(deviceRepository.save(any(Device.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    when(leasePolicy.defaultExpiry(any(LocalDateTime.class))).thenReturn(expiry);
+
+    Device result = deviceService.updateDevice(1L, newDeviceDetails);
+
+    assertEquals(expiry, result.getLeaseExpiresAt());
+  }
+
+  @Test
+  void updateDevice_leavingInUse_endsLease() {
+    Device existingDevice = new Device();
+    existingDevice.setId(1L);
+    existingDevice.setState(DeviceState.IN_USE);
+    existingDevice.setName("Name");
+    existingDevice.setBrand("Brand");
+    existingDevice.setLeaseExpiresAt(LocalDateTime.now().plusMinutes(5));
+    existingDevice.setLeaseToken("token");
+
+    Device newDeviceDetails = new Device();
+    newDeviceDetails.setName("Name");
+    newDeviceDetails.setBrand("Brand");
+    newDeviceDetails.setState(DeviceState.AVAILABLE);
+
+    when(deviceRepository.findById(1L)).thenReturn(Optional.of(existingDevice));
+    when(deviceRepository.save(any(Device.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+    Device result = deviceService.updateDevice(1L, newDeviceDetails);
+
+    assertNull(result.getLeaseExpiresAt());
+    assertNull(result.getLeaseToken());
+  }
+
   @Test
   void partialUpdateDevice_withValidUpdates_updatesDevice() throws IOException {
 
@@ -275,6 +580,28 @@ class DeviceServiceTest {
     verify(deviceRepository, times(1)).save(any(Device.class));
   }
 
+  @Test
+  void partialUpdateDevice_withBlankName_throwsInvalidRequestException() throws IOException {
+    Device existingDevice = new Device(1L, "Name", "Brand", DeviceState.AVAILABLE,
+        LocalDateTime.now());
+    Map<String, Object> updates = Map.of("name", " ");
+    JsonNode jsonNode = mock(JsonNode.class);
+    when(objectMapper.valueToTree(updates)).thenReturn(jsonNode);
+    ObjectReader objectReader = mock(ObjectReader.class);
+    when(objectMapper.readerForUpdating(existingDevice)).thenReturn(objectReader);
+    when(objectReader.readValue(jsonNode)).thenAnswer(invocation -> {
+      existingDevice.setName(" ");
+      return existingDevice;
+    });
+    when(deviceRepository.findById(1L)).thenReturn(Optional.of(existingDevice));
+
+    InvalidRequestException exception = assertThrows(InvalidRequestException.class,
+        () -> deviceService.partialUpdateDevice(1L, updates));
+
+    assertEquals("Name cannot be blank", exception.getMessage());
+    verify(deviceRepository, never()).save(any(Device.class));
+  }
+
   @Test
   void partialUpdateDevice_withNonExistingId_throwsDeviceNotFoundException() {
     Map<String, Object> updates = Map.of("name", "UpdatedName");
@@ -0,0 +1,160 @@
+package com.joaomps.devicemanager.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.joaomps.devicemanager.dto.DeviceSnapshotDelta;
+import com.joaomps.devicemanager.event.DeviceChangedEvent;
+import com.joaomps.devicemanager.exception.SnapshotExpiredException;
+import com.joaomps.devicemanager.model.Device;
+import com.joaomps.devicemanager.model.DeviceState;
+import com.joaomps.devicemanager.repository.DeviceRepository;
+import com.joaomps.devicemanager.snapshot.DeviceSnapshot;
+import com.joaomps.devicemanager.tenant.TenantContext;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class DeviceSnapshotServiceTest {
+
+  @TempDir
+  Path directory;
+
+  private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+  private DeviceRepository deviceRepository;
+  private DeviceSnapshotService service;
+
+  private static Device device(long id, String name) {
+    return new Device(id, name, "Brand", DeviceState.AVAILABLE, LocalDateTime.now());
+  }
+
+  private static byte[] bytes(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.get(bytes);
+    return bytes;
+  }
+
+  @BeforeEach
+  void setUp() throws IOException {
+    TenantContext.set(TenantContext.DEFAULT_TENANT);
+    deviceRepository = mock(DeviceRepository.class);
+    service = new DeviceSnapshotService(deviceRepository, objectMapper, directory.toString(),
+        Duration.ofMinutes(30), 10, Duration.ZERO);
+  }
+
+  @AfterEach
+  void tearDown() {
+    service.shutdown();
+    TenantContext.clear();
+  }
+
+  @Test
+  void current_servesSameSnapshotUntilDevicesChange() throws IOException {
+    when(deviceRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any()))
+        .thenReturn(List.of(device(1L, "a"), device(2L, "b")));
+
+    DeviceSnapshot snapshot = service.current();
+    service.refresh();
+
+    assertSame(snapshot, service.current());
+    verify(deviceRepository, times(1)).findByIdGreaterThanOrderByIdAsc(anyLong(), any());
+    JsonNode plain = objectMapper.readTree(bytes(snapshot.content(false)));
+    JsonNode gzipped = objectMapper.readTree(new GZIPInputStream(
+        new ByteArrayInputStream(bytes(snapshot.content(true)))));
+    assertEquals(2, plain.size());
+    assertEquals(plain, gzipped);
+  }
+
+  @Test
+  void changesSince_returnsDevicesChangedAndRemovedSinceVersion() {
+    Device changed = device(2L, "b2");
+    when(deviceRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any()))
+        .thenReturn(List.of(device(1L, "a"), device(2L, "b"), device(3L, "c")))
+        .thenReturn(List.of(device(1L, "a"), changed, device(4L, "d")));
+    long version = service.current().version();
+
+    service.onDeviceChanged(DeviceChangedEvent.saved(changed));
+    service.refresh();
+    DeviceSnapshotDelta delta = service.changesSince(version);
+
+    assertEquals(version, delta.fromVersion());
+    assertEquals(service.current().version(), delta.toVersion());
+    assertEquals(List.of(2L, 4L), delta.upserted().stream().map(Device::getId).toList());
+    assertEquals(List.of(3L), delta.removed());
+    assertTrue(service.changesSince(delta.toVersion()).upserted().isEmpty());
+  }
+
+  @Test
+  void changesSince_withUnknownVersion_throwsSnapshotExpiredException() {
+    when(deviceRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any()))
+        .thenReturn(List.of(device(1L, "a")));
+
+    assertThrows(SnapshotExpiredException.class, () -> service.changesSince(1L));
+  }
+
+  @Test
+  void version_isDerivedFromDevices() throws IOException {
+    when(deviceRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any()))
+        .thenReturn(List.of(device(1L, "a"), device(2L, "b")));
+    DeviceSnapshotService otherNode = new DeviceSnapshotService(deviceRepository, objectMapper,
+        directory.toString(), Duration.ofMinutes(30), 10, Duration.ZERO);
+
+    try {
+      assertEquals(service.current().version(), otherNode.current().version());
+      assertEquals(service.current().etag(), otherNode.current().etag());
+    } finally {
+      otherNode.shutdown();
+    }
+  }
+
+  @Test
+  void refresh_withUnchangedDevices_keepsCurrentSnapshot() {
+    when(deviceRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any()))
+        .thenReturn(List.of(device(1L, "a")));
+    DeviceSnapshot snapshot = service.current();
+
+    service.onDeviceChanged(DeviceChangedEvent.saved(device(1L, "a")));
+    service.refresh();
+
+    assertSame(snapshot, service.current());
+    assertTrue(Files.exists(snapshot.file(false)));
+  }
+
+  @Test
+  void refresh_keepsReplacedSnapshotDuringGracePeriod() throws IOException {
+    service.shutdown();
+    service = new DeviceSnapshotService(deviceRepository, objectMapper, directory.toString(),
+        Duration.ofMinutes(30), 10, Duration.ofHours(1));
+    when(deviceRepository.findByIdGreaterThanOrderByIdAsc(anyLong(), any()))
+        .thenReturn(List.of(device(1L, "a")))
+        .thenReturn(List.of(device(1L, "a2")));
+    DeviceSnapshot replaced = service.current();
+
+    service.onDeviceChanged(DeviceChangedEvent.saved(device(1L, "a2")));
+    service.refresh();
+    service.refresh();
+
+    assertTrue(Files.exists(replaced.file(false)));
+    assertTrue(Files.exists(replaced.file(true)));
+  }
+}
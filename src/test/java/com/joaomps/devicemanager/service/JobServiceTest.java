@@ -0,0 +1,245 @@
+package com.joaomps.devicemanager.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.joaomps.devicemanager.exception.InvalidOperationException;
+import com.joaomps.devicemanager.exception.JobNotFoundException;
+import com.joaomps.devicemanager.job.JobContext;
+import com.joaomps.devicemanager.job.JobHandler;
+import com.joaomps.devicemanager.model.Job;
+import com.joaomps.devicemanager.model.JobStatus;
+import com.joaomps.devicemanager.model.JobType;
+import com.joaomps.devicemanager.repository.JobRepository;
+import com.joaomps.devicemanager.tenant.TenantContext;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Limit;
+
+class JobServiceTest {
+
+  private JobRepository jobRepository;
+  private JobHandler handler;
+  private JobService jobService;
+
+  private static Job job(Long id, JobStatus status) {
+    Job job = new Job();
+    job.setId(id);
+    job.setType(JobType.BULK_STATE_TRANSITION);
+    job.setStatus(status);
+    job.setParameters("{}");
+    return job;
+  }
+
+  @BeforeEach
+  void setUp() {
+    jobRepository = mock(JobRepository.class);
+    handler = mock(JobHandler.class);
+    when(handler.type()).thenReturn(JobType.BULK_STATE_TRANSITION);
+    when(handler.prepare(any())).thenReturn("{}");
+    jobService = new JobService(jobRepository, List.of(handler), 1, Duration.ZERO,
+        Duration.ofMinutes(1));
+  }
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    jobService.shutdown();
+  }
+
+  @Test
+  void submit_withClaimedJob_runsHandlerAndCompletes() throws Exception {
+    when(jobRepository.save(any(Job.class))).thenAnswer(invocation -> {
+      Job saved = invocation.getArgument(0);
+      saved.setId(1L);
+      return saved;
+    });
+    when(jobRepository.findIdsByStatus(eq(JobStatus.PENDING), any(Limit.class)))
+        .thenReturn(List.of(1L), List.of());
+    when(jobRepository.claim(eq(1L), eq(jobService.node()), any(), any())).thenReturn(1);
+    when(jobRepository.findById(1L)).thenReturn(Optional.of(job(1L, JobStatus.RUNNING)));
+    when(handler.run(any(Job.class), any())).thenReturn("done");
+
+    Job submitted = jobService.submit(JobType.BULK_STATE_TRANSITION,
+        JsonNodeFactory.instance.objectNode());
+
+    assertEquals(JobStatus.PENDING, submitted.getStatus());
+    verify(jobRepository, timeout(2000)).finish(eq(1L), eq(jobService.node()),
+        eq(JobStatus.COMPLETED), eq("done"), any(LocalDateTime.class));
+  }
+
+  @Test
+  void submit_withHandlerFailure_marksJobFailed() throws Exception {
+    when(jobRepository.save(any(Job.class))).thenAnswer(invocation -> {
+      Job saved = invocation.getArgument(0);
+      saved.setId(2L);
+      return saved;
+    });
+    when(jobRepository.findIdsByStatus(eq(JobStatus.PENDING), any(Limit.class)))
+        .thenReturn(List.of(2L), List.of());
+    when(jobRepository.claim(eq(2L), anyString(), any(), any())).thenReturn(1);
+    when(jobRepository.findById(2L)).thenReturn(Optional.of(job(2L, JobStatus.RUNNING)));
+    when(handler.run(any(Job.class), any())).thenThrow(new IllegalStateException("boom"));
+
+    jobService.submit(JobType.BULK_STATE_TRANSITION, JsonNodeFactory.instance.objectNode());
+
+    verify(jobRepository, timeout(2000)).finish(eq(2L), anyString(), eq(JobStatus.FAILED),
+        eq("boom"), any(LocalDateTime.class));
+  }
+
+  @Test
+  void dispatch_withJobClaimedByAnotherNode_doesNotRunIt() throws Exception {
+    when(jobRepository.findIdsByStatus(eq(JobStatus.PENDING), any(Limit.class)))
+        .thenReturn(List.of(3L));
+    when(jobRepository.claim(eq(3L), anyString(), any(), any())).thenReturn(0);
+
+    jobService.dispatch();
+
+    verify(handler, never()).run(any(Job.class), any());
+    assertEquals(0, jobService.runningJobs());
+  }
+
+  @Test
+  void submit_whenLeaseIsLostDuringCheckpoint_leavesJobToNewOwner() throws Exception {
+    when(jobRepository.save(any(Job.class))).thenAnswer(invocation -> {
+      Job saved = invocation.getArgument(0);
+      saved.setId(9L);
+      return saved;
+    });
+    when(jobRepository.findIdsByStatus(eq(JobStatus.PENDING), any(Limit.class)))
+        .thenReturn(List.of(9L), List.of());
+    when(jobRepository.claim(eq(9L), anyString(), any(), any())).thenReturn(1);
+    when(jobRepository.findById(9L)).thenReturn(Optional.of(job(9L, JobStatus.RUNNING)));
+    when(jobRepository.checkpoint(eq(9L), anyString(), any(), anyLong(), any(), any()))
+        .thenReturn(0);
+    when(handler.run(any(Job.class), any())).thenAnswer(invocation -> {
+      invocation.getArgument(1, JobContext.class).checkpoint(10L, 5);
+      return "done";
+    });
+
+    jobService.submit(JobType.BULK_STATE_TRANSITION, JsonNodeFactory.instance.objectNode());
+
+    // The worker dispatches again once it is done with the job.
+    verify(jobRepository, timeout(2000).times(2))
+        .findIdsByStatus(eq(JobStatus.PENDING), any(Limit.class));
+    verify(jobRepository, never()).finish(eq(9L), anyString(), any(), any(), any());
+  }
+
+  @Test
+  void submit_whenHandlerFailsDuringShutdown_releasesJobInsteadOfFailingIt() throws Exception {
+    when(jobRepository.save(any(Job.class))).thenAnswer(invocation -> {
+      Job saved = invocation.getArgument(0);
+      saved.setId(10L);
+      return saved;
+    });
+    when(jobRepository.findIdsByStatus(eq(JobStatus.PENDING), any(Limit.class)))
+        .thenReturn(List.of(10L), List.of());
+    when(jobRepository.claim(eq(10L), anyString(), any(), any())).thenReturn(1);
+    when(jobRepository.findById(10L)).thenReturn(Optional.of(job(10L, JobStatus.RUNNING)));
+    when(handler.run(any(Job.class), any())).thenAnswer(invocation -> {
+      JobContext context = invocation.getArgument(1, JobContext.class);
+      Thread.ofPlatform().start(() -> {
+        try {
+          jobService.shutdown();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      });
+      while (context.proceed()) {
+        Thread.sleep(10);
+      }
+      // What a query interrupted by shutdownNow() looks like to the job.
+      throw new IllegalStateException("connection closed");
+    });
+
+    jobService.submit(JobType.BULK_STATE_TRANSITION, JsonNodeFactory.instance.objectNode());
+
+    verify(jobRepository, timeout(2000)).release(eq(10L), eq(jobService.node()),
+        any(LocalDateTime.class));
+    verify(jobRepository, never()).finish(eq(10L), anyString(), any(), any(), any());
+  }
+
+  @Test
+  void dispatch_renewsOwnLeasesAndRequeuesOnlyExpiredOnes() {
+    when(jobRepository.findIdsByStatus(eq(JobStatus.PENDING), any(Limit.class)))
+        .thenReturn(List.of());
+
+    jobService.dispatch();
+
+    verify(jobRepository).releaseExpired(any(LocalDateTime.class));
+    verify(jobRepository, never()).renewLeases(anyString(), any());
+  }
+
+  @Test
+  void node_isUniquePerInstance() throws InterruptedException {
+    JobService other = new JobService(jobRepository, List.of(handler), 1, Duration.ZERO,
+        Duration.ofMinutes(1));
+    try {
+      assertNotEquals(jobService.node(), other.node());
+    } finally {
+      other.shutdown();
+    }
+  }
+
+  @Test
+  void cancel_withPendingJob_cancelsImmediately() {
+    when(jobRepository.findById(4L)).thenReturn(Optional.of(job(4L, JobStatus.PENDING)),
+        Optional.of(job(4L, JobStatus.CANCELLED)));
+    when(jobRepository.cancelPending(eq(4L), any())).thenReturn(1);
+
+    Job cancelled = jobService.cancel(4L);
+
+    assertEquals(JobStatus.CANCELLED, cancelled.getStatus());
+    verify(jobRepository, never()).requestCancel(anyLong());
+  }
+
+  @Test
+  void cancel_withRunningJob_requestsCancellation() {
+    when(jobRepository.findById(5L)).thenReturn(Optional.of(job(5L, JobStatus.RUNNING)));
+    when(jobRepository.cancelPending(eq(5L), any())).thenReturn(0);
+
+    jobService.cancel(5L);
+
+    verify(jobRepository).requestCancel(5L);
+  }
+
+  @Test
+  void cancel_withFinishedJob_throwsInvalidOperationException() {
+    when(jobRepository.findById(6L)).thenReturn(Optional.of(job(6L, JobStatus.COMPLETED)));
+
+    assertThrows(InvalidOperationException.class, () -> jobService.cancel(6L));
+  }
+
+  @Test
+  void findById_withNonExistingId_throwsJobNotFoundException() {
+    when(jobRepository.findById(7L)).thenReturn(Optional.empty());
+
+    assertThrows(JobNotFoundException.class, () -> jobService.findById(7L));
+  }
+
+  @Test
+  void findById_withJobOfAnotherTenant_throwsJobNotFoundException() {
+    Job job = job(8L, JobStatus.PENDING);
+    job.setTenantId("tenant-a");
+    when(jobRepository.findById(8L)).thenReturn(Optional.of(job));
+
+    TenantContext.callAs("tenant-a", () -> jobService.findById(8L));
+    assertThrows(JobNotFoundException.class,
+        () -> TenantContext.callAs("tenant-b", () -> jobService.findById(8L)));
+  }
+}
@@ -0,0 +1,89 @@
+package com.joaomps.devicemanager.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.joaomps.devicemanager.cluster.ClusterMembership;
+import com.joaomps.devicemanager.event.DeviceChangedEvent;
+import com.joaomps.devicemanager.model.Device;
+import com.joaomps.devicemanager.model.DeviceState;
+import com.joaomps.devicemanager.repository.DeviceRepository;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class LeaseExpirySchedulerTest {
+
+  private DeviceRepository deviceRepository;
+  private LeaseExpiryScheduler scheduler;
+
+  @BeforeEach
+  void setUp() {
+    deviceRepository = mock(DeviceRepository.class);
+    ClusterMembership membership = new ClusterMembership("local", List.of(), 128,
+        mock(ApplicationEventPublisher.class));
+    scheduler = new LeaseExpiryScheduler(deviceRepository, membership,
+        mock(ApplicationEventPublisher.class), mock(PlatformTransactionManager.class));
+  }
+
+  @Test
+  void expireDue_reclaimsOnlyDueLeases() {
+    LocalDateTime now = LocalDateTime.now();
+    scheduler.schedule(1L, now.minusSeconds(5));
+    scheduler.schedule(2L, now.minusSeconds(1));
+    scheduler.schedule(3L, now.plusMinutes(5));
+
+    scheduler.expireDue();
+
+    verify(deviceRepository).expireLeases(eq(List.of(1L, 2L)), any(LocalDateTime.class));
+    assertEquals(1, scheduler.tracked());
+  }
+
+  @Test
+  void expireDue_withRenewedLease_waitsForNewDeadline() {
+    LocalDateTime now = LocalDateTime.now();
+    scheduler.schedule(1L, now.minusSeconds(1));
+    scheduler.schedule(1L, now.plusMinutes(5));
+
+    scheduler.expireDue();
+
+    verify(deviceRepository, never()).expireLeases(anyCollection(), any());
+    assertEquals(1, scheduler.tracked());
+  }
+
+  @Test
+  void onDeviceChanged_withReleasedDevice_stopsTracking() {
+    scheduler.schedule(1L, LocalDateTime.now().minusSeconds(1));
+    Device released = new Device(1L, "Name", "Brand", DeviceState.AVAILABLE, null);
+
+    scheduler.onDeviceChanged(DeviceChangedEvent.saved(released));
+    scheduler.expireDue();
+
+    verify(deviceRepository, never()).expireLeases(anyCollection(), any());
+    assertEquals(0, scheduler.tracked());
+  }
+
+  @Test
+  void expireDue_withManyDueLeases_reclaimsInBatches() {
+    LocalDateTime past = LocalDateTime.now().minusSeconds(1);
+    int count = LeaseExpiryScheduler.BATCH_SIZE * 2 + 1;
+    LongStream.rangeClosed(1, count).forEach(id -> scheduler.schedule(id, past));
+    when(deviceRepository.expireLeases(anyCollection(), any())).thenReturn(0);
+
+    scheduler.expireDue();
+
+    verify(deviceRepository, times(3)).expireLeases(anyCollection(), any());
+    assertEquals(0, scheduler.tracked());
+  }
+}
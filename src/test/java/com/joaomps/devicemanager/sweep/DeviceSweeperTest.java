@@ -0,0 +1,167 @@
+package com.joaomps.devicemanager.sweep;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.joaomps.devicemanager.job.JobContext;
+import com.joaomps.devicemanager.model.Device;
+import com.joaomps.devicemanager.model.DeviceState;
+import com.joaomps.devicemanager.model.SweepPartition;
+import com.joaomps.devicemanager.repository.DeviceRepository;
+import com.joaomps.devicemanager.repository.SweepPartitionRepository;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class DeviceSweeperTest {
+
+  private DeviceRepository deviceRepository;
+  private SweepPartitionRepository partitionRepository;
+  private JobContext context;
+  private DeviceSweeper sweeper;
+  private final Set<Long> swept = ConcurrentHashMap.newKeySet();
+  /**
+   * Records the devices it sees and counts them per partition.
+   */
+  private final DeviceSweepProcessor processor = new DeviceSweepProcessor() {
+    @Override
+    public String name() {
+      return "count";
+    }
+
+    @Override
+    public Sweep resume(String state) {
+      long[] count = {state == null ? 0 : Long.parseLong(state)};
+      return new Sweep() {
+        @Override
+        public void accept(Device device) {
+          swept.add(device.getId());
+          count[0]++;
+        }
+
+        @Override
+        public String state() {
+          return Long.toString(count[0]);
+        }
+      };
+    }
+
+    @Override
+    public String summary(List<String> states) {
+      return states.stream().mapToLong(Long::parseLong).sum() + " devices";
+    }
+  };
+
+  @BeforeEach
+  void setUp() {
+    deviceRepository = mock(DeviceRepository.class);
+    partitionRepository = mock(SweepPartitionRepository.class);
+    context = mock(JobContext.class);
+    when(context.proceed()).thenReturn(true);
+    when(partitionRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+    sweeper = new DeviceSweeper(deviceRepository, partitionRepository,
+        mock(PlatformTransactionManager.class), 2, 1, 2);
+  }
+
+  @AfterEach
+  void tearDown() {
+    sweeper.shutdown();
+  }
+
+  @Test
+  void sweep_splitsIdRangeAndProcessesEveryPartition() throws Exception {
+    when(deviceRepository.findMinId()).thenReturn(1L);
+    when(deviceRepository.findMaxId()).thenReturn(4L);
+    when(deviceRepository.streamRange(eq(0L), eq(2L), any()))
+        .thenReturn(Stream.of(device(1L), device(2L)));
+    when(deviceRepository.streamRange(eq(2L), eq(4L), any()))
+        .thenReturn(Stream.of(device(3L), device(4L)));
+
+    DeviceSweeper.Outcome outcome = sweeper.sweep(7L, processor, context);
+
+    assertEquals(new DeviceSweeper.Outcome(4, "4 devices"), outcome);
+    assertEquals(Set.of(1L, 2L, 3L, 4L), swept);
+    verify(partitionRepository).checkpoint(any(), eq(2L), eq(2L), eq(false), eq("2"));
+    verify(partitionRepository).checkpoint(any(), eq(4L), eq(0L), eq(true), eq("2"));
+    verify(context, times(2)).checkpoint(null, 2L);
+    verify(partitionRepository).deleteByJobId(7L);
+  }
+
+  @Test
+  void sweep_resumesUnfinishedPartitionsFromTheirSavedState() throws Exception {
+    when(partitionRepository.findByJobIdOrderByFromId(7L)).thenReturn(List.of(
+        new SweepPartition(1L, 7L, 0, 2, 2, 2, true, "2"),
+        new SweepPartition(2L, 7L, 2, 4, 3, 1, false, "1")));
+    when(deviceRepository.streamRange(eq(3L), eq(4L), any())).thenReturn(Stream.of(device(4L)));
+
+    DeviceSweeper.Outcome outcome = sweeper.sweep(7L, processor, context);
+
+    assertEquals(new DeviceSweeper.Outcome(4, "4 devices"), outcome);
+    assertEquals(Set.of(4L), swept);
+    verify(deviceRepository, never()).findMaxId();
+    verify(partitionRepository).checkpoint(2L, 4L, 1L, true, "2");
+  }
+
+  @Test
+  void sweep_whenSliceFails_resumesFromLastCommittedState() throws Exception {
+    when(partitionRepository.findByJobIdOrderByFromId(7L)).thenReturn(List.of(
+        new SweepPartition(1L, 7L, 0, 4, 0, 0, false, null)));
+    when(deviceRepository.streamRange(eq(0L), eq(4L), any()))
+        .thenReturn(Stream.of(device(1L), device(2L)));
+    when(deviceRepository.streamRange(eq(2L), eq(4L), any()))
+        .thenReturn(Stream.of(device(3L), device(4L)));
+    when(partitionRepository.checkpoint(1L, 4L, 2L, false, "4"))
+        .thenThrow(new IllegalStateException("connection lost"));
+
+    assertThrows(ExecutionException.class, () -> sweeper.sweep(7L, processor, context));
+
+    when(partitionRepository.findByJobIdOrderByFromId(7L)).thenReturn(List.of(
+        new SweepPartition(1L, 7L, 0, 4, 2, 2, false, "2")));
+    when(deviceRepository.streamRange(eq(2L), eq(4L), any()))
+        .thenReturn(Stream.of(device(3L), device(4L)));
+    doReturn(1).when(partitionRepository).checkpoint(1L, 4L, 2L, false, "4");
+
+    assertEquals(new DeviceSweeper.Outcome(4, "4 devices"),
+        sweeper.sweep(7L, processor, context));
+  }
+
+  @Test
+  void sweep_whenJobStops_keepsPartitionsForResume() throws Exception {
+    when(context.proceed()).thenReturn(false);
+    when(deviceRepository.findMinId()).thenReturn(1L);
+    when(deviceRepository.findMaxId()).thenReturn(4L);
+    when(deviceRepository.streamRange(anyLong(), anyLong(), any()))
+        .thenAnswer(invocation -> Stream.of(device(invocation.getArgument(0, Long.class) + 1),
+            device(invocation.getArgument(0, Long.class) + 2)));
+
+    sweeper.sweep(7L, processor, context);
+
+    verify(partitionRepository, never()).deleteByJobId(any());
+    verify(partitionRepository, never()).checkpoint(any(), anyLong(), anyLong(), eq(true), any());
+  }
+
+  @Test
+  void sweep_withoutDevices_doesNothing() throws Exception {
+    assertEquals(0, sweeper.sweep(7L, processor, context).processed());
+    verify(deviceRepository, never()).streamRange(anyLong(), anyLong(), any());
+  }
+
+  private static Device device(long id) {
+    return new Device(id, "Device" + id, "Brand", DeviceState.AVAILABLE, null);
+  }
+}
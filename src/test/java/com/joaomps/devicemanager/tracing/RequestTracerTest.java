@@ -0,0 +1,104 @@
+package com.joaomps.devicemanager.tracing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class RequestTracerTest {
+
+  private static final String TRACEPARENT =
+      "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01";
+
+  private final InMemorySpanExporter exporter = new InMemorySpanExporter(10);
+
+  @Test
+  void finish_withSampledRequest_exportsNestedSpans() {
+    RequestTracer tracer = new RequestTracer(1.0, Duration.ZERO, 256, exporter);
+
+    assertTrue(tracer.begin(null));
+    int service = tracer.startSpan("DeviceService.partialUpdateDevice");
+    int repository = tracer.startSpan("DeviceRepository.findById");
+    tracer.attribute(repository, "db.rows", 1L);
+    tracer.endSpan(repository);
+    tracer.endSpan(service);
+    tracer.finish("PATCH /api/v1/devices/{id}");
+
+    Trace trace = exporter.traces().getFirst();
+    List<Span> spans = trace.spans();
+    assertEquals("PATCH /api/v1/devices/{id}", trace.name());
+    assertTrue(trace.sampled());
+    assertEquals(3, spans.size());
+    assertEquals(spans.get(0).spanId(), spans.get(1).parentSpanId());
+    assertEquals(spans.get(1).spanId(), spans.get(2).parentSpanId());
+    assertEquals(1L, spans.get(2).attributes().get("db.rows"));
+    assertTrue(spans.get(1).selfMicros() <= spans.get(1).durationMicros());
+    assertFalse(tracer.isRecording());
+  }
+
+  @Test
+  void begin_withUnsampledRequestAndNoSlowCapture_recordsNothing() {
+    RequestTracer tracer = new RequestTracer(0.0, Duration.ZERO, 256, exporter);
+
+    assertFalse(tracer.begin(null));
+    assertEquals(RequestTracer.NO_SPAN, tracer.startSpan("ignored"));
+    tracer.finish("GET /api/v1/devices");
+
+    assertTrue(exporter.traces().isEmpty());
+  }
+
+  @Test
+  void finish_withUnsampledSlowRequest_exportsTrace() {
+    RequestTracer tracer = new RequestTracer(0.0, Duration.ofNanos(1), 256, exporter);
+
+    assertTrue(tracer.begin(null));
+    assertFalse(tracer.isSampled());
+    tracer.endSpan(tracer.startSpan("DeviceService.findAll"));
+    tracer.finish("GET /api/v1/devices");
+
+    Trace trace = exporter.traces().getFirst();
+    assertFalse(trace.sampled());
+    assertTrue(trace.slow());
+    assertEquals(2, trace.spans().size());
+  }
+
+  @Test
+  void finish_withUnsampledFastRequest_exportsNothing() {
+    RequestTracer tracer = new RequestTracer(0.0, Duration.ofMinutes(1), 256, exporter);
+
+    assertTrue(tracer.begin(null));
+    tracer.finish("GET /api/v1/devices");
+
+    assertTrue(exporter.traces().isEmpty());
+  }
+
+  @Test
+  void begin_withSampledTraceparent_continuesTrace() {
+    RequestTracer tracer = new RequestTracer(0.0, Duration.ZERO, 256, exporter);
+
+    assertTrue(tracer.begin(TRACEPARENT));
+    assertEquals("4bf92f3577b34da6a3ce929d0e0e4736", tracer.currentTraceId());
+    tracer.finish("GET /api/v1/devices");
+
+    Trace trace = exporter.traces().getFirst();
+    assertEquals("00f067aa0ba902b7", trace.spans().getFirst().parentSpanId());
+  }
+
+  @Test
+  void startSpan_beyondMaxSpans_countsDroppedSpans() {
+    RequestTracer tracer = new RequestTracer(1.0, Duration.ZERO, 3, exporter);
+
+    tracer.begin(null);
+    for (int i = 0; i < 5; i++) {
+      tracer.endSpan(tracer.startSpan("span" + i));
+    }
+    tracer.finish("GET /api/v1/devices");
+
+    Trace trace = exporter.traces().getFirst();
+    assertEquals(3, trace.spans().size());
+    assertEquals(3, trace.droppedSpans());
+  }
+}
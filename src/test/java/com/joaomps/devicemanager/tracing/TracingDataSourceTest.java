@@ -0,0 +1,107 @@
+package com.joaomps.devicemanager.tracing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+class TracingDataSourceTest {
+
+  private final InMemorySpanExporter exporter = new InMemorySpanExporter(10);
+  private final RequestTracer tracer = new RequestTracer(1.0, Duration.ZERO, 256, exporter);
+  private TracingDataSource dataSource;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    JdbcDataSource h2 = new JdbcDataSource();
+    h2.setURL("jdbc:h2:mem:tracing;DB_CLOSE_DELAY=-1");
+    dataSource = new TracingDataSource(h2, mockProvider(tracer));
+
+    try (Connection connection = h2.getConnection();
+        Statement statement = connection.createStatement()) {
+      statement.execute("drop table if exists devices");
+      statement.execute("create table devices (id int primary key, name varchar(50))");
+      statement.execute("insert into devices values (1, 'a'), (2, 'b'), (3, 'c')");
+    }
+  }
+
+  @Test
+  void executeQuery_whileRecording_recordsSqlAndRowCount() throws Exception {
+    tracer.begin(null);
+    try (Connection connection = dataSource.getConnection();
+        PreparedStatement statement = connection.prepareStatement(
+            "select * from devices where id >= ?")) {
+      statement.setInt(1, 2);
+      try (ResultSet resultSet = statement.executeQuery()) {
+        while (resultSet.next()) {
+          resultSet.getString("name");
+        }
+      }
+    }
+    tracer.finish("test");
+
+    Map<String, Object> sql = sqlSpans().getFirst().attributes();
+    assertEquals("select * from devices where id >= ?", sql.get("db.statement"));
+    assertEquals(2L, sql.get("db.rows"));
+  }
+
+  @Test
+  void executeUpdate_whileRecording_recordsUpdatedRows() throws Exception {
+    tracer.begin(null);
+    try (Connection connection = dataSource.getConnection();
+        PreparedStatement statement = connection.prepareStatement(
+            "update devices set name = 'x' where id <= 2")) {
+      statement.executeUpdate();
+    }
+    tracer.finish("test");
+
+    assertEquals(2L, sqlSpans().getFirst().attributes().get("db.rows"));
+  }
+
+  @Test
+  void getConnection_whileNotRecording_returnsPlainConnection() throws Exception {
+    try (Connection connection = dataSource.getConnection()) {
+      assertSame(connection.unwrap(Connection.class).getClass(), connection.getClass());
+    }
+  }
+
+  @Test
+  void getConnection_whileOnlyWatchingForSlowRequests_returnsPlainConnection() throws Exception {
+    RequestTracer slowOnly = new RequestTracer(0.0, Duration.ofNanos(1), 256, exporter);
+    ObjectProvider<RequestTracer> provider = mockProvider(slowOnly);
+    TracingDataSource slowOnlyDataSource =
+        new TracingDataSource(dataSource.getTargetDataSource(), provider);
+
+    slowOnly.begin(null);
+    try (Connection connection = slowOnlyDataSource.getConnection()) {
+      assertSame(connection.unwrap(Connection.class).getClass(), connection.getClass());
+    } finally {
+      slowOnly.finish("test");
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static ObjectProvider<RequestTracer> mockProvider(RequestTracer requestTracer) {
+    ObjectProvider<RequestTracer> provider = mock(ObjectProvider.class);
+    when(provider.getIfAvailable()).thenReturn(requestTracer);
+    return provider;
+  }
+
+  private List<Span> sqlSpans() {
+    return exporter.traces().getFirst().spans().stream()
+        .filter(span -> span.name().startsWith("sql"))
+        .toList();
+  }
+}
@@ -0,0 +1,84 @@
+package com.joaomps.devicemanager.tuning;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.joaomps.devicemanager.tuning.AdaptiveLimit.Decision;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks each rule of the limit on hand-made samples. How it behaves against a pool and a
+ * database under load is measured by {@code PoolAutotuneBenchmarkTest}.
+ */
+class AdaptiveLimitTest {
+
+  private static AdaptiveLimit limit(int initial) {
+    return new AdaptiveLimit(2, 60, initial, 0.25, 0.7, Duration.ofMillis(5), 60);
+  }
+
+  private static PoolSample idle(double usageMillis, double concurrency) {
+    return new PoolSample(100, usageMillis, 0, concurrency, 0);
+  }
+
+  private static PoolSample waiting(double usageMillis, double concurrency) {
+    return new PoolSample(100, usageMillis, 20, concurrency, 3);
+  }
+
+  @Test
+  void update_whileCallersWait_increases() {
+    AdaptiveLimit limit = limit(10);
+
+    assertEquals(Decision.INCREASE, limit.update(waiting(2, 10)));
+    assertEquals(11, limit.limit());
+  }
+
+  @Test
+  void update_withLatencyRiseWhileCallersWait_decreases() {
+    AdaptiveLimit limit = limit(10);
+    limit.update(idle(2, 8));
+
+    assertEquals(Decision.DECREASE, limit.update(waiting(3, 10)));
+    assertEquals(7, limit.limit());
+  }
+
+  @Test
+  void update_withLatencyRiseAndNobodyWaiting_holds() {
+    AdaptiveLimit limit = limit(10);
+    limit.update(idle(2, 8));
+
+    assertEquals(Decision.HOLD, limit.update(idle(10, 8)));
+    assertEquals(10, limit.limit());
+  }
+
+  @Test
+  void update_farBelowLimit_shrinks() {
+    AdaptiveLimit limit = limit(10);
+
+    assertEquals(Decision.SHRINK, limit.update(idle(2, 3)));
+    assertEquals(9, limit.limit());
+  }
+
+  @Test
+  void update_withoutCompletedWork_increasesOnlyWhileCallersWait() {
+    AdaptiveLimit limit = limit(10);
+
+    assertEquals(Decision.HOLD, limit.update(new PoolSample(0, 0, 0, 0, 0)));
+    assertEquals(Decision.INCREASE, limit.update(new PoolSample(0, 0, 0, 0, 2)));
+    assertEquals(11, limit.limit());
+  }
+
+  @Test
+  void update_neverLeavesBounds() {
+    AdaptiveLimit limit = new AdaptiveLimit(4, 6, 5, 0.25, 0.7, Duration.ofMillis(5), 60);
+
+    limit.update(waiting(2, 5));
+    assertEquals(Decision.HOLD, limit.update(waiting(2, 6)));
+    assertEquals(6, limit.limit());
+
+    limit.update(waiting(100, 6));
+    assertEquals(4, limit.limit());
+    assertEquals(Decision.HOLD, limit.update(waiting(100, 4)));
+    assertEquals(Decision.HOLD, limit.update(idle(2, 0)));
+    assertEquals(4, limit.limit());
+  }
+}
@@ -0,0 +1,87 @@
+package com.joaomps.devicemanager.tuning;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.zaxxer.hikari.HikariConfigMXBean;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PoolAutotunerTest {
+
+  private HikariPoolMXBean pool;
+  private HikariConfigMXBean config;
+  private Timer usage;
+  private Timer acquire;
+  private PoolAutotuner tuner;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    HikariDataSource hikari = mock(HikariDataSource.class);
+    pool = mock(HikariPoolMXBean.class);
+    config = mock(HikariConfigMXBean.class);
+    when(hikari.getPoolName()).thenReturn("test");
+    when(hikari.getMaximumPoolSize()).thenReturn(10);
+    when(hikari.getHikariPoolMXBean()).thenReturn(pool);
+    when(hikari.getHikariConfigMXBean()).thenReturn(config);
+    when(config.getMinimumIdle()).thenReturn(10);
+    DataSource dataSource = mock(DataSource.class);
+    when(dataSource.unwrap(HikariDataSource.class)).thenReturn(hikari);
+
+    MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    usage = meterRegistry.timer("hikaricp.connections.usage", "pool", "test");
+    acquire = meterRegistry.timer("hikaricp.connections.acquire", "pool", "test");
+    tuner = new PoolAutotuner(dataSource, meterRegistry, true, 4, 40, 0.25, 0.7,
+        Duration.ofMillis(5), 60, false, 8, 25, 400);
+    tuner.start();
+  }
+
+  @Test
+  void tune_whenShrinking_lowersMaximumWithoutRecyclingPool() {
+    for (int i = 0; i < 3; i++) {
+      usage.record(Duration.ofMillis(1));
+      acquire.record(Duration.ZERO);
+
+      tuner.tune();
+    }
+
+    verify(config).setMaximumPoolSize(9);
+    verify(config).setMaximumPoolSize(8);
+    verify(config).setMaximumPoolSize(7);
+    verify(config).setMinimumIdle(7);
+    verify(pool, never()).softEvictConnections();
+  }
+
+  @Test
+  void tune_whenDecreasing_doesNotRecyclePool() {
+    usage.record(Duration.ofMillis(2));
+    acquire.record(Duration.ZERO);
+    when(pool.getThreadsAwaitingConnection()).thenReturn(0);
+    tuner.tune();
+    usage.record(Duration.ofMillis(20));
+    acquire.record(Duration.ofMillis(50));
+    when(pool.getThreadsAwaitingConnection()).thenReturn(3);
+
+    tuner.tune();
+
+    verify(config).setMaximumPoolSize(6);
+    verify(pool, never()).softEvictConnections();
+  }
+
+  @Test
+  void tune_withoutSamples_keepsSize() {
+    tuner.tune();
+
+    verify(config, never()).setMaximumPoolSize(anyInt());
+  }
+}
@@ -0,0 +1,69 @@
+package com.joaomps.devicemanager.tuning;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.sql.Connection;
+import java.sql.Statement;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.test.context.TestPropertySource;
+
+/**
+ * Starts the application on an in-memory database and checks that the autotuner finds the Hikari
+ * pool and its metrics as Spring Boot registers them, and samples them when it runs.
+ */
+@SpringBootTest(webEnvironment = WebEnvironment.MOCK)
+@TestPropertySource(properties = {
+    "spring.jpa.hibernate.ddl-auto=create-drop",
+    "spring.datasource.url=jdbc:h2:mem:autotune;DB_CLOSE_DELAY=-1",
+    "spring.datasource.username=sa",
+    "spring.datasource.password=",
+    "spring.datasource.driver-class-name=org.h2.Driver",
+    "device-manager.warmup.enabled=false",
+    "device-manager.autotune.interval=PT1H"
+})
+class PoolAutotunerWiringTest {
+
+  @Autowired
+  private DataSource dataSource;
+
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  @Autowired
+  private PoolAutotuner tuner;
+
+  @Test
+  void tune_samplesHikariMetricsOfTheApplicationPool() throws Exception {
+    Gauge poolLimit = meterRegistry.find("devicemanager.autotune.pool.limit").gauge();
+    assertNotNull(poolLimit, "The autotuner did not start on the application's pool");
+    HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+    assertEquals(hikari.getMaximumPoolSize(), (int) poolLimit.value());
+
+    for (int i = 0; i < 20; i++) {
+      try (Connection connection = dataSource.getConnection();
+          Statement statement = connection.createStatement()) {
+        statement.execute("select 1");
+      }
+    }
+    Timer usage = meterRegistry.find("hikaricp.connections.usage").timer();
+    assertNotNull(usage);
+    assertTrue(usage.count() >= 20);
+
+    tuner.tune();
+
+    double decisions = meterRegistry.find("devicemanager.autotune.decisions").counters().stream()
+        .mapToDouble(Counter::count).sum();
+    assertTrue(decisions >= 1, "The autotuner did not sample the pool");
+  }
+}
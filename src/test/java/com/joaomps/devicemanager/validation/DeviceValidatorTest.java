@@ -0,0 +1,103 @@
+package com.joaomps.devicemanager.validation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.joaomps.devicemanager.dto.DeviceCreationRequest;
+import com.joaomps.devicemanager.model.Device;
+import com.joaomps.devicemanager.model.DeviceState;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+
+class DeviceValidatorTest {
+
+  private static final String[] VALUES = {null, "", " ", "   ", "\t", "\n", "\u0000", "\u001f",
+      "\u00a0", "\u2003", "a", " a ", "Device 1", "\tx\n"};
+
+  private static ValidatorFactory validatorFactory;
+  private static Validator beanValidator;
+
+  private final DeviceValidator validator = new DeviceValidator();
+
+  @BeforeAll
+  static void setUp() {
+    validatorFactory = Validation.buildDefaultValidatorFactory();
+    beanValidator = validatorFactory.getValidator();
+  }
+
+  @AfterAll
+  static void tearDown() {
+    validatorFactory.close();
+  }
+
+  @Test
+  void validate_creationRequest_matchesBeanValidation() {
+    for (String name : VALUES) {
+      for (String brand : VALUES) {
+        DeviceCreationRequest request = new DeviceCreationRequest(name, brand);
+        assertEquals(beanValidationErrors(request), errors(request),
+            () -> Arrays.toString(new String[] {name, brand}));
+      }
+    }
+  }
+
+  @Test
+  void validate_device_matchesBeanValidation() {
+    for (String name : VALUES) {
+      for (String brand : VALUES) {
+        Device device = new Device(1L, name, brand, DeviceState.AVAILABLE, LocalDateTime.now());
+        assertEquals(beanValidationErrors(device), errors(device),
+            () -> Arrays.toString(new String[] {name, brand}));
+      }
+    }
+  }
+
+  @Test
+  void validate_recordsRejectedValueAndCode() {
+    DeviceCreationRequest request = new DeviceCreationRequest(" ", "Apple");
+    BeanPropertyBindingResult result = new BeanPropertyBindingResult(request, "request");
+
+    validator.validate(request, result);
+
+    FieldError error = result.getFieldError("name");
+    assertEquals(" ", error.getRejectedValue());
+    assertEquals("NotBlank", error.getCode());
+    assertEquals(DeviceValidator.NAME_BLANK, error.getDefaultMessage());
+  }
+
+  @Test
+  void supports_onlyDeviceWriteTypes() {
+    assertTrue(validator.supports(DeviceCreationRequest.class));
+    assertTrue(validator.supports(Device.class));
+    assertFalse(validator.supports(String.class));
+  }
+
+  private Map<String, String> errors(Object target) {
+    BeanPropertyBindingResult result = new BeanPropertyBindingResult(target, "target");
+    validator.validate(target, result);
+    Map<String, String> errors = new HashMap<>();
+    result.getFieldErrors()
+        .forEach(error -> errors.put(error.getField(), error.getDefaultMessage()));
+    return errors;
+  }
+
+  private static Map<String, String> beanValidationErrors(Object target) {
+    Map<String, String> errors = new HashMap<>();
+    for (ConstraintViolation<Object> violation : beanValidator.validate(target)) {
+      errors.put(violation.getPropertyPath().toString(), violation.getMessage());
+    }
+    return errors;
+  }
+}